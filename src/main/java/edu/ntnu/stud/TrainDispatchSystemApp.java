@@ -1,7 +1,17 @@
 package edu.ntnu.stud;
 
+import edu.ntnu.stud.persistence.LogCompactor;
+import edu.ntnu.stud.persistence.SnapshotFile;
+import edu.ntnu.stud.persistence.WriteAheadLog;
+import edu.ntnu.stud.register.SimulatedClock;
+import edu.ntnu.stud.register.TrackConflictPolicy;
 import edu.ntnu.stud.register.TrainRegister;
 import edu.ntnu.stud.userinterface.UserInterfaceManager;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalTime;
 
 
 
@@ -16,12 +26,37 @@ import edu.ntnu.stud.userinterface.UserInterfaceManager;
  * The main method starts the program, providing users with a interface
  * for interacting with and managing train dispatch data.</p>
  *
+ * <p>Every change of the register is written to a {@code WriteAheadLog}. A
+ * {@code LogCompactor} regularly folds the log into a {@code SnapshotFile} of the register,
+ * and does so once more when the application exits. On startup the
+ * snapshot is loaded and the rest of the log is replayed, so the delays and track changes of
+ * the day survive a restart or a crash. The pre-set departures are only loaded if there is
+ * nothing to recover.</p>
+ *
+ * <p>Started with {@code -Dtds.clockSpeed=N}, the station clock is simulated: it starts at the
+ * current time and runs N times faster than real time, and the live departure board moves the
+ * station time along with it (for example {@code -Dtds.clockSpeed=1440} runs a day in a
+ * minute).</p>
+ *
  * @author Karwan Shekhe
- * @version 0.0.3 (Version of this class)
+ * @version 0.0.9 (Version of this class)
  * @since 0.0.3 (Introduced in Version 0.0.3 of the Train Dispatch System application)
  */
 public class TrainDispatchSystemApp {
 
+  // The write-ahead log of the register, in the working directory:
+  private static final Path REGISTER_LOG_FILE = Path.of("train-register.wal");
+
+  // The snapshot of the register, written by the log compactor:
+  private static final Path REGISTER_SNAPSHOT_FILE = Path.of("train-register.snapshot");
+
+  // Compacting the log once a minute, if it holds at least 1 MB of changes:
+  private static final long COMPACTION_INTERVAL_MILLIS = 60_000;
+  private static final long COMPACTION_MIN_LOG_BYTES = 1024 * 1024;
+
+  // The system property with the speed of a simulated station clock:
+  private static final String CLOCK_SPEED_PROPERTY = "tds.clockSpeed";
+
   /**
    * The main entry point of the Train Dispatch System Application.
    * Initiates the program's operation by launching the user interface
@@ -31,13 +66,110 @@ public class TrainDispatchSystemApp {
    */
   public static void main(String[] args) {
     // Initializing the register
-    TrainRegister initializer = new TrainRegister();
-    initializer.initializeDepartureRegister();
+    TrainRegister initializer = new TrainRegister(stationClock());
+    initializer.setTrackConflictPolicy(TrackConflictPolicy.REJECT); // No double bookings
+
+    WriteAheadLog registerLog = recoverRegister(initializer);
+    LogCompactor compactor = registerLog == null ? null : new LogCompactor(registerLog,
+        REGISTER_SNAPSHOT_FILE, COMPACTION_INTERVAL_MILLIS, COMPACTION_MIN_LOG_BYTES);
 
     // Creating an instance of UserInterfaceManager and pass the initializer
     UserInterfaceManager ui = new UserInterfaceManager(initializer);
 
     // Calls the start method
     ui.start();
+
+    if (registerLog != null) {
+      try (registerLog; compactor) {
+        // The next startup only has to load the snapshot:
+        compactor.compact();
+      } catch (IOException e) {
+        System.err.println("The register could not be saved: " + e.getMessage());
+      }
+    }
+  }
+
+
+  /**
+   * Provides the clock of the station: the system clock, or a simulated clock if a speed is
+   * given with the {@code tds.clockSpeed} system property.
+   *
+   * @return The clock of the station.
+   */
+  private static Clock stationClock() {
+    String speed = System.getProperty(CLOCK_SPEED_PROPERTY);
+    if (speed == null) {
+      return Clock.systemDefaultZone();
+    }
+
+    try {
+      return new SimulatedClock(LocalTime.now(), Double.parseDouble(speed));
+    } catch (IllegalArgumentException e) {
+      System.err.println("Invalid clock speed " + speed + ", using the real time: "
+          + e.getMessage());
+      return Clock.systemDefaultZone();
+    }
+  }
+
+
+  /**
+   * Loads the snapshot of the register, if there is one, and replays the rest of the
+   * write-ahead log into the register. If there is nothing to recover, the pre-set departures
+   * are loaded.
+   *
+   * <p>If the log is missing (or empty) but the snapshot is there, the snapshot is kept, and a
+   * new log is started at the position of the snapshot. If the log can not be used at all,
+   * the application runs without it, with the snapshot if it could be loaded, and otherwise
+   * with the pre-set departures.</p>
+   *
+   * @param initializer The register to recover.
+   * @return The open log, or {@code null} if the log could not be used.
+   */
+  private static WriteAheadLog recoverRegister(TrainRegister initializer) {
+    long logPosition = 0;
+    boolean hasSnapshot = false;
+    if (Files.exists(REGISTER_SNAPSHOT_FILE)) {
+      try {
+        SnapshotFile snapshotFile = SnapshotFile.open(REGISTER_SNAPSHOT_FILE);
+        snapshotFile.loadInto(initializer);
+        logPosition = snapshotFile.getLogPosition();
+        hasSnapshot = true;
+      } catch (IOException e) {
+        System.err.println("The register snapshot could not be loaded: " + e.getMessage());
+      }
+    }
+
+    WriteAheadLog registerLog = null;
+    try {
+      registerLog = new WriteAheadLog(REGISTER_LOG_FILE);
+      if (hasSnapshot && registerLog.position() == registerLog.getBasePosition()
+          && registerLog.getBasePosition() != logPosition) {
+        // The log was lost, so it goes on from the snapshot:
+        System.err.println("The register log is missing, continuing from the snapshot");
+        registerLog.startAt(logPosition);
+      }
+      // Recovering the changes made since the snapshot, before a crash or restart:
+      if (registerLog.recover(initializer, logPosition) == 0 && !hasSnapshot) {
+        initializer.initializeDepartureRegister();
+      }
+      return registerLog;
+
+    } catch (IOException e) {
+      System.err.println("The register log could not be used, changes will not be saved: "
+          + e.getMessage());
+      if (registerLog != null) {
+        try {
+          registerLog.close();
+        } catch (IOException closeFailure) {
+          e.addSuppressed(closeFailure);
+        }
+      }
+      initializer.setRegisterLog(null);
+      if (!hasSnapshot) {
+        initializer.removeAllTrains();  // Whatever was replayed before the failure
+        initializer.initializeDepartureRegister();
+      }
+      return null;
+    }
   }
 }
\ No newline at end of file
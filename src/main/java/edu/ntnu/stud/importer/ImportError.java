@@ -0,0 +1,26 @@
+package edu.ntnu.stud.importer;
+
+/**
+ * The {@code ImportError} record describes one row of a timetable file that could not be
+ * imported, and why.
+ *
+ * @param lineNumber The line number of the row in the file, starting at 1.
+ * @param message    The reason the row was not imported.
+ *
+ * @author Karwan Shekhe
+ * @version 0.0.1 (Version of this class)
+ * @since 0.2.0 (Introduced in Version 0.2.0 of the Train Dispatch System application)
+ */
+public record ImportError(long lineNumber, String message) {
+
+  /**
+   * Provides a readable description of the error.
+   *
+   * @return The line number and the reason.
+   * @since 0.0.1
+   */
+  @Override
+  public String toString() {
+    return "Line " + lineNumber + ": " + message;
+  }
+}
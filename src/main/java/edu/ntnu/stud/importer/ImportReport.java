@@ -0,0 +1,212 @@
+package edu.ntnu.stud.importer;
+
+import edu.ntnu.stud.register.AddResult;
+import edu.ntnu.stud.traindispatchsystem.TrainDispatchSystem;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The {@code ImportReport} class summarizes an import of a timetable file: how many rows were
+ * read and imported, which rows failed and why, and how fast the import was.
+ *
+ * <p>Only the first {@value #MAX_REPORTED_ERRORS} errors are kept with their line number and
+ * reason, so a broken file of millions of rows can not fill the memory with errors.
+ * All errors are counted.</p>
+ *
+ * @author Karwan Shekhe
+ * @version 0.0.3 (Version of this class)
+ * @since 0.2.0 (Introduced in Version 0.2.0 of the Train Dispatch System application)
+ */
+public class ImportReport {
+
+  // The maximum number of errors kept with their line number and reason:
+  public static final int MAX_REPORTED_ERRORS = 100;
+
+  private long rowsRead;                  // Data rows read, without headers and blank lines
+  private long rowsImported;              // Rows added to the register
+  private long errorCount;                // Rows that were not imported
+  private final List<ImportError> errors; // The first errors
+  private long elapsedNanos;              // The duration of the import
+
+
+  /**
+   * Constructs an empty report. Only the importers create reports.
+   *
+   * @since 0.0.1
+   */
+  ImportReport() {
+    errors = new ArrayList<>();
+  }
+
+
+  /**
+   * Counts a data row that was read.
+   *
+   * @since 0.0.1
+   */
+  void recordRowRead() {
+    rowsRead++;
+  }
+
+
+  /**
+   * Counts several data rows that were read.
+   *
+   * @param count The number of rows.
+   * @since 0.0.2
+   */
+  void recordRowsRead(long count) {
+    rowsRead += count;
+  }
+
+
+  /**
+   * Counts rows that were not imported, whose reasons were not kept.
+   *
+   * @param count The number of rows.
+   * @since 0.0.2
+   */
+  void recordUnreportedErrors(long count) {
+    errorCount += count;
+  }
+
+
+  /**
+   * Counts a row that was added to the register.
+   *
+   * @since 0.0.1
+   */
+  void recordImported() {
+    rowsImported++;
+  }
+
+
+  /**
+   * Records the result of adding the departure of a row to the register.
+   *
+   * @param lineNumber    The line number of the row.
+   * @param trainDispatch The departure of the row.
+   * @param result        The result of adding the departure.
+   * @since 0.0.3
+   */
+  void recordAddResult(long lineNumber, TrainDispatchSystem trainDispatch, AddResult result) {
+    switch (result) {
+      case ADDED -> recordImported();
+      case DUPLICATE_TRAIN_NUMBER -> recordError(lineNumber,
+          "Train number " + trainDispatch.getTrainNumber() + " is already in use");
+      case TRACK_CONFLICT -> recordError(lineNumber,
+          "Track " + trainDispatch.getTrack() + " is occupied");
+      default -> recordError(lineNumber, "Invalid departure");
+    }
+  }
+
+
+  /**
+   * Counts a row that was not imported, and keeps the reason if there is room for it.
+   *
+   * @param lineNumber The line number of the row.
+   * @param message    The reason the row was not imported.
+   * @since 0.0.1
+   */
+  void recordError(long lineNumber, String message) {
+    errorCount++;
+    if (errors.size() < MAX_REPORTED_ERRORS) {
+      errors.add(new ImportError(lineNumber, message));
+    }
+  }
+
+
+  /**
+   * Completes the report once the import is done: sets its duration, and orders the errors
+   * by line number, since rows may fail both when they are parsed and when their batch is
+   * added to the register.
+   *
+   * @param elapsedNanos The duration in nanoseconds.
+   * @since 0.0.1
+   */
+  void finish(long elapsedNanos) {
+    this.elapsedNanos = elapsedNanos;
+    errors.sort(Comparator.comparingLong(ImportError::lineNumber));
+  }
+
+
+  /**
+   * Provides the number of data rows read, not counting headers and blank lines.
+   *
+   * @return The number of rows read.
+   * @since 0.0.1
+   */
+  public long getRowsRead() {
+    return rowsRead;
+  }
+
+
+  /**
+   * Provides the number of rows added to the register.
+   *
+   * @return The number of imported rows.
+   * @since 0.0.1
+   */
+  public long getRowsImported() {
+    return rowsImported;
+  }
+
+
+  /**
+   * Provides the number of rows that were not imported.
+   *
+   * @return The number of errors.
+   * @since 0.0.1
+   */
+  public long getErrorCount() {
+    return errorCount;
+  }
+
+
+  /**
+   * Provides the first errors that were found, ordered by line number.
+   *
+   * @return An unmodifiable list of at most {@value #MAX_REPORTED_ERRORS} errors.
+   * @since 0.0.1
+   */
+  public List<ImportError> getErrors() {
+    return Collections.unmodifiableList(errors);
+  }
+
+
+  /**
+   * Provides the duration of the import.
+   *
+   * @return The duration in nanoseconds.
+   * @since 0.0.1
+   */
+  public long getElapsedNanos() {
+    return elapsedNanos;
+  }
+
+
+  /**
+   * Provides the throughput of the import.
+   *
+   * @return The number of rows read per second.
+   * @since 0.0.1
+   */
+  public double getRowsPerSecond() {
+    return elapsedNanos == 0 ? 0 : rowsRead * 1_000_000_000.0 / elapsedNanos;
+  }
+
+
+  /**
+   * Provides a one line summary of the import.
+   *
+   * @return The summary.
+   * @since 0.0.1
+   */
+  @Override
+  public String toString() {
+    return String.format("%d rows read, %d imported, %d errors, %.0f rows/sec",
+        rowsRead, rowsImported, errorCount, getRowsPerSecond());
+  }
+}
@@ -0,0 +1,302 @@
+package edu.ntnu.stud.importer;
+
+import edu.ntnu.stud.register.AddResult;
+import edu.ntnu.stud.register.TrainRegister;
+import edu.ntnu.stud.traindispatchsystem.TrainDispatchSystem;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * <p>The {@code ParallelTimetableImporter} class loads very large timetable CSV files (for
+ * example multi-gigabyte historical dumps) into a {@code TrainRegister}, using all cores.</p>
+ *
+ * <p>The file is memory-mapped and split into chunks that start and end on line boundaries.
+ * The chunks are read and validated in parallel on a fork-join pool, each into its own list of
+ * departures, with the same format and rules as the {@code TimetableCsvImporter}. The parsed
+ * chunks are then added to the register one after the other, in file order. The first row with
+ * a train number therefore always wins, and a later row with the same train number is rejected
+ * by the {@code TrainManager} of the register, no matter which chunk was parsed first.</p>
+ *
+ * <p>Parsing and validating the rows is the expensive part of an import, and scales with the
+ * number of cores. Adding to the register is done by one thread, since the register is not
+ * thread-safe.</p>
+ *
+ * <blockquote><pre>
+ * <p><strong>Example Usage:</strong></p>
+ *
+ * {@code
+ *    ImportReport report = new ParallelTimetableImporter()
+ *        .importFile(Path.of("history.csv"), trainRegister);
+ * }
+ * </pre></blockquote>
+ *
+ * @author Karwan Shekhe
+ * @version 0.0.2 (Version of this class)
+ * @since 0.2.0 (Introduced in Version 0.2.0 of the Train Dispatch System application)
+ */
+public class ParallelTimetableImporter {
+
+  // Chunks per thread, so that threads finishing early can take more chunks:
+  private static final int CHUNKS_PER_THREAD = 4;
+
+  // The largest chunk, well below the 2 GB limit of a single mapping:
+  private static final long MAX_CHUNK_BYTES = 256L * 1024 * 1024;
+
+  private final int parallelism;
+
+
+  /**
+   * Constructs an importer that uses all available cores.
+   *
+   * @since 0.0.1
+   */
+  public ParallelTimetableImporter() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+
+  /**
+   * Constructs an importer that uses the given number of threads.
+   *
+   * @param parallelism The number of threads parsing the file.
+   * @throws IllegalArgumentException if the parallelism is not positive.
+   * @since 0.0.1
+   */
+  public ParallelTimetableImporter(int parallelism) {
+    if (parallelism <= 0) {
+      throw new IllegalArgumentException("Parallelism must be positive");
+    }
+    this.parallelism = parallelism;
+  }
+
+
+  /**
+   * Imports the departures of a timetable file (UTF-8) into a register.
+   *
+   * @param file     The timetable file.
+   * @param register The register to add the departures to.
+   * @return The report of the import.
+   * @throws IOException If the file can not be read.
+   * @since 0.0.1
+   */
+  public ImportReport importFile(Path file, TrainRegister register) throws IOException {
+    ImportReport report = new ImportReport();
+    long start = System.nanoTime();
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long[] boundaries = chunkBoundaries(channel);
+
+      ForkJoinPool pool = new ForkJoinPool(parallelism);
+      try {
+        List<ForkJoinTask<ParsedChunk>> tasks = new ArrayList<>();
+        for (int i = 0; i + 1 < boundaries.length; i++) {
+          long chunkStart = boundaries[i];
+          long chunkEnd = boundaries[i + 1];
+          tasks.add(pool.submit(() -> parseChunk(channel, chunkStart, chunkEnd)));
+        }
+
+        // Merged in file order, so the outcome does not depend on the thread timing:
+        long firstLineNumber = 1;
+        for (ForkJoinTask<ParsedChunk> task : tasks) {
+          ParsedChunk chunk = joinChunk(task);
+          mergeChunk(chunk, firstLineNumber, register, report);
+          firstLineNumber += chunk.lineCount;
+        }
+      } finally {
+        pool.shutdown();
+      }
+    }
+
+    report.finish(System.nanoTime() - start);
+    return report;
+  }
+
+
+  /**
+   * Splits a file into chunks of about the same size, each starting at the beginning of a line.
+   *
+   * @param channel The channel of the file.
+   * @return The start of every chunk, followed by the size of the file.
+   * @throws IOException If the file can not be read.
+   * @since 0.0.1
+   */
+  private long[] chunkBoundaries(FileChannel channel) throws IOException {
+    long size = channel.size();
+    long chunkCount = Math.max((long) parallelism * CHUNKS_PER_THREAD,
+        (size + MAX_CHUNK_BYTES - 1) / MAX_CHUNK_BYTES);
+    chunkCount = Math.max(1, Math.min(chunkCount, size));
+
+    List<Long> boundaries = new ArrayList<>();
+    boundaries.add(0L);
+    for (long i = 1; i < chunkCount; i++) {
+      long boundary = alignToLineStart(channel, size * i / chunkCount);
+      if (boundary > boundaries.get(boundaries.size() - 1) && boundary < size) {
+        boundaries.add(boundary);
+      }
+    }
+    boundaries.add(size);
+
+    return boundaries.stream().mapToLong(Long::longValue).toArray();
+  }
+
+
+  /**
+   * Moves a position forward to the start of the next line, unless it is already at one.
+   *
+   * @param channel  The channel of the file.
+   * @param position The position.
+   * @return The start of the line at or after the position, or the size of the file.
+   * @throws IOException If the file can not be read.
+   * @since 0.0.1
+   */
+  private static long alignToLineStart(FileChannel channel, long position) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(8 * 1024);
+    long scanned = position - 1;   // The line starts after the first '\n' from here
+
+    while (scanned < channel.size()) {
+      buffer.clear();
+      int read = channel.read(buffer, scanned);
+      if (read <= 0) {
+        break;
+      }
+      for (int i = 0; i < read; i++) {
+        if (buffer.get(i) == '\n') {
+          return scanned + i + 1;
+        }
+      }
+      scanned += read;
+    }
+    return channel.size();
+  }
+
+
+  /**
+   * Maps one chunk of the file, and parses and validates its rows.
+   * Runs on the fork-join pool.
+   *
+   * @param channel The channel of the file.
+   * @param start   The first byte of the chunk, at the start of a line.
+   * @param end     The end of the chunk (exclusive), at the start of a line or the end of file.
+   * @return The parsed chunk.
+   * @throws IOException If the file can not be mapped.
+   * @since 0.0.1
+   */
+  private static ParsedChunk parseChunk(FileChannel channel, long start, long end)
+      throws IOException {
+
+    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+    ParsedChunk chunk = new ParsedChunk();
+    byte[] lineBytes = new byte[256];
+
+    int lineStart = 0;
+    int limit = buffer.limit();
+    while (lineStart < limit) {
+      int lineEnd = lineStart;
+      while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+        lineEnd++;
+      }
+
+      // Leaves out the line break, also a Windows one:
+      int length = lineEnd - lineStart;
+      if (length > 0 && buffer.get(lineStart + length - 1) == '\r') {
+        length--;
+      }
+      if (length > lineBytes.length) {
+        lineBytes = new byte[Math.max(length, lineBytes.length * 2)];
+      }
+      buffer.get(lineStart, lineBytes, 0, length);
+      chunk.parseLine(new String(lineBytes, 0, length, StandardCharsets.UTF_8));
+
+      lineStart = lineEnd + 1;
+    }
+    return chunk;
+  }
+
+
+  /**
+   * Waits for a chunk to be parsed.
+   *
+   * @param task The task parsing the chunk.
+   * @return The parsed chunk.
+   * @throws IOException If the chunk could not be read.
+   * @since 0.0.1
+   */
+  private static ParsedChunk joinChunk(ForkJoinTask<ParsedChunk> task) throws IOException {
+    try {
+      return task.join();
+    } catch (RuntimeException e) {
+      // The task wraps the IOException of parseChunk:
+      if (e.getCause() instanceof IOException ioException) {
+        throw ioException;
+      }
+      throw e;
+    }
+  }
+
+
+  /**
+   * Adds the departures of a parsed chunk to the register, and records the results.
+   *
+   * @param chunk           The parsed chunk.
+   * @param firstLineNumber The line number of the first line of the chunk in the file.
+   * @param register        The register to add the departures to.
+   * @param report          The report to record the results in.
+   * @since 0.0.1
+   */
+  private static void mergeChunk(ParsedChunk chunk, long firstLineNumber,
+      TrainRegister register, ImportReport report) {
+
+    report.recordRowsRead(chunk.rowsRead);
+    for (ImportError error : chunk.errors) {
+      report.recordError(firstLineNumber + error.lineNumber() - 1, error.message());
+    }
+    report.recordUnreportedErrors(chunk.errorCount - chunk.errors.size());
+
+    List<AddResult> results = register.addTrainDepartures(chunk.departures);
+    for (int i = 0; i < chunk.departures.size(); i++) {
+      report.recordAddResult(firstLineNumber + chunk.lineNumbers.get(i) - 1,
+          chunk.departures.get(i), results.get(i));
+    }
+  }
+
+
+  /**
+   * The departures and errors of one chunk. Line numbers are counted from the start of the
+   * chunk, since the number of lines before the chunk is not known while it is parsed.
+   */
+  private static final class ParsedChunk {
+    private final List<TrainDispatchSystem> departures = new ArrayList<>();
+    private final List<Integer> lineNumbers = new ArrayList<>();
+    private final List<ImportError> errors = new ArrayList<>();
+    private int lineCount;
+    private long rowsRead;
+    private long errorCount;
+
+    private void parseLine(String line) {
+      lineCount++;
+      if (TimetableRowParser.isSkipped(line)) {
+        return;
+      }
+
+      rowsRead++;
+      try {
+        departures.add(TimetableRowParser.parse(line));
+        lineNumbers.add(lineCount);
+      } catch (IllegalArgumentException e) {
+        errorCount++;
+        if (errors.size() < ImportReport.MAX_REPORTED_ERRORS) {
+          errors.add(new ImportError(lineCount, e.getMessage()));
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,153 @@
+package edu.ntnu.stud.importer;
+
+import edu.ntnu.stud.register.AddResult;
+import edu.ntnu.stud.register.TrainRegister;
+import edu.ntnu.stud.traindispatchsystem.TrainDispatchSystem;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>The {@code TimetableCsvImporter} class loads train departures from a timetable CSV file
+ * into a {@code TrainRegister}, for example the full daily timetable of the station.</p>
+ *
+ * <p>The file is read line by line, so only the current batch of departures is held in
+ * memory, no matter how large the file is. Every row is validated by the rules of
+ * {@code TrainDispatchSystem} (see {@code TimetableRowParser} for the format). Rows that
+ * can not be imported do not stop the import; they are counted, and the first of them are
+ * described in the {@code ImportReport}. The valid departures are added to the register in
+ * batches with {@code TrainRegister.addTrainDepartures}.</p>
+ *
+ * <blockquote><pre>
+ * <p><strong>Example Usage:</strong></p>
+ *
+ * {@code
+ *    ImportReport report = new TimetableCsvImporter()
+ *        .importFile(Path.of("timetable.csv"), trainRegister);
+ *
+ *    System.out.println(report);   // 250000 rows read, 249998 imported, 2 errors, ...
+ * }
+ * </pre></blockquote>
+ *
+ * @author Karwan Shekhe
+ * @version 0.0.2 (Version of this class)
+ * @since 0.2.0 (Introduced in Version 0.2.0 of the Train Dispatch System application)
+ */
+public class TimetableCsvImporter {
+
+  // The default number of departures added to the register at a time:
+  public static final int DEFAULT_BATCH_SIZE = 1_000;
+
+  private final int batchSize;
+
+
+  /**
+   * Constructs an importer with the default batch size.
+   *
+   * @since 0.0.1
+   */
+  public TimetableCsvImporter() {
+    this(DEFAULT_BATCH_SIZE);
+  }
+
+
+  /**
+   * Constructs an importer with the given batch size.
+   *
+   * @param batchSize The number of departures added to the register at a time.
+   * @throws IllegalArgumentException if the batch size is not positive.
+   * @since 0.0.1
+   */
+  public TimetableCsvImporter(int batchSize) {
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("Batch size must be positive");
+    }
+    this.batchSize = batchSize;
+  }
+
+
+  /**
+   * Imports the departures of a timetable file (UTF-8) into a register.
+   *
+   * @param file     The timetable file.
+   * @param register The register to add the departures to.
+   * @return The report of the import.
+   * @throws IOException If the file can not be read.
+   * @since 0.0.1
+   */
+  public ImportReport importFile(Path file, TrainRegister register) throws IOException {
+    try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      return importFrom(reader, register);
+    }
+  }
+
+
+  /**
+   * Imports the departures read from a reader into a register. The reader is not closed.
+   *
+   * @param reader   The reader of the timetable rows.
+   * @param register The register to add the departures to.
+   * @return The report of the import.
+   * @throws IOException If the reader fails.
+   * @since 0.0.1
+   */
+  public ImportReport importFrom(BufferedReader reader, TrainRegister register)
+      throws IOException {
+
+    ImportReport report = new ImportReport();
+    List<TrainDispatchSystem> batch = new ArrayList<>(batchSize);
+    List<Long> batchLineNumbers = new ArrayList<>(batchSize);
+    long start = System.nanoTime();
+
+    long lineNumber = 0;
+    String line;
+    while ((line = reader.readLine()) != null) {
+      lineNumber++;
+      if (TimetableRowParser.isSkipped(line)) {
+        continue;
+      }
+
+      report.recordRowRead();
+      try {
+        batch.add(TimetableRowParser.parse(line));
+        batchLineNumbers.add(lineNumber);
+      } catch (IllegalArgumentException e) {
+        report.recordError(lineNumber, e.getMessage());
+      }
+
+      if (batch.size() == batchSize) {
+        insertBatch(batch, batchLineNumbers, register, report);
+      }
+    }
+    insertBatch(batch, batchLineNumbers, register, report);
+
+    report.finish(System.nanoTime() - start);
+    return report;
+  }
+
+
+  /**
+   * Adds a batch of departures to the register, records the result of each, and empties
+   * the batch.
+   *
+   * @param batch       The parsed departures.
+   * @param lineNumbers The line numbers of the departures.
+   * @param register    The register to add the departures to.
+   * @param report      The report to record the results in.
+   * @since 0.0.1
+   */
+  private static void insertBatch(List<TrainDispatchSystem> batch, List<Long> lineNumbers,
+      TrainRegister register, ImportReport report) {
+
+    List<AddResult> results = register.addTrainDepartures(batch);
+    for (int i = 0; i < batch.size(); i++) {
+      report.recordAddResult(lineNumbers.get(i), batch.get(i), results.get(i));
+    }
+    batch.clear();
+    lineNumbers.clear();
+  }
+}
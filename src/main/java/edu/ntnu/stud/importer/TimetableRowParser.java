@@ -0,0 +1,80 @@
+package edu.ntnu.stud.importer;
+
+import edu.ntnu.stud.traindispatchsystem.TrainDispatchSystem;
+import java.time.DateTimeException;
+import java.time.LocalTime;
+
+/**
+ * The {@code TimetableRowParser} class turns one row of a timetable CSV file into a
+ * {@code TrainDispatchSystem}. The row is validated by the rules of {@code TrainDispatchSystem}
+ * itself, so an imported departure is always one that could have been typed in by hand.
+ *
+ * <p>A row has the columns below, separated by commas. The delay column may be left out.</p>
+ *
+ * <blockquote><pre>
+ * trainNumber,departureStation,destination,departureTime,line,track,delay
+ * 601,Gjøvik,Oslo,14:30,F1,3,0
+ * </pre></blockquote>
+ *
+ * @author Karwan Shekhe
+ * @version 0.0.1 (Version of this class)
+ * @since 0.2.0 (Introduced in Version 0.2.0 of the Train Dispatch System application)
+ */
+final class TimetableRowParser {
+
+  // The header row of a timetable file:
+  static final String HEADER =
+      "trainNumber,departureStation,destination,departureTime,line,track,delay";
+
+  private TimetableRowParser() {
+    // Only static methods
+  }
+
+
+  /**
+   * Checks whether a line carries no departure: a blank line, a comment starting with '#',
+   * or the header row.
+   *
+   * @param line The line.
+   * @return {@code true} if the line should be skipped; otherwise, {@code false}.
+   * @since 0.0.1
+   */
+  static boolean isSkipped(String line) {
+    String trimmed = line.trim();
+    return trimmed.isEmpty() || trimmed.startsWith("#")
+        || trimmed.regionMatches(true, 0, "trainNumber,", 0, "trainNumber,".length());
+  }
+
+
+  /**
+   * Parses and validates one row.
+   *
+   * @param line The row.
+   * @return The departure described by the row.
+   * @throws IllegalArgumentException If the row has the wrong number of columns, or a value
+   *                                  breaks the rules of {@code TrainDispatchSystem}.
+   * @since 0.0.1
+   */
+  static TrainDispatchSystem parse(String line) {
+    String[] columns = line.split(",", -1);
+    if (columns.length != 6 && columns.length != 7) {
+      throw new IllegalArgumentException("Expected 6 or 7 columns, but found " + columns.length);
+    }
+
+    try {
+      TrainDispatchSystem trainDispatch = new TrainDispatchSystem(columns[1].trim(),
+          columns[2].trim(), LocalTime.parse(columns[3].trim()), columns[4].trim(),
+          Integer.parseInt(columns[5].trim()), columns[0].trim());
+
+      if (columns.length == 7 && !columns[6].isBlank()) {
+        trainDispatch.setDelay(Integer.parseInt(columns[6].trim()));
+      }
+      return trainDispatch;
+
+    } catch (DateTimeException e) {
+      throw new IllegalArgumentException("Invalid departure time: " + columns[3].trim(), e);
+    } catch (IllegalStateException e) {
+      throw new IllegalArgumentException(e.getMessage(), e);
+    }
+  }
+}
@@ -0,0 +1,176 @@
+package edu.ntnu.stud.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>The {@code LogCompactor} class keeps the {@code WriteAheadLog} of a register from growing
+ * without bound, for example over a day of constant delay updates.</p>
+ *
+ * <p>Compacting folds the log into a fresh {@code SnapshotFile} of the register, and then
+ * drops the records the snapshot includes from the log. The snapshot is taken from the latest
+ * checkpoint of the log, so it is written by the background thread of the compactor while the
+ * register keeps being changed. Only the last step of dropping the records blocks the writers
+ * of the register, for as long as it takes to copy the records appended during the
+ * compaction. The size of the log, and the time to recover from the snapshot and the log,
+ * therefore stay flat no matter how long the application runs.</p>
+ *
+ * <p>A background compaction runs every {@code intervalMillis}, once the log holds at least
+ * {@code minLogBytes} of records. {@code compact} runs a compaction at once, for example when
+ * the application exits.</p>
+ *
+ * <blockquote><pre>
+ * <p><strong>Example Usage:</strong></p>
+ *
+ * {@code
+ *    try (LogCompactor compactor = new LogCompactor(registerLog, Path.of("register.snapshot"),
+ *        60_000, 1024 * 1024)) {
+ *      ...
+ *      compactor.compact();  // Leaves a snapshot and an empty log on exit
+ *    }
+ * }
+ * </pre></blockquote>
+ *
+ * @author Karwan Shekhe
+ * @version 0.0.1 (Version of this class)
+ * @since 0.2.0 (Introduced in Version 0.2.0 of the Train Dispatch System application)
+ */
+public class LogCompactor implements Closeable {
+
+  private final WriteAheadLog registerLog;
+  private final Path snapshotFile;
+  private final long minLogBytes;
+  private final ScheduledExecutorService scheduler;  // Runs the background compactions, or null
+  private IOException lastFailure;                   // The last failed background compaction
+  private long compactions;                          // The number of compactions done
+
+
+  /**
+   * Constructs a compactor, and starts compacting in the background.
+   *
+   * @param registerLog    The write-ahead log of the register.
+   * @param snapshotFile   The snapshot file of the register.
+   * @param intervalMillis The time in milliseconds between background compactions, or 0 to
+   *                       only compact when {@code compact} is called.
+   * @param minLogBytes    The smallest log size, in bytes of records, worth compacting in the
+   *                       background.
+   * @throws IllegalArgumentException If the log or snapshot file is null, or the interval or
+   *                                  size is negative.
+   * @since 0.0.1
+   */
+  public LogCompactor(WriteAheadLog registerLog, Path snapshotFile, long intervalMillis,
+      long minLogBytes) {
+
+    if (registerLog == null || snapshotFile == null) {
+      throw new IllegalArgumentException("The log and the snapshot file cannot be null");
+    }
+    if (intervalMillis < 0 || minLogBytes < 0) {
+      throw new IllegalArgumentException("Interval and size cannot be negative");
+    }
+    this.registerLog = registerLog;
+    this.snapshotFile = snapshotFile;
+    this.minLogBytes = minLogBytes;
+
+    if (intervalMillis > 0) {
+      scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "log-compactor");
+        thread.setDaemon(true);
+        return thread;
+      });
+      scheduler.scheduleWithFixedDelay(this::backgroundCompact, intervalMillis, intervalMillis,
+          TimeUnit.MILLISECONDS);
+    } else {
+      scheduler = null;
+    }
+  }
+
+
+  /**
+   * Compacts the log now: writes the register at the latest checkpoint of the log to the
+   * snapshot file, and drops the records before the checkpoint from the log.
+   *
+   * @return {@code true} if the log was compacted, or {@code false} if there was nothing to
+   *         compact.
+   * @throws IOException If the snapshot file can not be written, or the log can not be
+   *                     truncated.
+   * @since 0.0.1
+   */
+  public synchronized boolean compact() throws IOException {
+    WriteAheadLog.Checkpoint checkpoint = registerLog.checkpoint();
+    if (checkpoint == null
+        || (checkpoint.logPosition() == registerLog.getBasePosition() && compactions > 0)) {
+      return false;
+    }
+
+    // The snapshot must never include records that could still be lost from the log:
+    registerLog.sync();
+    SnapshotFile.write(checkpoint.snapshot(), checkpoint.logPosition(), snapshotFile);
+    registerLog.truncateBefore(checkpoint.logPosition());
+    compactions++;
+    return true;
+  }
+
+
+  /**
+   * Provides the number of compactions done so far.
+   *
+   * @return The number of compactions.
+   * @since 0.0.1
+   */
+  public synchronized long getCompactions() {
+    return compactions;
+  }
+
+
+  /**
+   * Provides the failure of the last background compaction, if it failed. The next
+   * background compaction tries again.
+   *
+   * @return The failure, or {@code null} if the last background compaction did not fail.
+   * @since 0.0.1
+   */
+  public synchronized IOException getLastFailure() {
+    return lastFailure;
+  }
+
+
+  /**
+   * Stops the background compactions, and waits for a running compaction to finish.
+   * The log is not closed.
+   *
+   * @since 0.0.1
+   */
+  @Override
+  public void close() {
+    if (scheduler != null) {
+      scheduler.shutdown();
+      try {
+        scheduler.awaitTermination(1, TimeUnit.MINUTES);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+
+  /**
+   * Compacts the log from the background thread, once it has grown large enough.
+   * A failure is kept for {@code getLastFailure}.
+   *
+   * @since 0.0.1
+   */
+  private synchronized void backgroundCompact() {
+    try {
+      if (registerLog.position() - registerLog.getBasePosition() >= minLogBytes) {
+        compact();
+      }
+      lastFailure = null;
+    } catch (IOException | RuntimeException e) {
+      lastFailure = e instanceof IOException ioException ? ioException : new IOException(e);
+    }
+  }
+}
@@ -0,0 +1,477 @@
+package edu.ntnu.stud.persistence;
+
+import edu.ntnu.stud.register.DepartureRecord;
+import edu.ntnu.stud.register.RegisterSnapshot;
+import edu.ntnu.stud.register.TrainRegister;
+import edu.ntnu.stud.traindispatchsystem.TrainDispatchSystem;
+import edu.ntnu.stud.utility.SymbolTable;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * <p>The {@code SnapshotFile} class is a compact binary file holding all departures of a
+ * {@code TrainRegister} at one version, together with its station time. Loading a snapshot
+ * file on startup is much faster than replaying a day's worth of {@code WriteAheadLog}.</p>
+ *
+ * <p>The file is written from a {@code RegisterSnapshot}, so the register can keep being
+ * changed while the file is written. It is written to a temporary file first, and then moved
+ * in place, so a crash never leaves a half-written snapshot behind. The allocated train numbers
+ * of the register are exactly the train numbers of its departures, so they are not stored
+ * separately.</p>
+ *
+ * <p>The file also stores the position of the {@code WriteAheadLog} it includes. On startup,
+ * the snapshot is loaded first, and only the records of the log from that position on are
+ * replayed.</p>
+ *
+ * <p>The departure stations, destinations and lines are stored once, in a name table, and
+ * every departure is stored as a fixed-width row referring to the name table. The file is
+ * memory-mapped when it is opened, and the rows are only decoded when they are used: opening
+ * a file of a million departures only reads the header and the name table, and verifies
+ * their own checksum. {@code departure(int)} reads a single row without verifying the rows.
+ * The rows have a checksum of their own, which {@code loadInto} verifies before it loads
+ * them. The rows are stored in the order of the register, so {@code loadInto} loads all
+ * departures into a register in bulk, building its indexes in O(n).</p>
+ *
+ * <blockquote><pre>
+ * <p><strong>Example Usage:</strong></p>
+ *
+ * {@code
+ *    registerLog.sync();
+ *    SnapshotFile.write(trainRegister.snapshot(), registerLog.position(),
+ *        Path.of("register.snapshot"));
+ *
+ *    TrainRegister restored = new TrainRegister();
+ *    SnapshotFile snapshotFile = SnapshotFile.open(Path.of("register.snapshot"));
+ *    snapshotFile.loadInto(restored);
+ *    registerLog.recover(restored, snapshotFile.getLogPosition());
+ * }
+ * </pre></blockquote>
+ *
+ * @author Karwan Shekhe
+ * @version 0.0.3 (Version of this class)
+ * @since 0.2.0 (Introduced in Version 0.2.0 of the Train Dispatch System application)
+ */
+public final class SnapshotFile implements Iterable<DepartureRecord> {
+
+  private static final int MAGIC = 0x5444534E;          // "TDSN"
+  private static final int FORMAT_VERSION = 2;        // Separate header and row checksums
+  private static final int HEADER_BYTES = 40;
+  private static final int CHECKSUM_BYTES = 4;
+
+  // A row: train number offset and length, the three names, departure minute, track, delay:
+  private static final int ROW_BYTES = 4 + 2 + 4 + 4 + 4 + 2 + 1 + 1;
+
+  private final MappedByteBuffer buffer;       // The whole file, read-only
+  private final long registerVersion;
+  private final long logPosition;              // The log position the snapshot includes
+  private final LocalTime stationTime;
+  private final String[] names;                // The interned name table
+  private final int departureCount;
+  private final int rowsStart;                 // The file position of the first row
+  private final int trainNumbersStart;         // The file position of the train numbers
+  private final Path file;                     // For the error messages
+  private boolean rowsVerified;                // Whether the row checksum has been verified
+
+
+  /**
+   * Constructs a snapshot file from its mapped contents. Use {@code open}.
+   *
+   * @param buffer The mapped file.
+   * @param file   The file, for the error messages.
+   * @throws IOException If the file is not a valid snapshot file.
+   * @since 0.0.1
+   */
+  private SnapshotFile(MappedByteBuffer buffer, Path file) throws IOException {
+    this.buffer = buffer;
+    this.file = file;
+    try {
+      if (buffer.limit() < HEADER_BYTES + CHECKSUM_BYTES || buffer.getInt(0) != MAGIC) {
+        throw new IOException(file + " is not a snapshot file");
+      }
+      if (buffer.getInt(4) != FORMAT_VERSION) {
+        throw new IOException(file + " has an unsupported snapshot format");
+      }
+
+      // The header and the name table have their own checksum, so the rows are not read:
+      int nameCount = buffer.getInt(32);
+      if (nameCount < 0 || nameCount > (buffer.limit() - HEADER_BYTES) / 2) {
+        throw new IOException(file + " is damaged, its name table is too long");
+      }
+      ByteBuffer reader = buffer.duplicate().position(HEADER_BYTES);
+      for (int i = 0; i < nameCount; i++) {
+        int nameLength = Short.toUnsignedInt(reader.getShort());
+        reader.position(reader.position() + nameLength);
+      }
+      if (checksumOf(0, reader.position()) != reader.getInt()) {
+        throw new IOException(file + " is damaged, its header checksum does not match");
+      }
+      rowsStart = reader.position();
+
+      registerVersion = buffer.getLong(8);
+      logPosition = buffer.getLong(16);
+      stationTime = LocalTime.ofNanoOfDay(buffer.getLong(24));
+      names = new String[nameCount];
+      departureCount = buffer.getInt(36);
+
+      // The names are interned, so the loaded departures share them with the rest of the day:
+      SymbolTable symbolTable = TrainDispatchSystem.getSymbolTable();
+      reader.position(HEADER_BYTES);
+      for (int i = 0; i < names.length; i++) {
+        names[i] = symbolTable.nameOf(symbolTable.intern(readString(reader)));
+      }
+      trainNumbersStart = Math.addExact(rowsStart, Math.multiplyExact(departureCount, ROW_BYTES));
+      if (departureCount < 0 || trainNumbersStart > buffer.limit() - CHECKSUM_BYTES) {
+        throw new IOException(file + " is damaged, it is too short");
+      }
+    } catch (BufferUnderflowException | IllegalArgumentException | ArithmeticException e) {
+      throw new IOException(file + " is damaged", e);
+    }
+  }
+
+
+  /**
+   * Writes a snapshot of a register to a file, replacing the file if it exists.
+   *
+   * <p>The log position must be read together with the snapshot, before the register is
+   * changed again, and the log must have been forced to the disk up to that position.</p>
+   *
+   * @param snapshot    The snapshot of the register.
+   * @param logPosition The position of the write-ahead log at the snapshot, or 0 if the
+   *                    register has no log.
+   * @param file        The snapshot file.
+   * @throws IOException If the file can not be written.
+   * @since 0.0.1
+   */
+  public static void write(RegisterSnapshot snapshot, long logPosition, Path file)
+      throws IOException {
+    // The name table, in order of first use:
+    Map<String, Integer> nameIndexes = new LinkedHashMap<>();
+    for (DepartureRecord departure : snapshot) {
+      nameIndexes.putIfAbsent(departure.departureStation(), nameIndexes.size());
+      nameIndexes.putIfAbsent(departure.destination(), nameIndexes.size());
+      nameIndexes.putIfAbsent(departure.line(), nameIndexes.size());
+    }
+
+    Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+    try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+      CheckedOutputStream checked = new CheckedOutputStream(
+          new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024), new CRC32());
+      DataOutputStream output = new DataOutputStream(checked);
+
+      output.writeInt(MAGIC);
+      output.writeInt(FORMAT_VERSION);
+      output.writeLong(snapshot.getVersion());
+      output.writeLong(logPosition);
+      output.writeLong(snapshot.getStationTime().toNanoOfDay());
+      output.writeInt(nameIndexes.size());
+      output.writeInt(snapshot.size());
+      for (String name : nameIndexes.keySet()) {
+        writeString(output, name);
+      }
+      output.writeInt((int) checked.getChecksum().getValue());  // Of the header and names
+      checked.getChecksum().reset();                            // The rows start here
+
+      int trainNumberOffset = 0;
+      for (DepartureRecord departure : snapshot) {
+        int trainNumberLength = departure.trainNumber().getBytes(StandardCharsets.UTF_8).length;
+        output.writeInt(trainNumberOffset);
+        output.writeShort(trainNumberLength);
+        output.writeInt(nameIndexes.get(departure.departureStation()));
+        output.writeInt(nameIndexes.get(departure.destination()));
+        output.writeInt(nameIndexes.get(departure.line()));
+        output.writeShort(departure.departureMinute());
+        output.writeByte(departure.track());
+        output.writeByte(departure.delay());
+        trainNumberOffset += trainNumberLength;
+      }
+      for (DepartureRecord departure : snapshot) {
+        output.write(departure.trainNumber().getBytes(StandardCharsets.UTF_8));
+      }
+
+      output.writeInt((int) checked.getChecksum().getValue());  // Of the rows
+      output.flush();
+      channel.force(true);
+    }
+    Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+  }
+
+
+  /**
+   * Opens a snapshot file by memory-mapping it. Only the header and the name table are read,
+   * and their checksum is verified. The rows are verified by {@code loadInto}.
+   *
+   * @param file The snapshot file.
+   * @return The opened snapshot file.
+   * @throws IOException If the file can not be read, or is not a valid snapshot file.
+   * @since 0.0.1
+   */
+  public static SnapshotFile open(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IOException(file + " is too large for a snapshot file");
+      }
+      // The mapping stays valid after the channel is closed:
+      return new SnapshotFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()),
+          file);
+    }
+  }
+
+
+  /**
+   * Provides the version of the register the snapshot was taken at.
+   *
+   * @return The register version.
+   * @since 0.0.1
+   */
+  public long getRegisterVersion() {
+    return registerVersion;
+  }
+
+
+  /**
+   * Provides the position of the write-ahead log the snapshot includes. The records from this
+   * position on are not part of the snapshot.
+   *
+   * @return The log position.
+   * @since 0.0.1
+   */
+  public long getLogPosition() {
+    return logPosition;
+  }
+
+
+  /**
+   * Provides the station time at the time of the snapshot.
+   *
+   * @return The station time.
+   * @since 0.0.1
+   */
+  public LocalTime getStationTime() {
+    return stationTime;
+  }
+
+
+  /**
+   * Provides the number of departures in the snapshot file.
+   *
+   * @return The number of departures.
+   * @since 0.0.1
+   */
+  public int size() {
+    return departureCount;
+  }
+
+
+  /**
+   * Reads one departure, in ascending order of effective departure time, without reading
+   * any other row of the file. The row checksum is not verified, see {@code loadInto}.
+   *
+   * @param index The index of the departure, from 0.
+   * @return The departure.
+   * @throws IndexOutOfBoundsException If the index is outside the file.
+   * @since 0.0.1
+   */
+  public DepartureRecord departure(int index) {
+    int row = rowPosition(index);
+    return new DepartureRecord(trainNumber(row), names[buffer.getInt(row + 6)],
+        names[buffer.getInt(row + 10)], buffer.getShort(row + 18), names[buffer.getInt(row + 14)],
+        buffer.get(row + 20), buffer.get(row + 21));
+  }
+
+
+  /**
+   * Provides an iterator that reads the departures one at a time, in ascending order of their
+   * effective departure time.
+   *
+   * @return An iterator over the departures.
+   * @since 0.0.1
+   */
+  @Override
+  public Iterator<DepartureRecord> iterator() {
+    return new Iterator<>() {
+      private int next;
+
+      @Override
+      public boolean hasNext() {
+        return next < departureCount;
+      }
+
+      @Override
+      public DepartureRecord next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        return departure(next++);
+      }
+    };
+  }
+
+
+  /**
+   * Loads all departures of the snapshot file into a register, and sets the station time of
+   * the register. The register must be empty, and must not have a register log yet.
+   * The checksum of the rows is verified first, so a damaged file never changes the register.
+   *
+   * <p>The rows are stored in the order of the register, so they are loaded in bulk with
+   * {@code TrainRegister.loadSortedDepartures}, which builds the indexes of the register in
+   * O(n) without sorting or checking the tracks: the departures were all accepted when the
+   * snapshot was taken.</p>
+   *
+   * @param register The register to load into.
+   * @return The number of loaded departures.
+   * @throws IOException If the rows are damaged, a departure of the file is invalid, or out
+   *                     of order, or the register is not empty.
+   * @since 0.0.1
+   */
+  public int loadInto(TrainRegister register) throws IOException {
+    verifyRows();
+
+    List<TrainDispatchSystem> departures = new ArrayList<>(departureCount);
+    int loaded;
+    try {
+      for (int index = 0; index < departureCount; index++) {
+        departures.add(trainDispatch(index));
+      }
+      loaded = register.loadSortedDepartures(departures);
+    } catch (IllegalArgumentException | IllegalStateException e) {
+      throw new IOException("The snapshot could not be loaded: " + e.getMessage(), e);
+    }
+
+    register.updateStationTime(stationTime);
+    return loaded;
+  }
+
+
+  /**
+   * Verifies the checksum of the rows and the train numbers, once per opened file. It reads
+   * every row, which is why it is left to {@code loadInto} instead of {@code open}.
+   *
+   * @throws IOException If the checksum of the rows does not match.
+   * @since 0.0.3
+   */
+  private void verifyRows() throws IOException {
+    if (!rowsVerified) {
+      int rowsEnd = buffer.limit() - CHECKSUM_BYTES;
+      if (checksumOf(rowsStart, rowsEnd) != buffer.getInt(rowsEnd)) {
+        throw new IOException(file + " is damaged, its row checksum does not match");
+      }
+      rowsVerified = true;
+    }
+  }
+
+
+  /**
+   * Computes the checksum of a part of the file.
+   *
+   * @param from The first position.
+   * @param to   The position after the last one.
+   * @return The CRC-32 of the bytes, as written by {@code write}.
+   * @since 0.0.3
+   */
+  private int checksumOf(int from, int to) {
+    CRC32 checksum = new CRC32();
+    checksum.update(buffer.slice(from, to - from));
+    return (int) checksum.getValue();
+  }
+
+
+  /**
+   * Creates a new train departure from a row, without creating a {@code DepartureRecord} or a
+   * {@code LocalTime} for it.
+   *
+   * @param index The index of the departure.
+   * @return The new train departure.
+   * @since 0.0.1
+   */
+  private TrainDispatchSystem trainDispatch(int index) {
+    int row = rowPosition(index);
+    TrainDispatchSystem trainDispatch = new TrainDispatchSystem(names[buffer.getInt(row + 6)],
+        names[buffer.getInt(row + 10)], LocalTime.MIDNIGHT, names[buffer.getInt(row + 14)],
+        buffer.get(row + 20), trainNumber(row));
+    trainDispatch.setDepartureMinute(buffer.getShort(row + 18));
+    trainDispatch.setDelay(buffer.get(row + 21));
+    return trainDispatch;
+  }
+
+
+  /**
+   * Provides the file position of a row.
+   *
+   * @param index The index of the departure.
+   * @return The position of its row.
+   * @throws IndexOutOfBoundsException If the index is outside the file.
+   * @since 0.0.1
+   */
+  private int rowPosition(int index) {
+    if (index < 0 || index >= departureCount) {
+      throw new IndexOutOfBoundsException("No departure " + index + " in the snapshot file");
+    }
+    return rowsStart + index * ROW_BYTES;
+  }
+
+
+  /**
+   * Reads the train number of a row.
+   *
+   * @param row The position of the row.
+   * @return The train number.
+   * @since 0.0.1
+   */
+  private String trainNumber(int row) {
+    byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort(row + 4))];
+    buffer.get(trainNumbersStart + buffer.getInt(row), bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+
+  /**
+   * Writes a string as its UTF-8 length and bytes.
+   *
+   * @param output The output.
+   * @param value  The string.
+   * @throws IOException If the string can not be written.
+   * @since 0.0.1
+   */
+  private static void writeString(DataOutputStream output, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    output.writeShort(bytes.length);
+    output.write(bytes);
+  }
+
+
+  /**
+   * Reads a string written by {@code writeString}.
+   *
+   * @param reader The reader, positioned at the string.
+   * @return The string.
+   * @since 0.0.1
+   */
+  private static String readString(ByteBuffer reader) {
+    byte[] bytes = new byte[Short.toUnsignedInt(reader.getShort())];
+    reader.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,831 @@
+package edu.ntnu.stud.persistence;
+
+import edu.ntnu.stud.register.DepartureRecord;
+import edu.ntnu.stud.register.RegisterLog;
+import edu.ntnu.stud.register.RegisterSnapshot;
+import edu.ntnu.stud.register.TrackConflictPolicy;
+import edu.ntnu.stud.register.TrainRegister;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * <p>The {@code WriteAheadLog} class persists every change of a {@code TrainRegister} to an
+ * append-only file, so that the departures, delays, track changes and station time of the day
+ * survive a crash or a restart of the application.</p>
+ *
+ * <p>The log is set as the {@code RegisterLog} of the register. Every change is encoded as one
+ * small binary record (a length, a CRC32 checksum and the change itself), and written to the
+ * file before the changing method of the register returns, so a crash of the application does
+ * not lose it. Forcing the records to the disk (fsync) is expensive, and is group-committed:
+ * the file is forced once for every {@code syncBatchSize} records, and at least every
+ * {@code syncIntervalMillis} by a background thread. A force runs outside the lock of the
+ * appends, so other threads keep appending while the disk flushes, and the next force covers
+ * all of their records at once. A power failure can therefore lose at most the records of
+ * about one batch, and a change costs a few microseconds instead of a disk flush.</p>
+ *
+ * <p>On startup, {@code recover} replays the records into an empty register, in order. A
+ * record that was only partly written when the application stopped is detected by its length
+ * or checksum, and is cut off together with everything after it.</p>
+ *
+ * <p>Every record has a position in the log, counted in bytes since the log was created.
+ * A {@code SnapshotFile} stores the position of the log it includes, and after loading the
+ * snapshot, only the records from that position on have to be replayed. Once a snapshot has
+ * been written, the records before its position are no longer needed, and are dropped by the
+ * {@code LogCompactor}.</p>
+ *
+ * <blockquote><pre>
+ * <p><strong>Example Usage:</strong></p>
+ *
+ * {@code
+ *    try (WriteAheadLog log = new WriteAheadLog(Path.of("register.wal"))) {
+ *      if (log.recover(trainRegister) == 0) {
+ *        trainRegister.initializeDepartureRegister();   // A new day, nothing to recover
+ *      }
+ *      ...
+ *    }
+ * }
+ * </pre></blockquote>
+ *
+ * @author Karwan Shekhe
+ * @version 0.0.7 (Version of this class)
+ * @since 0.2.0 (Introduced in Version 0.2.0 of the Train Dispatch System application)
+ */
+public class WriteAheadLog implements RegisterLog, Closeable {
+
+  // The default number of records forced to the disk at a time:
+  public static final int DEFAULT_SYNC_BATCH_SIZE = 64;
+
+  // The default longest time a record waits to be forced to the disk:
+  public static final long DEFAULT_SYNC_INTERVAL_MILLIS = 200;
+
+  private static final int MAGIC = 0x5444574C;          // "TDWL"
+  private static final int FORMAT_VERSION = 2;
+  private static final int FILE_HEADER_BYTES = 16;      // Magic, format and base position
+  private static final int RECORD_HEADER_BYTES = 8;     // The length and the checksum
+  private static final int MAX_RECORD_BYTES = 64 * 1024;
+
+  // The record types:
+  private static final byte DEPARTURE_ADDED = 1;
+  private static final byte DEPARTURE_REMOVED = 2;
+  private static final byte ALL_DEPARTURES_REMOVED = 3;
+  private static final byte DELAY_SET = 4;
+  private static final byte DEPARTURE_TIME_SET = 5;
+  private static final byte TRACK_SET = 6;
+  private static final byte STATION_TIME_SET = 7;
+
+  private final Path file;
+  private final Object truncateLock;            // Only one truncation at a time
+  private final Object syncLock;                // Only one force at a time, taken before this
+  private FileChannel channel;                  // Replaced when the log is truncated
+  private final int syncBatchSize;
+  private final ByteBuffer recordBuffer;        // Reused for every record
+  private final CRC32 checksum;
+  private final ScheduledExecutorService syncer;  // Forces the file on a timer, or null
+  private long basePosition;                    // The log position of the first record
+  private long fileEnd;                         // The file offset after the last record
+  private RegisterSnapshot committedSnapshot;   // The register after the last change
+  private long committedPosition;               // The log position after the last change
+  private int unsyncedRecords;                  // Written, but not yet forced to the disk
+  private IOException syncFailure;              // The last failure of the background sync
+  private boolean closed;
+
+
+  /**
+   * Opens or creates a write-ahead log with the default sync batch size and interval.
+   *
+   * @param file The log file.
+   * @throws IOException If the file can not be opened, or is not a write-ahead log.
+   * @since 0.0.1
+   */
+  public WriteAheadLog(Path file) throws IOException {
+    this(file, DEFAULT_SYNC_BATCH_SIZE, DEFAULT_SYNC_INTERVAL_MILLIS);
+  }
+
+
+  /**
+   * Opens or creates a write-ahead log. A partly written record at the end of the file is
+   * cut off.
+   *
+   * @param file               The log file.
+   * @param syncBatchSize      The number of records forced to the disk at a time. A batch
+   *                           size of 1 forces every record.
+   * @param syncIntervalMillis The longest time in milliseconds a record waits to be forced
+   *                           to the disk, or 0 to only force full batches.
+   * @throws IOException              If the file can not be opened, or is not a write-ahead
+   *                                  log.
+   * @throws IllegalArgumentException If the batch size is not positive, or the interval is
+   *                                  negative.
+   * @since 0.0.1
+   */
+  public WriteAheadLog(Path file, int syncBatchSize, long syncIntervalMillis)
+      throws IOException {
+
+    if (syncBatchSize <= 0) {
+      throw new IllegalArgumentException("Sync batch size must be positive");
+    }
+    if (syncIntervalMillis < 0) {
+      throw new IllegalArgumentException("Sync interval cannot be negative");
+    }
+    this.file = file;
+    this.syncBatchSize = syncBatchSize;
+    this.recordBuffer = ByteBuffer.allocate(MAX_RECORD_BYTES);
+    this.checksum = new CRC32();
+    this.truncateLock = new Object();
+    this.syncLock = new Object();
+    this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+
+    try {
+      if (channel.size() == 0) {
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES)
+            .putInt(MAGIC).putInt(FORMAT_VERSION).putLong(0).flip();
+        while (header.hasRemaining()) {
+          channel.write(header);
+        }
+        channel.force(true);
+      }
+      // Later records are appended after the last complete record:
+      fileEnd = readRecords(FILE_HEADER_BYTES, payload -> { });
+      if (fileEnd < channel.size()) {
+        channel.truncate(fileEnd);
+      }
+      channel.position(fileEnd);
+      ByteBuffer base = ByteBuffer.allocate(Long.BYTES);
+      channel.read(base, 8);
+      basePosition = base.flip().getLong();
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+
+    if (syncIntervalMillis > 0) {
+      syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "wal-sync");
+        thread.setDaemon(true);
+        return thread;
+      });
+      syncer.scheduleWithFixedDelay(this::backgroundSync, syncIntervalMillis,
+          syncIntervalMillis, TimeUnit.MILLISECONDS);
+    } else {
+      syncer = null;
+    }
+  }
+
+
+  /**
+   * Replays the whole log into a register, and then sets this log as the register log, so
+   * that every later change is appended. Must be called before any record is appended, on a
+   * register that has no departures.
+   *
+   * @param register The register to replay the log into.
+   * @return The number of replayed records.
+   * @throws IOException If the log can not be read, holds an invalid change, or no longer
+   *                     starts at position 0.
+   * @since 0.0.1
+   */
+  public long recover(TrainRegister register) throws IOException {
+    return recover(register, 0);
+  }
+
+
+  /**
+   * Replays the log from a position into a register, and then sets this log as the register
+   * log, so that every later change is appended. Must be called before any record is
+   * appended, for example on a register just loaded from a {@code SnapshotFile} taken at
+   * the given position.
+   *
+   * <p>The logged changes were all accepted when they were made, so the track conflict
+   * policy of the register is set to {@code TrackConflictPolicy.FLAG} while replaying,
+   * and restored afterwards.</p>
+   *
+   * @param register     The register to replay the log into.
+   * @param fromPosition The position of the first record to replay.
+   * @return The number of replayed records.
+   * @throws IOException If the log can not be read, holds an invalid change, or does not
+   *                     hold the given position.
+   * @since 0.0.2
+   */
+  public long recover(TrainRegister register, long fromPosition) throws IOException {
+    if (fromPosition < basePosition || fromPosition > position()) {
+      throw new IOException("The write-ahead log " + file + " holds positions " + basePosition
+          + " to " + position() + ", not " + fromPosition);
+    }
+    long[] replayedRecords = new long[1];
+    TrackConflictPolicy trackConflictPolicy = register.getTrackConflictPolicy();
+
+    register.setRegisterLog(null);  // The replayed changes are already logged
+    register.setTrackConflictPolicy(TrackConflictPolicy.FLAG);
+    try {
+      readRecords(fromPosition - basePosition + FILE_HEADER_BYTES, payload -> {
+        replay(payload, register);
+        replayedRecords[0]++;
+      });
+    } catch (IllegalArgumentException | IllegalStateException e) {
+      throw new IOException("Invalid change in the write-ahead log " + file, e);
+    } finally {
+      register.setTrackConflictPolicy(trackConflictPolicy);
+    }
+
+    synchronized (this) {
+      committedSnapshot = register.snapshot();
+      committedPosition = position();
+    }
+    register.setRegisterLog(this);
+    return replayedRecords[0];
+  }
+
+
+  /**
+   * Provides the position after the last record of the log, that is, the position the next
+   * record will be written at.
+   *
+   * @return The current end position of the log.
+   * @since 0.0.2
+   */
+  public synchronized long position() {
+    return basePosition + fileEnd - FILE_HEADER_BYTES;
+  }
+
+
+  /**
+   * Provides the position of the first record of the log. It is 0 until the log is
+   * truncated.
+   *
+   * @return The base position of the log.
+   * @since 0.0.3
+   */
+  public synchronized long getBasePosition() {
+    return basePosition;
+  }
+
+
+  /**
+   * Moves an empty log to a position, so that its first record is written at that position.
+   * Used when the log was lost, but a snapshot file taken at the position is still there:
+   * the snapshot is kept, and the log goes on from where it ended.
+   *
+   * @param position The position of the first record.
+   * @throws IOException              If the header of the file can not be written.
+   * @throws IllegalStateException    If the log already holds records, or is closed.
+   * @throws IllegalArgumentException If the position is negative.
+   * @since 0.0.5
+   */
+  public synchronized void startAt(long position) throws IOException {
+    if (closed || fileEnd != FILE_HEADER_BYTES) {
+      throw new IllegalStateException("Only an empty, open write-ahead log can be moved");
+    }
+    if (position < 0) {
+      throw new IllegalArgumentException("Log position cannot be negative");
+    }
+    ByteBuffer base = ByteBuffer.allocate(Long.BYTES).putLong(position).flip();
+    while (base.hasRemaining()) {
+      channel.write(base, 8 + base.position());
+    }
+    channel.force(true);
+    basePosition = position;
+  }
+
+
+  /**
+   * Forces all written records to the disk. The file is forced without holding the lock of
+   * the appends, so records can be appended meanwhile; they are forced by the next sync.
+   *
+   * @throws IOException If the file can not be forced.
+   * @since 0.0.1
+   */
+  public void sync() throws IOException {
+    synchronized (syncLock) {
+      FileChannel forcedChannel;
+      synchronized (this) {
+        if (unsyncedRecords == 0 || closed) {
+          return;
+        }
+        forcedChannel = channel;  // Only replaced while holding the sync lock
+        unsyncedRecords = 0;
+      }
+      forcedChannel.force(false);
+    }
+  }
+
+
+  /**
+   * Forces all written records to the disk, and closes the log.
+   *
+   * @throws IOException If the file can not be forced or closed.
+   * @since 0.0.1
+   */
+  @Override
+  public void close() throws IOException {
+    synchronized (syncLock) {
+      synchronized (this) {
+        if (closed) {
+          return;
+        }
+        if (syncer != null) {
+          syncer.shutdownNow();
+        }
+        try {
+          if (unsyncedRecords > 0) {
+            channel.force(false);
+          }
+        } finally {
+          closed = true;
+          channel.close();
+        }
+      }
+    }
+  }
+
+
+  /**
+   * Remembers the register after a change, together with the log position after the change,
+   * as the latest checkpoint.
+   *
+   * @param snapshot The snapshot of the register after the change.
+   * @since 0.0.3
+   */
+  @Override
+  public synchronized void changeCommitted(RegisterSnapshot snapshot) {
+    committedSnapshot = snapshot;
+    committedPosition = position();
+  }
+
+
+  /**
+   * Provides the latest checkpoint: the register after its last change, and the log position
+   * after the records of that change. The snapshot includes exactly the records before the
+   * position, so it can be written to a {@code SnapshotFile} from any thread.
+   *
+   * @return The latest checkpoint, or {@code null} if the log has not been recovered into a
+   *         register yet.
+   * @since 0.0.3
+   */
+  synchronized Checkpoint checkpoint() {
+    return committedSnapshot == null ? null
+        : new Checkpoint(committedSnapshot, committedPosition);
+  }
+
+
+  /**
+   * Drops the records before a position, because a snapshot file includes them.
+   *
+   * <p>The records from the position on are copied to a new file, which then replaces the log.
+   * Most of them are copied and forced to the disk while the log keeps being appended to.
+   * Only the records appended meanwhile are copied and forced while appending is blocked, so
+   * the pause of the writers is bounded by the number of records appended during one copy,
+   * and not by the size of the log.</p>
+   *
+   * @param newBasePosition The position of the first record to keep.
+   * @throws IOException              If the log can not be copied or replaced.
+   * @throws IllegalArgumentException If the log does not hold the position.
+   * @since 0.0.3
+   */
+  void truncateBefore(long newBasePosition) throws IOException {
+    synchronized (truncateLock) {
+      long keptStart;
+      long copiedEnd;
+      synchronized (this) {
+        if (closed) {
+          throw new IllegalStateException("The write-ahead log is closed");
+        }
+        if (newBasePosition < basePosition || newBasePosition > position()) {
+          throw new IllegalArgumentException("The write-ahead log holds positions "
+              + basePosition + " to " + position() + ", not " + newBasePosition);
+        }
+        if (newBasePosition == basePosition) {
+          return;
+        }
+        keptStart = newBasePosition - basePosition + FILE_HEADER_BYTES;
+        copiedEnd = fileEnd;
+      }
+
+      Path truncatedFile = file.resolveSibling(file.getFileName() + ".truncated");
+      try (FileChannel source = FileChannel.open(file, StandardOpenOption.READ);
+          FileChannel truncated = FileChannel.open(truncatedFile, StandardOpenOption.CREATE,
+              StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES)
+            .putInt(MAGIC).putInt(FORMAT_VERSION).putLong(newBasePosition).flip();
+        while (header.hasRemaining()) {
+          truncated.write(header);
+        }
+        copyRange(source, keptStart, copiedEnd, truncated);  // Appending goes on meanwhile
+        truncated.force(true);  // The bulk of the file, still without blocking the writers
+
+        synchronized (syncLock) {  // The channel is not replaced while it is being forced
+          synchronized (this) {
+            copyRange(source, copiedEnd, fileEnd, truncated);  // Appended during the copy
+            truncated.force(true);  // Only the tail is left to force
+            Files.move(truncatedFile, file, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+            try {
+              FileChannel replaced = channel;
+              channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+              fileEnd = FILE_HEADER_BYTES + fileEnd - keptStart;
+              channel.position(fileEnd);
+              basePosition = newBasePosition;
+              unsyncedRecords = 0;
+              replaced.close();
+            } catch (IOException e) {
+              syncFailure = e;  // The log can not be appended to any more
+              throw e;
+            }
+            }
+        }
+      }
+    }
+  }
+
+
+  /**
+   * Appends an added departure.
+   *
+   * @param departure The added departure.
+   * @since 0.0.1
+   */
+  @Override
+  public void departureAdded(DepartureRecord departure) {
+    append(DEPARTURE_ADDED, record -> {
+      putString(record, departure.trainNumber());
+      putString(record, departure.departureStation());
+      putString(record, departure.destination());
+      record.putShort((short) departure.departureMinute());
+      putString(record, departure.line());
+      record.put((byte) departure.track());
+      record.put((byte) departure.delay());
+    });
+  }
+
+
+  /**
+   * Appends a removed departure.
+   *
+   * @param trainNumber The train number of the removed departure.
+   * @since 0.0.1
+   */
+  @Override
+  public void departureRemoved(String trainNumber) {
+    append(DEPARTURE_REMOVED, record -> putString(record, trainNumber));
+  }
+
+
+  /**
+   * Appends the removal of all departures.
+   *
+   * @since 0.0.1
+   */
+  @Override
+  public void allDeparturesRemoved() {
+    append(ALL_DEPARTURES_REMOVED, record -> { });
+  }
+
+
+  /**
+   * Appends a changed delay.
+   *
+   * @param trainNumber  The train number of the departure.
+   * @param delayMinutes The new delay in minutes.
+   * @since 0.0.1
+   */
+  @Override
+  public void delaySet(String trainNumber, int delayMinutes) {
+    append(DELAY_SET, record -> {
+      putString(record, trainNumber);
+      record.put((byte) delayMinutes);
+    });
+  }
+
+
+  /**
+   * Appends a changed departure time.
+   *
+   * @param trainNumber     The train number of the departure.
+   * @param departureMinute The new departure time, in minutes after midnight.
+   * @since 0.0.1
+   */
+  @Override
+  public void departureTimeSet(String trainNumber, int departureMinute) {
+    append(DEPARTURE_TIME_SET, record -> {
+      putString(record, trainNumber);
+      record.putShort((short) departureMinute);
+    });
+  }
+
+
+  /**
+   * Appends a changed track.
+   *
+   * @param trainNumber The train number of the departure.
+   * @param track       The new track number.
+   * @since 0.0.1
+   */
+  @Override
+  public void trackSet(String trainNumber, int track) {
+    append(TRACK_SET, record -> {
+      putString(record, trainNumber);
+      record.put((byte) track);
+    });
+  }
+
+
+  /**
+   * Appends a changed station time.
+   *
+   * @param stationTime The new station time.
+   * @since 0.0.1
+   */
+  @Override
+  public void stationTimeSet(LocalTime stationTime) {
+    append(STATION_TIME_SET, record -> record.putLong(stationTime.toNanoOfDay()));
+  }
+
+
+  /**
+   * Appends one record, and forces the file to the disk once a full batch has been written.
+   * The record is written while holding the lock of the appends, but the file is forced after
+   * the lock is released, so the other threads keep appending during the force (group
+   * commit). A failed force is reported by the next append, like a failed background sync.
+   *
+   * @param type          The type of the record.
+   * @param payloadWriter Puts the change into the record buffer, after the type.
+   * @throws UncheckedIOException If the record can not be written, or the last sync failed.
+   * @since 0.0.7
+   */
+  private void append(byte type, Consumer<ByteBuffer> payloadWriter) {
+    boolean batchFull;
+    synchronized (this) {
+      payloadWriter.accept(startRecord(type));
+      batchFull = appendRecord();
+    }
+    if (batchFull) {
+      backgroundSync();
+    }
+  }
+
+
+  /**
+   * Starts a new record in the record buffer.
+   *
+   * @param type The type of the record.
+   * @return The record buffer, positioned after the type.
+   * @throws IllegalStateException If the log is closed.
+   * @since 0.0.1
+   */
+  private ByteBuffer startRecord(byte type) {
+    if (closed) {
+      throw new IllegalStateException("The write-ahead log is closed");
+    }
+    recordBuffer.clear();
+    recordBuffer.position(RECORD_HEADER_BYTES);
+    return recordBuffer.put(type);
+  }
+
+
+  /**
+   * Fills in the length and checksum of the record in the record buffer, and writes it to the
+   * file. The caller must hold the lock of the appends.
+   *
+   * @return Whether a full batch of records is waiting to be forced to the disk.
+   * @throws UncheckedIOException If the record can not be written, or the last sync failed.
+   * @since 0.0.1
+   */
+  private boolean appendRecord() {
+    int payloadLength = recordBuffer.position() - RECORD_HEADER_BYTES;
+    checksum.reset();
+    checksum.update(recordBuffer.array(), RECORD_HEADER_BYTES, payloadLength);
+    recordBuffer.putInt(0, payloadLength).putInt(4, (int) checksum.getValue()).flip();
+
+    long recordStart = fileEnd;
+    try {
+      if (syncFailure != null) {
+        throw syncFailure;
+      }
+      while (recordBuffer.hasRemaining()) {
+        fileEnd += channel.write(recordBuffer);
+      }
+    } catch (IOException e) {
+      discardFrom(recordStart, e);
+      throw new UncheckedIOException("Could not write to the write-ahead log " + file, e);
+    }
+    return ++unsyncedRecords >= syncBatchSize;
+  }
+
+
+  /**
+   * Cuts a record that could not be written off the end of the file. The register does not
+   * apply a change whose record failed, so the record must not be replayed either. If it can
+   * not be cut off, the log can not be appended to any more.
+   *
+   * @param recordStart The file offset of the record.
+   * @param failure     The failure of the record.
+   * @since 0.0.4
+   */
+  private void discardFrom(long recordStart, IOException failure) {
+    if (failure == syncFailure) {
+      return;  // Nothing was written
+    }
+    try {
+      channel.truncate(recordStart);
+      channel.position(recordStart);
+      fileEnd = recordStart;
+    } catch (IOException e) {
+      failure.addSuppressed(e);
+      syncFailure = failure;
+    }
+  }
+
+
+  /**
+   * Forces the written records to the disk from the background thread, or after a full
+   * batch. A failure is reported by the next append.
+   *
+   * @since 0.0.1
+   */
+  private void backgroundSync() {
+    try {
+      sync();
+    } catch (IOException e) {
+      synchronized (this) {
+        syncFailure = e;
+      }
+    }
+  }
+
+
+  /**
+   * Copies a range of a file to the end of another file.
+   *
+   * @param source The file to copy from.
+   * @param from   The offset of the first byte to copy.
+   * @param to     The offset after the last byte to copy.
+   * @param target The file to copy to.
+   * @throws IOException If the range can not be copied.
+   * @since 0.0.3
+   */
+  private static void copyRange(FileChannel source, long from, long to, FileChannel target)
+      throws IOException {
+
+    while (from < to) {
+      from += source.transferTo(from, to - from, target);
+    }
+  }
+
+
+  /**
+   * Reads the complete records of the file, from the start, and stops at the end of the file
+   * or at the first record that was only partly written.
+   *
+   * @param firstOffset    The file offset of the first record passed to the consumer. The
+   *                       records before it are only checked.
+   * @param recordConsumer Receives the payload of each record, positioned at its type.
+   * @return The file position after the last complete record.
+   * @throws IOException If the file can not be read, or is not a write-ahead log.
+   * @since 0.0.1
+   */
+  private long readRecords(long firstOffset, Consumer<ByteBuffer> recordConsumer)
+      throws IOException {
+    FileChannel reader = FileChannel.open(file, StandardOpenOption.READ);
+    try (DataInputStream input = new DataInputStream(
+        new BufferedInputStream(Channels.newInputStream(reader), 64 * 1024))) {
+
+      if (reader.size() < FILE_HEADER_BYTES || input.readInt() != MAGIC) {
+        throw new IOException(file + " is not a write-ahead log");
+      }
+      if (input.readInt() != FORMAT_VERSION) {
+        throw new IOException(file + " has an unsupported write-ahead log format");
+      }
+      input.readLong();  // The base position
+
+      long validEnd = FILE_HEADER_BYTES;
+      byte[] payload = new byte[MAX_RECORD_BYTES];
+      CRC32 recordChecksum = new CRC32();
+      while (true) {
+        int payloadLength;
+        int expectedChecksum;
+        try {
+          payloadLength = input.readInt();
+          expectedChecksum = input.readInt();
+          if (payloadLength <= 0 || payloadLength > MAX_RECORD_BYTES - RECORD_HEADER_BYTES) {
+            return validEnd;
+          }
+          input.readFully(payload, 0, payloadLength);
+        } catch (EOFException e) {
+          return validEnd;  // The end of the file, or a partly written record
+        }
+
+        recordChecksum.reset();
+        recordChecksum.update(payload, 0, payloadLength);
+        if ((int) recordChecksum.getValue() != expectedChecksum) {
+          return validEnd;
+        }
+        if (validEnd >= firstOffset) {
+          recordConsumer.accept(ByteBuffer.wrap(payload, 0, payloadLength));
+        }
+        validEnd += RECORD_HEADER_BYTES + payloadLength;
+      }
+    }
+  }
+
+
+  /**
+   * Applies the change of one record to a register.
+   *
+   * @param record   The payload of the record, positioned at its type.
+   * @param register The register to change.
+   * @throws IllegalArgumentException If the record is of an unknown type, or the change is
+   *                                  invalid.
+   * @since 0.0.1
+   */
+  private static void replay(ByteBuffer record, TrainRegister register) {
+    byte type = record.get();
+
+    switch (type) {
+      case DEPARTURE_ADDED -> {
+        String trainNumber = getString(record);
+        String departureStation = getString(record);
+        String destination = getString(record);
+        int departureMinute = record.getShort();
+        String line = getString(record);
+        int track = record.get();
+        int delay = record.get();
+        register.addTrainDeparture(new DepartureRecord(trainNumber, departureStation,
+            destination, departureMinute, line, track, delay).toTrainDispatchSystem());
+      }
+      case DEPARTURE_REMOVED -> register.removeTrainByTrainNumber(getString(record));
+      case ALL_DEPARTURES_REMOVED -> register.removeAllTrains();
+      case DELAY_SET -> register.setDelay(getString(record), record.get());
+      case DEPARTURE_TIME_SET -> {
+        String trainNumber = getString(record);
+        int departureMinute = record.getShort();
+        register.setDepartureTime(trainNumber,
+            LocalTime.of(departureMinute / 60, departureMinute % 60));
+      }
+      case TRACK_SET -> register.setTrack(getString(record), record.get());
+      case STATION_TIME_SET -> register.updateStationTime(LocalTime.ofNanoOfDay(record.getLong()));
+      default -> throw new IllegalArgumentException("Unknown record type " + type);
+    }
+  }
+
+
+  /**
+   * Writes a string to a record, as its UTF-8 length and bytes.
+   *
+   * @param record The record buffer.
+   * @param value  The string.
+   * @throws IllegalArgumentException If the record gets too long.
+   * @since 0.0.1
+   */
+  private static void putString(ByteBuffer record, String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    try {
+      record.putShort((short) bytes.length).put(bytes);
+    } catch (BufferOverflowException e) {
+      throw new IllegalArgumentException("The change is too long for the write-ahead log", e);
+    }
+  }
+
+
+  /**
+   * Reads a string written by {@code putString} from a record.
+   *
+   * @param record The record buffer.
+   * @return The string.
+   * @since 0.0.1
+   */
+  private static String getString(ByteBuffer record) {
+    int length = Short.toUnsignedInt(record.getShort());
+    String value = new String(record.array(), record.arrayOffset() + record.position(), length,
+        StandardCharsets.UTF_8);
+    record.position(record.position() + length);
+    return value;
+  }
+
+
+  /**
+   * A snapshot of the register together with the log position it includes.
+   *
+   * @param snapshot    The snapshot of the register.
+   * @param logPosition The log position after the last record included in the snapshot.
+   */
+  record Checkpoint(RegisterSnapshot snapshot, long logPosition) {
+  }
+}
@@ -0,0 +1,25 @@
+package edu.ntnu.stud.register;
+
+/**
+ * The {@code AddResult} enum is the outcome of adding one train departure with
+ * {@code TrainRegister.addTrainDepartures}.
+ *
+ * <ul>
+ *     <li>{@code ADDED}: The departure was added to the register.</li>
+ *     <li>{@code INVALID}: The departure, or its train number, was {@code null}.</li>
+ *     <li>{@code DUPLICATE_TRAIN_NUMBER}: The train number is already in use, by a departure
+ *     in the register or by an earlier departure of the same batch.</li>
+ *     <li>{@code TRACK_CONFLICT}: The track is occupied within the dwell window, and the
+ *     policy is {@code TrackConflictPolicy.REJECT}.</li>
+ * </ul>
+ *
+ * @author Karwan Shekhe
+ * @version 0.0.1 (Version of this class)
+ * @since 0.2.0 (Introduced in Version 0.2.0 of the Train Dispatch System application)
+ */
+public enum AddResult {
+  ADDED,
+  INVALID,
+  DUPLICATE_TRAIN_NUMBER,
+  TRACK_CONFLICT
+}
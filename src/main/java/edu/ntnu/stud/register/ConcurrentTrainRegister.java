@@ -0,0 +1,491 @@
+package edu.ntnu.stud.register;
+
+import edu.ntnu.stud.traindispatchsystem.TrainDispatchSystem;
+import java.io.UncheckedIOException;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>The {@code ConcurrentTrainRegister} class is a thread-safe {@code TrainRegister}, for
+ * when several threads read the same collection of train departures while it is being
+ * changed. It is a library type: the application itself uses a single {@code TrainRegister}
+ * from its one user interface thread.</p>
+ *
+ * <p>It wraps a {@code TrainRegister}, so it has the same rules as the register: train numbers
+ * are allocated through the {@code TrainManager}, track conflicts are checked, and every
+ * change is passed to the register log and published as change events. Reads and writes are
+ * split as follows:</p>
+ *
+ * <ul>
+ *     <li>Writes (adding, removing, setting delays, tracks and departure times, and moving the
+ *     station time) take one write lock, and are made on the wrapped register. Writes are
+ *     therefore serialized, one at a time, since the register and its indexes are not
+ *     thread-safe; a write never waits for a reader, though. The register
+ *     never changes a published {@code DepartureRecord}; it publishes a new snapshot with a
+ *     path copy of its departures instead (copy-on-write).</li>
+ *     <li>Reads never take a lock. They read the latest published {@code RegisterSnapshot},
+ *     or the latest record of a train number, which are immutable. A reader therefore always
+ *     sees a departure as a whole, before or after a change, and the reads scale with the
+ *     number of reader threads.</li>
+ *     <li>Every search returns its own results, so concurrent searches never see each other's
+ *     results.</li>
+ * </ul>
+ *
+ * <p>Each read is consistent on its own. Two reads may see two different versions of the
+ * register, so a reader that needs several consistent reads should take one
+ * {@code snapshot()} and read from it.</p>
+ *
+ * <blockquote><pre>
+ * <p><strong>Example Usage:</strong></p>
+ *
+ * {@code
+ *    ConcurrentTrainRegister register = new ConcurrentTrainRegister();
+ *
+ *    // Operator 1:
+ *    register.addTrainDeparture(new TrainDispatchSystem("Gjøvik", "Oslo",
+ *        LocalTime.of(14, 30), "F1", 3, "601"));
+ *
+ *    // Operator 2, at the same time:
+ *    register.setDelay("104", 10);
+ * }
+ * </pre></blockquote>
+ *
+ * @author Karwan Shekhe
+ * @version 0.1.2 (Version of this class)
+ * @since 0.2.0 (Introduced in Version 0.2.0 of the Train Dispatch System application)
+ */
+public class ConcurrentTrainRegister {
+
+  private final TrainRegister trainRegister;  // Only used while holding the write lock
+  private final ReentrantLock writeLock;
+  private final ConcurrentHashMap<String, DepartureRecord> departuresByTrainNumber;
+
+  /**
+   * Constructs an empty instance of {@code ConcurrentTrainRegister}.
+   * The default station time is set to the current time.
+   *
+   * @since 0.0.1
+   */
+  public ConcurrentTrainRegister() {
+    this(new TrainRegister());
+  }
+
+
+  /**
+   * Constructs a thread-safe register around an existing {@code TrainRegister}, for example
+   * one with a clock, a log or a track conflict policy. The departures of the register are
+   * kept. The register must not be used directly afterwards.
+   *
+   * @param trainRegister The register to wrap.
+   * @throws IllegalArgumentException if the register is null.
+   * @since 0.1.0
+   */
+  public ConcurrentTrainRegister(TrainRegister trainRegister) {
+    if (trainRegister == null) {
+      throw new IllegalArgumentException("Train register cannot be null");
+    }
+    this.trainRegister = trainRegister;
+    writeLock = new ReentrantLock();
+    departuresByTrainNumber = new ConcurrentHashMap<>();
+    for (DepartureRecord departure : trainRegister.snapshot()) {
+      departuresByTrainNumber.put(departure.trainNumber(), departure);
+    }
+  }
+
+
+  /**
+   * Provides an immutable snapshot of the latest version of the register, without locking.
+   *
+   * @return The snapshot of the latest version.
+   * @since 0.1.0
+   */
+  public RegisterSnapshot snapshot() {
+    return trainRegister.snapshot();
+  }
+
+
+  /**
+   * Provides the publisher of the change events of the register.
+   * See {@code TrainRegister.changeEvents}.
+   *
+   * @return The publisher of change events.
+   * @since 0.1.0
+   */
+  public Flow.Publisher<RegisterEvent> changeEvents() {
+    return trainRegister.changeEvents();
+  }
+
+
+  /**
+   * Retrieves the current station time.
+   *
+   * @return The current station time.
+   * @since 0.0.1
+   */
+  public LocalTime getStationTime() {
+    return snapshot().getStationTime();
+  }
+
+
+  /**
+   * Updates the station time to the specified time.
+   *
+   * @param newStationTime The new station time.
+   * @throws IllegalArgumentException if the station time is null.
+   * @since 0.0.1
+   */
+  public void updateStationTime(LocalTime newStationTime) {
+    if (newStationTime == null) {
+      throw new IllegalArgumentException("Station time cannot be null");
+    }
+    writeLock.lock();
+    try {
+      trainRegister.updateStationTime(newStationTime);
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+
+  /**
+   * Moves the station time to the clock of the register, and removes the departures that
+   * expired. See {@code TrainRegister.advanceStationTime}.
+   *
+   * @return The removed departures, in order of their effective departure time.
+   * @since 0.1.0
+   */
+  public List<DepartureRecord> advanceStationTime() {
+    writeLock.lock();
+    try {
+      return forgetDepartures(trainRegister.advanceStationTime());
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+
+  /**
+   * Provides the number of train departures in the register.
+   *
+   * @return The number of train departures.
+   * @since 0.0.1
+   */
+  public int size() {
+    return snapshot().size();
+  }
+
+
+  /**
+   * Retrieves an iterator over the train departures of the latest snapshot, in ascending order
+   * of their effective departure time.
+   *
+   * @return An iterator over the train departures.
+   * @since 0.0.1
+   */
+  public Iterator<DepartureRecord> getTrainDispatchListIterator() {
+    return snapshot().iterator();
+  }
+
+
+  /**
+   * Provides the latest record of the departure with the given train number, without locking.
+   *
+   * @param trainNumber The train number.
+   * @return The departure, or {@code null} if there is no departure with the train number.
+   * @since 0.1.0
+   */
+  public DepartureRecord getDeparture(String trainNumber) {
+    return trainNumber == null ? null : departuresByTrainNumber.get(trainNumber);
+  }
+
+
+  /**
+   * Provides the next departures that have not yet expired, from the latest snapshot.
+   * See {@code RegisterSnapshot.nextDepartures}.
+   *
+   * @param count The maximum number of departures.
+   * @return The next departures, at most {@code count}.
+   * @throws IllegalArgumentException if the count is negative.
+   * @since 0.1.0
+   */
+  public List<DepartureRecord> nextDepartures(int count) {
+    return snapshot().nextDepartures(count);
+  }
+
+
+  /**
+   * Adds a copy of a train departure to the register, if its train number is available.
+   * Two threads adding the same train number at the same time will never both succeed.
+   * The departure is copied, so changing it afterwards does not change the register.
+   *
+   * @param trainDispatch The train departure to add.
+   * @return {@code true} if the addition is successful; otherwise, {@code false}.
+   * @since 0.0.1
+   */
+  public boolean addTrainDeparture(TrainDispatchSystem trainDispatch) {
+    if (trainDispatch == null) {
+      return false;
+    }
+    return addTrainDepartures(List.of(trainDispatch)).get(0) == AddResult.ADDED;
+  }
+
+
+  /**
+   * Adds copies of a batch of train departures to the register, and provides the result of
+   * each. See {@code TrainRegister.addTrainDepartures}.
+   *
+   * @param trainDispatches The train departures to add.
+   * @return The result for each departure, in the iteration order of the collection.
+   * @throws IllegalArgumentException If the collection is null.
+   * @since 0.1.0
+   */
+  public List<AddResult> addTrainDepartures(Collection<TrainDispatchSystem> trainDispatches) {
+    if (trainDispatches == null) {
+      throw new IllegalArgumentException("The collection of departures cannot be null");
+    }
+
+    // Copied before locking, so the copies are only ever seen by the register:
+    List<TrainDispatchSystem> copies = new ArrayList<>(trainDispatches.size());
+    for (TrainDispatchSystem trainDispatch : trainDispatches) {
+      copies.add(trainDispatch == null || trainDispatch.getTrainNumber() == null ? null
+          : DepartureRecord.of(trainDispatch).toTrainDispatchSystem());
+    }
+
+    writeLock.lock();
+    try {
+      List<AddResult> results = trainRegister.addTrainDepartures(copies);
+      for (int i = 0; i < results.size(); i++) {
+        if (results.get(i) == AddResult.ADDED) {
+          refreshDeparture(copies.get(i).getTrainNumber());
+        }
+      }
+      return results;
+    } catch (UncheckedIOException e) {
+      refreshAllDepartures();  // The departures logged before the failure were added
+      throw e;
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+
+  /**
+   * Sets the delay for the train departure with the given train number.
+   *
+   * @param trainNumber  The train number of the delayed departure.
+   * @param delayMinutes The delay in minutes to set.
+   * @return {@code true} if the departure was found; otherwise, {@code false}.
+   * @throws IllegalArgumentException If the delay is outside the valid range.
+   * @since 0.0.1
+   */
+  public boolean setDelay(String trainNumber, int delayMinutes) {
+    writeLock.lock();
+    try {
+      return trainRegister.setDelay(trainNumber, delayMinutes) && refreshDeparture(trainNumber);
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+
+  /**
+   * Sets the departure time for the train departure with the given train number.
+   *
+   * @param trainNumber   The train number of the departure.
+   * @param departureTime The new departure time.
+   * @return {@code true} if the departure was found; otherwise, {@code false}.
+   * @since 0.0.1
+   */
+  public boolean setDepartureTime(String trainNumber, LocalTime departureTime) {
+    writeLock.lock();
+    try {
+      return trainRegister.setDepartureTime(trainNumber, departureTime)
+          && refreshDeparture(trainNumber);
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+
+  /**
+   * Sets the track for the train departure with the given train number.
+   *
+   * @param trainNumber The train number of the departure.
+   * @param track       The track number to set.
+   * @return {@code true} if the departure was found; otherwise, {@code false}.
+   * @throws IllegalArgumentException If the track number is outside the valid range.
+   * @throws IllegalStateException    If the track is occupied within the dwell window, and the
+   *                                  policy is {@code TrackConflictPolicy.REJECT}.
+   * @since 0.0.1
+   */
+  public boolean setTrack(String trainNumber, int track) {
+    writeLock.lock();
+    try {
+      return trainRegister.setTrack(trainNumber, track) && refreshDeparture(trainNumber);
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+
+  /**
+   * Removes the train departure with the given train number, and releases its train number.
+   *
+   * @param trainNumber The train number of the departure to remove.
+   * @return {@code true} if the departure was found and removed; otherwise, {@code false}.
+   * @since 0.0.1
+   */
+  public boolean removeTrainByTrainNumber(String trainNumber) {
+    writeLock.lock();
+    try {
+      if (!trainRegister.removeTrainByTrainNumber(trainNumber)) {
+        return false;
+      }
+      departuresByTrainNumber.remove(trainNumber);
+      return true;
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+
+  /**
+   * Removes train departures whose effective departure time (departure time plus delay)
+   * is earlier than the station time. Only the expired departures are visited.
+   *
+   * @return The removed train departures, in order of their effective departure time.
+   * @since 0.0.1
+   */
+  public List<DepartureRecord> removeTrainsIfDepartureTimePassed() {
+    writeLock.lock();
+    try {
+      return forgetDepartures(trainRegister.removeTrainsIfDepartureTimePassed());
+    } catch (UncheckedIOException e) {
+      refreshAllDepartures();  // The departures logged before the failure were removed
+      throw e;
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+
+  /**
+   * Removes all train departures from the register.
+   *
+   * @since 0.0.1
+   */
+  public void removeAllTrains() {
+    writeLock.lock();
+    try {
+      trainRegister.removeAllTrains();
+      departuresByTrainNumber.clear();
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+
+  /**
+   * Searches the latest snapshot of the register based on specific attribute values.
+   * Supported attributes include "trainNumber," "destination," and "departureTime"
+   * (in "HH:mm" format).
+   *
+   * <p>The search does not take any locks, and every call returns its own results, ordered
+   * by effective departure time. A train number is looked up directly, and the other
+   * attributes are looked up in the indexes of the latest snapshot, see
+   * {@code RegisterSnapshot.departuresTo} and {@code RegisterSnapshot.departuresAt}, so a
+   * search never iterates the whole snapshot.</p>
+   *
+   * @param attributeName  The name of the attribute to search for.
+   * @param attributeValue The value of the attribute to search for.
+   * @return An iterator for the search results.
+   * @since 0.0.1
+   */
+  public Iterator<DepartureRecord> searchByAttributeAndValue(String attributeName,
+      String attributeValue) {
+
+    List<DepartureRecord> searchResults = new ArrayList<>();
+
+    switch (attributeName) {
+
+      case "trainNumber" -> {
+        DepartureRecord departure = getDeparture(attributeValue);
+        if (departure != null) {
+          searchResults.add(departure);
+        }
+      }
+
+      case "destination" -> searchResults = snapshot().departuresTo(attributeValue);
+
+      case "departureTime" -> searchResults =
+          snapshot().departuresAt(DepartureKey.parseMinuteOfDay(attributeValue));
+
+      default -> {
+        // Unsupported attribute, no results
+      }
+    }
+
+    return searchResults.iterator();
+  }
+
+
+  /**
+   * Publishes the current record of a departure of the wrapped register for the lock-free
+   * readers. The caller must hold the write lock.
+   *
+   * @param trainNumber The train number of the departure.
+   * @return Always {@code true}, so that it can end a successful change.
+   * @since 0.1.0
+   */
+  private boolean refreshDeparture(String trainNumber) {
+    Iterator<TrainDispatchSystem> found =
+        trainRegister.searchByAttributeAndValue("trainNumber", trainNumber);
+    if (found.hasNext()) {
+      departuresByTrainNumber.put(trainNumber, DepartureRecord.of(found.next()));
+    }
+    return true;
+  }
+
+
+  /**
+   * Publishes the records of all departures of the wrapped register again, after a change
+   * that failed part of the way, for example when the register log could not be written.
+   * The caller must hold the write lock.
+   *
+   * @since 0.1.1
+   */
+  private void refreshAllDepartures() {
+    Set<String> trainNumbers = new HashSet<>();
+    for (DepartureRecord departure : trainRegister.snapshot()) {
+      departuresByTrainNumber.put(departure.trainNumber(), departure);
+      trainNumbers.add(departure.trainNumber());
+    }
+    departuresByTrainNumber.keySet().retainAll(trainNumbers);
+  }
+
+
+  /**
+   * Stops publishing the records of departures removed from the wrapped register.
+   * The caller must hold the write lock.
+   *
+   * @param removed The removed departures.
+   * @return Immutable records of the removed departures, in the same order.
+   * @since 0.1.0
+   */
+  private List<DepartureRecord> forgetDepartures(List<TrainDispatchSystem> removed) {
+    List<DepartureRecord> records = new ArrayList<>(removed.size());
+    for (TrainDispatchSystem trainDispatch : removed) {
+      departuresByTrainNumber.remove(trainDispatch.getTrainNumber());
+      records.add(DepartureRecord.of(trainDispatch));
+    }
+    return records;
+  }
+}
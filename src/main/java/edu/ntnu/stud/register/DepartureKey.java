@@ -0,0 +1,76 @@
+package edu.ntnu.stud.register;
+
+import edu.ntnu.stud.traindispatchsystem.TrainDispatchSystem;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * The {@code DepartureKey} record is the sort key used by the ordered indexes in the
+ * {@code TrainRegister}. It orders train departures by their effective departure time
+ * (scheduled departure time plus delay), and uses the train number as a tie-breaker so that
+ * two departures leaving at the same minute never collide.
+ *
+ * <p>The effective departure time is stored as minutes after midnight. It is not wrapped
+ * around midnight, so a train scheduled at 23:50 with a 20 minute delay gets the value
+ * {@code 1450} and is still ordered after every other train of the day.</p>
+ *
+ * <p>A key is a snapshot of the departure at the time it was created. The register therefore
+ * removes the old key from its indexes <em>before</em> changing the delay or departure time
+ * of a train, and inserts a new key afterwards.</p>
+ *
+ * @param effectiveMinute The effective departure time in minutes after midnight.
+ * @param trainNumber     The train number of the departure.
+ *
+ * @author Karwan Shekhe
+ * @version 0.0.3 (Version of this class)
+ * @since 0.2.0 (Introduced in Version 0.2.0 of the Train Dispatch System application)
+ */
+record DepartureKey(int effectiveMinute, String trainNumber) implements Comparable<DepartureKey> {
+
+  /**
+   * Creates the key for the current state of a train departure.
+   *
+   * @param trainDispatch The train departure to create the key for.
+   * @return The key ordering the departure by effective departure time.
+   * @since 0.0.1
+   */
+  static DepartureKey of(TrainDispatchSystem trainDispatch) {
+    return new DepartureKey(trainDispatch.getEffectiveDepartureMinute(),
+        trainDispatch.getTrainNumber());
+  }
+
+
+  /**
+   * Parses a time in "HH:mm" format to minutes after midnight.
+   *
+   * @param time The time to parse.
+   * @return The time in minutes after midnight, or {@code -1} if the time could not be parsed.
+   * @since 0.0.2
+   */
+  static int parseMinuteOfDay(String time) {
+    if (time == null) {
+      return -1;
+    }
+    try {
+      return LocalTime.parse(time).toSecondOfDay() / 60;
+    } catch (DateTimeParseException e) {
+      return -1;
+    }
+  }
+
+
+  /**
+   * Compares this key with another key, first by effective departure time and
+   * then by train number.
+   *
+   * @param other The key to compare with.
+   * @return A negative integer, zero, or a positive integer as this key is less than,
+   *         equal to, or greater than the other key.
+   * @since 0.0.1
+   */
+  @Override
+  public int compareTo(DepartureKey other) {
+    int byTime = Integer.compare(effectiveMinute, other.effectiveMinute);
+    return byTime != 0 ? byTime : trainNumber.compareTo(other.trainNumber);
+  }
+}
@@ -0,0 +1,80 @@
+package edu.ntnu.stud.register;
+
+import edu.ntnu.stud.traindispatchsystem.TrainDispatchSystem;
+import java.time.LocalTime;
+
+/**
+ * The {@code DepartureRecord} record is an immutable copy of a train departure, as it was
+ * at one moment in time. It is used by {@code RegisterSnapshot} so that a snapshot never
+ * changes, even while the {@code TrainDispatchSystem} it was copied from is changed.
+ *
+ * <p>The names are the interned instances from the shared symbol table, so a record does
+ * not create new strings.</p>
+ *
+ * @param trainNumber      The allocated train number.
+ * @param departureStation The departure station of the train.
+ * @param destination      The destination of the train.
+ * @param departureMinute  The scheduled departure time, in minutes after midnight.
+ * @param line             The train line identifier.
+ * @param track            The track number.
+ * @param delay            The delay in minutes.
+ *
+ * @author Karwan Shekhe
+ * @version 0.0.1 (Version of this class)
+ * @since 0.2.0 (Introduced in Version 0.2.0 of the Train Dispatch System application)
+ */
+public record DepartureRecord(String trainNumber, String departureStation, String destination,
+    int departureMinute, String line, int track, int delay) {
+
+  /**
+   * Creates a record with the current values of a train departure.
+   *
+   * @param trainDispatch The train departure to copy.
+   * @return An immutable copy of the departure.
+   * @since 0.0.1
+   */
+  public static DepartureRecord of(TrainDispatchSystem trainDispatch) {
+    return new DepartureRecord(trainDispatch.getTrainNumber(),
+        trainDispatch.getDepartureStation(), trainDispatch.getDestination(),
+        trainDispatch.getDepartureMinute(), trainDispatch.getLine(),
+        trainDispatch.getTrack(), trainDispatch.getDelay());
+  }
+
+
+  /**
+   * Provides the effective departure time (departure time plus delay) in minutes after
+   * midnight.
+   *
+   * @return The effective departure time in minutes after midnight.
+   * @since 0.0.1
+   */
+  public int effectiveDepartureMinute() {
+    return departureMinute + delay;
+  }
+
+
+  /**
+   * Provides the scheduled departure time.
+   *
+   * @return The departure time.
+   * @since 0.0.1
+   */
+  public LocalTime departureTime() {
+    return LocalTime.of(departureMinute / 60, departureMinute % 60);
+  }
+
+
+  /**
+   * Creates a new {@code TrainDispatchSystem} with the values of this record,
+   * for example to display it. Changing the created departure does not change the record.
+   *
+   * @return A new train departure with the values of this record.
+   * @since 0.0.1
+   */
+  public TrainDispatchSystem toTrainDispatchSystem() {
+    TrainDispatchSystem trainDispatch = new TrainDispatchSystem(departureStation, destination,
+        departureTime(), line, track, trainNumber);
+    trainDispatch.setDelay(delay);
+    return trainDispatch;
+  }
+}
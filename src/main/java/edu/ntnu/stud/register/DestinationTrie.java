@@ -0,0 +1,207 @@
+package edu.ntnu.stud.register;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The {@code DestinationTrie} class is a trie (prefix tree) over the destination names in use
+ * by a {@code TrainRegister}. It maps names, compared without regard to case, to the interned
+ * destination ids of the shared symbol table.
+ *
+ * <p>The trie holds every destination name once, no matter how many departures go there,
+ * so searches never scan the departures:</p>
+ *
+ * <ul>
+ *     <li>A prefix search walks down the prefix, and collects the names below it.</li>
+ *     <li>A fuzzy search walks the trie while computing the edit distance to the query one
+ *     character at a time, and skips every branch that is already more than one edit away.
+ *     Shared prefixes are therefore only compared once.</li>
+ * </ul>
+ *
+ * @author Karwan Shekhe
+ * @version 0.0.1 (Version of this class)
+ * @since 0.2.0 (Introduced in Version 0.2.0 of the Train Dispatch System application)
+ */
+final class DestinationTrie {
+
+  // The maximum edit distance of a fuzzy match:
+  private static final int MAX_EDITS = 1;
+
+  private final Node root = new Node();
+
+
+  /**
+   * Adds a destination name to the trie.
+   *
+   * @param destination   The destination name.
+   * @param destinationId The interned id of the destination name.
+   * @since 0.0.1
+   */
+  void add(String destination, int destinationId) {
+    Node node = root;
+    for (char c : normalize(destination).toCharArray()) {
+      node = node.children.computeIfAbsent(c, k -> new Node());
+    }
+    if (node.destinationIds == null) {
+      node.destinationIds = new HashSet<>(2);
+    }
+    node.destinationIds.add(destinationId);
+  }
+
+
+  /**
+   * Removes a destination name from the trie, and drops the nodes it no longer needs.
+   *
+   * @param destination   The destination name.
+   * @param destinationId The interned id of the destination name.
+   * @since 0.0.1
+   */
+  void remove(String destination, int destinationId) {
+    remove(root, normalize(destination), 0, destinationId);
+  }
+
+
+  /**
+   * Removes all destination names from the trie.
+   *
+   * @since 0.0.1
+   */
+  void clear() {
+    root.children.clear();
+    root.destinationIds = null;
+  }
+
+
+  /**
+   * Collects the ids of the destinations whose names start with the given prefix,
+   * without regard to case.
+   *
+   * @param prefix         The prefix.
+   * @param destinationIds The collection to add the ids to.
+   * @since 0.0.1
+   */
+  void collectByPrefix(String prefix, Collection<Integer> destinationIds) {
+    Node node = root;
+    for (char c : normalize(prefix).toCharArray()) {
+      node = node.children.get(c);
+      if (node == null) {
+        return;
+      }
+    }
+    collectAll(node, destinationIds);
+  }
+
+
+  /**
+   * Collects the ids of the destinations whose names are at most one edit (an inserted,
+   * removed or replaced character) away from the query, without regard to case.
+   *
+   * @param query          The query.
+   * @param destinationIds The collection to add the ids to.
+   * @since 0.0.1
+   */
+  void collectWithinOneEdit(String query, Collection<Integer> destinationIds) {
+    char[] target = normalize(query).toCharArray();
+
+    // The edit distances from the empty name to each prefix of the query:
+    int[] firstRow = new int[target.length + 1];
+    for (int i = 0; i < firstRow.length; i++) {
+      firstRow[i] = i;
+    }
+
+    if (firstRow[target.length] <= MAX_EDITS && root.destinationIds != null) {
+      destinationIds.addAll(root.destinationIds);
+    }
+    for (Map.Entry<Character, Node> child : root.children.entrySet()) {
+      collectWithinEdits(child.getValue(), child.getKey(), target, firstRow, destinationIds);
+    }
+  }
+
+
+  /**
+   * Computes the next row of the edit distance table for one trie node, and continues
+   * into the children as long as a match is still possible.
+   */
+  private static void collectWithinEdits(Node node, char c, char[] target, int[] previousRow,
+      Collection<Integer> destinationIds) {
+
+    int[] currentRow = new int[previousRow.length];
+    currentRow[0] = previousRow[0] + 1;
+    int smallest = currentRow[0];
+
+    for (int i = 1; i < currentRow.length; i++) {
+      int insertion = currentRow[i - 1] + 1;
+      int deletion = previousRow[i] + 1;
+      int replacement = previousRow[i - 1] + (target[i - 1] == c ? 0 : 1);
+      currentRow[i] = Math.min(Math.min(insertion, deletion), replacement);
+      smallest = Math.min(smallest, currentRow[i]);
+    }
+
+    if (currentRow[target.length] <= MAX_EDITS && node.destinationIds != null) {
+      destinationIds.addAll(node.destinationIds);
+    }
+
+    // Every longer name below this node is at least as far away:
+    if (smallest <= MAX_EDITS) {
+      for (Map.Entry<Character, Node> child : node.children.entrySet()) {
+        collectWithinEdits(child.getValue(), child.getKey(), target, currentRow,
+            destinationIds);
+      }
+    }
+  }
+
+
+  /**
+   * Adds the ids of a node and all nodes below it.
+   */
+  private static void collectAll(Node node, Collection<Integer> destinationIds) {
+    if (node.destinationIds != null) {
+      destinationIds.addAll(node.destinationIds);
+    }
+    for (Node child : node.children.values()) {
+      collectAll(child, destinationIds);
+    }
+  }
+
+
+  /**
+   * Removes an id below a node. Returns {@code true} if the node is no longer needed.
+   */
+  private static boolean remove(Node node, String name, int depth, int destinationId) {
+    if (depth == name.length()) {
+      if (node.destinationIds != null) {
+        node.destinationIds.remove(destinationId);
+        if (node.destinationIds.isEmpty()) {
+          node.destinationIds = null;
+        }
+      }
+    } else {
+      Node child = node.children.get(name.charAt(depth));
+      if (child != null && remove(child, name, depth + 1, destinationId)) {
+        node.children.remove(name.charAt(depth));
+      }
+    }
+    return node.destinationIds == null && node.children.isEmpty();
+  }
+
+
+  /**
+   * Provides the form of a name used in the trie, so that searches ignore case.
+   */
+  private static String normalize(String name) {
+    return name.toLowerCase(Locale.ROOT);
+  }
+
+
+  /**
+   * A trie node. The ids are only set on nodes where a destination name ends.
+   */
+  private static final class Node {
+    private final Map<Character, Node> children = new HashMap<>(4);
+    private Set<Integer> destinationIds;
+  }
+}
@@ -0,0 +1,23 @@
+package edu.ntnu.stud.register;
+
+/**
+ * The {@code EventOverflowPolicy} enum decides what the {@code TrainRegister} does with a
+ * change event when the buffer of a subscriber is full, because the subscriber has not
+ * requested more events.
+ *
+ * <ul>
+ *     <li>{@code BLOCK}: The change waits until the subscriber has room for the event, so no
+ *     event is ever lost, but a slow subscriber slows down the register.</li>
+ *     <li>{@code DROP}: The event is dropped for that subscriber, and counted by
+ *     {@code TrainRegister.getDroppedEventCount}. The subscriber can take a new
+ *     {@code snapshot()} of the register to catch up.</li>
+ * </ul>
+ *
+ * @author Karwan Shekhe
+ * @version 0.0.1 (Version of this class)
+ * @since 0.2.0 (Introduced in Version 0.2.0 of the Train Dispatch System application)
+ */
+public enum EventOverflowPolicy {
+  BLOCK,
+  DROP
+}
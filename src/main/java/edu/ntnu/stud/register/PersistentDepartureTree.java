@@ -0,0 +1,423 @@
+package edu.ntnu.stud.register;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * The {@code PersistentDepartureTree} class is an immutable, balanced (AVL) search tree of
+ * departure records, ordered by {@code DepartureKey}.
+ *
+ * <p>Adding or removing a record never changes the tree. Instead a new tree is returned, which
+ * shares every node with the old tree except the nodes on the path to the changed record
+ * (path copying). A change therefore costs O(log n) time and memory, and a reader holding an
+ * old tree keeps a consistent view of it for free. This is what makes the snapshots of the
+ * {@code TrainRegister} O(1).</p>
+ *
+ * @author Karwan Shekhe
+ * @version 0.0.3 (Version of this class)
+ * @since 0.2.0 (Introduced in Version 0.2.0 of the Train Dispatch System application)
+ */
+final class PersistentDepartureTree implements Iterable<DepartureRecord> {
+
+  // The empty tree, shared by everyone:
+  static final PersistentDepartureTree EMPTY = new PersistentDepartureTree(null);
+
+  private final Node root;
+
+
+  /**
+   * Constructs a tree with the given root.
+   *
+   * @param root The root node, or {@code null} for an empty tree.
+   * @since 0.0.1
+   */
+  private PersistentDepartureTree(Node root) {
+    this.root = root;
+  }
+
+
+  /**
+   * Provides the number of records in the tree.
+   *
+   * @return The number of records.
+   * @since 0.0.1
+   */
+  int size() {
+    return sizeOf(root);
+  }
+
+
+  /**
+   * Provides a tree with the given record added, or replaced if the key is already present.
+   *
+   * @param key    The key of the record.
+   * @param record The record.
+   * @return The new tree.
+   * @since 0.0.1
+   */
+  PersistentDepartureTree with(DepartureKey key, DepartureRecord record) {
+    return new PersistentDepartureTree(insert(root, key, record));
+  }
+
+
+  /**
+   * Provides a tree with a run of records added, or replaced where the key is already present.
+   *
+   * <p>A run that is small compared to the tree is added record by record, in O(k log n), so
+   * that most of the tree stays shared with this tree. A larger run is merged with the records
+   * of this tree in key order, and a new, perfectly balanced tree is built from the merged
+   * records in O(n + k), without any rotations. Loading a whole timetable into an empty tree
+   * is therefore linear.</p>
+   *
+   * @param sortedRecords The records with their keys, sorted by key, without duplicate keys.
+   * @return The new tree, or this tree if the run is empty.
+   * @since 0.0.3
+   */
+  PersistentDepartureTree withAll(List<Map.Entry<DepartureKey, DepartureRecord>> sortedRecords) {
+    int runSize = sortedRecords.size();
+    int treeSize = size();
+    if (runSize == 0) {
+      return this;
+    }
+
+    // Record by record while k log(n + k) is below n + k:
+    int depth = 32 - Integer.numberOfLeadingZeros(treeSize + runSize);
+    if ((long) runSize * depth < treeSize + runSize) {
+      PersistentDepartureTree tree = this;
+      for (Map.Entry<DepartureKey, DepartureRecord> entry : sortedRecords) {
+        tree = tree.with(entry.getKey(), entry.getValue());
+      }
+      return tree;
+    }
+
+    DepartureKey[] keys = new DepartureKey[treeSize + runSize];
+    DepartureRecord[] records = new DepartureRecord[treeSize + runSize];
+    int merged = merge(root, sortedRecords, keys, records);
+    return new PersistentDepartureTree(build(keys, records, 0, merged));
+  }
+
+
+  /**
+   * Provides a tree without the record with the given key.
+   *
+   * @param key The key of the record to remove.
+   * @return The new tree, or this tree if the key is not present.
+   * @since 0.0.1
+   */
+  PersistentDepartureTree without(DepartureKey key) {
+    Node newRoot = remove(root, key);
+    return newRoot == root ? this : new PersistentDepartureTree(newRoot);
+  }
+
+
+  /**
+   * Provides an iterator over the records, in key order.
+   *
+   * @return An iterator over the records.
+   * @since 0.0.1
+   */
+  @Override
+  public Iterator<DepartureRecord> iterator() {
+    return new InOrderIterator(root, 0);
+  }
+
+
+  /**
+   * Provides an iterator over the records, in key order, starting at the record with the given
+   * index. The start is found in O(log n) from the subtree sizes, without visiting the records
+   * before it, so a page in the middle of a large tree is as cheap to reach as the first one.
+   *
+   * @param fromIndex The index of the first record, from 0.
+   * @return An iterator over the records from the index, which is empty if the index is at or
+   *         past the end.
+   * @since 0.0.2
+   */
+  Iterator<DepartureRecord> iterator(int fromIndex) {
+    return new InOrderIterator(root, fromIndex);
+  }
+
+
+  /**
+   * Provides an iterator over the records, in key order, starting at the first record whose
+   * key is not lower than the given key. The start is found in O(log n).
+   *
+   * @param fromKey The lowest key to include.
+   * @return An iterator over the records from the key.
+   * @since 0.0.2
+   */
+  Iterator<DepartureRecord> iterator(DepartureKey fromKey) {
+    return new InOrderIterator(root, fromKey);
+  }
+
+
+  /**
+   * Inserts a record below a node, and rebalances the copied path.
+   */
+  private static Node insert(Node node, DepartureKey key, DepartureRecord record) {
+    if (node == null) {
+      return new Node(key, record, null, null);
+    }
+
+    int comparison = key.compareTo(node.key);
+    if (comparison < 0) {
+      return balance(node.key, node.record, insert(node.left, key, record), node.right);
+    } else if (comparison > 0) {
+      return balance(node.key, node.record, node.left, insert(node.right, key, record));
+    } else {
+      return new Node(key, record, node.left, node.right);
+    }
+  }
+
+
+  /**
+   * Removes a record below a node, and rebalances the copied path.
+   * Returns the same node if the key was not found, so no path is copied.
+   */
+  private static Node remove(Node node, DepartureKey key) {
+    if (node == null) {
+      return null;
+    }
+
+    int comparison = key.compareTo(node.key);
+    if (comparison < 0) {
+      Node left = remove(node.left, key);
+      return left == node.left ? node : balance(node.key, node.record, left, node.right);
+
+    } else if (comparison > 0) {
+      Node right = remove(node.right, key);
+      return right == node.right ? node : balance(node.key, node.record, node.left, right);
+
+    } else if (node.left == null) {
+      return node.right;
+
+    } else if (node.right == null) {
+      return node.left;
+
+    } else {
+      Node successor = node.right;
+      while (successor.left != null) {
+        successor = successor.left;
+      }
+      return balance(successor.key, successor.record, node.left,
+          remove(node.right, successor.key));
+    }
+  }
+
+
+  /**
+   * Creates a node from its parts, rotating if the heights of the subtrees differ by more
+   * than one.
+   */
+  private static Node balance(DepartureKey key, DepartureRecord record, Node left, Node right) {
+    int leftHeight = heightOf(left);
+    int rightHeight = heightOf(right);
+
+    if (leftHeight > rightHeight + 1) {
+      if (heightOf(left.left) >= heightOf(left.right)) {
+        // Single right rotation:
+        return new Node(left.key, left.record, left.left,
+            new Node(key, record, left.right, right));
+      }
+      // Double rotation, left-right:
+      Node pivot = left.right;
+      return new Node(pivot.key, pivot.record,
+          new Node(left.key, left.record, left.left, pivot.left),
+          new Node(key, record, pivot.right, right));
+    }
+
+    if (rightHeight > leftHeight + 1) {
+      if (heightOf(right.right) >= heightOf(right.left)) {
+        // Single left rotation:
+        return new Node(right.key, right.record,
+            new Node(key, record, left, right.left), right.right);
+      }
+      // Double rotation, right-left:
+      Node pivot = right.left;
+      return new Node(pivot.key, pivot.record,
+          new Node(key, record, left, pivot.left),
+          new Node(right.key, right.record, pivot.right, right.right));
+    }
+
+    return new Node(key, record, left, right);
+  }
+
+
+  /**
+   * Merges the records below a node with a sorted run, in key order, into two arrays. Where
+   * both have a key, the record of the run is kept.
+   *
+   * @param root          The root of the tree.
+   * @param sortedRecords The sorted run.
+   * @param keys          The array for the merged keys.
+   * @param records       The array for the merged records.
+   * @return The number of merged records.
+   * @since 0.0.3
+   */
+  private static int merge(Node root, List<Map.Entry<DepartureKey, DepartureRecord>> sortedRecords,
+      DepartureKey[] keys, DepartureRecord[] records) {
+
+    Deque<Node> path = new ArrayDeque<>();
+    for (Node node = root; node != null; node = node.left) {
+      path.push(node);
+    }
+    Iterator<Map.Entry<DepartureKey, DepartureRecord>> run = sortedRecords.iterator();
+    Map.Entry<DepartureKey, DepartureRecord> next = run.hasNext() ? run.next() : null;
+
+    int count = 0;
+    while (!path.isEmpty() || next != null) {
+      int comparison = path.isEmpty() ? 1
+          : next == null ? -1 : path.peek().key.compareTo(next.getKey());
+      if (comparison < 0) {
+        Node node = path.pop();
+        keys[count] = node.key;
+        records[count++] = node.record;
+        for (Node child = node.right; child != null; child = child.left) {
+          path.push(child);
+        }
+      } else {
+        if (comparison == 0) {
+          Node replaced = path.pop();
+          for (Node child = replaced.right; child != null; child = child.left) {
+            path.push(child);
+          }
+        }
+        keys[count] = next.getKey();
+        records[count++] = next.getValue();
+        next = run.hasNext() ? run.next() : null;
+      }
+    }
+    return count;
+  }
+
+
+  /**
+   * Builds a perfectly balanced tree from sorted records, taking the middle record as the
+   * root of every subtree. A perfectly balanced tree is also a valid AVL tree.
+   *
+   * @param keys    The sorted keys.
+   * @param records The records of the keys.
+   * @param from    The index of the first record, inclusive.
+   * @param to      The index of the last record, exclusive.
+   * @return The root of the tree, or {@code null} if the range is empty.
+   * @since 0.0.3
+   */
+  private static Node build(DepartureKey[] keys, DepartureRecord[] records, int from, int to) {
+    if (from >= to) {
+      return null;
+    }
+    int middle = (from + to) >>> 1;
+    return new Node(keys[middle], records[middle], build(keys, records, from, middle),
+        build(keys, records, middle + 1, to));
+  }
+
+
+  /**
+   * Provides the height of a subtree.
+   *
+   * @param node The root of the subtree, or {@code null}.
+   * @return The height, 0 for an empty subtree.
+   * @since 0.0.1
+   */
+  private static int heightOf(Node node) {
+    return node == null ? 0 : node.height;
+  }
+
+
+  /**
+   * Provides the number of records in a subtree.
+   *
+   * @param node The root of the subtree, or {@code null}.
+   * @return The number of records, 0 for an empty subtree.
+   * @since 0.0.1
+   */
+  private static int sizeOf(Node node) {
+    return node == null ? 0 : node.size;
+  }
+
+
+  /**
+   * An immutable tree node.
+   */
+  private static final class Node {
+    private final DepartureKey key;
+    private final DepartureRecord record;
+    private final Node left;
+    private final Node right;
+    private final int height;
+    private final int size;
+
+    private Node(DepartureKey key, DepartureRecord record, Node left, Node right) {
+      this.key = key;
+      this.record = record;
+      this.left = left;
+      this.right = right;
+      this.height = Math.max(heightOf(left), heightOf(right)) + 1;
+      this.size = sizeOf(left) + sizeOf(right) + 1;
+    }
+  }
+
+
+  /**
+   * Iterates the records in key order, using a stack of at most the height of the tree.
+   */
+  private static final class InOrderIterator implements Iterator<DepartureRecord> {
+    private final Deque<Node> path = new ArrayDeque<>();
+
+    private InOrderIterator(Node root, int skip) {
+      // Walks down to the record with the index, keeping the nodes that are still to come:
+      Node node = root;
+      while (node != null) {
+        int leftSize = sizeOf(node.left);
+        if (skip < leftSize) {
+          path.push(node);
+          node = node.left;
+        } else if (skip == leftSize) {
+          path.push(node);
+          node = null;
+        } else {
+          skip -= leftSize + 1;
+          node = node.right;
+        }
+      }
+    }
+
+    private InOrderIterator(Node root, DepartureKey fromKey) {
+      // Walks down to the first key not lower than the given key, keeping the nodes to come:
+      Node node = root;
+      while (node != null) {
+        if (fromKey.compareTo(node.key) <= 0) {
+          path.push(node);
+          node = node.left;
+        } else {
+          node = node.right;
+        }
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return !path.isEmpty();
+    }
+
+    @Override
+    public DepartureRecord next() {
+      if (path.isEmpty()) {
+        throw new NoSuchElementException();
+      }
+      Node node = path.pop();
+      pushLeftPath(node.right);
+      return node.record;
+    }
+
+    private void pushLeftPath(Node node) {
+      while (node != null) {
+        path.push(node);
+        node = node.left;
+      }
+    }
+  }
+}
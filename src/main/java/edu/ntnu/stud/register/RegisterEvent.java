@@ -0,0 +1,31 @@
+package edu.ntnu.stud.register;
+
+import java.time.LocalTime;
+
+/**
+ * The {@code RegisterEvent} record describes one change of a {@code TrainRegister}, as
+ * published by {@code TrainRegister.changeEvents()}.
+ *
+ * <p>The version is the version of the register after the change. It grows by one for every
+ * change, so events arrive in increasing version order, and a change that affects several
+ * departures (such as a batch of added departures, or the expiry of several departures) gives
+ * one event per departure, all with the same version. A displayed state can therefore be kept
+ * up to date by applying the events to a {@code RegisterSnapshot} of an earlier version.
+ * A change of more than {@code TrainRegister.EVENT_BUFFER_SIZE} departures gives a single
+ * {@code BULK_CHANGED} event instead, after which the state should be read again from a
+ * snapshot.</p>
+ *
+ * @param version     The version of the register after the change.
+ * @param type        The kind of change.
+ * @param departure   The changed departure after the change, or the removed departure as it
+ *                    was when it was removed. {@code null} for {@code ALL_REMOVED},
+ *                    {@code STATION_TIME_CHANGED} and {@code BULK_CHANGED}.
+ * @param stationTime The station time of the register after the change.
+ *
+ * @author Karwan Shekhe
+ * @version 0.0.2 (Version of this class)
+ * @since 0.2.0 (Introduced in Version 0.2.0 of the Train Dispatch System application)
+ */
+public record RegisterEvent(long version, RegisterEventType type, DepartureRecord departure,
+    LocalTime stationTime) {
+}
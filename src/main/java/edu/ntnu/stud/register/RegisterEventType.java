@@ -0,0 +1,35 @@
+package edu.ntnu.stud.register;
+
+/**
+ * The {@code RegisterEventType} enum is the kind of change a {@code RegisterEvent} describes.
+ *
+ * <ul>
+ *     <li>{@code ADDED}: A departure was added.</li>
+ *     <li>{@code REMOVED}: A departure was removed by its train number.</li>
+ *     <li>{@code EXPIRED}: A departure was removed because its departure time had passed.</li>
+ *     <li>{@code DELAYED}: The delay of a departure was set.</li>
+ *     <li>{@code DEPARTURE_TIME_CHANGED}: The departure time of a departure was set.</li>
+ *     <li>{@code TRACK_CHANGED}: The track of a departure was set.</li>
+ *     <li>{@code ALL_REMOVED}: All departures were removed.</li>
+ *     <li>{@code STATION_TIME_CHANGED}: The station time was updated.</li>
+ *     <li>{@code BULK_CHANGED}: More departures were changed at once than a subscriber can
+ *     buffer events for (for example by a large batch), so the change has this one event
+ *     instead of one per departure. The departures should be read again from a snapshot of
+ *     the register.</li>
+ * </ul>
+ *
+ * @author Karwan Shekhe
+ * @version 0.0.2 (Version of this class)
+ * @since 0.2.0 (Introduced in Version 0.2.0 of the Train Dispatch System application)
+ */
+public enum RegisterEventType {
+  ADDED,
+  REMOVED,
+  EXPIRED,
+  DELAYED,
+  DEPARTURE_TIME_CHANGED,
+  TRACK_CHANGED,
+  ALL_REMOVED,
+  STATION_TIME_CHANGED,
+  BULK_CHANGED
+}
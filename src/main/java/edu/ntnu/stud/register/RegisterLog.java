@@ -0,0 +1,125 @@
+package edu.ntnu.stud.register;
+
+import java.time.LocalTime;
+
+/**
+ * The {@code RegisterLog} interface receives every change of a {@code TrainRegister}, for
+ * example to write it to a write-ahead log so that the register can be recovered after a
+ * crash or a restart.
+ *
+ * <p>The register calls the log after a change has been checked, and before it is applied,
+ * so a change that failed (for example an invalid delay) is never logged. If the log throws
+ * (for example an {@code UncheckedIOException}), the change is not applied, and the exception
+ * is passed on to the caller of the register. Replaying the logged changes, in order, on an
+ * empty register gives the same departures and station time again. All methods do nothing by
+ * default.</p>
+ *
+ * <p>A change of the register can consist of several logged changes (for example a batch of
+ * added departures). At the end of every change, {@code changeCommitted} is called with the
+ * snapshot of the register after the change. The snapshot includes exactly the changes logged
+ * so far, so a snapshot and a log position taken together at that point are consistent.</p>
+ *
+ * <blockquote><pre>
+ * <p><strong>Example Usage:</strong></p>
+ *
+ * {@code
+ *    trainRegister.setRegisterLog(new RegisterLog() {
+ *      public void delaySet(String trainNumber, int delayMinutes) {
+ *        System.out.println(trainNumber + " is delayed by " + delayMinutes + " minutes");
+ *      }
+ *    });
+ * }
+ * </pre></blockquote>
+ *
+ * @author Karwan Shekhe
+ * @version 0.0.3 (Version of this class)
+ * @since 0.2.0 (Introduced in Version 0.2.0 of the Train Dispatch System application)
+ */
+public interface RegisterLog {
+
+  // The log that ignores every change, used when no log is set:
+  RegisterLog NONE = new RegisterLog() { };
+
+
+  /**
+   * Called when a departure has been added to the register.
+   *
+   * @param departure The added departure, as it was when it was added.
+   * @since 0.0.1
+   */
+  default void departureAdded(DepartureRecord departure) {
+  }
+
+
+  /**
+   * Called when a departure has been removed from the register, by its train number or
+   * because it expired.
+   *
+   * @param trainNumber The train number of the removed departure.
+   * @since 0.0.1
+   */
+  default void departureRemoved(String trainNumber) {
+  }
+
+
+  /**
+   * Called when all departures have been removed from the register.
+   *
+   * @since 0.0.1
+   */
+  default void allDeparturesRemoved() {
+  }
+
+
+  /**
+   * Called when the delay of a departure has been set.
+   *
+   * @param trainNumber  The train number of the departure.
+   * @param delayMinutes The new delay in minutes.
+   * @since 0.0.1
+   */
+  default void delaySet(String trainNumber, int delayMinutes) {
+  }
+
+
+  /**
+   * Called when the departure time of a departure has been set.
+   *
+   * @param trainNumber     The train number of the departure.
+   * @param departureMinute The new departure time, in minutes after midnight.
+   * @since 0.0.1
+   */
+  default void departureTimeSet(String trainNumber, int departureMinute) {
+  }
+
+
+  /**
+   * Called when the track of a departure has been set.
+   *
+   * @param trainNumber The train number of the departure.
+   * @param track       The new track number.
+   * @since 0.0.1
+   */
+  default void trackSet(String trainNumber, int track) {
+  }
+
+
+  /**
+   * Called when the station time of the register has been updated.
+   *
+   * @param stationTime The new station time.
+   * @since 0.0.1
+   */
+  default void stationTimeSet(LocalTime stationTime) {
+  }
+
+
+  /**
+   * Called at the end of every change of the register, after all of its logged changes.
+   *
+   * @param snapshot The snapshot of the register after the change.
+   * @since 0.0.2
+   */
+  default void changeCommitted(RegisterSnapshot snapshot) {
+  }
+}
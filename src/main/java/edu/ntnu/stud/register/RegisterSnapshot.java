@@ -0,0 +1,249 @@
+package edu.ntnu.stud.register;
+
+import edu.ntnu.stud.traindispatchsystem.TrainDispatchSystem;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@code RegisterSnapshot} class is an immutable, consistent view of a
+ * {@code TrainRegister} at one version.
+ *
+ * <p>A snapshot is taken in O(1) with {@code TrainRegister.snapshot()}. It shares its
+ * structure with the register (see {@code PersistentDepartureTree}), so taking it copies
+ * nothing, and later changes to the register are never visible through it. A display or an
+ * export can therefore iterate a snapshot at its own pace, even from another thread, while
+ * the register keeps being changed.</p>
+ *
+ * <p>Besides the departures in order of effective departure time, a snapshot shares the
+ * departures of each destination with the register, so the departures to a destination or
+ * at a departure time are found without iterating the whole snapshot.</p>
+ *
+ * <blockquote><pre>
+ * <p><strong>Example Usage:</strong></p>
+ *
+ * {@code
+ *    RegisterSnapshot snapshot = trainRegister.snapshot();
+ *
+ *    display.displayTrainDispatchListTable(snapshot);
+ * }
+ * </pre></blockquote>
+ *
+ * @author Karwan Shekhe
+ * @version 0.0.4 (Version of this class)
+ * @since 0.2.0 (Introduced in Version 0.2.0 of the Train Dispatch System application)
+ */
+public final class RegisterSnapshot implements Iterable<DepartureRecord> {
+
+  // The longest delay of a departure, see TrainDispatchSystem.setDelay:
+  private static final int MAX_DELAY_MINUTES = 60;
+
+  private final long version;                        // The register version of the snapshot
+  private final LocalTime stationTime;               // The station time at the snapshot
+  private final PersistentDepartureTree departures;  // The departures at the snapshot
+  private final Map<String, PersistentDepartureTree> destinations;  // Never changed, shared
+
+
+  /**
+   * Constructs a snapshot. Only the register creates snapshots.
+   *
+   * @param version     The version of the register.
+   * @param stationTime The station time of the register.
+   * @param departures  The departures of the register.
+   * @param destinations The departures of the register per destination name. The register
+   *                     never changes the map after passing it to a snapshot.
+   * @since 0.0.1
+   */
+  RegisterSnapshot(long version, LocalTime stationTime, PersistentDepartureTree departures,
+      Map<String, PersistentDepartureTree> destinations) {
+    this.version = version;
+    this.stationTime = stationTime;
+    this.departures = departures;
+    this.destinations = destinations;
+  }
+
+
+  /**
+   * Provides the version of the register this snapshot was taken at. The version grows by
+   * one for every change of the register, so a newer snapshot has a higher version.
+   *
+   * @return The version of the snapshot.
+   * @since 0.0.1
+   */
+  public long getVersion() {
+    return version;
+  }
+
+
+  /**
+   * Provides the station time at the time of the snapshot.
+   *
+   * @return The station time.
+   * @since 0.0.1
+   */
+  public LocalTime getStationTime() {
+    return stationTime;
+  }
+
+
+  /**
+   * Provides the number of departures in the snapshot.
+   *
+   * @return The number of departures.
+   * @since 0.0.1
+   */
+  public int size() {
+    return departures.size();
+  }
+
+
+  /**
+   * Provides an iterator over the departures in the snapshot, in ascending order of their
+   * effective departure time (departure time plus delay).
+   *
+   * @return An iterator over the departure records.
+   * @since 0.0.1
+   */
+  @Override
+  public Iterator<DepartureRecord> iterator() {
+    return departures.iterator();
+  }
+
+
+  /**
+   * Provides an iterator over the departures in the snapshot as {@code TrainDispatchSystem}
+   * instances, in ascending order of their effective departure time. A new instance is created
+   * for each departure, so changing it does not change the snapshot or the register.
+   *
+   * @return An iterator over copies of the departures.
+   * @since 0.0.1
+   */
+  public Iterator<TrainDispatchSystem> trainDispatchIterator() {
+    return trainDispatchIterator(0);
+  }
+
+
+  /**
+   * Provides an iterator over the departures in the snapshot, in ascending order of their
+   * effective departure time, starting at the departure with the given index. Finding the
+   * start takes O(log n), so a page of a large table is reached without iterating the pages
+   * before it.
+   *
+   * @param fromIndex The index of the first departure, from 0.
+   * @return An iterator over the departure records from the index.
+   * @throws IllegalArgumentException If the index is negative.
+   * @since 0.0.2
+   */
+  public Iterator<DepartureRecord> iterator(int fromIndex) {
+    if (fromIndex < 0) {
+      throw new IllegalArgumentException("The index cannot be negative");
+    }
+    return departures.iterator(fromIndex);
+  }
+
+
+  /**
+   * Provides an iterator over copies of the departures in the snapshot, in ascending order of
+   * their effective departure time, starting at the departure with the given index.
+   *
+   * @param fromIndex The index of the first departure, from 0.
+   * @return An iterator over copies of the departures from the index.
+   * @throws IllegalArgumentException If the index is negative.
+   * @since 0.0.2
+   */
+  public Iterator<TrainDispatchSystem> trainDispatchIterator(int fromIndex) {
+    Iterator<DepartureRecord> records = iterator(fromIndex);
+
+    return new Iterator<>() {
+      @Override
+      public boolean hasNext() {
+        return records.hasNext();
+      }
+
+      @Override
+      public TrainDispatchSystem next() {
+        return records.next().toTrainDispatchSystem();
+      }
+    };
+  }
+
+
+  /**
+   * Provides the next departures of the snapshot that have not expired at the station time of
+   * the snapshot, in ascending order of their effective departure time, like
+   * {@code TrainRegister.nextDepartures}. The cost is O(log n + k) for k departures.
+   *
+   * @param count The maximum number of departures.
+   * @return The next departures, at most {@code count}.
+   * @throws IllegalArgumentException If the count is negative.
+   * @since 0.0.3
+   */
+  public List<DepartureRecord> nextDepartures(int count) {
+    if (count < 0) {
+      throw new IllegalArgumentException("The number of departures cannot be negative");
+    }
+
+    // A departure has expired if it leaves before the station time, in whole minutes, and the
+    // empty train number is the lowest key of a minute:
+    int expiryMinute = (stationTime.toSecondOfDay() + 59) / 60;
+    Iterator<DepartureRecord> notExpired =
+        departures.iterator(new DepartureKey(expiryMinute, ""));
+
+    List<DepartureRecord> next = new ArrayList<>(Math.min(count, 64));
+    while (next.size() < count && notExpired.hasNext()) {
+      next.add(notExpired.next());
+    }
+    return next;
+  }
+
+
+  /**
+   * Provides the departures of the snapshot to a destination, in ascending order of their
+   * effective departure time. The departures of each destination are kept apart in the
+   * snapshot, so the cost is O(k) for k departures.
+   *
+   * @param destination The destination name.
+   * @return The departures to the destination, or an empty list if there are none.
+   * @since 0.0.4
+   */
+  public List<DepartureRecord> departuresTo(String destination) {
+    PersistentDepartureTree toDestination = destinations.get(destination);
+    List<DepartureRecord> found = new ArrayList<>();
+    if (toDestination != null) {
+      toDestination.forEach(found::add);
+    }
+    return found;
+  }
+
+
+  /**
+   * Provides the departures of the snapshot that are scheduled at a departure time, in
+   * ascending order of their effective departure time. A delay is at most
+   * {@code MAX_DELAY_MINUTES}, so only the departures with an effective departure time in
+   * that window after the departure time are read, at a cost of O(log n + w) for w
+   * departures in the window.
+   *
+   * @param departureMinute The scheduled departure time, in minutes after midnight.
+   * @return The departures at the departure time, or an empty list if there are none.
+   * @since 0.0.4
+   */
+  public List<DepartureRecord> departuresAt(int departureMinute) {
+    // The empty train number is the lowest key of a minute:
+    Iterator<DepartureRecord> window =
+        departures.iterator(new DepartureKey(departureMinute, ""));
+
+    List<DepartureRecord> found = new ArrayList<>();
+    while (window.hasNext()) {
+      DepartureRecord departure = window.next();
+      if (departure.effectiveDepartureMinute() > departureMinute + MAX_DELAY_MINUTES) {
+        break;
+      }
+      if (departure.departureMinute() == departureMinute) {
+        found.add(departure);
+      }
+    }
+    return found;
+  }
+}
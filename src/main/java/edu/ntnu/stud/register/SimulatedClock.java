@@ -0,0 +1,167 @@
+package edu.ntnu.stud.register;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.function.LongSupplier;
+
+/**
+ * <p>The {@code SimulatedClock} class is a {@code Clock} that starts at a given time, and
+ * runs a given number of times faster than real time.</p>
+ *
+ * <p>Given to a {@code TrainRegister}, and driven by a {@code StationClockDriver}, it lets a
+ * whole day of traffic be replayed or soak-tested in minutes: at a speed of 1440, the station
+ * time goes through 24 hours in one minute of real time. The simulated time is computed from
+ * the real time that has passed since the clock was created, so it never drifts, no matter how
+ * often or how late it is read. The real time is measured with {@code System.nanoTime}, which
+ * only moves forward, so a step of the wall clock (for example by NTP) does not make the
+ * simulation jump.</p>
+ *
+ * <blockquote><pre>
+ * <p><strong>Example Usage:</strong></p>
+ *
+ * {@code
+ *    // A day from 05:00, in 24 minutes:
+ *    TrainRegister register = new TrainRegister(new SimulatedClock(LocalTime.of(5, 0), 60));
+ * }
+ * </pre></blockquote>
+ *
+ * @author Karwan Shekhe
+ * @version 0.0.2 (Version of this class)
+ * @since 0.2.0 (Introduced in Version 0.2.0 of the Train Dispatch System application)
+ */
+public final class SimulatedClock extends Clock {
+
+  private final LongSupplier realNanoTime;  // Measures real time, like System.nanoTime
+  private final long realStartNanos;  // The real time the simulation started, in nanoseconds
+  private final Instant start;        // The simulated time the simulation started at
+  private final double speed;         // Simulated seconds per real second
+  private final ZoneId zone;
+
+
+  /**
+   * Constructs a clock that starts at the given time of today, in the default time zone, and
+   * runs {@code speed} times faster than real time.
+   *
+   * @param startTime The simulated time to start at.
+   * @param speed     The number of simulated seconds per real second.
+   * @throws IllegalArgumentException If the start time is null, or the speed is not positive.
+   * @since 0.0.1
+   */
+  public SimulatedClock(LocalTime startTime, double speed) {
+    this(startTime == null ? null
+            : LocalDate.now().atTime(startTime).atZone(ZoneId.systemDefault()).toInstant(),
+        ZoneId.systemDefault(), speed, System::nanoTime);
+  }
+
+
+  /**
+   * Constructs a clock that starts at the given instant, and runs {@code speed} times faster
+   * than the real time measured by the given source of nanoseconds.
+   *
+   * @param start        The simulated instant to start at.
+   * @param zone         The time zone of the clock.
+   * @param speed        The number of simulated seconds per real second.
+   * @param realNanoTime Measures the real time that passes, in nanoseconds from any fixed
+   *                     origin, such as {@code System::nanoTime}.
+   * @throws IllegalArgumentException If the start, zone or real time source is null, or the
+   *                                  speed is not positive.
+   * @since 0.0.2
+   */
+  public SimulatedClock(Instant start, ZoneId zone, double speed, LongSupplier realNanoTime) {
+    this(start, zone, speed, realNanoTime, startOf(realNanoTime));
+  }
+
+
+  /**
+   * Constructs a clock that shares the start of a simulation.
+   *
+   * @since 0.0.1
+   */
+  private SimulatedClock(Instant start, ZoneId zone, double speed, LongSupplier realNanoTime,
+      long realStartNanos) {
+
+    if (start == null || zone == null) {
+      throw new IllegalArgumentException("Start, zone and real time cannot be null");
+    }
+    if (!(speed > 0)) {
+      throw new IllegalArgumentException("The speed must be positive");
+    }
+    this.start = start;
+    this.zone = zone;
+    this.speed = speed;
+    this.realNanoTime = realNanoTime;
+    this.realStartNanos = realStartNanos;
+  }
+
+
+  /**
+   * Provides the number of simulated seconds per real second.
+   *
+   * @return The speed of the clock.
+   * @since 0.0.1
+   */
+  public double getSpeed() {
+    return speed;
+  }
+
+
+  /**
+   * Provides the current simulated instant: the start, plus the real time passed since the
+   * start times the speed.
+   *
+   * @return The simulated instant.
+   * @since 0.0.1
+   */
+  @Override
+  public Instant instant() {
+    long realNanos = realNanoTime.getAsLong() - realStartNanos;
+    return start.plusNanos((long) (realNanos * speed));
+  }
+
+
+  /**
+   * Provides the time zone of the clock, which the simulated instants are shown in.
+   *
+   * @return The time zone.
+   * @since 0.0.1
+   */
+  @Override
+  public ZoneId getZone() {
+    return zone;
+  }
+
+
+  /**
+   * Provides this simulation in another time zone. The returned clock shows the same
+   * instants as this clock.
+   *
+   * @param zone The time zone.
+   * @return The clock in the time zone.
+   * @since 0.0.1
+   */
+  @Override
+  public Clock withZone(ZoneId zone) {
+    return zone.equals(this.zone) ? this
+        : new SimulatedClock(start, zone, speed, realNanoTime, realStartNanos);
+  }
+
+
+  /**
+   * Reads the real time the simulation starts at. Also checks the source of real time while
+   * constructing the simulation.
+   *
+   * @param realNanoTime The source of real time.
+   * @return The real time, in nanoseconds.
+   * @throws IllegalArgumentException If the source is null.
+   * @since 0.0.2
+   */
+  private static long startOf(LongSupplier realNanoTime) {
+    if (realNanoTime == null) {
+      throw new IllegalArgumentException("Start, zone and real time cannot be null");
+    }
+    return realNanoTime.getAsLong();
+  }
+}
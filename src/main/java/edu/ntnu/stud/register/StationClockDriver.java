@@ -0,0 +1,177 @@
+package edu.ntnu.stud.register;
+
+import java.io.Closeable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>The {@code StationClockDriver} class moves the station time of a {@code TrainRegister}
+ * along with the clock of the register, and removes the departures that expire on the way.</p>
+ *
+ * <p>Every {@code tickMillis} of real time, the driver calls
+ * {@code TrainRegister.advanceStationTime} on its own thread. Each new minute of the station
+ * time and each expired departure is published as a change event of the register, so a live
+ * departure board follows the clock by itself. With a {@code SimulatedClock}, a whole day of
+ * traffic runs through the register in minutes.</p>
+ *
+ * <p>The register is not thread-safe, so while the driver runs it owns the register: other
+ * changes of the register must be run on the thread of the driver with {@code execute}, for
+ * example the traffic of a soak test. Reading snapshots of the register is always safe.</p>
+ *
+ * <blockquote><pre>
+ * <p><strong>Example Usage:</strong></p>
+ *
+ * {@code
+ *    TrainRegister register = new TrainRegister(new SimulatedClock(LocalTime.of(0, 0), 1440));
+ *
+ *    try (StationClockDriver driver = new StationClockDriver(register, 50)) {
+ *      driver.execute(() -> register.setDelay("601", 10));
+ *      ...
+ *    }
+ * }
+ * </pre></blockquote>
+ *
+ * @author Karwan Shekhe
+ * @version 0.0.1 (Version of this class)
+ * @since 0.2.0 (Introduced in Version 0.2.0 of the Train Dispatch System application)
+ */
+public class StationClockDriver implements Closeable {
+
+  private final TrainRegister trainRegister;
+  private final ScheduledExecutorService scheduler;  // The thread that owns the register
+  private RuntimeException lastFailure;              // The failure of the last tick, if any
+  private long ticks;                                // The number of ticks done
+  private long expiredDepartures;                    // The departures removed by the ticks
+
+
+  /**
+   * Constructs a driver, and starts moving the station time of the register.
+   *
+   * @param trainRegister The register to drive.
+   * @param tickMillis    The real time in milliseconds between two moves of the station time.
+   * @throws IllegalArgumentException If the register is null, or the time is not positive.
+   * @since 0.0.1
+   */
+  public StationClockDriver(TrainRegister trainRegister, long tickMillis) {
+    if (trainRegister == null) {
+      throw new IllegalArgumentException("Train register cannot be null");
+    }
+    if (tickMillis <= 0) {
+      throw new IllegalArgumentException("The time between ticks must be positive");
+    }
+    this.trainRegister = trainRegister;
+
+    scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "station-clock");
+      thread.setDaemon(true);
+      return thread;
+    });
+    scheduler.scheduleAtFixedRate(this::tick, 0, tickMillis, TimeUnit.MILLISECONDS);
+  }
+
+
+  /**
+   * Runs a change of the register on the thread of the driver, between two ticks, and waits
+   * for it to finish.
+   *
+   * @param change The change to run.
+   * @throws IllegalArgumentException If the change is null.
+   * @throws IllegalStateException    If the driver is closed.
+   * @throws RuntimeException         The exception thrown by the change, if any.
+   * @since 0.0.1
+   */
+  public void execute(Runnable change) {
+    if (change == null) {
+      throw new IllegalArgumentException("Change cannot be null");
+    }
+    if (scheduler.isShutdown()) {
+      throw new IllegalStateException("The driver is closed");
+    }
+
+    Future<?> result = scheduler.submit(change);
+    try {
+      result.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      result.cancel(false);
+    } catch (ExecutionException e) {
+      throw e.getCause() instanceof RuntimeException runtimeException
+          ? runtimeException : new IllegalStateException(e.getCause());
+    }
+  }
+
+
+  /**
+   * Provides the number of ticks done so far.
+   *
+   * @return The number of ticks.
+   * @since 0.0.1
+   */
+  public synchronized long getTicks() {
+    return ticks;
+  }
+
+
+  /**
+   * Provides the number of departures the ticks have removed because they expired.
+   *
+   * @return The number of expired departures.
+   * @since 0.0.1
+   */
+  public synchronized long getExpiredDepartures() {
+    return expiredDepartures;
+  }
+
+
+  /**
+   * Provides the failure of the last tick, if it failed. The next tick tries again.
+   *
+   * @return The failure, or {@code null} if the last tick did not fail.
+   * @since 0.0.1
+   */
+  public synchronized RuntimeException getLastFailure() {
+    return lastFailure;
+  }
+
+
+  /**
+   * Stops moving the station time, and waits for a running tick or change to finish. After
+   * this, the register can be changed from any one thread again.
+   *
+   * @since 0.0.1
+   */
+  @Override
+  public void close() {
+    scheduler.shutdown();
+    try {
+      scheduler.awaitTermination(1, TimeUnit.MINUTES);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+
+  /**
+   * Moves the station time of the register to the time of its clock. A failure is kept for
+   * {@code getLastFailure}, so that it does not stop the ticks.
+   *
+   * @since 0.0.1
+   */
+  private void tick() {
+    try {
+      int expired = trainRegister.advanceStationTime().size();
+      synchronized (this) {
+        ticks++;
+        expiredDepartures += expired;
+        lastFailure = null;
+      }
+    } catch (RuntimeException e) {
+      synchronized (this) {
+        lastFailure = e;
+      }
+    }
+  }
+}
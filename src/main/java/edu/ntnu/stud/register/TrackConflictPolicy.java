@@ -0,0 +1,21 @@
+package edu.ntnu.stud.register;
+
+/**
+ * The {@code TrackConflictPolicy} enum decides what the {@code TrainRegister} does when a
+ * departure is booked on a track that is already occupied by another departure within the
+ * dwell window.
+ *
+ * <ul>
+ *     <li>{@code FLAG}: The departure is booked anyway. The conflict can be looked up with
+ *     {@code TrainRegister.findTrackConflicts}.</li>
+ *     <li>{@code REJECT}: The departure is not added, or its track is not changed.</li>
+ * </ul>
+ *
+ * @author Karwan Shekhe
+ * @version 0.0.1 (Version of this class)
+ * @since 0.2.0 (Introduced in Version 0.2.0 of the Train Dispatch System application)
+ */
+public enum TrackConflictPolicy {
+  FLAG,
+  REJECT
+}
@@ -3,6 +3,7 @@ package edu.ntnu.stud.register;
 import edu.ntnu.stud.traindispatchsystem.TrainDispatchSystem;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 
 
 /**
@@ -29,9 +30,11 @@ import java.util.Map;
  * <p>The primary purpose of this class is to prevent
  * the allocation of the same train number to multiple train departures,
  * ensuring each train number is unique within the system.
+ * When a train departure is removed, its train number is released again, so the map of
+ * allocated train numbers only holds the departures that are currently registered.
  *
  * @author Karwan Shekhe
- * @version 0.0.8 (Version of this class)
+ * @version 0.1.0 (Version of this class)
  * @since 0.0.3 (Introduced in Version 0.0.3 of the Train Dispatch System application)
  */
 public class TrainManager {
@@ -70,7 +73,9 @@ public class TrainManager {
    * <p>This method is responsible for marking a train number as allocated to a particular
    * train departure. If the train number is already in use,
    * an IllegalArgumentException is thrown to indicate that the number is already allocated.
-   * Otherwise, the train number is marked as allocated for the provided train departure.</p>
+   * Otherwise, the train number is marked as allocated for the provided train departure.
+   * Marking a train number again for the departure it is allocated to is allowed.
+   * The check is a single lookup, so it costs O(1).</p>
    *
    * @param trainNumber The train number to mark as allocated.
    * @param train The train departure associate with the allocated train number.
@@ -79,8 +84,8 @@ public class TrainManager {
    */
   public void markTrainNumberAsAllocated(String trainNumber, TrainDispatchSystem train) {
     // Checking if the train number is already allocated to another train departure
-    if (trainNumber == null
-        || (!isTrainNumberAvailable(trainNumber) && !allocatedTrainNumbers.containsValue(train))) {
+    TrainDispatchSystem allocatedTrain = allocatedTrainNumbers.get(trainNumber);
+    if (trainNumber == null || (allocatedTrain != null && !Objects.equals(allocatedTrain, train))) {
 
       throw new IllegalArgumentException("Train number " + trainNumber + " is already allocated");
 
@@ -88,4 +93,28 @@ public class TrainManager {
       allocatedTrainNumbers.put(trainNumber, train);
     }
   }
-}
\ No newline at end of file
+
+
+
+  /**
+   * Releases an allocated train number, making it available for a new train departure.
+   *
+   * @param trainNumber The train number to release.
+   * @return {@code true} if the train number was allocated; otherwise, {@code false}.
+   * @since 0.0.9
+   */
+  public boolean releaseTrainNumber(String trainNumber) {
+    return allocatedTrainNumbers.remove(trainNumber) != null;
+  }
+
+
+
+  /**
+   * Releases all allocated train numbers.
+   *
+   * @since 0.0.9
+   */
+  public void releaseAllTrainNumbers() {
+    allocatedTrainNumbers.clear();
+  }
+}
@@ -1,17 +1,28 @@
 package edu.ntnu.stud.register;
 
 import edu.ntnu.stud.traindispatchsystem.TrainDispatchSystem;
+import java.time.Clock;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.stream.Collectors;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * <p>The {@code TrainRegister} class is responsible for initializing train trips
@@ -20,8 +31,9 @@ import java.util.stream.Collectors;
  * allocates train numbers for each trip.</p>
  *
  * <p>This class also includes methods for handling the data of the initialized instances.
- * For example, it includes methods for sorting the collection of train trips by
- * departure time and removing train trips if their departure time has passed.
+ * For example, it keeps the collection of train trips ordered by their effective
+ * departure time (departure time plus delay) and removes train trips if their departure
+ * time has passed.
  * It also includes methods for
  * searching the collection of train trips based on specific attributes.
  * The class utilizes the {@code TrainManager} class to manage the allocation of train numbers.</p>
@@ -30,6 +42,31 @@ import java.util.stream.Collectors;
  * It provides methods for both retrieving and updating the station time,
  * ensuring consistency in the displayed information.</p>
  *
+ * <p>The register also keeps an occupancy index per track. Two departures on the same track
+ * whose effective departure times are less than the dwell window apart are in conflict.
+ * Depending on the {@code TrackConflictPolicy}, a conflicting addition or track change is
+ * either allowed and can be looked up with {@code findTrackConflicts}, or rejected.
+ * Every check costs O(log n).</p>
+ *
+ * <p>Every change of the register increases its version by one. {@code snapshot()} provides
+ * an immutable view of the register at its current version in O(1), for displays and exports
+ * that must see one consistent state while the register keeps being changed.</p>
+ *
+ * <p>Every change is also passed to the {@code RegisterLog} of the register, if one is set,
+ * so that it can be persisted and replayed after a restart. The change is logged before it
+ * takes effect: if the log fails (for example with an {@code UncheckedIOException} from a
+ * full disk), the change is not made, or is rolled back, and the exception is passed on. The
+ * register then holds exactly the logged changes, and publishes no snapshot or event for the
+ * failed change.</p>
+ *
+ * <p>Displays, exporters and replicators can subscribe to {@code changeEvents()} to receive
+ * a {@code RegisterEvent} for every changed departure, instead of scanning the register.
+ * Every subscriber has a bounded buffer, and receives events only as it requests them. The
+ * {@code EventOverflowPolicy} decides whether a change waits for a subscriber with a full
+ * buffer, or drops the event for it. Without subscribers, no events are created. A change of
+ * more than {@code EVENT_BUFFER_SIZE} departures (such as a large batch) is published as one
+ * {@code BULK_CHANGED} event instead, so the events held for a change stay bounded.</p>
+ *
  * <blockquote><pre>
  * <p><strong>Example Usage:</strong></p>
  *
@@ -47,28 +84,87 @@ import java.util.stream.Collectors;
  * </pre></blockquote>
  *
  * @author Karwan Shekhe
- * @version 0.0.9 (Version of this class)
+ * @version 0.3.2 (Version of this class)
  * @since 0.0.5 (Introduced in Version 0.0.5 of the Train Dispatch System application)
  */
 public class TrainRegister {
-  private HashMap<String, TrainDispatchSystem> trainDispatchRegister;
-  private ArrayList<TrainDispatchSystem> dispatchSearchResults;
+  // The default dwell window, in minutes:
+  public static final int DEFAULT_DWELL_MINUTES = 5;
+
+  // The number of change events buffered for each subscriber:
+  public static final int EVENT_BUFFER_SIZE = Flow.defaultBufferSize();
+
+  private final HashMap<String, TrainDispatchSystem> trainDispatchRegister;
+  private TreeMap<DepartureKey, TrainDispatchSystem> departureTimeIndex;  // Rebuilt in bulk
+  private final HashMap<Integer, TreeMap<DepartureKey, TrainDispatchSystem>> destinationIndex;
+  private final TreeMap<Integer, TreeMap<DepartureKey, TrainDispatchSystem>> departureMinuteIndex;
+  private final HashMap<Integer, TreeMap<DepartureKey, TrainDispatchSystem>> trackIndex;
+  private final DestinationTrie destinationTrie;  // The destination names in use
   private final TrainManager trainManager;
+  private final Clock clock;                   // The clock the station time follows
   private LocalTime stationTime;               // The current station time.
+  private LocalTime lastClockMinute;           // The clock minute last seen by the register
+  private TrackConflictPolicy trackConflictPolicy;  // What to do with conflicting bookings
+  private int dwellMinutes;                    // Minimum minutes between trains on a track
+  private PersistentDepartureTree snapshotDepartures; // Shared with the published snapshots
+  private Map<String, PersistentDepartureTree> snapshotDestinations;  // Per destination name
+  private boolean snapshotDestinationsShared;  // Copied before the next change if true
+  private long version;                        // Increased by one for every change
+  private volatile RegisterSnapshot snapshot;  // The snapshot of the current version
+  private RegisterLog registerLog;             // Receives every change of the register
+  private final SubmissionPublisher<RegisterEvent> eventPublisher;
+  private final List<RegisterEvent> pendingEvents;  // The events of the current change
+  private final AtomicLong droppedEvents;      // Events dropped for slow subscribers
+  private EventOverflowPolicy eventOverflowPolicy;
 
   /**
    * Constructs an instance of {@code TrainRegister}.
-   * Initializes the train dispatch register, search results collection,
-   * and a {@code TrainManager} for managing train number allocations.
+   * Initializes the train dispatch register, the departure time, destination and
+   * departure minute indexes, and a {@code TrainManager} for managing train number
+   * allocations.
    * The default station time is set to the current time.
    *
    * @since 0.0.6
    */
   public TrainRegister() {
-    this.stationTime = LocalTime.now(); // Default station time, the user is able to change this
+    this(Clock.systemDefaultZone());
+  }
+
+  /**
+   * Constructs an instance of {@code TrainRegister} whose station time follows the given
+   * clock, for example a {@code SimulatedClock} that runs faster than real time.
+   * The station time is set to the current time of the clock.
+   *
+   * @param clock The clock of the station.
+   * @throws IllegalArgumentException if the clock is null.
+   * @since 0.2.6
+   */
+  public TrainRegister(Clock clock) {
+    if (clock == null) {
+      throw new IllegalArgumentException("Clock cannot be null");
+    }
+    this.clock = clock;
+    this.stationTime = LocalTime.now(clock); // Default station time, the user can change this
+    this.lastClockMinute = stationTime.truncatedTo(ChronoUnit.MINUTES);
     trainDispatchRegister = new HashMap<>();
-    dispatchSearchResults = new ArrayList<>();
+    departureTimeIndex = new TreeMap<>();
+    destinationIndex = new HashMap<>();
+    departureMinuteIndex = new TreeMap<>();
+    trackIndex = new HashMap<>();
+    destinationTrie = new DestinationTrie();
     trainManager = new TrainManager();
+    trackConflictPolicy = TrackConflictPolicy.FLAG;
+    dwellMinutes = DEFAULT_DWELL_MINUTES;
+    snapshotDepartures = PersistentDepartureTree.EMPTY;
+    snapshotDestinations = new HashMap<>();
+    snapshot = new RegisterSnapshot(version, stationTime, snapshotDepartures,
+        snapshotDestinations);
+    snapshotDestinationsShared = true;
+    registerLog = RegisterLog.NONE;
+    eventPublisher = new SubmissionPublisher<>();
+    pendingEvents = new ArrayList<>();
+    droppedEvents = new AtomicLong();
+    eventOverflowPolicy = EventOverflowPolicy.BLOCK;
   }
 
   /**
@@ -82,38 +178,33 @@ public class TrainRegister {
   public void initializeDepartureRegister() {
     final String departure_station = "Gjøvik";
 
-    trainDispatchRegister = new HashMap<>();
+    removeAllTrains();
 
     // Some pre-set departures to populate the list, and to test the functionality:
 
     TrainDispatchSystem trainDispatch0 =
         new TrainDispatchSystem(departure_station, "Oslo",
         LocalTime.of(20, 25), "F1", 1, "101");
-    trainDispatchRegister.put(trainDispatch0.getTrainNumber(), trainDispatch0);
     addTrainDeparture(trainDispatch0);
 
     TrainDispatchSystem trainDispatch1 =
         new TrainDispatchSystem(departure_station, "Bergen",
         LocalTime.of(16, 0), "F1", 2, "102");
-    trainDispatchRegister.put(trainDispatch1.getTrainNumber(), trainDispatch1);
     addTrainDeparture(trainDispatch1);
 
     TrainDispatchSystem trainDispatch2 =
         new TrainDispatchSystem(departure_station, "Lillehammer",
         LocalTime.of(8, 55), "F1", 3, "103");
-    trainDispatchRegister.put(trainDispatch2.getTrainNumber(), trainDispatch2);
     addTrainDeparture(trainDispatch2);
 
     TrainDispatchSystem trainDispatch3 =
         new TrainDispatchSystem(departure_station, "Tromsø",
         LocalTime.of(15, 55), "F2", 4, "104");
-    trainDispatchRegister.put(trainDispatch3.getTrainNumber(), trainDispatch3);
     addTrainDeparture(trainDispatch3);
 
     TrainDispatchSystem trainDispatch4 =
         new TrainDispatchSystem(departure_station, "Gardermoen",
         LocalTime.of(13, 15), "F13", 5, "105");
-    trainDispatchRegister.put(trainDispatch4.getTrainNumber(), trainDispatch4);
     addTrainDeparture(trainDispatch4);
 
   }
@@ -121,12 +212,163 @@ public class TrainRegister {
 
   /**
    * Retrieves an iterator for the collection of initialized TrainDispatchSystem instances.
+   * The departures are returned in ascending order of their effective departure time
+   * (departure time plus delay), without any sorting pass.
    *
    * @return An iterator for the collection of initialized TrainDispatchSystem instances.
    * @since 0.0.4
    */
   public Iterator<TrainDispatchSystem> getTrainDispatchListIterator() {
-    return trainDispatchRegister.values().iterator();
+    return Collections.unmodifiableCollection(departureTimeIndex.values()).iterator();
+  }
+
+
+  /**
+   * Provides an immutable snapshot of the register at its current version.
+   *
+   * <p>The snapshot is taken in O(1): it shares its structure with the register, and
+   * nothing is copied. Changes made to the register afterwards are never visible through the
+   * snapshot, and the snapshot does not hold up any later change. It may be read from any
+   * thread.</p>
+   *
+   * @return The snapshot of the current version.
+   * @since 0.1.7
+   */
+  public RegisterSnapshot snapshot() {
+    return snapshot;
+  }
+
+
+  /**
+   * Provides the version of the register, which is increased by one for every change
+   * of the departures or the station time.
+   *
+   * @return The current version.
+   * @since 0.1.7
+   */
+  public long getVersion() {
+    return version;
+  }
+
+
+  /**
+   * Sets the log that receives every later change of the register, for example a
+   * write-ahead log. Changes made before the log is set are not passed to it.
+   *
+   * @param registerLog The log, or {@code null} for no log.
+   * @since 0.2.3
+   */
+  public void setRegisterLog(RegisterLog registerLog) {
+    this.registerLog = registerLog == null ? RegisterLog.NONE : registerLog;
+  }
+
+
+  /**
+   * Provides the publisher of the change events of the register. Every subscriber receives
+   * the events of the changes made after it subscribed, in order, on a thread of the common
+   * fork-join pool, and at most {@code EVENT_BUFFER_SIZE} events are buffered for it. A
+   * change gives at most {@code EVENT_BUFFER_SIZE} events: a larger one gives a single
+   * {@code BULK_CHANGED} event.
+   *
+   * @return The publisher of change events.
+   * @since 0.2.5
+   */
+  public Flow.Publisher<RegisterEvent> changeEvents() {
+    return eventPublisher;
+  }
+
+
+  /**
+   * Provides the policy for change events a subscriber has no room for.
+   *
+   * @return The event overflow policy.
+   * @since 0.2.5
+   */
+  public EventOverflowPolicy getEventOverflowPolicy() {
+    return eventOverflowPolicy;
+  }
+
+
+  /**
+   * Sets the policy for change events a subscriber has no room for. The default is
+   * {@code EventOverflowPolicy.BLOCK}.
+   *
+   * @param eventOverflowPolicy The event overflow policy.
+   * @throws IllegalArgumentException if the policy is null.
+   * @since 0.2.5
+   */
+  public void setEventOverflowPolicy(EventOverflowPolicy eventOverflowPolicy) {
+    if (eventOverflowPolicy == null) {
+      throw new IllegalArgumentException("Event overflow policy cannot be null");
+    }
+    this.eventOverflowPolicy = eventOverflowPolicy;
+  }
+
+
+  /**
+   * Provides the number of change events dropped so far, for all subscribers together,
+   * because of {@code EventOverflowPolicy.DROP}.
+   *
+   * @return The number of dropped events.
+   * @since 0.2.5
+   */
+  public long getDroppedEventCount() {
+    return droppedEvents.get();
+  }
+
+
+  /**
+   * Provides the policy for departures booked on an occupied track.
+   *
+   * @return The track conflict policy.
+   * @since 0.1.8
+   */
+  public TrackConflictPolicy getTrackConflictPolicy() {
+    return trackConflictPolicy;
+  }
+
+
+  /**
+   * Sets the policy for departures booked on an occupied track. The default is
+   * {@code TrackConflictPolicy.FLAG}.
+   *
+   * @param trackConflictPolicy The track conflict policy.
+   * @throws IllegalArgumentException if the policy is null.
+   * @since 0.1.8
+   */
+  public void setTrackConflictPolicy(TrackConflictPolicy trackConflictPolicy) {
+    if (trackConflictPolicy == null) {
+      throw new IllegalArgumentException("Track conflict policy cannot be null");
+    }
+    this.trackConflictPolicy = trackConflictPolicy;
+  }
+
+
+  /**
+   * Provides the dwell window, the number of minutes a departure occupies its track.
+   *
+   * @return The dwell window in minutes.
+   * @since 0.1.8
+   */
+  public int getDwellMinutes() {
+    return dwellMinutes;
+  }
+
+
+  /**
+   * Sets the dwell window. Two departures on the same track are in conflict if their
+   * effective departure times are less than this number of minutes apart.
+   * A dwell window of 0 turns off the conflict detection.
+   *
+   * @param dwellMinutes The dwell window in minutes.
+   * @throws IllegalArgumentException if the dwell window is negative or longer than a day.
+   * @since 0.1.8
+   */
+  public void setDwellMinutes(int dwellMinutes) {
+    if (dwellMinutes < 0 || dwellMinutes > 24 * 60) {
+      throw new IllegalArgumentException("Dwell window must be between 0 and 1440 minutes");
+    }
+    this.dwellMinutes = dwellMinutes;
   }
 
 
@@ -141,6 +383,41 @@ public class TrainRegister {
   }
 
 
+  /**
+   * Provides the clock the station time follows with {@code advanceStationTime}.
+   *
+   * @return The clock of the station.
+   * @since 0.2.6
+   */
+  public Clock getClock() {
+    return clock;
+  }
+
+
+  /**
+   * <p>Moves the station time to the current time of the clock of the register, in whole
+   * minutes, and removes the departures that have expired at the new station time.</p>
+   *
+   * <p>Nothing changes while the clock is within the minute it was in at the last call (or
+   * when the register was created), so this method can be called as often as needed (see
+   * {@code StationClockDriver}). A station time set with {@code updateStationTime} is
+   * therefore kept until the clock moves on to another minute.</p>
+   *
+   * @return The removed departures, in order of their effective departure time.
+   * @since 0.2.6
+   */
+  public List<TrainDispatchSystem> advanceStationTime() {
+    LocalTime clockMinute = LocalTime.now(clock).truncatedTo(ChronoUnit.MINUTES);
+    if (clockMinute.equals(lastClockMinute)) {
+      return new ArrayList<>();
+    }
+
+    updateStationTime(clockMinute);
+    lastClockMinute = clockMinute;  // Only once the station time has been changed
+    return removeTrainsIfDepartureTimePassed();
+  }
+
+
   /**
    * <p>Updates the station time to the specified time, ensuring it matches the "HH:mm" format.
    * Throws an {@code IllegalArgumentException} for an invalid time format.</p>
@@ -155,7 +432,10 @@ public class TrainRegister {
   public void updateStationTime(LocalTime newStationTime) {
     String timeString = newStationTime.format(DateTimeFormatter.ofPattern("HH:mm"));
     if (timeString.matches("\\d{2}:\\d{2}")) {
+      registerLog.stationTimeSet(newStationTime);  // Logged before it takes effect
       this.stationTime = newStationTime;
+      recordEvent(RegisterEventType.STATION_TIME_CHANGED, null);
+      publishSnapshot();
     } else {
       throw new IllegalArgumentException("Invalid time format. Please enter time in HH:mm format.");
     }
@@ -172,84 +452,376 @@ public class TrainRegister {
    * If these conditions are met, the train trip is added to the collection,
    * and its train number is marked as allocated.</p>
    *
+   * <p>If the track is occupied within the dwell window and the policy is
+   * {@code TrackConflictPolicy.REJECT}, the train trip is not added.</p>
+   *
    * @param trainDispatch The {@code TrainDispatchSystem} instance to be added.
    * @return {@code true} if the addition is successful; otherwise, {@code false}.
    * @since 0.0.6
    */
   public boolean addTrainDeparture(TrainDispatchSystem trainDispatch) {
-    if (trainDispatch != null && trainDispatch.getTrainNumber() != null
-        && trainManager.isTrainNumberAvailable(trainDispatch.getTrainNumber())) {
-
-      trainDispatchRegister
-          .put(trainDispatch.getTrainNumber(), trainDispatch);
-      trainManager.markTrainNumberAsAllocated(trainDispatch.getTrainNumber(), trainDispatch);
-      addTrainDeparture(trainDispatch);
+    if (tryAddDeparture(trainDispatch) == AddResult.ADDED) {
+      publishSnapshot();
       return true;
     } else {
       return false;
     }
   }
 
+
   /**
-   * Sorts the collection of initialized train trips by departure time in ascending order.
-   * This method provides a mechanism to organize train trips based on their departure times.
-   * The collection is sorted in ascending order, ensuring a chronological arrangement.
+   * Adds a batch of train departures to the register, and provides the result of each, in
+   * the iteration order of the collection.
    *
-   * @since 0.0.6
+   * <p>Each departure is checked exactly as by {@code addTrainDeparture}, in a single
+   * validation pass: a train number already used by an earlier departure of the batch is a
+   * duplicate, and a track occupied by an earlier accepted departure of the batch is a
+   * conflict. The accepted departures are then sorted once, and merged into every index of
+   * the register in one step per index, and one snapshot is published for the whole batch.
+   * Loading n departures into an empty register costs O(n log n) for the sort and O(n) for
+   * building the indexes.</p>
+   *
+   * @param trainDispatches The train departures to add.
+   * @return The result for each departure, in the iteration order of the collection.
+   * @throws IllegalArgumentException If the collection is null.
+   * @throws java.io.UncheckedIOException If the register log fails. The departures logged
+   *                                      before the failure are added.
+   * @since 0.2.2
    */
-  public void sortListByDepartureTime() {
-    // Convert HashMap entries to a List
-    List<Entry<String, TrainDispatchSystem>> entryList =
-        new ArrayList<>(trainDispatchRegister.entrySet());
+  public List<AddResult> addTrainDepartures(Collection<TrainDispatchSystem> trainDispatches) {
+    if (trainDispatches == null) {
+      throw new IllegalArgumentException("The collection of departures cannot be null");
+    }
 
-    // Sorts the List based on LocalTime
-    entryList.sort(Comparator.comparing(entry -> entry.getValue().getDepartureTime()));
+    List<AddResult> results = new ArrayList<>(trainDispatches.size());
+    List<Map.Entry<DepartureKey, TrainDispatchSystem>> accepted = new ArrayList<>();
+    Set<String> batchTrainNumbers = new HashSet<>();
+    Map<Integer, TreeMap<DepartureKey, TrainDispatchSystem>> batchTracks = new HashMap<>();
+
+    // The validation pass, against the register and the accepted departures of the batch:
+    for (TrainDispatchSystem trainDispatch : trainDispatches) {
+      AddResult result = checkDeparture(trainDispatch);
+      if (result == AddResult.ADDED && !batchTrainNumbers.add(trainDispatch.getTrainNumber())) {
+        result = AddResult.DUPLICATE_TRAIN_NUMBER;
+      }
+      if (result == AddResult.ADDED && trackConflictPolicy == TrackConflictPolicy.REJECT
+          && findFirstTrackConflict(batchTracks.get(trainDispatch.getTrack()),
+              trainDispatch.getEffectiveDepartureMinute(),
+              trainDispatch.getTrainNumber()) != null) {
+        result = AddResult.TRACK_CONFLICT;
+      }
 
-    // Creating a new LinkedHashMap to store the sorted entries
-    LinkedHashMap<String, TrainDispatchSystem> sortedMap = new LinkedHashMap<>();
-    for (Map.Entry<String, TrainDispatchSystem> entry : entryList) {
-      sortedMap.put(entry.getKey(), entry.getValue());
+      if (result == AddResult.ADDED) {
+        DepartureKey key = DepartureKey.of(trainDispatch);
+        accepted.add(Map.entry(key, trainDispatch));
+        if (trackConflictPolicy == TrackConflictPolicy.REJECT) {
+          batchTracks.computeIfAbsent(trainDispatch.getTrack(), k -> new TreeMap<>())
+              .put(key, trainDispatch);
+        }
+      }
+      results.add(result);
+    }
+
+    if (!accepted.isEmpty()) {
+      accepted.sort(Map.Entry.comparingByKey());
+      List<Map.Entry<DepartureKey, DepartureRecord>> records = new ArrayList<>(accepted.size());
+      for (Map.Entry<DepartureKey, TrainDispatchSystem> entry : accepted) {
+        records.add(Map.entry(entry.getKey(), DepartureRecord.of(entry.getValue())));
+      }
+
+      // Logged before they are added. If the log fails, only the logged ones are added:
+      int logged = 0;
+      try {
+        for (Map.Entry<DepartureKey, DepartureRecord> record : records) {
+          registerLog.departureAdded(record.getValue());
+          logged++;
+        }
+      } finally {
+        if (logged > 0) {
+          insertDepartures(accepted.subList(0, logged), records.subList(0, logged));
+          publishSnapshot();
+        }
+      }
+    }
+    return results;
+  }
+
+
+  /**
+   * Loads departures that are already sorted into an empty register, in bulk, for example
+   * from a snapshot file.
+   *
+   * <p>The departures must be in the order of the register: by effective departure time,
+   * and then by train number. Nothing has to be sorted or searched, so every index and the
+   * tree of the snapshots are built from the sorted departures in O(n), instead of O(n log n)
+   * for {@code addTrainDepartures}. The departures were accepted when they were saved, so
+   * their tracks are not checked for conflicts.</p>
+   *
+   * <p>The departures are not passed to the register log, since they are already saved, so
+   * they can only be loaded before a register log is set. One snapshot is published for all
+   * of them.</p>
+   *
+   * @param sortedDepartures The departures, sorted by effective departure time and train
+   *                         number.
+   * @return The number of loaded departures.
+   * @throws IllegalArgumentException If the list is null, or holds a null, an unsorted or a
+   *                                  duplicate departure. The register is then unchanged.
+   * @throws IllegalStateException    If the register is not empty, or has a register log.
+   * @since 0.2.8
+   */
+  public int loadSortedDepartures(List<TrainDispatchSystem> sortedDepartures) {
+    if (sortedDepartures == null) {
+      throw new IllegalArgumentException("The list of departures cannot be null");
+    }
+    if (!trainDispatchRegister.isEmpty() || registerLog != RegisterLog.NONE) {
+      throw new IllegalStateException(
+          "Departures can only be loaded into an empty register without a log");
+    }
+
+    List<Map.Entry<DepartureKey, TrainDispatchSystem>> departures =
+        new ArrayList<>(sortedDepartures.size());
+    List<Map.Entry<DepartureKey, DepartureRecord>> records =
+        new ArrayList<>(sortedDepartures.size());
+    Set<String> trainNumbers = new HashSet<>();
+    DepartureKey previousKey = null;
+
+    // Checked before anything is stored, so an invalid list leaves the register unchanged:
+    for (TrainDispatchSystem trainDispatch : sortedDepartures) {
+      if (trainDispatch == null || trainDispatch.getTrainNumber() == null) {
+        throw new IllegalArgumentException("A departure cannot be null");
+      }
+      DepartureKey key = DepartureKey.of(trainDispatch);
+      if (previousKey != null && previousKey.compareTo(key) >= 0) {
+        throw new IllegalArgumentException("Departure " + trainDispatch.getTrainNumber()
+            + " is not in the order of the register");
+      }
+      if (!trainNumbers.add(trainDispatch.getTrainNumber())) {
+        throw new IllegalArgumentException("Train number " + trainDispatch.getTrainNumber()
+            + " is used twice");
+      }
+      departures.add(Map.entry(key, trainDispatch));
+      records.add(Map.entry(key, DepartureRecord.of(trainDispatch)));
+      previousKey = key;
     }
 
-    // Updating the trainDispatchRegister with the sorted entries
-    trainDispatchRegister = sortedMap;
+    if (!departures.isEmpty()) {
+      insertDepartures(departures, records);
+      publishSnapshot();
+    }
+    return departures.size();
+  }
+
+  /**
+   * Sets the delay for the train departure with the given train number.
+   *
+   * <p>The departure is moved to its new position in the indexes of the register, so the
+   * collection stays ordered by effective departure time. If the delay is invalid,
+   * the departure is left unchanged.</p>
+   *
+   * @param trainNumber  The train number of the delayed departure.
+   * @param delayMinutes The delay in minutes to set.
+   * @return {@code true} if the departure was found; otherwise, {@code false}.
+   * @throws IllegalArgumentException If the delay is outside the valid range.
+   * @since 0.1.0
+   */
+  public boolean setDelay(String trainNumber, int delayMinutes) {
+    TrainDispatchSystem trainDispatch = trainDispatchRegister.get(trainNumber);
+    if (trainDispatch == null) {
+      return false;
+    }
+
+    int oldDelay = trainDispatch.getDelay();
+    unindexDeparture(trainDispatch);
+    try {
+      trainDispatch.setDelay(delayMinutes);  // Checks the delay
+      registerLog.delaySet(trainNumber, delayMinutes);
+    } catch (RuntimeException e) {
+      trainDispatch.setDelay(oldDelay);  // Not logged, so rolled back
+      throw e;
+    } finally {
+      indexDeparture(trainDispatch);
+    }
+    recordEvent(RegisterEventType.DELAYED, trainDispatch);
+    publishSnapshot();
+    return true;
+  }
+
+
+  /**
+   * Sets the departure time for the train departure with the given train number.
+   *
+   * <p>The departure is moved to its new position in the indexes of the register, so the
+   * collection stays ordered by effective departure time.</p>
+   *
+   * @param trainNumber   The train number of the departure.
+   * @param departureTime The new departure time.
+   * @return {@code true} if the departure was found; otherwise, {@code false}.
+   * @since 0.1.0
+   */
+  public boolean setDepartureTime(String trainNumber, LocalTime departureTime) {
+    TrainDispatchSystem trainDispatch = trainDispatchRegister.get(trainNumber);
+    if (trainDispatch == null) {
+      return false;
+    }
+
+    int oldDepartureMinute = trainDispatch.getDepartureMinute();
+    unindexDeparture(trainDispatch);
+    try {
+      trainDispatch.setDepartureTime(departureTime);  // Checks the departure time
+      registerLog.departureTimeSet(trainNumber, trainDispatch.getDepartureMinute());
+    } catch (RuntimeException e) {
+      trainDispatch.setDepartureMinute(oldDepartureMinute);  // Not logged, so rolled back
+      throw e;
+    } finally {
+      indexDeparture(trainDispatch);
+    }
+    recordEvent(RegisterEventType.DEPARTURE_TIME_CHANGED, trainDispatch);
+    publishSnapshot();
+    return true;
+  }
+
+
+  /**
+   * Sets the track for the train departure with the given train number.
+   *
+   * <p>The track should be changed through the register, and not directly on the departure,
+   * so that the snapshots and the track occupancy index of the register see the new track.</p>
+   *
+   * @param trainNumber The train number of the departure.
+   * @param track       The track number to set.
+   * @return {@code true} if the departure was found; otherwise, {@code false}.
+   * @throws IllegalArgumentException If the track number is outside the valid range.
+   * @throws IllegalStateException    If the track is occupied within the dwell window, and the
+   *                                  policy is {@code TrackConflictPolicy.REJECT}.
+   * @since 0.1.7
+   */
+  public boolean setTrack(String trainNumber, int track) {
+    TrainDispatchSystem trainDispatch = trainDispatchRegister.get(trainNumber);
+    if (trainDispatch == null) {
+      return false;
+    }
+
+    int oldTrack = trainDispatch.getTrack();
+    unindexDeparture(trainDispatch);
+    try {
+      if (isRejectedTrackConflict(track, trainDispatch.getEffectiveDepartureMinute(),
+          trainNumber)) {
+        throw new IllegalStateException("Track " + track + " is occupied by train "
+            + findFirstTrackConflict(trackIndex.get(track),
+                trainDispatch.getEffectiveDepartureMinute(), trainNumber).getTrainNumber());
+      }
+      trainDispatch.setTrack(track);  // Checks the track
+      registerLog.trackSet(trainNumber, track);
+    } catch (RuntimeException e) {
+      trainDispatch.setTrack(oldTrack);  // Not logged, so rolled back
+      throw e;
+    } finally {
+      indexDeparture(trainDispatch);
+    }
+    recordEvent(RegisterEventType.TRACK_CHANGED, trainDispatch);
+    publishSnapshot();
+    return true;
+  }
+
+
+  /**
+   * Finds the other departures that occupy the track of the given departure within the
+   * dwell window, that is, whose effective departure times are less than the dwell window
+   * apart. The departure itself does not have to be in the register.
+   *
+   * <p>The conflicts are found with a range lookup in the occupancy index of the track,
+   * in O(log n) plus the number of conflicts.</p>
+   *
+   * @param trainDispatch The departure to check.
+   * @return The conflicting departures, ordered by effective departure time.
+   * @since 0.1.8
+   */
+  public List<TrainDispatchSystem> findTrackConflicts(TrainDispatchSystem trainDispatch) {
+    List<TrainDispatchSystem> conflicts = new ArrayList<>();
+
+    for (TrainDispatchSystem occupant : occupancyWindow(trackIndex.get(trainDispatch.getTrack()),
+        trainDispatch.getEffectiveDepartureMinute()).values()) {
+      if (!occupant.getTrainNumber().equals(trainDispatch.getTrainNumber())) {
+        conflicts.add(occupant);
+      }
+    }
+    return conflicts;
+  }
+
+
+  /**
+   * Sorts the collection of initialized train trips by departure time in ascending order.
+   *
+   * <p>The register keeps its departures in a departure time index that is updated on every
+   * addition, removal and change of delay or departure time. The collection is therefore
+   * always in chronological order, and this method has nothing left to do.
+   * It is kept so that existing callers (such as the menu option for sorting)
+   * keep working.</p>
+   *
+   * @since 0.0.6
+   */
+  public void sortListByDepartureTime() {
+    // The departure time index is always sorted, no sorting pass is needed.
   }
 
   /**
    * <p>Removes train trips from the collection if their departure time has passed,
    * ensuring up-to-date scheduling information.</p>
    *
-   * <p>This method iterates through the collection, removing train trips whose departure time is
-   * earlier than the station time, accounting for any delays.</p>
+   * <p>This method takes the earliest departures from the departure time index, one by one,
+   * for as long as their effective departure time (departure time plus delay) is earlier than
+   * the station time. Only the expired train trips are visited, so the cost depends on the
+   * number of removed departures and not on the size of the register.</p>
    *
+   * @return The removed train trips, in order of their effective departure time.
    * @since 0.0.6
    */
-  public void removeTrainsIfDepartureTimePassed() {
+  public List<TrainDispatchSystem> removeTrainsIfDepartureTimePassed() {
+    List<TrainDispatchSystem> expiredDepartures = new ArrayList<>();
 
-    Iterator<Entry<String, TrainDispatchSystem>> iterator =
-        trainDispatchRegister.entrySet().iterator();
+    int expiryMinute = expiryMinute();
 
+    // Only the keys are compared, so no time objects are created while expiring:
+    try {
+      while (!departureTimeIndex.isEmpty()
+          && departureTimeIndex.firstKey().effectiveMinute() < expiryMinute) {
 
-    while (iterator.hasNext()) {
-      Entry<String, TrainDispatchSystem> entry = iterator.next();
-      TrainDispatchSystem trainDispatchSystem = entry.getValue();
-      LocalTime currentTime = getStationTime();
-
-      if ((trainDispatchSystem.getDepartureTime()
-          .plusMinutes(trainDispatchSystem.getDelay())).isBefore(currentTime)) {
-
-        iterator.remove();
+        TrainDispatchSystem earliest = departureTimeIndex.get(departureTimeIndex.firstKey());
+        registerLog.departureRemoved(earliest.getTrainNumber());  // Logged before it is removed
+        deleteDeparture(earliest);
+        expiredDepartures.add(earliest);
+        recordEvent(RegisterEventType.EXPIRED, earliest);
+      }
+    } finally {
+      // If the log fails, the departures removed before the failure are still published:
+      if (!expiredDepartures.isEmpty()) {
+        publishSnapshot();
       }
     }
+    return expiredDepartures;
   }
 
+
   /**
    * <p>Searches the collection of initialized train trips based on specific attribute values,
    * providing an iterator for the filtered results.
-   * Supported attributes include "trainNumber," "destination," and "departureTime".</p>
+   * Supported attributes include "trainNumber," "destination," "destinationPrefix,"
+   * "destinationApproximate" and "departureTime".</p>
+   *
+   * <p>The search is answered from the indexes of the register: the register itself for train
+   * numbers, the destination index for destinations and the departure minute index for
+   * departure times (in "HH:mm" format). Destinations are compared by their interned id,
+   * not by {@code String.equals}. The cost depends on the number of results and not on
+   * the size of the register. The results are ordered by effective departure time.</p>
+   *
+   * <p>"destinationPrefix" finds the destinations starting with the value, and
+   * "destinationApproximate" also finds the destinations at most one typing error (an
+   * inserted, removed or replaced letter) away from the value. Both ignore case, and look up
+   * the matching destination names in a trie of the destinations in use, so the departures are
+   * never scanned.</p>
    *
-   * <p>The method filters train trips based on the attribute name and value, returning an iterator
-   * for the resulting collection.</p>
+   * <p>Every call collects its results in a new list, so the results of one search are
+   * never changed by a later search.</p>
    *
    * @param attributeName The name of the attribute to search for.
    * @param attributeValue The value of the attribute to search for.
@@ -259,61 +831,759 @@ public class TrainRegister {
   public Iterator<TrainDispatchSystem> searchByAttributeAndValue(String attributeName,
       String attributeValue) {
 
-    dispatchSearchResults = trainDispatchRegister.values().stream()
-        .filter(trainDispatchSystem -> switch (attributeName) {
+    List<TrainDispatchSystem> searchResults = new ArrayList<>();
 
-          case "trainNumber" -> trainDispatchSystem.getTrainNumber().equals(attributeValue);
+    switch (attributeName) {
 
-          case "destination" -> trainDispatchSystem.getDestination().equals(attributeValue);
+      case "trainNumber" -> {
+        TrainDispatchSystem trainDispatch = trainDispatchRegister.get(attributeValue);
+        if (trainDispatch != null) {
+          searchResults.add(trainDispatch);
+        }
+      }
+
+      case "destination" -> addIndexedResults(searchResults,
+          destinationIndex.get(TrainDispatchSystem.getSymbolTable().idOf(attributeValue)));
 
-          case "departureTime" ->
-              trainDispatchSystem.getDepartureTime().toString().equals(attributeValue);
+      case "destinationPrefix" -> {
+        Set<Integer> destinationIds = new HashSet<>();
+        destinationTrie.collectByPrefix(attributeValue, destinationIds);
+        addDestinationResults(searchResults, destinationIds);
+      }
 
-          default -> false;
+      case "destinationApproximate" -> {
+        Set<Integer> destinationIds = new HashSet<>();
+        destinationTrie.collectByPrefix(attributeValue, destinationIds);
+        destinationTrie.collectWithinOneEdit(attributeValue, destinationIds);
+        addDestinationResults(searchResults, destinationIds);
+      }
 
-        }).collect(Collectors.toCollection(ArrayList::new));
+      case "departureTime" -> addIndexedResults(searchResults,
+          departureMinuteIndex.get(DepartureKey.parseMinuteOfDay(attributeValue)));
+
+      default -> {
+        // Unsupported attribute, no results
+      }
+    }
 
-    return dispatchSearchResults.iterator();
+    return searchResults.iterator();
   }
 
 
+
   /**
-   * Removes a train departure from the train dispatch system based on the specified train number.
-   * The method iterates through the train dispatch register and removes the first occurrence
-   * that matches the provided train number.
+   * Searches for the departures within a time window, for example all departures between
+   * 14:00 and 16:30. Both ends of the window are included.
    *
-   * @param trainNumber The train number of the departure to be removed.
-   * @since 0.0.9
+   * <p>With {@code includeDelay}, the effective departure time (departure time plus delay)
+   * is compared, and the results are read from the departure time index. Otherwise the
+   * scheduled departure time is compared, and the results are read from the departure minute
+   * index. Both indexes are ordered, so the search costs O(log n + k) for k results.</p>
+   *
+   * @param from         The start of the time window.
+   * @param to           The end of the time window.
+   * @param includeDelay Whether to compare the effective departure time instead of the
+   *                     scheduled departure time.
+   * @return An iterator for the departures within the window, ordered by the compared time.
+   * @throws IllegalArgumentException if a time is null, or the window starts after it ends.
+   * @since 0.2.0
    */
-  public void removeTrainByTrainNumber(String trainNumber) {
+  public Iterator<TrainDispatchSystem> searchByTimeWindow(LocalTime from, LocalTime to,
+      boolean includeDelay) {
 
-    Iterator<Entry<String, TrainDispatchSystem>> iterator
-                                                = trainDispatchRegister.entrySet().iterator();
+    if (from == null || to == null) {
+      throw new IllegalArgumentException("The time window must have a start and an end");
+    }
+    if (from.isAfter(to)) {
+      throw new IllegalArgumentException("The time window must not start after it ends");
+    }
 
-    while (iterator.hasNext()) {
-      Entry<String, TrainDispatchSystem> entry = iterator.next();
-      TrainDispatchSystem trainDispatchSystem = entry.getValue();
+    int fromMinute = from.getHour() * 60 + from.getMinute();
+    int toMinute = to.getHour() * 60 + to.getMinute();
+    List<TrainDispatchSystem> searchResults = new ArrayList<>();
 
-      Iterator<TrainDispatchSystem> searchResult =
-          searchByAttributeAndValue("trainNumber", trainNumber);
+    if (includeDelay) {
+      // The empty train number is the lowest key of a minute:
+      searchResults.addAll(departureTimeIndex.subMap(new DepartureKey(fromMinute, ""),
+          new DepartureKey(toMinute + 1, "")).values());
+    } else {
+      for (TreeMap<DepartureKey, TrainDispatchSystem> bucket
+          : departureMinuteIndex.subMap(fromMinute, true, toMinute, true).values()) {
+        searchResults.addAll(bucket.values());
+      }
+    }
+    return searchResults.iterator();
+  }
 
-      if (searchResult.hasNext() && searchResult.next().equals(trainDispatchSystem)) {
-        iterator.remove();
-        return;
 
-      }
+  /**
+   * Provides the next departures for a departure board: the given number of departures that
+   * have not yet expired, in ascending order of their effective departure time
+   * (departure time plus delay).
+   *
+   * <p>The departures are read from the start of the departure time index, after the
+   * station time, so the cost is O(log n + k) for k departures, no matter how many departures
+   * the register holds.</p>
+   *
+   * @param count The maximum number of departures.
+   * @return The next departures, at most {@code count}.
+   * @throws IllegalArgumentException if the count is negative.
+   * @since 0.2.1
+   */
+  public List<TrainDispatchSystem> nextDepartures(int count) {
+    return nextNotExpired(departureTimeIndex, count);
+  }
+
+
+  /**
+   * Provides the next departures to a destination, in ascending order of their effective
+   * departure time. The cost is O(log n + k) for k departures.
+   *
+   * @param count       The maximum number of departures.
+   * @param destination The destination.
+   * @return The next departures to the destination, at most {@code count}.
+   * @throws IllegalArgumentException if the count is negative.
+   * @since 0.2.1
+   */
+  public List<TrainDispatchSystem> nextDeparturesToDestination(int count, String destination) {
+    return nextNotExpired(
+        destinationIndex.get(TrainDispatchSystem.getSymbolTable().idOf(destination)), count);
+  }
+
+
+  /**
+   * Provides the next departures from a track, in ascending order of their effective
+   * departure time. The cost is O(log n + k) for k departures.
+   *
+   * @param count The maximum number of departures.
+   * @param track The track.
+   * @return The next departures from the track, at most {@code count}.
+   * @throws IllegalArgumentException if the count is negative.
+   * @since 0.2.1
+   */
+  public List<TrainDispatchSystem> nextDeparturesOnTrack(int count, int track) {
+    return nextNotExpired(trackIndex.get(track), count);
+  }
+
+
+  /**
+   * Removes a train departure from the train dispatch system based on the specified train number.
+   * The departure is looked up directly by its train number, removed from the register and its
+   * indexes, and its train number is released in the {@code TrainManager} so that it can be
+   * allocated again.
+   *
+   * @param trainNumber The train number of the departure to be removed.
+   * @return {@code true} if the departure was found and removed; otherwise, {@code false}.
+   * @since 0.0.9
+   */
+  public boolean removeTrainByTrainNumber(String trainNumber) {
+    TrainDispatchSystem trainDispatch = trainDispatchRegister.get(trainNumber);
+    if (trainDispatch == null) {
+      return false;
     }
+
+    registerLog.departureRemoved(trainNumber);  // Logged before it is removed
+    deleteDeparture(trainDispatch);
+    recordEvent(RegisterEventType.REMOVED, trainDispatch);
+    publishSnapshot();
+    return true;
   }
 
 
+
   /**
    * Removes all train departures from the train dispatch system.
-   * This method clears both the train dispatch register and the dispatch search results.
+   * This method clears the train dispatch register and all of its indexes,
+   * and releases all allocated train numbers.
    *
    * @since 0.0.9
    */
   public void removeAllTrains() {
+    registerLog.allDeparturesRemoved();  // Logged before they are removed
+    trainManager.releaseAllTrainNumbers();
     trainDispatchRegister.clear();
-    dispatchSearchResults.clear();
+    departureTimeIndex.clear();
+    destinationIndex.clear();
+    departureMinuteIndex.clear();
+    trackIndex.clear();
+    destinationTrie.clear();
+    snapshotDepartures = PersistentDepartureTree.EMPTY;
+    snapshotDestinations = new HashMap<>();
+    snapshotDestinationsShared = false;
+    recordEvent(RegisterEventType.ALL_REMOVED, null);
+    publishSnapshot();
+  }
+
+
+  /**
+   * Provides the first minute at which a departure has not expired. A departure has expired
+   * if it leaves before the station time, counted in whole minutes.
+   *
+   * @return The effective departure minute of the earliest departure that has not expired.
+   * @since 0.2.1
+   */
+  private int expiryMinute() {
+    return (getStationTime().toSecondOfDay() + 59) / 60;
+  }
+
+
+  /**
+   * Takes the first departures of an index that have not expired.
+   *
+   * @param index The index, ordered by effective departure time, or {@code null} if there is
+   *              no such index bucket.
+   * @param count The maximum number of departures.
+   * @return The first departures that have not expired, at most {@code count}.
+   * @throws IllegalArgumentException if the count is negative.
+   * @since 0.2.1
+   */
+  private List<TrainDispatchSystem> nextNotExpired(
+      TreeMap<DepartureKey, TrainDispatchSystem> index, int count) {
+
+    if (count < 0) {
+      throw new IllegalArgumentException("The number of departures cannot be negative");
+    }
+
+    List<TrainDispatchSystem> departures = new ArrayList<>(Math.min(count, 64));
+    if (index == null) {
+      return departures;
+    }
+
+    // The empty train number is the lowest key of a minute:
+    Iterator<TrainDispatchSystem> notExpired =
+        index.tailMap(new DepartureKey(expiryMinute(), "")).values().iterator();
+    while (departures.size() < count && notExpired.hasNext()) {
+      departures.add(notExpired.next());
+    }
+    return departures;
+  }
+
+
+  /**
+   * Checks whether booking a departure on a track must be rejected, because the policy is
+   * {@code TrackConflictPolicy.REJECT} and the track is occupied within the dwell window.
+   *
+   * @param track           The track to book.
+   * @param effectiveMinute The effective departure minute of the departure.
+   * @param trainNumber     The train number of the departure, which never conflicts with itself.
+   * @return {@code true} if the booking must be rejected; otherwise, {@code false}.
+   * @since 0.1.8
+   */
+  private boolean isRejectedTrackConflict(int track, int effectiveMinute, String trainNumber) {
+    return trackConflictPolicy == TrackConflictPolicy.REJECT
+        && findFirstTrackConflict(trackIndex.get(track), effectiveMinute, trainNumber) != null;
+  }
+
+
+  /**
+   * Finds the first other departure occupying a track within the dwell window.
+   * At most two entries of the window are visited (the departure itself, and one other),
+   * so the check costs O(log n).
+   *
+   * @param occupancy       The occupancy index of the track, or {@code null} if the track is
+   *                        not in use.
+   * @param effectiveMinute The effective departure minute.
+   * @param trainNumber     The train number of the departure, which is skipped.
+   * @return The first conflicting departure, or {@code null} if the track is free.
+   * @since 0.1.8
+   */
+  private TrainDispatchSystem findFirstTrackConflict(
+      TreeMap<DepartureKey, TrainDispatchSystem> occupancy, int effectiveMinute,
+      String trainNumber) {
+
+    for (TrainDispatchSystem occupant : occupancyWindow(occupancy, effectiveMinute).values()) {
+      if (!occupant.getTrainNumber().equals(trainNumber)) {
+        return occupant;
+      }
+    }
+    return null;
+  }
+
+
+  /**
+   * Provides the departures on a track whose effective departure times are less than the
+   * dwell window away from the given minute, as a view of the occupancy index.
+   *
+   * @param occupancy       The occupancy index of the track, or {@code null} if the track is
+   *                        not in use.
+   * @param effectiveMinute The effective departure minute.
+   * @return The departures within the dwell window, ordered by effective departure time.
+   * @since 0.1.8
+   */
+  private SortedMap<DepartureKey, TrainDispatchSystem> occupancyWindow(
+      TreeMap<DepartureKey, TrainDispatchSystem> occupancy, int effectiveMinute) {
+
+    if (occupancy == null || dwellMinutes == 0) {
+      return Collections.emptySortedMap();
+    }
+    // The empty train number is the lowest key of a minute:
+    return occupancy.subMap(new DepartureKey(effectiveMinute - dwellMinutes + 1, ""),
+        new DepartureKey(effectiveMinute + dwellMinutes, ""));
+  }
+
+
+  /**
+   * Increases the version of the register and publishes a snapshot of the new version, and
+   * the change events of the change.
+   * Must be called once at the end of every change of the register, after the change has
+   * been passed to the register log and applied.
+   *
+   * @since 0.1.7
+   */
+  private void publishSnapshot() {
+    version++;
+    snapshot = new RegisterSnapshot(version, stationTime, snapshotDepartures,
+        snapshotDestinations);
+    snapshotDestinationsShared = true;
+    registerLog.changeCommitted(snapshot);
+
+    for (RegisterEvent event : pendingEvents) {
+      if (eventOverflowPolicy == EventOverflowPolicy.BLOCK) {
+        eventPublisher.submit(event);
+      } else {
+        eventPublisher.offer(event, (subscriber, dropped) -> {
+          droppedEvents.incrementAndGet();
+          return false;  // Not retried
+        });
+      }
+    }
+    pendingEvents.clear();
+  }
+
+
+  /**
+   * Records a change event of the current change, to be published with the snapshot of the
+   * change. Nothing is recorded if there are no subscribers.
+   *
+   * <p>At most {@code EVENT_BUFFER_SIZE} events are held for one change. Once a change has
+   * more, its events are replaced by one {@code BULK_CHANGED} event, and the rest of the
+   * change records nothing, so a batch of a million departures holds one event and not a
+   * million.</p>
+   *
+   * @param type          The kind of change.
+   * @param trainDispatch The changed departure, or {@code null} if the change is not about
+   *                      one departure.
+   * @since 0.2.5
+   */
+  private void recordEvent(RegisterEventType type, TrainDispatchSystem trainDispatch) {
+    if (!eventPublisher.hasSubscribers() || (!pendingEvents.isEmpty()
+        && pendingEvents.get(0).type() == RegisterEventType.BULK_CHANGED)) {
+      return;
+    }
+    // The change gets the next version when its snapshot is published:
+    if (pendingEvents.size() < EVENT_BUFFER_SIZE) {
+      pendingEvents.add(new RegisterEvent(version + 1, type,
+          trainDispatch == null ? null : DepartureRecord.of(trainDispatch), stationTime));
+    } else {
+      pendingEvents.clear();
+      pendingEvents.add(new RegisterEvent(version + 1, RegisterEventType.BULK_CHANGED, null,
+          stationTime));
+    }
+  }
+
+
+  /**
+   * Checks a train departure and, if it can be added, passes it to the register log, stores
+   * it and allocates its train number. Does not publish a snapshot.
+   *
+   * @param trainDispatch The train departure to add.
+   * @return The result of the addition.
+   * @since 0.2.2
+   */
+  private AddResult tryAddDeparture(TrainDispatchSystem trainDispatch) {
+    AddResult result = checkDeparture(trainDispatch);
+    if (result == AddResult.ADDED) {
+      registerLog.departureAdded(DepartureRecord.of(trainDispatch));  // Logged before it is added
+      insertDeparture(trainDispatch);
+      trainManager.markTrainNumberAsAllocated(trainDispatch.getTrainNumber(), trainDispatch);
+      recordEvent(RegisterEventType.ADDED, trainDispatch);
+    }
+    return result;
+  }
+
+
+  /**
+   * Checks whether a train departure can be added to the register: it must have a train
+   * number that is available, and must not be a rejected track conflict.
+   *
+   * @param trainDispatch The train departure to check.
+   * @return {@code AddResult.ADDED} if the departure can be added, or the reason it can not.
+   * @since 0.2.7
+   */
+  private AddResult checkDeparture(TrainDispatchSystem trainDispatch) {
+    if (trainDispatch == null || trainDispatch.getTrainNumber() == null) {
+      return AddResult.INVALID;
+    }
+    if (!trainManager.isTrainNumberAvailable(trainDispatch.getTrainNumber())) {
+      return AddResult.DUPLICATE_TRAIN_NUMBER;
+    }
+    if (isRejectedTrackConflict(trainDispatch.getTrack(),
+        trainDispatch.getEffectiveDepartureMinute(), trainDispatch.getTrainNumber())) {
+      return AddResult.TRACK_CONFLICT;
+    }
+    return AddResult.ADDED;
+  }
+
+
+  /**
+   * Stores checked and logged train departures in the register, and allocates their train
+   * numbers. Each index is updated once for all of the departures: they are grouped per
+   * bucket in key order, and every group is merged into its bucket with
+   * {@code mergeIntoIndex}. Does not publish a snapshot.
+   *
+   * @param sortedDepartures The departures with their keys, sorted by key.
+   * @param records          The records of the departures, in the same order.
+   * @since 0.2.7
+   */
+  private void insertDepartures(
+      List<Map.Entry<DepartureKey, TrainDispatchSystem>> sortedDepartures,
+      List<Map.Entry<DepartureKey, DepartureRecord>> records) {
+
+    Map<Integer, List<Map.Entry<DepartureKey, TrainDispatchSystem>>> byDestination =
+        new HashMap<>();
+    Map<Integer, List<Map.Entry<DepartureKey, TrainDispatchSystem>>> byMinute = new HashMap<>();
+    Map<Integer, List<Map.Entry<DepartureKey, TrainDispatchSystem>>> byTrack = new HashMap<>();
+
+    for (Map.Entry<DepartureKey, TrainDispatchSystem> entry : sortedDepartures) {
+      TrainDispatchSystem trainDispatch = entry.getValue();
+      trainDispatchRegister.put(trainDispatch.getTrainNumber(), trainDispatch);
+      trainManager.markTrainNumberAsAllocated(trainDispatch.getTrainNumber(), trainDispatch);
+
+      // Grouped in key order, so every group is sorted as well:
+      byDestination.computeIfAbsent(trainDispatch.getDestinationId(), k -> new ArrayList<>())
+          .add(entry);
+      byMinute.computeIfAbsent(trainDispatch.getDepartureMinute(), k -> new ArrayList<>())
+          .add(entry);
+      byTrack.computeIfAbsent(trainDispatch.getTrack(), k -> new ArrayList<>()).add(entry);
+      recordEvent(RegisterEventType.ADDED, trainDispatch);
+    }
+
+    departureTimeIndex = mergeIntoIndex(departureTimeIndex, sortedDepartures);
+    byDestination.forEach((destinationId, group) -> {
+      if (!destinationIndex.containsKey(destinationId)) {
+        destinationTrie.add(group.get(0).getValue().getDestination(), destinationId);  // New
+      }
+      destinationIndex.put(destinationId,
+          mergeIntoIndex(destinationIndex.get(destinationId), group));
+    });
+    byMinute.forEach((minute, group) -> departureMinuteIndex.put(minute,
+        mergeIntoIndex(departureMinuteIndex.get(minute), group)));
+    byTrack.forEach((track, group) -> trackIndex.put(track,
+        mergeIntoIndex(trackIndex.get(track), group)));
+    snapshotDepartures = snapshotDepartures.withAll(records);
+
+    Map<String, List<Map.Entry<DepartureKey, DepartureRecord>>> recordsByDestination =
+        new HashMap<>();
+    for (Map.Entry<DepartureKey, DepartureRecord> entry : records) {
+      recordsByDestination.computeIfAbsent(entry.getValue().destination(),
+          k -> new ArrayList<>()).add(entry);
+    }
+    Map<String, PersistentDepartureTree> destinations = writableSnapshotDestinations();
+    recordsByDestination.forEach((destination, group) -> destinations.put(destination,
+        destinations.getOrDefault(destination, PersistentDepartureTree.EMPTY).withAll(group)));
+  }
+
+
+  /**
+   * Stores a train departure in the register and in all of its indexes.
+   *
+   * @param trainDispatch The train departure to store.
+   * @since 0.1.0
+   */
+  private void insertDeparture(TrainDispatchSystem trainDispatch) {
+    trainDispatchRegister.put(trainDispatch.getTrainNumber(), trainDispatch);
+    indexDeparture(trainDispatch);
+  }
+
+
+  /**
+   * Removes a train departure from the register and from all of its indexes,
+   * and releases its train number in the {@code TrainManager}.
+   *
+   * @param trainDispatch The train departure to remove.
+   * @since 0.1.2
+   */
+  private void deleteDeparture(TrainDispatchSystem trainDispatch) {
+    trainDispatchRegister.remove(trainDispatch.getTrainNumber());
+    unindexDeparture(trainDispatch);
+    trainManager.releaseTrainNumber(trainDispatch.getTrainNumber());
+  }
+
+
+  /**
+   * Adds a train departure to the departure time, destination, departure minute and track
+   * indexes, and an immutable copy of it to the departures shared with the snapshots.
+   * Must be called again after every change of the departure's delay, departure time,
+   * track or destination, once {@code unindexDeparture} has removed the old entries.
+   *
+   * @param trainDispatch The train departure to index.
+   * @since 0.1.2
+   */
+  private void indexDeparture(TrainDispatchSystem trainDispatch) {
+    DepartureKey key = DepartureKey.of(trainDispatch);
+
+    departureTimeIndex.put(key, trainDispatch);
+    destinationIndex.computeIfAbsent(trainDispatch.getDestinationId(), k -> {
+      destinationTrie.add(trainDispatch.getDestination(), k);  // A new destination in use
+      return new TreeMap<>();
+    }).put(key, trainDispatch);
+    departureMinuteIndex.computeIfAbsent(trainDispatch.getDepartureMinute(), k -> new TreeMap<>())
+        .put(key, trainDispatch);
+    trackIndex.computeIfAbsent(trainDispatch.getTrack(), k -> new TreeMap<>())
+        .put(key, trainDispatch);
+    DepartureRecord record = DepartureRecord.of(trainDispatch);
+    snapshotDepartures = snapshotDepartures.with(key, record);
+    Map<String, PersistentDepartureTree> destinations = writableSnapshotDestinations();
+    destinations.put(record.destination(), destinations
+        .getOrDefault(record.destination(), PersistentDepartureTree.EMPTY).with(key, record));
+  }
+
+
+  /**
+   * Removes a train departure from the departure time, destination, departure minute and
+   * track indexes. Must be called <em>before</em> the departure is changed, since the entries
+   * are found by the departure's current values.
+   *
+   * @param trainDispatch The train departure to remove from the indexes.
+   * @since 0.1.2
+   */
+  private void unindexDeparture(TrainDispatchSystem trainDispatch) {
+    DepartureKey key = DepartureKey.of(trainDispatch);
+
+    departureTimeIndex.remove(key);
+    removeFromBucket(destinationIndex, trainDispatch.getDestinationId(), key);
+    if (!destinationIndex.containsKey(trainDispatch.getDestinationId())) {
+      destinationTrie.remove(trainDispatch.getDestination(), trainDispatch.getDestinationId());
+    }
+    removeFromBucket(departureMinuteIndex, trainDispatch.getDepartureMinute(), key);
+    removeFromBucket(trackIndex, trainDispatch.getTrack(), key);
+    snapshotDepartures = snapshotDepartures.without(key);
+    Map<String, PersistentDepartureTree> destinations = writableSnapshotDestinations();
+    PersistentDepartureTree toDestination =
+        destinations.get(trainDispatch.getDestination()).without(key);
+    if (toDestination.size() == 0) {
+      destinations.remove(trainDispatch.getDestination());
+    } else {
+      destinations.put(trainDispatch.getDestination(), toDestination);
+    }
+  }
+
+
+  /**
+   * Provides the departures per destination name that are shared with the snapshots, ready
+   * to be changed. A published snapshot never changes, so the map is copied before the first
+   * change after a snapshot has been published, in O(d) for d destinations in use. The
+   * departures of each destination are persistent trees, so they are shared, not copied.
+   *
+   * @return The departures per destination name, not shared with any snapshot.
+   * @since 0.3.0
+   */
+  private Map<String, PersistentDepartureTree> writableSnapshotDestinations() {
+    if (snapshotDestinationsShared) {
+      snapshotDestinations = new HashMap<>(snapshotDestinations);
+      snapshotDestinationsShared = false;
+    }
+    return snapshotDestinations;
+  }
+
+
+  /**
+   * Merges a sorted group of departures into an ordered index.
+   *
+   * <p>A missing or empty index is built from the group in O(k), with the {@code TreeMap}
+   * constructor for a sorted map. A group that is small compared to the index is inserted
+   * entry by entry, in O(k log n). Otherwise, the index and the group are merged in key order,
+   * and a new index is built from the merged entries in O(n + k).</p>
+   *
+   * @param index            The ordered index, or {@code null} if there is none yet.
+   * @param sortedDepartures The departures with their keys, sorted by key, none of them in
+   *                         the index.
+   * @return The index with the departures, which is a new index unless the group was
+   *         inserted entry by entry.
+   * @since 0.2.7
+   */
+  private static TreeMap<DepartureKey, TrainDispatchSystem> mergeIntoIndex(
+      TreeMap<DepartureKey, TrainDispatchSystem> index,
+      List<Map.Entry<DepartureKey, TrainDispatchSystem>> sortedDepartures) {
+
+    int indexSize = index == null ? 0 : index.size();
+    int groupSize = sortedDepartures.size();
+    int depth = 32 - Integer.numberOfLeadingZeros(indexSize + groupSize);
+
+    if (indexSize == 0) {
+      return new TreeMap<>(new SortedEntries(sortedDepartures));
+
+    } else if ((long) groupSize * depth < indexSize + groupSize) {
+      for (Map.Entry<DepartureKey, TrainDispatchSystem> entry : sortedDepartures) {
+        index.put(entry.getKey(), entry.getValue());
+      }
+      return index;
+
+    } else {
+      List<Map.Entry<DepartureKey, TrainDispatchSystem>> merged =
+          new ArrayList<>(indexSize + groupSize);
+      Iterator<Map.Entry<DepartureKey, TrainDispatchSystem>> indexed =
+          index.entrySet().iterator();
+      Iterator<Map.Entry<DepartureKey, TrainDispatchSystem>> added = sortedDepartures.iterator();
+      Map.Entry<DepartureKey, TrainDispatchSystem> nextIndexed = indexed.next();
+      Map.Entry<DepartureKey, TrainDispatchSystem> nextAdded = added.next();
+
+      while (nextIndexed != null || nextAdded != null) {
+        if (nextAdded == null
+            || nextIndexed != null && nextIndexed.getKey().compareTo(nextAdded.getKey()) < 0) {
+          merged.add(Map.entry(nextIndexed.getKey(), nextIndexed.getValue()));
+          nextIndexed = indexed.hasNext() ? indexed.next() : null;
+        } else {
+          merged.add(nextAdded);
+          nextAdded = added.hasNext() ? added.next() : null;
+        }
+      }
+      return new TreeMap<>(new SortedEntries(merged));
+    }
+  }
+
+
+  /**
+   * Removes a key from a bucket of a secondary index, and drops the bucket once it is empty
+   * so that the index does not keep entries for destinations or times no longer in use.
+   *
+   * @param index     The secondary index.
+   * @param bucketKey The key of the bucket (for example the destination).
+   * @param key       The departure key to remove from the bucket.
+   * @param <K>       The type of the bucket key.
+   * @since 0.1.2
+   */
+  private static <K> void removeFromBucket(
+      Map<K, TreeMap<DepartureKey, TrainDispatchSystem>> index, K bucketKey, DepartureKey key) {
+
+    TreeMap<DepartureKey, TrainDispatchSystem> bucket = index.get(bucketKey);
+    if (bucket != null) {
+      bucket.remove(key);
+      if (bucket.isEmpty()) {
+        index.remove(bucketKey);
+      }
+    }
+  }
+
+
+  /**
+   * Adds the departures to several destinations to the search results, and orders the
+   * results by effective departure time.
+   *
+   * @param searchResults  The search results to add to.
+   * @param destinationIds The ids of the destinations.
+   * @since 0.1.9
+   */
+  private void addDestinationResults(List<TrainDispatchSystem> searchResults,
+      Set<Integer> destinationIds) {
+
+    for (int destinationId : destinationIds) {
+      addIndexedResults(searchResults, destinationIndex.get(destinationId));
+    }
+    if (destinationIds.size() > 1) {
+      searchResults.sort(Comparator.comparing(DepartureKey::of));
+    }
+  }
+
+
+  /**
+   * Adds the departures of an index bucket to the search results.
+   *
+   * @param searchResults The search results to add to.
+   * @param bucket        The bucket to add, or {@code null} if there is no such bucket.
+   * @since 0.1.2
+   */
+  private static void addIndexedResults(List<TrainDispatchSystem> searchResults,
+      TreeMap<DepartureKey, TrainDispatchSystem> bucket) {
+
+    if (bucket != null) {
+      searchResults.addAll(bucket.values());
+    }
+  }
+
+
+  /**
+   * A read-only sorted map over a list of departures that is already sorted by key, without
+   * duplicate keys, so that {@code new TreeMap<>(SortedMap)} builds an index from it in O(n).
+   * The list is not checked or copied. The sub-map views are sub-lists, found by binary search.
+   */
+  private static final class SortedEntries
+      extends AbstractMap<DepartureKey, TrainDispatchSystem>
+      implements SortedMap<DepartureKey, TrainDispatchSystem> {
+    private final List<Map.Entry<DepartureKey, TrainDispatchSystem>> entries;
+
+    private SortedEntries(List<Map.Entry<DepartureKey, TrainDispatchSystem>> entries) {
+      this.entries = entries;
+    }
+
+    @Override
+    public Set<Map.Entry<DepartureKey, TrainDispatchSystem>> entrySet() {
+      return new AbstractSet<>() {
+        @Override
+        public Iterator<Map.Entry<DepartureKey, TrainDispatchSystem>> iterator() {
+          return Collections.unmodifiableList(entries).iterator();
+        }
+
+        @Override
+        public int size() {
+          return entries.size();
+        }
+      };
+    }
+
+    @Override
+    public Comparator<? super DepartureKey> comparator() {
+      return null;  // The natural order of the keys, like the indexes
+    }
+
+    @Override
+    public DepartureKey firstKey() {
+      if (entries.isEmpty()) {
+        throw new NoSuchElementException();
+      }
+      return entries.get(0).getKey();
+    }
+
+    @Override
+    public DepartureKey lastKey() {
+      if (entries.isEmpty()) {
+        throw new NoSuchElementException();
+      }
+      return entries.get(entries.size() - 1).getKey();
+    }
+
+    @Override
+    public SortedMap<DepartureKey, TrainDispatchSystem> subMap(DepartureKey fromKey,
+        DepartureKey toKey) {
+      if (fromKey.compareTo(toKey) > 0) {
+        throw new IllegalArgumentException("The first key cannot be after the last key");
+      }
+      return new SortedEntries(entries.subList(indexOf(fromKey), indexOf(toKey)));
+    }
+
+    @Override
+    public SortedMap<DepartureKey, TrainDispatchSystem> headMap(DepartureKey toKey) {
+      return new SortedEntries(entries.subList(0, indexOf(toKey)));
+    }
+
+    @Override
+    public SortedMap<DepartureKey, TrainDispatchSystem> tailMap(DepartureKey fromKey) {
+      return new SortedEntries(entries.subList(indexOf(fromKey), entries.size()));
+    }
+
+    private int indexOf(DepartureKey key) {
+      // The index of the first entry whose key is not lower than the given key:
+      int low = 0;
+      int high = entries.size();
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (entries.get(middle).getKey().compareTo(key) < 0) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      return low;
+    }
   }
 }
@@ -1,7 +1,9 @@
 package edu.ntnu.stud.traindispatchsystem;
 
 import edu.ntnu.stud.register.TrainManager;
+import edu.ntnu.stud.utility.SymbolTable;
 import java.time.LocalTime;
+import java.util.regex.Pattern;
 
 /**
  * The {@code TrainDispatchSystem} class represents a train dispatch system.
@@ -25,20 +27,33 @@ import java.time.LocalTime;
  * <p>The {@code TrainDispatchSystem} class includes methods for managing train departure
  * information and adding delays if a train is not on time.
  *
+ * <p>The departure station, destination and line are interned in a symbol table shared by
+ * all departures. Each departure only stores the small integer ids of these names, so a name
+ * used by many departures is stored once, and two departures can be compared by their ids.
+ *
+ * <p>The departure time is stored packed as minutes after midnight (0 to 1439). Comparing,
+ * sorting and expiring departures can then use plain {@code int} arithmetic, and a
+ * {@code LocalTime} is only created when {@code getDepartureTime} is called, for example to
+ * display the departure.
+ *
  * @author Karwan Shekhe
- * @version 0.1.0 (Version of this class)
+ * @version 0.1.3 (Version of this class)
  * @since 0.0.1 (Introduced in Version 0.0.1 of the Train Dispatch System application)
  */
 public class TrainDispatchSystem {
 
-  private String departureStation;             // The departure station for the train.
-  private String destination;                  // The destination of the train.
-  private LocalTime departureTime;             // The time of departure.
-  private String line;                         // The train line identifier.
+  private int departureStationId;              // The id of the departure station for the train.
+  private int destinationId;                   // The id of the destination of the train.
+  private int departureMinute;                 // The time of departure, minutes after midnight.
+  private int lineId;                          // The id of the train line identifier.
   private int track;                           // The track number.
   private String trainNumber;                  // The allocated train number.
   private int delay;                           // The delay in minutes.
   private static final TrainManager trainManager = new TrainManager();
+  private static final SymbolTable symbolTable = new SymbolTable();  // Interned names
+  private static final int MINUTES_PER_DAY = 24 * 60;
+  // Compiled once, since every new departure validates its names:
+  private static final Pattern NAME_PATTERN = Pattern.compile("[a-zA-ZæøåÆØÅ]+");
 
 
 
@@ -78,8 +93,8 @@ public class TrainDispatchSystem {
    */
   public void setDepartureStation(String departureStation) {
 
-    if (departureStation != null && departureStation.matches("[a-zA-ZæøåÆØÅ]+")) {
-      this.departureStation = departureStation;
+    if (departureStation != null && NAME_PATTERN.matcher(departureStation).matches()) {
+      this.departureStationId = symbolTable.intern(departureStation);
 
     } else {
       throw new IllegalArgumentException(
@@ -96,7 +111,19 @@ public class TrainDispatchSystem {
    * @since 0.0.1
    */
   public String getDepartureStation() {
-    return departureStation;
+    return symbolTable.nameOf(departureStationId);
+  }
+
+
+
+  /**
+   * Provides the id of the departure station in the shared symbol table.
+   *
+   * @return The id of the departure station.
+   * @since 0.1.1
+   */
+  public int getDepartureStationId() {
+    return departureStationId;
   }
 
 
@@ -111,8 +138,8 @@ public class TrainDispatchSystem {
    */
   public void setDestination(String destination) {
 
-    if (destination != null && destination.matches("[a-zA-ZæøåÆØÅ]+")) {
-      this.destination = destination;
+    if (destination != null && NAME_PATTERN.matcher(destination).matches()) {
+      this.destinationId = symbolTable.intern(destination);
 
     } else {
       throw new IllegalArgumentException(
@@ -130,20 +157,61 @@ public class TrainDispatchSystem {
    * @since 0.0.1
    */
   public String getDestination() {
-    return destination;
+    return symbolTable.nameOf(destinationId);
+  }
+
+
+
+
+  /**
+   * Provides the id of the destination in the shared symbol table.
+   * Two departures go to the same destination exactly when their destination ids are equal.
+   *
+   * @return The id of the destination.
+   * @since 0.1.1
+   */
+  public int getDestinationId() {
+    return destinationId;
   }
 
 
 
 
   /**
-   * Sets the departure time.
+   * Sets the departure time. The time is stored in whole minutes, any seconds are dropped.
    *
    * @param departureTime The departure time to set
+   * @throws IllegalArgumentException If the departure time is null.
    * @since 0.0.2
    */
   public void setDepartureTime(LocalTime departureTime) {
-    this.departureTime = departureTime;
+
+    if (departureTime != null) {
+      this.departureMinute = departureTime.getHour() * 60 + departureTime.getMinute();
+
+    } else {
+      throw new IllegalArgumentException("Departure time cannot be null");
+    }
+  }
+
+
+
+
+  /**
+   * Sets the departure time as minutes after midnight.
+   *
+   * @param departureMinute The departure time in minutes after midnight, from 0 to 1439.
+   * @throws IllegalArgumentException If the minute is outside the valid range.
+   * @since 0.1.2
+   */
+  public void setDepartureMinute(int departureMinute) {
+
+    if (departureMinute >= 0 && departureMinute < MINUTES_PER_DAY) {
+      this.departureMinute = departureMinute;
+
+    } else {
+      throw new IllegalArgumentException("Departure minute must be between 0 and 1439.");
+    }
   }
 
 
@@ -151,12 +219,41 @@ public class TrainDispatchSystem {
 
   /**
    * Provides the departure time of a train.
+   * A new {@code LocalTime} is created from the packed departure minute.
    *
    * @return The departure time.
    * @since 0.0.1
    */
   public LocalTime getDepartureTime() {
-    return departureTime;
+    return LocalTime.of(departureMinute / 60, departureMinute % 60);
+  }
+
+
+
+
+  /**
+   * Provides the scheduled departure time as minutes after midnight.
+   *
+   * @return The departure time in minutes after midnight.
+   * @since 0.1.2
+   */
+  public int getDepartureMinute() {
+    return departureMinute;
+  }
+
+
+
+
+  /**
+   * Provides the effective departure time (departure time plus delay) as minutes after
+   * midnight. The value is not wrapped around midnight, so a delayed late train can get a
+   * value of 1440 or more.
+   *
+   * @return The effective departure time in minutes after midnight.
+   * @since 0.1.2
+   */
+  public int getEffectiveDepartureMinute() {
+    return departureMinute + delay;
   }
 
 
@@ -206,7 +303,7 @@ public class TrainDispatchSystem {
   public void setLine(String line) {
 
     if (line != null) {
-      this.line = line;
+      this.lineId = symbolTable.intern(line);
 
     } else {
       throw new IllegalArgumentException("Line cannot be null");
@@ -223,7 +320,20 @@ public class TrainDispatchSystem {
    * @since 0.0.1
    */
   public String getLine() {
-    return line;
+    return symbolTable.nameOf(lineId);
+  }
+
+
+
+
+  /**
+   * Provides the id of the train line identifier in the shared symbol table.
+   *
+   * @return The id of the train line identifier.
+   * @since 0.1.1
+   */
+  public int getLineId() {
+    return lineId;
   }
 
 
@@ -296,4 +406,19 @@ public class TrainDispatchSystem {
     return trainNumber;
   }
 
-}
\ No newline at end of file
+
+
+
+  /**
+   * Provides the symbol table shared by all departures, holding the interned departure
+   * stations, destinations and lines. It can be used to look up the id of a name,
+   * for example to search departures by destination id.
+   *
+   * @return The shared symbol table.
+   * @since 0.1.1
+   */
+  public static SymbolTable getSymbolTable() {
+    return symbolTable;
+  }
+
+}
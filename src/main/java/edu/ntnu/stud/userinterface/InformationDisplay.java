@@ -1,12 +1,22 @@
 package edu.ntnu.stud.userinterface;
 
+import edu.ntnu.stud.importer.ImportError;
+import edu.ntnu.stud.importer.ImportReport;
+import edu.ntnu.stud.register.DepartureRecord;
+import edu.ntnu.stud.register.RegisterEvent;
+import edu.ntnu.stud.register.RegisterSnapshot;
 import edu.ntnu.stud.register.TrainRegister;
 import edu.ntnu.stud.traindispatchsystem.TrainDispatchSystem;
 import java.io.PrintStream;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -20,13 +30,25 @@ import java.util.stream.Collectors;
  * interaction.</p>
  *
  * @author Karwan Shekhe
- * @version 0.0.5 (Version of this class)
+ * @version 0.1.7 (Version of this class)
  * @since 0.0.6 (Introduced in Version 0.0.6 of the Train Dispatch System application)
  */
 public class InformationDisplay {
   private final TrainRegister trainRegister;  // The train register containing information.
   private final PrintStream printStream;     // The print stream for displaying information.
   private StringBuilder stringBuilder;       // The string builder for building strings.
+  private final TableRowRenderer tableRowRenderer = new TableRowRenderer(25);  // Table rows
+  private final TableRowRenderer searchRowRenderer = new TableRowRenderer(23); // Search rows
+  private final RenderedRowCache rowCache;   // The rows of the departure table
+
+  // The live departure board, redrawn from the thread of the change events of the register:
+  private final Object liveBoardLock = new Object();
+  private LiveBoardSubscriber liveBoardSubscriber;  // The subscriber, or null if not shown
+  private RenderedRowCache liveBoardRowCache;       // The rows of the live board
+  private List<String> liveBoardFrame;              // The lines on the screen
+  private long liveBoardVersion;                    // The register version on the screen
+  private int liveBoardCount;                       // The number of departures on the board
+  private int liveBoardCursorLine;                  // The cursor line, from the board's top
 
 
   // ANSI escape codes for colors and text formatting:
@@ -34,6 +56,11 @@ public class InformationDisplay {
   private static final String ANSI_GREEN = "\u001B[32m";    // Green color
   private static final String ANSI_RESET = "\u001B[0m";     // Reset color
   private static final String ANSI_BOLD = "\u001B[1m";      // Bold text
+  private static final String ANSI_CLEAR_SCREEN = "\u001B[2J\u001B[H";  // Clear, cursor home
+  private static final String ANSI_ERASE_LINE = "\u001B[2K";            // Erase the line
+  private static final String ANSI_ERASE_BELOW = "\u001B[J";            // Erase to the end
+  private static final String ANSI_SAVE_CURSOR = "\u001B7";             // Save cursor position
+  private static final String ANSI_RESTORE_CURSOR = "\u001B8";          // Restore the position
 
 
   // Separator lines for the:
@@ -43,6 +70,14 @@ public class InformationDisplay {
       + "-----------------------------------------------------\n";   // line for separating
 
 
+  // The number of table rows written to the print stream at a time:
+  private static final int ROWS_PER_CHUNK = 256;
+
+  // The lines of the live departure board without a departure:
+  private static final String LIVE_BOARD_EMPTY_ROW = "|" + " ".repeat(31) + ANSI_YELLOW
+      + "No train dispatches available" + ANSI_RESET + " ".repeat(31) + "|\n";
+  private static final String LIVE_BOARD_BLANK_ROW = "|" + " ".repeat(91) + "|\n";
+
 
   /**
    * Constructs an instance of InformationDisplay with a specified train register and print stream.
@@ -54,6 +89,30 @@ public class InformationDisplay {
   public InformationDisplay(TrainRegister trainRegister, PrintStream printStream) {
     this.trainRegister = trainRegister;
     this.printStream = printStream;
+    this.rowCache = new RenderedRowCache(tableRowRenderer);
+  }
+
+
+
+  /**
+   * Constructs an instance of {@code InformationDisplay} that takes the rows of the departure
+   * table from the given cache, for example a cache of another capacity.
+   *
+   * @param trainRegister The train register to display.
+   * @param printStream   The print stream for displaying information.
+   * @param rowCache      The cache of the rendered rows of the departure table, rendered
+   *                      with a {@code TableRowRenderer} of the table's width (25).
+   * @throws IllegalArgumentException If the row cache is null.
+   * @since 0.1.7
+   */
+  public InformationDisplay(TrainRegister trainRegister, PrintStream printStream,
+      RenderedRowCache rowCache) {
+    if (rowCache == null) {
+      throw new IllegalArgumentException("Row cache cannot be null");
+    }
+    this.trainRegister = trainRegister;
+    this.printStream = printStream;
+    this.rowCache = rowCache;
   }
 
 
@@ -162,8 +221,12 @@ public class InformationDisplay {
         .append("| 11. Remove departures that have passed based on the station time  |\n")
         .append("| 12. Update the station time                                       |\n")
         .append("| 13. Enter '13' for Help                                           |\n")
+        .append("| 15. Search for departures within a time window                    |\n")
+        .append("| 16. View the departure board (the next departures)                |\n")
+        .append("| 17. Import train departures from a CSV timetable file             |\n")
+        .append("| 18. View the live departure board (updated as departures change)  |\n")
         .append(menuLine).append("\n")
-        .append("Please input you choice below (1-13): \n");
+        .append("Please input you choice below (1-13, 15-18): \n");
 
     printStream.println(ANSI_BOLD + stringBuilder);
   }
@@ -215,14 +278,7 @@ public class InformationDisplay {
       if (trainDispatch != null) {
         found = true;
 
-        stringBuilder
-            .append(String.format("| %-17s | %-11s | %-23s | %-5d | %-4s | %-12s |%n",
-            trainDispatch.getDepartureStation(),
-            trainDispatch.getDestination(),
-            formatDepartureTimeWithDelay(trainDispatch),
-            trainDispatch.getTrack(),
-            trainDispatch.getLine(),
-            trainDispatch.getTrainNumber()));
+        searchRowRenderer.appendRow(trainDispatch, stringBuilder);
       }
     }
     stringBuilder.append(HORIZONTAL_LINE);
@@ -243,13 +299,17 @@ public class InformationDisplay {
    * It prints a table with columns for departure station, destination, departure time,
    * track, line and train number.
    *
+   * <p>The rows are streamed: they are written to the print stream in chunks of
+   * {@code ROWS_PER_CHUNK} rows while the iterator is read, so the first rows show up at once
+   * and the memory used does not grow with the size of the register.</p>
+   *
    * <p>If no train departures are registered, the method will display an empty table.</p>
    *
    * @param iterator The iterator of TrainDispatchSystem objects to be displayed.
    * @since 0.0.1
    */
   public void displayTrainDispatchListTable(Iterator<TrainDispatchSystem> iterator) {
-    stringBuilder = new StringBuilder();
+    stringBuilder = new StringBuilder(ANSI_BOLD);
 
     // Columns for the table:
     stringBuilder.append(HORIZONTAL_LINE)
@@ -257,26 +317,129 @@ public class InformationDisplay {
              + "Departure Time            | Track | Line | Train Number |\n")
         .append(HORIZONTAL_LINE);
 
-    // Iterates through the list of train departures and prints the details of each train departure:
-    if (iterator.hasNext()) {
+    // Streams the train departures, or displays an empty table if there are none:
+    appendTableRows(iterator, Integer.MAX_VALUE, this::appendTableRow);
+    stringBuilder.append(HORIZONTAL_LINE);
 
-      while (iterator.hasNext()) {
-        TrainDispatchSystem trainDispatch = iterator.next();
+    printStream.println(stringBuilder);
+  }
 
-        stringBuilder
-            .append(String.format("| %-17s | %-11s | %-25s | %-5d | %-4s | %-12s |%n",
-            trainDispatch.getDepartureStation(),
-            trainDispatch.getDestination(),
-            formatDepartureTimeWithDelay(trainDispatch),
-            trainDispatch.getTrack(),
-            trainDispatch.getLine(),
-            trainDispatch.getTrainNumber()));
-      }
-    } else {
 
-      // If no train departures are found, the method will display an empty table.
-      displayEmptyTable();
 
+  /**
+   * Displays all the train departures of a snapshot in a table format, like
+   * {@code displayTrainDispatchListTable(Iterator)}.
+   *
+   * <p>The rows are taken from the cache of rendered rows (see {@code RenderedRowCache}), so
+   * only the departures that were added or changed since the last refresh are rendered again.
+   * The cache is grown to hold every departure of the snapshot, since a smaller cache would
+   * drop each row before the next refresh shows it again. The rows of departures that are no
+   * longer in the snapshot are dropped from the cache.</p>
+   *
+   * @param snapshot The snapshot of the register to display.
+   * @since 0.1.3
+   */
+  public void displayTrainDispatchListTable(RegisterSnapshot snapshot) {
+    stringBuilder = new StringBuilder(ANSI_BOLD);
+
+    // Columns for the table:
+    stringBuilder.append(HORIZONTAL_LINE)
+        .append("| Departure Station | Destination | "
+             + "Departure Time            | Track | Line | Train Number |\n")
+        .append(HORIZONTAL_LINE);
+
+    // Every row is shown, so the cache holds them all until the next refresh:
+    rowCache.ensureCapacity(snapshot.size());
+    appendTableRows(snapshot.iterator(), Integer.MAX_VALUE, this::appendCachedRow);
+    stringBuilder.append(HORIZONTAL_LINE);
+    rowCache.evictUnused();  // Every departure in the register was just shown
+
+    printStream.println(stringBuilder);
+  }
+
+
+
+  /**
+   * Displays one page of the train departures of a snapshot in a table format, with the
+   * position of the page in the title.
+   *
+   * <p>The page is found without reading the departures before it (see
+   * {@code RegisterSnapshot.iterator(int)}), so paging through a large register costs the
+   * same for every page, forward and back. The rows are taken from the cache of rendered
+   * rows, so paging back to a page shown before renders only its changed departures.</p>
+   *
+   * @param snapshot The snapshot of the register to display.
+   * @param page     The page to display, from 0.
+   * @param pageSize The number of departures on a page.
+   * @throws IllegalArgumentException If the page size is not positive, or the page is outside
+   *                                  the snapshot.
+   * @since 0.1.1
+   */
+  public void displayTrainDispatchListPage(RegisterSnapshot snapshot, int page, int pageSize) {
+    if (pageSize <= 0) {
+      throw new IllegalArgumentException("The page size must be positive");
+    }
+    int pageCount = Math.max(1, (snapshot.size() + pageSize - 1) / pageSize);
+    if (page < 0 || page >= pageCount) {
+      throw new IllegalArgumentException("The page must be between 1 and " + pageCount);
+    }
+
+    int first = page * pageSize;
+    int last = Math.min(first + pageSize, snapshot.size());
+    String title = String.format("Train departures %d-%d of %d (page %d of %d)",
+        Math.min(first + 1, last), last, snapshot.size(), page + 1, pageCount);
+    stringBuilder = new StringBuilder(ANSI_BOLD);
+
+    // The page header and the columns:
+    stringBuilder.append(HORIZONTAL_LINE)
+        .append(String.format("| %-92s|%n", title))
+        .append(HORIZONTAL_LINE)
+        .append("| Departure Station | Destination | "
+            + "Departure Time            | Track | Line | Train Number |\n")
+        .append(HORIZONTAL_LINE);
+
+    appendTableRows(snapshot.iterator(first), pageSize, this::appendCachedRow);
+    stringBuilder.append(HORIZONTAL_LINE);
+
+    // A page shows only some departures, so rows of removed departures are dropped once the
+    // cache has outgrown the register:
+    if (rowCache.size() > 2 * snapshot.size()) {
+      rowCache.evictUnused();
+    }
+
+    printStream.println(stringBuilder);
+  }
+
+
+
+  /**
+   * Displays a departure board: only the next train departures after the station time,
+   * as provided by {@code TrainRegister.nextDepartures}, in the same format as the
+   * table of all train departures.
+   *
+   * <p>If there are no upcoming train departures, the method will display an empty table.</p>
+   *
+   * @param iterator The iterator of the next train departures to be displayed.
+   * @since 0.0.9
+   */
+  public void displayDepartureBoard(Iterator<TrainDispatchSystem> iterator) {
+    stringBuilder = new StringBuilder();
+    String title = "Next departures from Gjøvik after "
+        + trainRegister.getStationTime().format(DateTimeFormatter.ofPattern("HH:mm"));
+
+    // The board header and the columns:
+    stringBuilder.append(HORIZONTAL_LINE)
+        .append(String.format("| %-92s|%n", title))
+        .append(HORIZONTAL_LINE)
+        .append("| Departure Station | Destination | "
+            + "Departure Time            | Track | Line | Train Number |\n")
+        .append(HORIZONTAL_LINE);
+
+    if (!iterator.hasNext()) {
+      displayEmptyTable();
+    }
+    while (iterator.hasNext()) {
+      appendTableRow(iterator.next());
     }
     stringBuilder.append(HORIZONTAL_LINE);
 
@@ -286,40 +449,279 @@ public class InformationDisplay {
 
 
   /**
-   * <p>Formats the departure time of a train departure,
-   * considering any delay (delay between 0 and 60 minutes).</p>
+   * <p>Starts the live departure board: the next train departures after the station time, in
+   * the format of {@code displayDepartureBoard}, kept up to date on the screen until
+   * {@code stopLiveDepartureBoard} is called.</p>
+   *
+   * <p>The board is driven by the change events of the register, not by reprinting it. After
+   * every change it is built again from the latest snapshot of the register, and only the
+   * lines that differ from the lines on the screen are redrawn, with ANSI escape codes that
+   * move the cursor to the line. A delayed train or a new track therefore redraws one line of
+   * the board, which keeps the board fast on a slow terminal connection. The board has a fixed
+   * height, and the rows of the departures are cached (see {@code RenderedRowCache}).</p>
+   *
+   * <p>The lines are addressed relative to the cursor, which the display keeps on the line
+   * below the board, so a redraw lands on the right line also when the terminal has scrolled.
+   * The cursor is saved before and restored after each redraw, so the user can keep typing
+   * there. Input for the board must be read with {@code readLiveDepartureBoardInput}, which
+   * keeps the prompt on that line instead of printing more lines below the board.</p>
+   *
+   * @param count The number of departures on the board.
+   * @throws IllegalArgumentException If the count is negative.
+   * @since 0.1.4
+   */
+  public void startLiveDepartureBoard(int count) {
+    if (count < 0) {
+      throw new IllegalArgumentException("The number of departures cannot be negative");
+    }
+
+    synchronized (liveBoardLock) {
+      stopLiveDepartureBoard();
+      liveBoardCount = count;
+      liveBoardRowCache = new RenderedRowCache(new TableRowRenderer(25), Math.max(1, count));
+      liveBoardFrame = new ArrayList<>();
+
+      // Subscribes before the first frame, so no change after the first frame is missed:
+      liveBoardSubscriber = new LiveBoardSubscriber();
+      trainRegister.changeEvents().subscribe(liveBoardSubscriber);
+
+      RegisterSnapshot snapshot = trainRegister.snapshot();
+      liveBoardFrame = buildLiveBoardFrame(snapshot);
+      liveBoardVersion = snapshot.getVersion();
+
+      StringBuilder board = new StringBuilder(ANSI_CLEAR_SCREEN).append(ANSI_BOLD);
+      liveBoardFrame.forEach(board::append);
+      printStream.print(board.append(ANSI_RESET));
+      printStream.flush();
+      liveBoardCursorLine = liveBoardFrame.size();  // The line below the board
+    }
+  }
+
+
+
+  /**
+   * Reads a line of input while the live departure board is shown, with the prompt on the
+   * line below the board.
+   *
+   * <p>The prompt replaces the previous prompt and input, so reading any number of lines
+   * never scrolls the board. The input is read without holding the board, so it keeps being
+   * redrawn while the user types. If the board is not shown, the prompt is just printed.</p>
+   *
+   * @param prompt   The prompt, on one line.
+   * @param readLine Reads the line the user types, ending with enter.
+   * @return The line read, as provided by {@code readLine}.
+   * @since 0.1.6
+   */
+  public String readLiveDepartureBoardInput(String prompt, Supplier<String> readLine) {
+    synchronized (liveBoardLock) {
+      StringBuilder promptLine = new StringBuilder();
+      if (liveBoardFrame != null && liveBoardCursorLine > liveBoardFrame.size()) {
+        // Back up over the previous input:
+        promptLine.append("\u001B[").append(liveBoardCursorLine - liveBoardFrame.size())
+            .append("A");
+      }
+      printStream.print(promptLine.append('\r').append(ANSI_ERASE_BELOW).append(prompt));
+      printStream.flush();
+      if (liveBoardFrame != null) {
+        liveBoardCursorLine = liveBoardFrame.size();
+      }
+    }
+
+    String line = readLine.get();
+    synchronized (liveBoardLock) {
+      liveBoardCursorLine++;  // The enter of the user moved the cursor to the next line
+    }
+    return line;
+  }
+
+
+
+  /**
+   * Stops the live departure board. The board is left on the screen as it is, and is no
+   * longer updated. Does nothing if the live board is not shown.
+   *
+   * @since 0.1.4
+   */
+  public void stopLiveDepartureBoard() {
+    synchronized (liveBoardLock) {
+      if (liveBoardSubscriber != null) {
+        liveBoardSubscriber.cancel();
+        liveBoardSubscriber = null;
+        liveBoardRowCache = null;
+        liveBoardFrame = null;
+      }
+    }
+  }
+
+
+
+  /**
+   * Redraws the lines of the live departure board that changed since the last frame, if the
+   * register has changed. Changes that come in while a frame is drawn are drawn together in
+   * the next frame.
+   *
+   * @since 0.1.4
+   */
+  private void redrawLiveDepartureBoard() {
+    synchronized (liveBoardLock) {
+      RegisterSnapshot snapshot = trainRegister.snapshot();
+      if (liveBoardSubscriber == null || snapshot.getVersion() == liveBoardVersion) {
+        return;
+      }
+
+      List<String> frame = buildLiveBoardFrame(snapshot);
+      StringBuilder changes = new StringBuilder(ANSI_SAVE_CURSOR);
+      int redrawnLines = 0;
+      for (int line = 0; line < frame.size(); line++) {
+        if (!frame.get(line).equals(liveBoardFrame.get(line))) {
+          // Up from the cursor to the line, and back to the cursor, without a line break:
+          String text = frame.get(line);
+          int end = text.length();
+          while (end > 0 && (text.charAt(end - 1) == '\n' || text.charAt(end - 1) == '\r')) {
+            end--;
+          }
+          changes.append("\u001B[").append(liveBoardCursorLine - line).append("A\r")
+              .append(ANSI_ERASE_LINE).append(ANSI_BOLD).append(text, 0, end)
+              .append(ANSI_RESET).append(ANSI_RESTORE_CURSOR);
+          redrawnLines++;
+        }
+      }
+
+      liveBoardFrame = frame;
+      liveBoardVersion = snapshot.getVersion();
+      if (redrawnLines > 0) {
+        printStream.print(changes);
+        printStream.flush();
+      }
+    }
+  }
+
+
+
+  /**
+   * Builds the lines of the live departure board from a snapshot of the register. The board
+   * always has the same number of lines, so that a line of the board stays on the same line
+   * of the screen.
    *
-   * <p>If a train is delayed, the departure time is displayed with a strikethrough effect,
-   * indicating the original scheduled time and the delay in minutes.
-   * Then the {@code displayTrainDispatchListTable} is updated with the help of this method,
-   * indicating that the train is delayed.</p>
+   * @param snapshot The snapshot of the register.
+   * @return The lines of the board, each ending with a line separator.
+   * @since 0.1.4
+   */
+  private List<String> buildLiveBoardFrame(RegisterSnapshot snapshot) {
+    List<String> frame = new ArrayList<>(liveBoardCount + 6);
+    String title = "Live departures from Gjøvik after "
+        + snapshot.getStationTime().format(DateTimeFormatter.ofPattern("HH:mm"));
+
+    // The board header and the columns:
+    frame.add(HORIZONTAL_LINE);
+    frame.add(String.format("| %-92s|%n", title));
+    frame.add(HORIZONTAL_LINE);
+    frame.add("| Departure Station | Destination | "
+        + "Departure Time            | Track | Line | Train Number |\n");
+    frame.add(HORIZONTAL_LINE);
+
+    List<DepartureRecord> departures = snapshot.nextDepartures(liveBoardCount);
+    for (DepartureRecord departure : departures) {
+      frame.add(liveBoardRowCache.row(departure));
+    }
+    liveBoardRowCache.evictUnused();
+    if (departures.isEmpty() && liveBoardCount > 0) {
+      frame.add(LIVE_BOARD_EMPTY_ROW);
+    }
+    while (frame.size() < liveBoardCount + 5) {
+      frame.add(LIVE_BOARD_BLANK_ROW);
+    }
+    frame.add(HORIZONTAL_LINE);
+    return frame;
+  }
+
+
+
+  /**
+   * Displays the report of a timetable import: the number of rows read and imported,
+   * the throughput, and the rows that could not be imported.
    *
-   * @param trainDispatch The TrainDispatchSystem object representing the train departure.
-   * @return A formatted string representing the departure time with or without delay.
-   * @since 0.0.2
+   * @param report The report of the import.
+   * @since 0.1.0
    */
-  private String formatDepartureTimeWithDelay(TrainDispatchSystem trainDispatch) {
+  public void displayImportReport(ImportReport report) {
+    stringBuilder = new StringBuilder();
 
-    // This is to avoid misplacement of columns in the table
-    if (trainDispatch.getDelay() > 0 && trainDispatch.getDelay() < 10) {
+    stringBuilder.append(HORIZONTAL_LINE)
+        .append(String.format("| %-92s|%n", "Import finished: " + report))
+        .append(HORIZONTAL_LINE);
+
+    for (ImportError error : report.getErrors()) {
+      stringBuilder.append(ANSI_YELLOW).append(error).append(ANSI_RESET).append("\n");
+    }
+    if (report.getErrorCount() > report.getErrors().size()) {
+      stringBuilder.append(ANSI_YELLOW)
+          .append(report.getErrorCount() - report.getErrors().size())
+          .append(" more rows could not be imported.").append(ANSI_RESET).append("\n");
+    }
 
-      return String.format(ANSI_YELLOW + "%s (%d min delay)      " + ANSI_RESET, // with 6 spaces
-          strikeThrough(trainDispatch.getDepartureTime().toString()), trainDispatch.getDelay());
+    printStream.println(ANSI_BOLD + stringBuilder);
+  }
 
-    } else if (trainDispatch.getDelay() >= 10) {
 
-      return String.format(ANSI_YELLOW + "%s (%d min delay)     " + ANSI_RESET,   // with 5 spaces
-          strikeThrough(trainDispatch.getDepartureTime().toString()), trainDispatch.getDelay());
 
-    } else {
+  /**
+   * Appends up to {@code limit} train departures as rows of the table of all train departures,
+   * and writes the rows to the print stream every {@code ROWS_PER_CHUNK} rows, so that the
+   * string builder never holds more than a chunk.
+   *
+   * <p>If the iterator has no train departures, an empty table is appended instead.</p>
+   *
+   * @param iterator    The train departures to append.
+   * @param limit       The largest number of train departures to append.
+   * @param rowAppender Appends one train departure as a row.
+   * @param <T>         The type of the train departures.
+   * @since 0.1.1
+   */
+  private <T> void appendTableRows(Iterator<T> iterator, int limit, Consumer<T> rowAppender) {
+    if (!iterator.hasNext()) {
+      displayEmptyTable();
+    }
 
-      return trainDispatch.getDepartureTime().toString();
+    for (int rows = 1; rows <= limit && iterator.hasNext(); rows++) {
+      rowAppender.accept(iterator.next());
 
+      if (rows % ROWS_PER_CHUNK == 0) {
+        printStream.print(stringBuilder);
+        stringBuilder.setLength(0);  // Keeps the capacity of one chunk for the next chunk
+      }
     }
   }
 
 
 
+  /**
+   * Appends the cached row of a departure, rendering it only if it is new or has changed.
+   *
+   * @param departure The departure to append.
+   * @since 0.1.3
+   */
+  private void appendCachedRow(DepartureRecord departure) {
+    stringBuilder.append(rowCache.row(departure));
+  }
+
+
+
+  /**
+   * Appends one train departure as a row of the table of all train departures.
+   *
+   * <p>The row is written by the {@code TableRowRenderer}, which shows a delayed departure
+   * time struck through and followed by the delay, without formatting any strings.</p>
+   *
+   * @param trainDispatch The train departure to append.
+   * @since 0.0.9
+   */
+  private void appendTableRow(TrainDispatchSystem trainDispatch) {
+    tableRowRenderer.appendRow(trainDispatch, stringBuilder);
+  }
+
+
+
   /**
    * <p>Displays train departures that have departure times earlier than the specified time.
    * The method iterates through the given iterator of TrainDispatchSystem objects and
@@ -354,7 +756,7 @@ public class InformationDisplay {
     while (iterator.hasNext()) {
       TrainDispatchSystem trainDispatch = iterator.next();
 
-      if (trainDispatch.getDepartureTime().isBefore(time)) {
+      if (trainDispatch.getDepartureMinute() * 60 < time.toSecondOfDay()) {
         stringBuilder
             .append(String.format("| %-20s | %-34s | %-23s | %-10s | %-9d |%n",
             ANSI_YELLOW + trainDispatch.getTrainNumber(),
@@ -444,11 +846,10 @@ public class InformationDisplay {
                  .append("   you can use one of the three options in the menu: 5, 6, and 7.\n")
                  .append("\n");
 
-    stringBuilder.append(" - To sort the departures based on the departure time "
-                       + "select option '8' from the menu.\n")
-                 .append("   The departures will be sorted.\n")
-                 .append("   Display the train dispatch table again to confirm this.\n")
-                 .append("   (NOTE: If there is any delays, the delay will not be counted for.)\n")
+    stringBuilder.append(" - The departures are always sorted based on the departure time.\n")
+                 .append("   Selecting option '8' from the menu confirms this.\n")
+                 .append("   (NOTE: Delays are counted for, a delayed train is listed at the\n")
+                 .append("   time it actually departs.)\n")
                  .append("\n");
 
     stringBuilder.append(" - To remove a specific departure, select option '9' from the menu.\n")
@@ -472,4 +873,65 @@ public class InformationDisplay {
 
     printStream.println(ANSI_BOLD + ANSI_GREEN + stringBuilder + ANSI_RESET);
   }
+
+
+
+  /**
+   * Receives the change events of the register while the live departure board is shown, and
+   * redraws the board for them.
+   *
+   * @since 0.1.4
+   */
+  private final class LiveBoardSubscriber implements Flow.Subscriber<RegisterEvent> {
+    private Flow.Subscription subscription;  // The subscription, once subscribed
+    private boolean cancelled;               // Whether the board was stopped
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      synchronized (liveBoardLock) {
+        this.subscription = subscription;
+        if (cancelled) {
+          subscription.cancel();
+          return;
+        }
+      }
+      subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(RegisterEvent event) {
+      redrawLiveDepartureBoard();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      stopIfShown();
+    }
+
+    @Override
+    public void onComplete() {
+      stopIfShown();
+    }
+
+    /**
+     * Stops the live board, unless another live board has been started since.
+     */
+    private void stopIfShown() {
+      synchronized (liveBoardLock) {
+        if (liveBoardSubscriber == this) {
+          stopLiveDepartureBoard();
+        }
+      }
+    }
+
+    /**
+     * Cancels the subscription, also if it has not yet started. Called with the lock held.
+     */
+    private void cancel() {
+      cancelled = true;
+      if (subscription != null) {
+        subscription.cancel();
+      }
+    }
+  }
 }
@@ -0,0 +1,207 @@
+package edu.ntnu.stud.userinterface;
+
+import edu.ntnu.stud.register.DepartureRecord;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>The {@code RenderedRowCache} class keeps the rendered table rows of the most recently
+ * shown departures, so that refreshing the departure table mostly concatenates rows that were
+ * rendered before.</p>
+ *
+ * <p>A row is cached by train number, together with the {@code DepartureRecord} it was
+ * rendered from. The register creates a new record whenever a departure changes, and records
+ * are equal only if all of their values are, so a cached row is used only while the delay,
+ * track, departure time, line and names of the departure are unchanged. A changed departure is
+ * rendered again (including the struck-through time of a delay) the next time it is shown,
+ * while the rows of the other departures are kept.</p>
+ *
+ * <p>The cache holds at most {@code capacity} rows, by default a few pages of the departure
+ * table. When it is full, the row of the departure that was shown least recently is dropped,
+ * so showing the full table of a large register does not keep a row for every departure: the
+ * memory of the cache is bounded, and only the last rows of the table stay cached. A display
+ * that shows a whole table again and again grows the cache to the size of the table with
+ * {@code ensureCapacity}, since otherwise each row would be dropped before it is shown again.
+ * In addition, {@code evictUnused} drops the rows of departures that were not shown since the
+ * last eviction, for example removed or expired departures.</p>
+ *
+ * <p>A cache is not thread-safe; every display uses its own.</p>
+ *
+ * <blockquote><pre>
+ * <p><strong>Example Usage:</strong></p>
+ *
+ * {@code
+ *    RenderedRowCache rowCache = new RenderedRowCache(new TableRowRenderer(25));
+ *
+ *    for (DepartureRecord departure : trainRegister.snapshot()) {
+ *      table.append(rowCache.row(departure));
+ *    }
+ *    rowCache.evictUnused();
+ * }
+ * </pre></blockquote>
+ *
+ * @author Karwan Shekhe
+ * @version 0.0.4 (Version of this class)
+ * @since 0.2.0 (Introduced in Version 0.2.0 of the Train Dispatch System application)
+ */
+public final class RenderedRowCache {
+
+  // The default number of cached rows, ten pages of the departure table:
+  public static final int DEFAULT_CAPACITY = 500;
+
+  private final TableRowRenderer renderer;            // Renders the rows that are not cached
+  private int capacity;                               // The most rows that are cached
+  private final LinkedHashMap<String, CachedRow> rows;  // By train number, least recent first
+  private long generation;                            // Increased by one for every eviction
+  private long hits;                                  // The rows taken from the cache
+  private long misses;                                // The rows rendered
+
+
+  /**
+   * Constructs an empty cache of {@code DEFAULT_CAPACITY} rows.
+   *
+   * @param renderer The renderer of the rows.
+   * @throws IllegalArgumentException If the renderer is null.
+   * @since 0.0.1
+   */
+  public RenderedRowCache(TableRowRenderer renderer) {
+    this(renderer, DEFAULT_CAPACITY);
+  }
+
+
+  /**
+   * Constructs an empty cache of at most the given number of rows, for example the number of
+   * departures on a board.
+   *
+   * @param renderer The renderer of the rows.
+   * @param capacity The most rows that are cached.
+   * @throws IllegalArgumentException If the renderer is null, or the capacity is not positive.
+   * @since 0.0.3
+   */
+  public RenderedRowCache(TableRowRenderer renderer, int capacity) {
+    if (renderer == null) {
+      throw new IllegalArgumentException("Renderer cannot be null");
+    }
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("The capacity of the cache must be positive");
+    }
+    this.renderer = renderer;
+    this.capacity = capacity;
+
+    // In access order, so the least recently shown row is the first to be dropped:
+    this.rows = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, CachedRow> eldest) {
+        return size() > RenderedRowCache.this.capacity;
+      }
+    };
+  }
+
+
+  /**
+   * Provides the rendered table row of a departure, from the cache if the departure is
+   * unchanged since its row was rendered, or rendered and cached otherwise.
+   *
+   * @param departure The departure.
+   * @return The rendered row, including the line separator.
+   * @since 0.0.1
+   */
+  public String row(DepartureRecord departure) {
+    CachedRow cachedRow = rows.get(departure.trainNumber());
+
+    if (cachedRow == null) {
+      cachedRow = new CachedRow();
+      rows.put(departure.trainNumber(), cachedRow);
+    }
+    if (departure.equals(cachedRow.departure)) {
+      hits++;
+    } else {
+      misses++;
+      cachedRow.departure = departure;
+      cachedRow.row = renderer.renderRow(departure);
+    }
+    cachedRow.generation = generation;
+    return cachedRow.row;
+  }
+
+
+  /**
+   * Drops the rows of the departures that were not asked for since the last eviction.
+   *
+   * @since 0.0.1
+   */
+  public void evictUnused() {
+    rows.values().removeIf(cachedRow -> cachedRow.generation != generation);
+    generation++;
+  }
+
+
+  /**
+   * Provides the number of cached rows.
+   *
+   * @return The number of cached rows.
+   * @since 0.0.1
+   */
+  public int size() {
+    return rows.size();
+  }
+
+
+  /**
+   * Provides the most rows the cache holds.
+   *
+   * @return The capacity of the cache.
+   * @since 0.0.3
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+
+
+  /**
+   * Grows the cache to hold at least the given number of rows, for example every departure of
+   * a table that is shown in full. A cache is never shrunk.
+   *
+   * @param minimumCapacity The number of rows the cache must be able to hold.
+   * @since 0.0.4
+   */
+  public void ensureCapacity(int minimumCapacity) {
+    capacity = Math.max(capacity, minimumCapacity);
+  }
+
+
+  /**
+   * Provides the number of rows that were taken from the cache.
+   *
+   * @return The number of cache hits.
+   * @since 0.0.1
+   */
+  public long getHits() {
+    return hits;
+  }
+
+
+  /**
+   * Provides the number of rows that had to be rendered, because the departure was new or
+   * had changed.
+   *
+   * @return The number of cache misses.
+   * @since 0.0.1
+   */
+  public long getMisses() {
+    return misses;
+  }
+
+
+  /**
+   * A cached row, and the departure it was rendered from. It is changed in place when the
+   * departure changes, so a refresh allocates nothing for the rows it reuses.
+   *
+   * @since 0.0.1
+   */
+  private static final class CachedRow {
+    private DepartureRecord departure;  // The departure the row was rendered from
+    private String row;                 // The rendered row, including the line separator
+    private long generation;            // The generation in which the row was last asked for
+  }
+}
@@ -0,0 +1,279 @@
+package edu.ntnu.stud.userinterface;
+
+import edu.ntnu.stud.register.DepartureRecord;
+import edu.ntnu.stud.traindispatchsystem.TrainDispatchSystem;
+
+/**
+ * <p>The {@code TableRowRenderer} class renders train departures as rows of the departure
+ * tables of the {@code InformationDisplay}, without creating garbage for each row.</p>
+ *
+ * <p>A row gives the same text as formatting it with
+ * {@code String.format("| %-17s | %-11s | %-25s | %-5d | %-4s | %-12s |%n", ...)}, with a
+ * delayed departure time struck through and followed by the delay. Instead of formatting, the
+ * columns are written with fixed widths straight into a reusable char buffer, and the padded
+ * departure times (struck through or not), delays and tracks are rendered once, when the
+ * renderer is constructed. The names are copied from the interned strings of the departure.
+ * Rendering a row therefore allocates nothing, apart from growing the buffer for a very long
+ * name.</p>
+ *
+ * <p>A renderer is not thread-safe; every display uses its own.</p>
+ *
+ * <blockquote><pre>
+ * <p><strong>Example Usage:</strong></p>
+ *
+ * {@code
+ *    TableRowRenderer renderer = new TableRowRenderer(25);
+ *    StringBuilder table = new StringBuilder();
+ *
+ *    renderer.appendRow(trainDispatch, table);
+ * }
+ * </pre></blockquote>
+ *
+ * @author Karwan Shekhe
+ * @version 0.0.3 (Version of this class)
+ * @since 0.2.0 (Introduced in Version 0.2.0 of the Train Dispatch System application)
+ */
+public final class TableRowRenderer {
+
+  private static final String ANSI_YELLOW = "\u001B[33m";  // Yellow color
+  private static final String ANSI_RESET = "\u001B[0m";    // Reset color
+  private static final char STRIKE_THROUGH = '\u0336';  // Combining long stroke overlay
+  private static final int MINUTES_PER_DAY = 24 * 60;
+  private static final int MAX_DELAY = 60;
+  private static final int MAX_TRACK = 10;
+  private static final int TRACK_WIDTH = 5;
+  private static final char[] LINE_SEPARATOR = System.lineSeparator().toCharArray();
+
+  private final int departureTimeWidth;      // The width of the departure time column
+  private final char[][] departureTimes;     // The padded times, by minute after midnight
+  private final char[][] delayedTimes;       // The struck-through times, by minute
+  private final char[][] delays;             // The delay texts, by delay in minutes
+  private final char[][] tracks;             // The padded track numbers, by track
+  private char[] buffer = new char[256];     // The rendered row
+  private int length;                        // The length of the rendered row
+
+
+  /**
+   * Constructs a renderer for a table with the given width of the departure time column.
+   *
+   * @param departureTimeWidth The width of the departure time column.
+   * @throws IllegalArgumentException If the width is not positive.
+   * @since 0.0.1
+   */
+  public TableRowRenderer(int departureTimeWidth) {
+    if (departureTimeWidth <= 0) {
+      throw new IllegalArgumentException("The width of the departure time must be positive");
+    }
+    this.departureTimeWidth = departureTimeWidth;
+
+    departureTimes = new char[MINUTES_PER_DAY][];
+    delayedTimes = new char[MINUTES_PER_DAY][];
+    for (int minute = 0; minute < MINUTES_PER_DAY; minute++) {
+      String time = String.format("%02d:%02d", minute / 60, minute % 60);
+      departureTimes[minute] = pad(time, departureTimeWidth).toCharArray();
+
+      StringBuilder delayedTime = new StringBuilder(ANSI_YELLOW);
+      for (int i = 0; i < time.length(); i++) {
+        delayedTime.append(time.charAt(i)).append(STRIKE_THROUGH);
+      }
+      delayedTimes[minute] = delayedTime.toString().toCharArray();
+    }
+
+    // One or two digits of delay are padded to keep the columns of the table in place:
+    delays = new char[MAX_DELAY + 1][];
+    for (int delay = 1; delay <= MAX_DELAY; delay++) {
+      delays[delay] = (" (" + delay + " min delay)" + (delay < 10 ? "      " : "     ")
+          + ANSI_RESET).toCharArray();
+    }
+
+    tracks = new char[MAX_TRACK + 1][];
+    for (int track = 0; track <= MAX_TRACK; track++) {
+      tracks[track] = pad(Integer.toString(track), TRACK_WIDTH).toCharArray();
+    }
+  }
+
+
+  /**
+   * Renders a train departure as a table row, including the line separator, and appends it to
+   * a string builder.
+   *
+   * @param trainDispatch The train departure to render.
+   * @param out           The string builder to append the row to.
+   * @since 0.0.1
+   */
+  public void appendRow(TrainDispatchSystem trainDispatch, StringBuilder out) {
+    render(trainDispatch.getDepartureStation(), trainDispatch.getDestination(),
+        trainDispatch.getDepartureMinute(), trainDispatch.getDelay(), trainDispatch.getTrack(),
+        trainDispatch.getLine(), trainDispatch.getTrainNumber());
+    out.append(buffer, 0, length);
+  }
+
+
+  /**
+   * Renders a departure record as a table row, including the line separator, and returns it
+   * as a string, for example to be cached.
+   *
+   * @param departure The departure to render.
+   * @return The rendered row.
+   * @since 0.0.2
+   */
+  public String renderRow(DepartureRecord departure) {
+    render(departure.departureStation(), departure.destination(), departure.departureMinute(),
+        departure.delay(), departure.track(), departure.line(), departure.trainNumber());
+    return new String(buffer, 0, length);
+  }
+
+
+  /**
+   * Renders the columns of a departure as a table row into the buffer.
+   *
+   * @param departureStation The departure station.
+   * @param destination      The destination.
+   * @param departureMinute  The departure time, in minutes after midnight.
+   * @param delay            The delay in minutes.
+   * @param track            The track.
+   * @param line             The line.
+   * @param trainNumber      The train number.
+   * @since 0.0.1
+   */
+  private void render(String departureStation, String destination, int departureMinute,
+      int delay, int track, String line, String trainNumber) {
+    length = 0;
+
+    write("| ");
+    writePadded(departureStation, 17);
+    write(" | ");
+    writePadded(destination, 11);
+    write(" | ");
+    writeDepartureTime(departureMinute, delay);
+    write(" | ");
+    writeTrack(track);
+    write(" | ");
+    writePadded(line, 4);
+    write(" | ");
+    writePadded(trainNumber, 12);
+    write(" |");
+    write(LINE_SEPARATOR);
+  }
+
+
+  /**
+   * Writes the departure time column: the padded time, or the struck-through time and the
+   * delay when the departure is delayed.
+   *
+   * @param departureMinute The departure time, in minutes after midnight.
+   * @param delay           The delay in minutes.
+   * @since 0.0.1
+   */
+  private void writeDepartureTime(int departureMinute, int delay) {
+    if (delay <= 0 || delay > MAX_DELAY) {
+      write(departureTimes[departureMinute]);
+      return;
+    }
+
+    int start = length;
+    write(delayedTimes[departureMinute]);
+    write(delays[delay]);
+    writeSpaces(departureTimeWidth - (length - start));
+  }
+
+
+  /**
+   * Writes the track column, from the rendered tracks when the track is in range.
+   *
+   * @param track The track.
+   * @since 0.0.1
+   */
+  private void writeTrack(int track) {
+    if (track >= 0 && track <= MAX_TRACK) {
+      write(tracks[track]);
+    } else {
+      writePadded(Integer.toString(track), TRACK_WIDTH);
+    }
+  }
+
+
+  /**
+   * Writes a string, left-aligned and padded with spaces to the width. A longer string is
+   * written in full, like {@code String.format} does.
+   *
+   * @param text  The string to write.
+   * @param width The width of the column.
+   * @since 0.0.1
+   */
+  private void writePadded(String text, int width) {
+    write(text);
+    writeSpaces(width - text.length());
+  }
+
+
+  /**
+   * Writes a string at the end of the row.
+   *
+   * @param text The string to write.
+   * @since 0.0.1
+   */
+  private void write(String text) {
+    ensureCapacity(text.length());
+    text.getChars(0, text.length(), buffer, length);
+    length += text.length();
+  }
+
+
+  /**
+   * Writes pre-rendered characters at the end of the row.
+   *
+   * @param chars The characters to write.
+   * @since 0.0.1
+   */
+  private void write(char[] chars) {
+    ensureCapacity(chars.length);
+    System.arraycopy(chars, 0, buffer, length, chars.length);
+    length += chars.length;
+  }
+
+
+  /**
+   * Writes spaces at the end of the row, to pad a column. Nothing is written for a count
+   * of zero or less.
+   *
+   * @param count The number of spaces.
+   * @since 0.0.1
+   */
+  private void writeSpaces(int count) {
+    if (count > 0) {
+      ensureCapacity(count);
+      for (int i = 0; i < count; i++) {
+        buffer[length++] = ' ';
+      }
+    }
+  }
+
+
+  /**
+   * Makes room in the buffer for more characters, by at least doubling it when it is full.
+   *
+   * @param extra The number of characters about to be written.
+   * @since 0.0.1
+   */
+  private void ensureCapacity(int extra) {
+    if (length + extra > buffer.length) {
+      char[] larger = new char[Math.max(buffer.length * 2, length + extra)];
+      System.arraycopy(buffer, 0, larger, 0, length);
+      buffer = larger;
+    }
+  }
+
+
+  /**
+   * Pads a string with spaces to the width, when constructing the renderer.
+   *
+   * @param text  The string to pad.
+   * @param width The width to pad to.
+   * @return The padded string, or the string itself if it is not shorter than the width.
+   * @since 0.0.1
+   */
+  private static String pad(String text, int width) {
+    return text + " ".repeat(Math.max(0, width - text.length()));
+  }
+}
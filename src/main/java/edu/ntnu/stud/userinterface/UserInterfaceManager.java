@@ -1,6 +1,7 @@
 package edu.ntnu.stud.userinterface;
 
 import edu.ntnu.stud.register.TrainRegister;
+import java.io.UncheckedIOException;
 import java.util.Scanner;
 
 
@@ -44,7 +45,7 @@ import java.util.Scanner;
  * </p>
  *
  * @author Karwan Shekhe
- * @version 0.1.4 (Version of this class.)
+ * @version 0.2.2 (Version of this class.)
  * @since 0.0.3 (Introduced in Version 0.0.3 of the Train Dispatch System application)
  */
 public class UserInterfaceManager {
@@ -69,6 +70,11 @@ public class UserInterfaceManager {
       (ANSI_RED + "Invalid choice. Please try again." + ANSI_RESET);
 
 
+  // Error message for a change that could not be written to the register log:
+  private static final String CHANGE_NOT_SAVED =
+      "The change could not be saved to the log, and was not made: ";
+
+
   // Page separator:
   private static final String PAGE_SEPARATOR =
       LIGHT_YELLOW + "---------------------------------------------------"
@@ -91,6 +97,10 @@ public class UserInterfaceManager {
   private static final int UPDATE_STATION_TIME = 12;
   private static final int DISPLAY_GUIDE_MESSAGE = 13;
   private static final int EXIT_APPLICATION = 14;
+  private static final int SEARCH_DEPARTURES_WITHIN_TIME_WINDOW = 15;
+  private static final int DISPLAY_DEPARTURE_BOARD = 16;
+  private static final int IMPORT_TIMETABLE_FROM_CSV = 17;
+  private static final int DISPLAY_LIVE_DEPARTURE_BOARD = 18;
 
 
   /**
@@ -212,95 +222,132 @@ public class UserInterfaceManager {
    */
   public void processUserChoice(int choice) {
     while (choice != EXIT_APPLICATION) {
-      switch (choice) {
+      try {
+        runUserChoice(choice);
+      } catch (UncheckedIOException e) {
+        // The register log could not be written, so the register was not changed:
+        System.err.println(ANSI_RED + CHANGE_NOT_SAVED + ANSI_RESET + e.getMessage());
+      }
 
-        case DISPLAY_TRAIN_DISPATCH_TABLE:
+      // Asking the user if they want to continue or exit.
+      choice = promptForMenuOrExit();
 
-          display.displayTrainDispatchListTable(trainRegister.getTrainDispatchListIterator());
-          break;
+      if (choice == EXIT_APPLICATION) {
 
-        case ADD_NEW_TRAIN_DEPARTURE:
+        // Exits the loop when the user selects option 14
+        display.displayGoodbyeMessage();
+        exitRequested = true;
 
-          userOptions.addNewTrainDeparture();
-          break;
+        return;
+      } else if (choice == RETURN_TO_MAIN_MENU) {
 
-        case ADD_DELAY_FOR_TRAIN_DEPARTURE:
+        // Returns to the main menu when the user selects option 0
+        System.out.println(PAGE_SEPARATOR);
+        return;
+      }
+    }
+  }
 
-          userOptions.setDelayForTrainDeparture();
-          break;
 
-        case ASSIGN_TRACK_TO_TRAIN_DEPARTURE:
+  /**
+   * Executes the functionality of one user choice from the main menu.
+   *
+   * @param choice The user's choice.
+   * @since 0.2.2
+   */
+  private void runUserChoice(int choice) {
+    switch (choice) {
 
-          userOptions.assignNewTrackToTrainDeparture();
-          break;
+      case DISPLAY_TRAIN_DISPATCH_TABLE:
 
-        case SEARCH_DEPARTURE_BASED_ON_TRAIN_NUMBER:
+        // Rendered from an immutable snapshot, a page at a time for a large register:
+        userOptions.browseTrainDispatchTable();
+        break;
 
-          userOptions.searchDepartureBasedOnTrainNumber();
-          break;
+      case ADD_NEW_TRAIN_DEPARTURE:
 
-        case SEARCH_DEPARTURE_BASED_ON_DESTINATION:
+        userOptions.addNewTrainDeparture();
+        break;
 
-          userOptions.searchDepartureBasedOnDestination();
-          break;
+      case ADD_DELAY_FOR_TRAIN_DEPARTURE:
 
-        case SEARCH_DEPARTURE_BASED_ON_DEPARTURE_TIME:
+        userOptions.setDelayForTrainDeparture();
+        break;
 
-          userOptions.searchDepartureBasedOnDepartureTime();
-          break;
+      case ASSIGN_TRACK_TO_TRAIN_DEPARTURE:
 
-        case SORT_DEPARTURE_LIST_BASED_ON_DEPARTURE_TIME:
+        userOptions.assignNewTrackToTrainDeparture();
+        break;
 
-          userOptions.sortDepartureListBasedOnDepartureTime();
-          break;
+      case SEARCH_DEPARTURE_BASED_ON_TRAIN_NUMBER:
 
-        case REMOVE_SPECIFIC_DEPARTURE:
+        userOptions.searchDepartureBasedOnTrainNumber();
+        break;
 
-          userOptions.removeSpecificTrainDeparture();
-          break;
+      case SEARCH_DEPARTURE_BASED_ON_DESTINATION:
 
-        case REMOVE_ALL_DEPARTURES:
+        userOptions.searchDepartureBasedOnDestination();
+        break;
 
-          userOptions.removeAllTrainDepartures();
-          break;
+      case SEARCH_DEPARTURE_BASED_ON_DEPARTURE_TIME:
 
-        case REMOVE_DEPARTURES_THAT_HAVE_PASSED:
+        userOptions.searchDepartureBasedOnDepartureTime();
+        break;
 
-          userOptions.removeExpiredTrainsAndUpdateList();
-          break;
+      case SORT_DEPARTURE_LIST_BASED_ON_DEPARTURE_TIME:
 
-        case UPDATE_STATION_TIME:
+        userOptions.sortDepartureListBasedOnDepartureTime();
+        break;
 
-          userOptions.updateStationTime();
-          break;
+      case REMOVE_SPECIFIC_DEPARTURE:
 
-        case DISPLAY_GUIDE_MESSAGE:
+        userOptions.removeSpecificTrainDeparture();
+        break;
 
-          display.displayGuideMessage();
-          break;
+      case REMOVE_ALL_DEPARTURES:
 
-        default:
-          // Displays an error message for invalid choice
-          System.out.println(INVALID_CHOICE);
-          break;
-      }
+        userOptions.removeAllTrainDepartures();
+        break;
 
-      // Asking the user if they want to continue or exit.
-      choice = promptForMenuOrExit();
+      case REMOVE_DEPARTURES_THAT_HAVE_PASSED:
 
-      if (choice == EXIT_APPLICATION) {
+        userOptions.removeExpiredTrainsAndUpdateList();
+        break;
 
-        // Exits the loop when the user selects option 14
-        display.displayGoodbyeMessage();
-        exitRequested = true;
+      case UPDATE_STATION_TIME:
 
-        return;
-      } else if (choice == RETURN_TO_MAIN_MENU) {
+        userOptions.updateStationTime();
+        break;
 
-        // Returns to the main menu when the user selects option 0
-        System.out.println(PAGE_SEPARATOR);
-        return;
-      }
+      case SEARCH_DEPARTURES_WITHIN_TIME_WINDOW:
+
+        userOptions.searchDeparturesWithinTimeWindow();
+        break;
+
+      case DISPLAY_DEPARTURE_BOARD:
+
+        userOptions.displayDepartureBoard();
+        break;
+
+      case IMPORT_TIMETABLE_FROM_CSV:
+
+        userOptions.importTimetableFromCsv();
+        break;
+
+      case DISPLAY_LIVE_DEPARTURE_BOARD:
+
+        userOptions.displayLiveDepartureBoard();
+        break;
+
+      case DISPLAY_GUIDE_MESSAGE:
+
+        display.displayGuideMessage();
+        break;
+
+      default:
+        // Displays an error message for invalid choice
+        System.out.println(INVALID_CHOICE);
+        break;
     }
   }
 }
@@ -1,12 +1,23 @@
 package edu.ntnu.stud.userinterface;
 
+import edu.ntnu.stud.importer.ImportReport;
+import edu.ntnu.stud.importer.ParallelTimetableImporter;
+import edu.ntnu.stud.importer.TimetableCsvImporter;
+import edu.ntnu.stud.register.RegisterSnapshot;
+import edu.ntnu.stud.register.SimulatedClock;
+import edu.ntnu.stud.register.StationClockDriver;
 import edu.ntnu.stud.register.TrainRegister;
 import edu.ntnu.stud.traindispatchsystem.TrainDispatchSystem;
 import edu.ntnu.stud.utility.InputHandler;
 import edu.ntnu.stud.utility.UserFeedback;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
 import java.time.LocalTime;
 import java.time.format.DateTimeParseException;
 import java.util.Iterator;
+import java.util.List;
 
 
 /**
@@ -17,7 +28,7 @@ import java.util.Iterator;
  * searching for train departures, sorting the departure list, and updating station times.</p>
  *
  * @author Karwan Shekhe
- * @version 0.0.8 (Version of this class)
+ * @version 0.2.6 (Version of this class)
  * @since 0.0.6 (Introduced in Version 0.0.6 of the Train Dispatch System application)
  */
 public class UserOptionsManager {
@@ -34,6 +45,9 @@ public class UserOptionsManager {
   private static final String ATTRIBUTE_NAME_TRAIN_NUMBER = "trainNumber";
   private static final String ERROR = "Error: ";
   private static final String UPDATED_SUCCESSFULLY = "updatedSuccessfully";
+  private static final long PARALLEL_IMPORT_BYTES = 64L * 1024 * 1024;  // Size for parallel import
+  private static final int PAGE_SIZE = 50;  // Departures per page of the departure table
+  private static final long SIMULATION_TICK_MILLIS = 100;  // Real time between clock moves
 
 
 
@@ -95,9 +109,13 @@ public class UserOptionsManager {
 
     // Adding a new train departure to the system, if all the user inputs are valid:
     try {
-      if (!trainRegister.addTrainDeparture(new TrainDispatchSystem("Gjøvik", destination,
-          departureTime, line, track, trainNumber))) {
-        userFeedback.logFeedback("trainNotAdded");
+      TrainDispatchSystem newDeparture = new TrainDispatchSystem("Gjøvik", destination,
+          departureTime, line, track, trainNumber);
+
+      if (!trainRegister.addTrainDeparture(newDeparture)) {
+        // Tells the user if the train was rejected because its track is occupied:
+        userFeedback.logFeedback(trainRegister.findTrackConflicts(newDeparture).isEmpty()
+            ? "trainNotAdded" : "trackConflict");
         return;
       }
 
@@ -128,10 +146,9 @@ public class UserOptionsManager {
 
     // Sets the delay for the train departure if the train number is found:
     if (iterator.hasNext()) {
-      TrainDispatchSystem train = iterator.next();
       try {
         int delay = inputHandler.inputValidInteger("Delay");
-        train.setDelay(delay);
+        trainRegister.setDelay(trainNumber, delay);  // Keeps the departure list in time order
         userFeedback.logFeedback("delayAdded");
       } catch (IllegalArgumentException e) {
         System.err.println(ERROR + e.getMessage());
@@ -155,12 +172,21 @@ public class UserOptionsManager {
     Iterator<TrainDispatchSystem> resultsObtainedIterator =
         trainRegister.searchByAttributeAndValue(ATTRIBUTE_NAME_TRAIN_NUMBER, trainNumber);
 
+    if (!resultsObtainedIterator.hasNext()) {
+      userFeedback.logFeedback("notFound");
+      return;
+    }
+
     // Assigns a new track to the train departure if valid data is provided:
     try {
-      resultsObtainedIterator.next().setTrack(inputHandler.inputValidInteger("Track"));
+      // Set through the register, so that its snapshots see the new track:
+      trainRegister.setTrack(trainNumber, inputHandler.inputValidInteger("Track"));
       userFeedback.logFeedback("trackAssigned");
     } catch (IllegalArgumentException e) {
       System.err.println(ERROR + e.getMessage());
+    } catch (IllegalStateException e) {
+      System.err.println(ERROR + e.getMessage());
+      userFeedback.logFeedback("trackConflict");
     }
 
   }
@@ -187,6 +213,9 @@ public class UserOptionsManager {
 
   /**
    * Searches for a train departure based on the destination provided by the user.
+   * The destination must match exactly. If no departure matches, the user may search again
+   * for destinations that start with the input (such as "Lille" for Lillehammer) or are one
+   * typing error away from it, without regard to case.
    *
    * @since 0.0.4
    */
@@ -200,10 +229,162 @@ public class UserOptionsManager {
     Iterator<TrainDispatchSystem> resultsObtainedIterator =
         trainRegister.searchByAttributeAndValue("destination", destination);
 
+    // Offers the start of a destination and small typing errors if nothing matched:
+    if (!resultsObtainedIterator.hasNext()
+        && inputHandler.inputYesOrNo("No exact match. Search for similar destinations")) {
+      resultsObtainedIterator =
+          trainRegister.searchByAttributeAndValue("destinationApproximate", destination);
+    }
+
     // Displays the search results:
     display.displayTrainDepartureDetailsForSearchResults(resultsObtainedIterator);
   }
 
+  /**
+   * Searches for the train departures within a time window provided by the user,
+   * for example all departures between 14:00 and 16:30. The user chooses whether
+   * delays are included.
+   *
+   * @since 0.1.5
+   */
+  public void searchDeparturesWithinTimeWindow() {
+
+    userFeedback.logFeedback("enterTimeWindow");
+    LocalTime from = inputHandler.inputValidTime("From");
+    LocalTime to = inputHandler.inputValidTime("To");
+    boolean includeDelay = inputHandler.inputYesOrNo("Include delays");
+
+    try {
+      Iterator<TrainDispatchSystem> resultsObtainedIterator =
+          trainRegister.searchByTimeWindow(from, to, includeDelay);
+
+      // Displays the search results:
+      display.displayTrainDepartureDetailsForSearchResults(resultsObtainedIterator);
+    } catch (IllegalArgumentException e) {
+      System.err.println(ERROR + e.getMessage());
+    }
+  }
+
+  /**
+   * Displays the table of all train departures. A table that does not fit on one page is
+   * displayed a page at a time, and the user pages forward and back through it.
+   *
+   * <p>The pages are taken from one snapshot of the register, so the pages stay consistent
+   * with each other while the user is paging.</p>
+   *
+   * @since 0.1.9
+   */
+  public void browseTrainDispatchTable() {
+    RegisterSnapshot snapshot = trainRegister.snapshot();
+
+    if (snapshot.size() <= PAGE_SIZE) {
+      display.displayTrainDispatchListTable(snapshot);
+      return;
+    }
+
+    int pageCount = (snapshot.size() + PAGE_SIZE - 1) / PAGE_SIZE;
+    int page = 0;
+    while (true) {
+      display.displayTrainDispatchListPage(snapshot, page, PAGE_SIZE);
+      userFeedback.logFeedback("enterPageCommand");
+
+      switch (inputHandler.inputValidString("Page").toLowerCase()) {
+        case "n" -> page = Math.min(page + 1, pageCount - 1);
+        case "p" -> page = Math.max(page - 1, 0);
+        case "q" -> {
+          return;
+        }
+        default -> userFeedback.logFeedback("invalidPageCommand");
+      }
+    }
+  }
+
+  /**
+   * Displays a departure board with the next train departures after the station time.
+   * The user chooses how many departures the board shows.
+   *
+   * @since 0.1.6
+   */
+  public void displayDepartureBoard() {
+
+    userFeedback.logFeedback("enterNumberOfDepartures");
+    int count = inputHandler.inputValidInteger("Number of departures");
+
+    try {
+      display.displayDepartureBoard(trainRegister.nextDepartures(count).iterator());
+    } catch (IllegalArgumentException e) {
+      System.err.println(ERROR + e.getMessage());
+    }
+  }
+
+  /**
+   * Displays the live departure board with the number of departures the user chooses. The
+   * board updates itself when the departures change, until the user leaves it.
+   *
+   * <p>If the register runs on a {@code SimulatedClock}, a {@code StationClockDriver} moves
+   * the station time along with the clock while the board is shown, and the expired
+   * departures leave the board by themselves. The register is not changed from the user
+   * interface meanwhile, so the driver can own it. On the system clock, the board only
+   * shows the departures: it does not move a station time the user has set, and does not
+   * remove any departure.</p>
+   *
+   * <p>The board is left with 'q', or at the end of the input.</p>
+   *
+   * @since 0.2.1
+   */
+  public void displayLiveDepartureBoard() {
+
+    userFeedback.logFeedback("enterNumberOfDepartures");
+    int count = inputHandler.inputValidInteger("Number of departures");
+
+    try {
+      display.startLiveDepartureBoard(count);
+    } catch (IllegalArgumentException e) {
+      System.err.println(ERROR + e.getMessage());
+      return;
+    }
+
+    StationClockDriver clockDriver = trainRegister.getClock() instanceof SimulatedClock
+        ? new StationClockDriver(trainRegister, SIMULATION_TICK_MILLIS) : null;
+    // The prompt stays on the line below the board, so the board is never scrolled:
+    String prompt = userFeedback.formatFeedback("leaveLiveBoard");
+    try {
+      String input;
+      do {
+        input = display.readLiveDepartureBoardInput(prompt, inputHandler::inputLine);
+      } while (input != null && !input.equalsIgnoreCase("q"));
+    } finally {
+      if (clockDriver != null) {
+        clockDriver.close();
+      }
+      display.stopLiveDepartureBoard();
+    }
+  }
+
+  /**
+   * Imports train departures from a CSV timetable file chosen by the user, and displays
+   * the report of the import.
+   *
+   * @since 0.1.7
+   */
+  public void importTimetableFromCsv() {
+
+    userFeedback.logFeedback("enterFilePath");
+    String filePath = inputHandler.inputValidString("File path");
+
+    try {
+      Path file = Path.of(filePath);
+      // Very large files are parsed on all cores, smaller ones are streamed:
+      ImportReport report = Files.size(file) >= PARALLEL_IMPORT_BYTES
+          ? new ParallelTimetableImporter().importFile(file, trainRegister)
+          : new TimetableCsvImporter().importFile(file, trainRegister);
+      display.displayImportReport(report);
+    } catch (IOException | InvalidPathException e) {
+      System.err.println(ERROR + e.getMessage());
+      userFeedback.logFeedback("importFailed");
+    }
+  }
+
   /**
    * Searches for a train departure based on the departure time provided by the user.
    *
@@ -246,9 +427,12 @@ public class UserOptionsManager {
 
     trainNumber = inputHandler.inputValidString(TRAIN_NUMBER);
 
-    trainRegister.removeTrainByTrainNumber(trainNumber); // Removes the train departure
-
-    userFeedback.logFeedback(UPDATED_SUCCESSFULLY);
+    // Removes the train departure, and informs the user if it was not found:
+    if (trainRegister.removeTrainByTrainNumber(trainNumber)) {
+      userFeedback.logFeedback(UPDATED_SUCCESSFULLY);
+    } else {
+      userFeedback.logFeedback("notFound");
+    }
   }
 
 
@@ -283,12 +467,12 @@ public class UserOptionsManager {
   public void removeExpiredTrainsAndUpdateList() {
     userFeedback.logFeedback("removingExpiredDepartures");
 
-    // Displays the train departures before the station time:
-    display.displayExpiredDeparturesBasedOnTime(
-        trainRegister.getTrainDispatchListIterator(), trainRegister.getStationTime());
-
     // Removes the train departures before the station time:
-    trainRegister.removeTrainsIfDepartureTimePassed();
+    List<TrainDispatchSystem> expiredDepartures = trainRegister.removeTrainsIfDepartureTimePassed();
+
+    // Displays the removed train departures:
+    display.displayExpiredDeparturesBasedOnTime(
+        expiredDepartures.iterator(), trainRegister.getStationTime());
     userFeedback.logFeedback(UPDATED_SUCCESSFULLY);
   }
 
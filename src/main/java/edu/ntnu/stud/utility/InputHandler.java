@@ -21,7 +21,7 @@ import java.util.Scanner;
  * </pre></blockquote>
  *
  * @author Karwan Shekhe
- * @version 0.0.3 (Version of this class)
+ * @version 0.0.5 (Version of this class)
  * @since 0.0.8 (Introduced in Version 0.0.8 of the Train Dispatch System application)
  */
 public class InputHandler {
@@ -88,6 +88,20 @@ public class InputHandler {
 
 
 
+  /**
+   * Reads a line of input from the user as it is, without printing a label or validating it,
+   * for prompts that are printed by the caller.
+   *
+   * @return The trimmed line, or {@code null} if there is no more input.
+   * @since 0.0.5
+   */
+  public String inputLine() {
+    return inputReader.hasNextLine() ? inputReader.nextLine().trim() : null;
+  }
+
+
+
+
   /**
    * Reads an integer input from the user with the specified type of input and performs validation.
    *
@@ -158,6 +172,35 @@ public class InputHandler {
     return inputTime;
   }
 
+  /**
+   * Reads a yes or no answer from the user.
+   *
+   * <p>The method prompts the user to answer the question with "y" (yes) or "n" (no),
+   * without regard to case, until a valid answer is provided.</p>
+   *
+   * @param question The question to ask the user.
+   * @return {@code true} if the user answered yes; otherwise, {@code false}.
+   * @since 0.0.4
+   */
+  public boolean inputYesOrNo(String question) {
+    String answer = "";
+
+    while (!isValidInput(answer, "yesOrNo")) {
+      System.out.println(question + " (y/n) :");
+
+      if (inputReader.hasNextLine()) {
+        answer = inputReader.nextLine().trim();
+
+        if (!isValidInput(answer, "yesOrNo")) {
+          System.out.println(ANSI_RED + "Please answer 'y' or 'n'." + ANSI_RESET);
+        }
+      }
+    }
+    return answer.equalsIgnoreCase("y");
+  }
+
+
+
   /**
    * Validates the input based on the specified type.
    *
@@ -188,6 +231,10 @@ public class InputHandler {
           // To check for non-empty input (trimmed)
           !input.trim().isEmpty();
 
+      case "yesOrNo" ->
+          // To check for a yes or no answer
+          input.matches("[yYnN]");
+
       default -> true;
     };
   }
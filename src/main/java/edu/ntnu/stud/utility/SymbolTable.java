@@ -0,0 +1,135 @@
+package edu.ntnu.stud.utility;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@code SymbolTable} class maps strings, such as station names, destinations and
+ * train lines, to small integer ids (dictionary encoding).
+ *
+ * <p>Each distinct string is stored only once, and gets the next free id the first time it is
+ * interned. Two interned strings are equal exactly when their ids are equal, so comparisons
+ * can be done on {@code int} values instead of with {@code String.equals}.</p>
+ *
+ * <p>The table is safe to use from several threads. Looking up an id or a name never takes a
+ * lock; only adding a new string does.</p>
+ *
+ * <p><strong>Example Usage:</strong></p>
+ * <blockquote><pre>
+ *{@code
+ * SymbolTable symbols = new SymbolTable();
+ * int oslo = symbols.intern("Oslo");
+ *
+ * symbols.intern("Oslo") == oslo;       // true
+ * symbols.nameOf(oslo);                 // "Oslo"
+ * }
+ * </pre></blockquote>
+ *
+ * @author Karwan Shekhe
+ * @version 0.0.1 (Version of this class)
+ * @since 0.2.0 (Introduced in Version 0.2.0 of the Train Dispatch System application)
+ */
+public class SymbolTable {
+
+  // Returned by idOf for strings that have not been interned:
+  public static final int NO_ID = -1;
+
+  private final ConcurrentHashMap<String, Integer> idsByName;
+  private volatile String[] namesById;
+  private int size;
+
+
+  /**
+   * Constructs an empty {@code SymbolTable}.
+   *
+   * @since 0.0.1
+   */
+  public SymbolTable() {
+    idsByName = new ConcurrentHashMap<>();
+    namesById = new String[16];
+  }
+
+
+  /**
+   * Provides the id of a string, adding the string to the table if it is not there yet.
+   *
+   * @param name The string to intern.
+   * @return The id of the string.
+   * @throws IllegalArgumentException If the string is null.
+   * @since 0.0.1
+   */
+  public int intern(String name) {
+    if (name == null) {
+      throw new IllegalArgumentException("Cannot intern a null value");
+    }
+
+    Integer id = idsByName.get(name);
+    return id != null ? id : addName(name);
+  }
+
+
+  /**
+   * Provides the id of a string, without adding it to the table.
+   *
+   * @param name The string to look up.
+   * @return The id of the string, or {@code NO_ID} if it has not been interned.
+   * @since 0.0.1
+   */
+  public int idOf(String name) {
+    Integer id = name == null ? null : idsByName.get(name);
+    return id != null ? id : NO_ID;
+  }
+
+
+  /**
+   * Provides the string with the given id.
+   *
+   * @param id The id of the string.
+   * @return The interned string.
+   * @throws IllegalArgumentException If no string has the given id.
+   * @since 0.0.1
+   */
+  public String nameOf(int id) {
+    String[] names = namesById;
+    if (id < 0 || id >= names.length || names[id] == null) {
+      throw new IllegalArgumentException("Unknown symbol id " + id);
+    }
+    return names[id];
+  }
+
+
+  /**
+   * Provides the number of distinct strings in the table.
+   *
+   * @return The number of interned strings.
+   * @since 0.0.1
+   */
+  public synchronized int size() {
+    return size;
+  }
+
+
+  /**
+   * Adds a new string to the table. If another thread added the same string in the
+   * meantime, the id it was given is returned.
+   *
+   * @param name The string to add.
+   * @return The id of the string.
+   * @since 0.0.1
+   */
+  private synchronized int addName(String name) {
+    Integer existing = idsByName.get(name);
+    if (existing != null) {
+      return existing;
+    }
+
+    String[] names = namesById;
+    if (size == names.length) {
+      names = Arrays.copyOf(names, size * 2);
+    }
+    names[size] = name;
+    namesById = names;                 // Publishes the name before the id is handed out
+    idsByName.put(name, size);
+    return size++;
+  }
+}
@@ -29,7 +29,7 @@ package edu.ntnu.stud.utility;
  * text and underlined error messages for better user visibility.
  *
  * @author Karwan Shekhe
- * @version 0.1.0 (Version of this class)
+ * @version 0.1.6 (Version of this class)
  * @since 0.0.7 (Introduced in Version 0.0.7 of the Train Dispatch System application)
  */
 public class UserFeedback {
@@ -69,6 +69,18 @@ public class UserFeedback {
 
       case "enterNewStationTime" -> "Enter the new station time (HH:mm)";
 
+      case "enterFilePath" -> "Please enter the path of the CSV timetable file: ";
+
+      case "enterNumberOfDepartures" -> "How many departures should the board show? ";
+
+      case "enterPageCommand" ->
+          "Enter 'n' for the next page, 'p' for the previous page, or 'q' to stop: ";
+
+      case "leaveLiveBoard" ->
+          "The board updates by itself. Enter 'q' to leave the live board: ";
+
+      case "enterTimeWindow" -> "Please enter the start and the end of the time window (HH:mm): ";
+
       case "removingExpiredDepartures" ->
           "Removing train departures whose departure time has passed...";
 
@@ -108,6 +120,13 @@ public class UserFeedback {
       case "failedToSetDelay" -> "Failed to set the delay.";
 
       case "trainNotAdded" -> "Error: Train was not added. Please try again. ";
+
+      case "importFailed" -> "The timetable file could not be read.";
+
+      case "invalidPageCommand" -> "Invalid choice. Please enter 'n', 'p' or 'q'.";
+
+      case "trackConflict" -> "The track is occupied by another train at that time. "
+          + "Please choose another track.";
       default -> "";
     };
   }
@@ -141,6 +160,23 @@ public class UserFeedback {
 
 
 
+  /**
+   * Provides a feedback message formatted as {@code logFeedback} displays it, without
+   * displaying it or ending the line, for a prompt the caller positions itself (such as the
+   * prompt of the live departure board).
+   *
+   * @param type The type of feedback message.
+   * @return The formatted message, or an empty string for an unknown type.
+   * @since 0.1.6
+   */
+  public String formatFeedback(String type) {
+    String message = feedbackMessage(type);
+    return message.isEmpty() ? ""
+        : ANSI_BOLD + ANSI_BLACK + ANSI_YELLOW_BACKGROUND + message + ANSI_RESET;
+  }
+
+
+
   /**
    * Logs and displays feedback messages to the user based on the specified type.
    *
@@ -0,0 +1,121 @@
+package edu.ntnu.stud.benchmark;
+
+import edu.ntnu.stud.register.ConcurrentTrainRegister;
+import edu.ntnu.stud.register.DepartureRecord;
+import edu.ntnu.stud.traindispatchsystem.TrainDispatchSystem;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A small benchmark of how the reads of a {@code ConcurrentTrainRegister} scale with the
+ * number of reader threads, while one writer keeps changing delays and tracks.
+ *
+ * <p>Every read looks up a random train number and takes the next ten departures from the
+ * latest snapshot. The reads never take a lock, so the reads per second should grow almost
+ * linearly with the reader threads, up to the number of cores, and the writes should not
+ * slow down much.</p>
+ *
+ * <p>This is not a JUnit test, and is not run by Maven. Run it from the project root with:</p>
+ *
+ * <blockquote><pre>
+ * mvn test-compile
+ * java -cp target/classes:target/test-classes edu.ntnu.stud.benchmark.ConcurrentReadBenchmark
+ * </pre></blockquote>
+ *
+ * @author Karwan Shekhe
+ * @version 0.0.1 (Version of this class)
+ * @since 0.2.0 (Introduced in Version 0.2.0 of the Train Dispatch System application)
+ */
+public class ConcurrentReadBenchmark {
+
+  private static final int DEPARTURES = 100_000;
+  private static final int[] READER_COUNTS = {1, 2, 4, 8};
+  private static final long WARMUP_MILLIS = 1_000;
+  private static final long MEASURED_MILLIS = 2_000;
+
+  /**
+   * Runs the benchmark and prints the reads and writes per second for each number of readers.
+   *
+   * @param args Command-line arguments (not used).
+   * @throws InterruptedException If the benchmark is interrupted.
+   */
+  public static void main(String[] args) throws InterruptedException {
+    ConcurrentTrainRegister register = new ConcurrentTrainRegister();
+    List<TrainDispatchSystem> departures = new ArrayList<>(DEPARTURES);
+    for (int i = 0; i < DEPARTURES; i++) {
+      departures.add(new TrainDispatchSystem("Gjøvik", "Oslo",
+          LocalTime.of((i / 60) % 24, i % 60), "F1", 1 + i % 10, "R" + i));
+    }
+    register.addTrainDepartures(departures);
+    register.updateStationTime(LocalTime.MIDNIGHT);
+
+    System.out.printf("%d cores%n", Runtime.getRuntime().availableProcessors());
+    System.out.printf("%-8s | %-15s | %-15s | %-15s%n", "Readers", "Reads per s",
+        "Reads per s/thr", "Writes per s");
+
+    run(register, 1, WARMUP_MILLIS);
+    for (int readers : READER_COUNTS) {
+      long[] counts = run(register, readers, MEASURED_MILLIS);
+      double seconds = MEASURED_MILLIS / 1000.0;
+      System.out.printf("%-8d | %-15.0f | %-15.0f | %-15.0f%n", readers, counts[0] / seconds,
+          counts[0] / seconds / readers, counts[1] / seconds);
+    }
+  }
+
+  /**
+   * Runs the readers and one writer against the register for a while.
+   *
+   * @param register The register.
+   * @param readers  The number of reader threads.
+   * @param millis   How long to run, in milliseconds.
+   * @return The number of reads and the number of writes.
+   * @throws InterruptedException If the benchmark is interrupted.
+   */
+  private static long[] run(ConcurrentTrainRegister register, int readers, long millis)
+      throws InterruptedException {
+
+    AtomicBoolean running = new AtomicBoolean(true);
+    LongAdder reads = new LongAdder();
+    LongAdder writes = new LongAdder();
+    CountDownLatch done = new CountDownLatch(readers + 1);
+
+    for (int reader = 0; reader < readers; reader++) {
+      final int seed = reader;
+      new Thread(() -> {
+        Random random = new Random(seed);
+        long found = 0;
+        while (running.get()) {
+          DepartureRecord departure = register.getDeparture("R" + random.nextInt(DEPARTURES));
+          found += departure == null ? 0 : departure.track();
+          found += register.nextDepartures(10).size();
+          reads.increment();
+        }
+        if (found < 0) {
+          System.out.println(found);  // Keeps the reads from being optimized away
+        }
+        done.countDown();
+      }).start();
+    }
+
+    new Thread(() -> {
+      Random random = new Random(-1);
+      while (running.get()) {
+        String trainNumber = "R" + random.nextInt(DEPARTURES);
+        register.setDelay(trainNumber, random.nextInt(30));
+        register.setTrack(trainNumber, 1 + random.nextInt(10));
+        writes.add(2);
+      }
+      done.countDown();
+    }).start();
+
+    Thread.sleep(millis);
+    running.set(false);
+    done.await();
+    return new long[] {reads.sum(), writes.sum()};
+  }
+}
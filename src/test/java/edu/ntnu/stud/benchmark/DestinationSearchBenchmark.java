@@ -0,0 +1,123 @@
+package edu.ntnu.stud.benchmark;
+
+import edu.ntnu.stud.register.TrainRegister;
+import edu.ntnu.stud.traindispatchsystem.TrainDispatchSystem;
+import java.time.LocalTime;
+import java.util.Iterator;
+import java.util.Random;
+
+/**
+ * A small benchmark for the prefix and approximate destination searches of
+ * {@code TrainRegister.searchByAttributeAndValue}.
+ *
+ * <p>The benchmark fills registers with a growing number of distinct, random destination
+ * names, and measures the average time of a prefix search and of an approximate search
+ * (prefix or one typing error) for names in the register. The searches walk a trie of the
+ * destination names, so they should stay well below a millisecond.</p>
+ *
+ * <p>This is not a JUnit test, and is not run by Maven. Run it from the project root with:</p>
+ *
+ * <blockquote><pre>
+ * mvn test-compile
+ * java -cp target/classes:target/test-classes edu.ntnu.stud.benchmark.DestinationSearchBenchmark
+ * </pre></blockquote>
+ *
+ * @author Karwan Shekhe
+ * @version 0.0.1 (Version of this class)
+ * @since 0.2.0 (Introduced in Version 0.2.0 of the Train Dispatch System application)
+ */
+public class DestinationSearchBenchmark {
+
+  private static final int[] DESTINATION_COUNTS = {1_000, 10_000, 50_000};
+  private static final int SEARCHES_PER_ROUND = 1_000;
+  private static final int WARMUP_ROUNDS = 5;
+  private static final int MEASURED_ROUNDS = 10;
+
+  /**
+   * Runs the benchmark and prints the average search times for each number of destinations.
+   *
+   * @param args Command-line arguments (not used).
+   */
+  public static void main(String[] args) {
+    System.out.printf("%-15s | %-20s | %-20s%n", "Destinations", "ns per prefix search",
+        "ns per approximate");
+
+    for (int count : DESTINATION_COUNTS) {
+      TrainRegister register = new TrainRegister();
+      String[] destinations = fillRegister(register, count);
+
+      for (int round = 0; round < WARMUP_ROUNDS; round++) {
+        search(register, destinations, "destinationPrefix");
+        search(register, destinations, "destinationApproximate");
+      }
+
+      long prefixNanos = 0;
+      long approximateNanos = 0;
+      for (int round = 0; round < MEASURED_ROUNDS; round++) {
+        prefixNanos += search(register, destinations, "destinationPrefix");
+        approximateNanos += search(register, destinations, "destinationApproximate");
+      }
+
+      int searches = MEASURED_ROUNDS * SEARCHES_PER_ROUND;
+      System.out.printf("%-15d | %-20.1f | %-20.1f%n", count,
+          (double) prefixNanos / searches, (double) approximateNanos / searches);
+    }
+  }
+
+  /**
+   * Fills a register with one departure to each of the given number of random destinations.
+   *
+   * @param register The register to fill.
+   * @param count    The number of destinations.
+   * @return The destination names.
+   */
+  private static String[] fillRegister(TrainRegister register, int count) {
+    Random random = new Random(11);
+    String[] destinations = new String[count];
+
+    for (int i = 0; i < count; i++) {
+      StringBuilder name = new StringBuilder();
+      int length = 6 + random.nextInt(7);
+      for (int j = 0; j < length; j++) {
+        name.append((char) ('a' + random.nextInt(26)));
+      }
+      destinations[i] = name.toString();
+      register.addTrainDeparture(new TrainDispatchSystem("Gjøvik", destinations[i],
+          LocalTime.of((i / 60) % 24, i % 60), "F1", 1 + i % 10, "D" + i));
+    }
+    return destinations;
+  }
+
+  /**
+   * Searches for the first four letters plus one wrong letter, of a spread of the
+   * destinations, and consumes the results.
+   *
+   * @param register      The register to search.
+   * @param destinations  The destination names in the register.
+   * @param attributeName The search attribute.
+   * @return The time spent searching, in nanoseconds.
+   */
+  private static long search(TrainRegister register, String[] destinations,
+      String attributeName) {
+
+    int step = Math.max(1, destinations.length / SEARCHES_PER_ROUND);
+    int found = 0;
+
+    long start = System.nanoTime();
+    for (int i = 0; i < SEARCHES_PER_ROUND; i++) {
+      String destination = destinations[(i * step) % destinations.length];
+      Iterator<TrainDispatchSystem> results = register.searchByAttributeAndValue(attributeName,
+          destination.substring(0, 4) + 'x');
+      while (results.hasNext()) {
+        results.next();
+        found++;
+      }
+    }
+    long elapsed = System.nanoTime() - start;
+
+    if (found < 0) {
+      System.out.println(found);  // Keeps the results from being optimized away
+    }
+    return elapsed;
+  }
+}
@@ -0,0 +1,97 @@
+package edu.ntnu.stud.benchmark;
+
+import edu.ntnu.stud.register.TrainRegister;
+import edu.ntnu.stud.traindispatchsystem.TrainDispatchSystem;
+import java.time.LocalTime;
+
+/**
+ * A small benchmark for {@code TrainRegister.removeTrainByTrainNumber}.
+ *
+ * <p>The benchmark fills registers of growing size, and measures the average time it takes to
+ * remove (and add back) a fixed number of departures. Since a removal is a keyed lookup, the
+ * time per removal should stay flat while the register grows.</p>
+ *
+ * <p>This is not a JUnit test, and is not run by Maven. Run it from the project root with:</p>
+ *
+ * <blockquote><pre>
+ * mvn test-compile
+ * java -cp target/classes:target/test-classes edu.ntnu.stud.benchmark.RegisterRemovalBenchmark
+ * </pre></blockquote>
+ *
+ * @author Karwan Shekhe
+ * @version 0.0.1 (Version of this class)
+ * @since 0.2.0 (Introduced in Version 0.2.0 of the Train Dispatch System application)
+ */
+public class RegisterRemovalBenchmark {
+
+  private static final int[] REGISTER_SIZES = {1_000, 10_000, 100_000, 400_000};
+  private static final int REMOVALS_PER_ROUND = 1_000;
+  private static final int WARMUP_ROUNDS = 5;
+  private static final int MEASURED_ROUNDS = 10;
+
+  /**
+   * Runs the benchmark and prints the average removal time for each register size.
+   *
+   * @param args Command-line arguments (not used).
+   */
+  public static void main(String[] args) {
+    System.out.printf("%-15s | %-20s%n", "Register size", "ns per removal");
+
+    for (int size : REGISTER_SIZES) {
+      TrainRegister register = new TrainRegister();
+      TrainDispatchSystem[] departures = fillRegister(register, size);
+
+      for (int round = 0; round < WARMUP_ROUNDS; round++) {
+        removeAndAddBack(register, departures);
+      }
+
+      long totalNanos = 0;
+      for (int round = 0; round < MEASURED_ROUNDS; round++) {
+        totalNanos += removeAndAddBack(register, departures);
+      }
+
+      double nanosPerRemoval = (double) totalNanos / (MEASURED_ROUNDS * REMOVALS_PER_ROUND);
+      System.out.printf("%-15d | %-20.1f%n", size, nanosPerRemoval);
+    }
+  }
+
+  /**
+   * Fills a register with the given number of departures spread over the day.
+   *
+   * @param register The register to fill.
+   * @param size     The number of departures.
+   * @return The added departures.
+   */
+  private static TrainDispatchSystem[] fillRegister(TrainRegister register, int size) {
+    TrainDispatchSystem[] departures = new TrainDispatchSystem[size];
+    for (int i = 0; i < size; i++) {
+      departures[i] = new TrainDispatchSystem("Gjøvik", "Oslo",
+          LocalTime.of((i / 60) % 24, i % 60), "F1", 1 + i % 10, "B" + i);
+      register.addTrainDeparture(departures[i]);
+    }
+    return departures;
+  }
+
+  /**
+   * Removes a spread of departures by train number, and adds them back afterwards.
+   * Only the removals are timed.
+   *
+   * @param register   The register to remove from.
+   * @param departures The departures in the register.
+   * @return The time spent removing, in nanoseconds.
+   */
+  private static long removeAndAddBack(TrainRegister register, TrainDispatchSystem[] departures) {
+    int step = departures.length / REMOVALS_PER_ROUND;
+
+    long start = System.nanoTime();
+    for (int i = 0; i < REMOVALS_PER_ROUND; i++) {
+      register.removeTrainByTrainNumber(departures[i * step].getTrainNumber());
+    }
+    long elapsed = System.nanoTime() - start;
+
+    for (int i = 0; i < REMOVALS_PER_ROUND; i++) {
+      register.addTrainDeparture(departures[i * step]);
+    }
+    return elapsed;
+  }
+}
@@ -0,0 +1,138 @@
+package edu.ntnu.stud.benchmark;
+
+import com.sun.management.ThreadMXBean;
+import edu.ntnu.stud.traindispatchsystem.TrainDispatchSystem;
+import edu.ntnu.stud.userinterface.TableRowRenderer;
+import java.lang.management.ManagementFactory;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * A small benchmark for rendering the rows of the departure table.
+ *
+ * <p>The benchmark renders the same departures (a quarter of them delayed) with the formatting
+ * the table used before, {@code String.format} with a struck-through time made by a stream,
+ * and with the {@code TableRowRenderer}. It prints the rows per second and the bytes
+ * allocated per row of both.</p>
+ *
+ * <p>This is not a JUnit test, and is not run by Maven. Run it from the project root with:</p>
+ *
+ * <blockquote><pre>
+ * mvn test-compile
+ * java -cp target/classes:target/test-classes edu.ntnu.stud.benchmark.RowRenderingBenchmark
+ * </pre></blockquote>
+ *
+ * @author Karwan Shekhe
+ * @version 0.0.1 (Version of this class)
+ * @since 0.2.0 (Introduced in Version 0.2.0 of the Train Dispatch System application)
+ */
+public class RowRenderingBenchmark {
+
+  private static final int DEPARTURES = 100_000;
+  private static final String[] DESTINATIONS = {"Oslo", "Bergen", "Hamar", "Lillehammer"};
+  private static final int WARMUP_ROUNDS = 5;
+  private static final int MEASURED_ROUNDS = 10;
+  private static final int ROWS_PER_CHUNK = 256;
+
+  /**
+   * Runs the benchmark and prints the rows per second and the bytes allocated per row.
+   *
+   * @param args Command-line arguments (not used).
+   */
+  public static void main(String[] args) {
+    List<TrainDispatchSystem> departures = new ArrayList<>(DEPARTURES);
+    for (int i = 0; i < DEPARTURES; i++) {
+      TrainDispatchSystem trainDispatch = new TrainDispatchSystem("Gjøvik",
+          DESTINATIONS[i % DESTINATIONS.length], LocalTime.of((i / 60) % 24, i % 60), "F1",
+          1 + i % 10, "B" + i);
+      trainDispatch.setDelay(i % 4 == 0 ? 1 + i % 60 : 0);
+      departures.add(trainDispatch);
+    }
+    TableRowRenderer renderer = new TableRowRenderer(25);
+
+    for (int round = 0; round < WARMUP_ROUNDS; round++) {
+      renderFormatted(departures);
+      renderWithRenderer(departures, renderer);
+    }
+
+    System.out.printf("%-20s | %-12s | %-15s%n", "Rendering", "rows/sec", "bytes per row");
+    measure("String.format", () -> renderFormatted(departures));
+    measure("TableRowRenderer", () -> renderWithRenderer(departures, renderer));
+  }
+
+  /**
+   * Measures a rendering of all departures over the measured rounds, and prints the results.
+   *
+   * @param name      The name of the rendering.
+   * @param rendering The rendering, returning the number of characters rendered.
+   */
+  private static void measure(String name, LongSupplier rendering) {
+    ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long characters = 0;
+
+    long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+    long start = System.nanoTime();
+    for (int round = 0; round < MEASURED_ROUNDS; round++) {
+      characters += rendering.getAsLong();
+    }
+    long nanos = System.nanoTime() - start;
+    long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+    long rows = (long) MEASURED_ROUNDS * DEPARTURES;
+    // The characters are printed so that the rendering can not be optimized away:
+    System.out.printf("%-20s | %-12.0f | %-15.1f (%d chars)%n", name, rows / (nanos / 1e9),
+        (double) allocated / rows, characters);
+  }
+
+  /**
+   * Renders the departures the way the table was formatted before the renderer, into a
+   * builder that is emptied every chunk of rows.
+   */
+  private static long renderFormatted(List<TrainDispatchSystem> departures) {
+    StringBuilder chunk = new StringBuilder();
+    long characters = 0;
+
+    for (int i = 0; i < departures.size(); i++) {
+      TrainDispatchSystem trainDispatch = departures.get(i);
+      String departureTime = trainDispatch.getDepartureTime().toString();
+      if (trainDispatch.getDelay() > 0) {
+        departureTime = String.format("\u001B[33m%s (%d min delay)%s\u001B[0m",
+            departureTime.chars().mapToObj(c -> (char) c + "̶")
+                .collect(Collectors.joining()),
+            trainDispatch.getDelay(), trainDispatch.getDelay() < 10 ? "      " : "     ");
+      }
+      chunk.append(String.format("| %-17s | %-11s | %-25s | %-5d | %-4s | %-12s |%n",
+          trainDispatch.getDepartureStation(), trainDispatch.getDestination(), departureTime,
+          trainDispatch.getTrack(), trainDispatch.getLine(), trainDispatch.getTrainNumber()));
+
+      if (i % ROWS_PER_CHUNK == ROWS_PER_CHUNK - 1) {
+        characters += chunk.length();
+        chunk.setLength(0);
+      }
+    }
+    return characters + chunk.length();
+  }
+
+  /**
+   * Renders the departures with the renderer, into a builder that is emptied every chunk of
+   * rows.
+   */
+  private static long renderWithRenderer(List<TrainDispatchSystem> departures,
+      TableRowRenderer renderer) {
+    StringBuilder chunk = new StringBuilder();
+    long characters = 0;
+
+    for (int i = 0; i < departures.size(); i++) {
+      renderer.appendRow(departures.get(i), chunk);
+
+      if (i % ROWS_PER_CHUNK == ROWS_PER_CHUNK - 1) {
+        characters += chunk.length();
+        chunk.setLength(0);
+      }
+    }
+    return characters + chunk.length();
+  }
+}
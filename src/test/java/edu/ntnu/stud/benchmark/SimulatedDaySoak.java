@@ -0,0 +1,133 @@
+package edu.ntnu.stud.benchmark;
+
+import edu.ntnu.stud.register.RegisterEvent;
+import edu.ntnu.stud.register.SimulatedClock;
+import edu.ntnu.stud.register.StationClockDriver;
+import edu.ntnu.stud.register.TrainRegister;
+import edu.ntnu.stud.traindispatchsystem.TrainDispatchSystem;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A soak test of a whole day of traffic on a simulated station clock.
+ *
+ * <p>The register holds a day of departures, two per minute. A {@code SimulatedClock} runs
+ * the day (from 00:00 to 23:00) in about {@code 1440 / speed} real minutes, and a
+ * {@code StationClockDriver} moves the station time and expires the departures. Meanwhile,
+ * the traffic delays and moves random upcoming departures on the thread of the driver, and a
+ * subscriber counts the change events, like a live departure board would.</p>
+ *
+ * <p>At the end the benchmark prints the number of ticks, expired departures and events, and
+ * checks that every departure that left before the end of the day was expired.</p>
+ *
+ * <p>This is not a JUnit test, and is not run by Maven. Run it from the project root with
+ * (the argument is the speed of the clock, 2880 runs the day in 30 seconds):</p>
+ *
+ * <blockquote><pre>
+ * mvn test-compile
+ * java -cp target/classes:target/test-classes edu.ntnu.stud.benchmark.SimulatedDaySoak 2880
+ * </pre></blockquote>
+ *
+ * @author Karwan Shekhe
+ * @version 0.0.1 (Version of this class)
+ * @since 0.2.0 (Introduced in Version 0.2.0 of the Train Dispatch System application)
+ */
+public class SimulatedDaySoak {
+
+  private static final String[] DESTINATIONS = {"Oslo", "Bergen", "Hamar", "Lillehammer"};
+  private static final double DEFAULT_SPEED = 2880;
+  private static final long TICK_MILLIS = 20;
+  private static final long TRAFFIC_MILLIS = 5;
+  private static final LocalTime END_OF_DAY = LocalTime.of(23, 0);
+
+  /**
+   * Runs the simulated day and prints the results.
+   *
+   * @param args The speed of the clock (optional).
+   * @throws InterruptedException If the soak test is interrupted.
+   */
+  public static void main(String[] args) throws InterruptedException {
+    double speed = args.length > 0 ? Double.parseDouble(args[0]) : DEFAULT_SPEED;
+    TrainRegister register = new TrainRegister(new SimulatedClock(LocalTime.MIDNIGHT, speed));
+
+    List<TrainDispatchSystem> departures = new ArrayList<>();
+    for (int minute = 1; minute < 24 * 60; minute++) {
+      for (int train = 0; train < 2; train++) {
+        departures.add(new TrainDispatchSystem("Gjøvik", DESTINATIONS[(minute + train) % 4],
+            LocalTime.of(minute / 60, minute % 60), "F" + (1 + train), 1 + (minute + train) % 10,
+            "D" + minute + "x" + train));
+      }
+    }
+    register.addTrainDepartures(departures);
+    AtomicLong events = countEvents(register);
+
+    Random random = new Random(24);
+    long changes = 0;
+    long start = System.nanoTime();
+    StationClockDriver driver = new StationClockDriver(register, TICK_MILLIS);
+    try {
+      // The traffic: delays and new tracks for the next departures, until the evening (the
+      // station time stops well before midnight, so that a late tick cannot wrap it):
+      while (register.snapshot().getStationTime().isBefore(END_OF_DAY)) {
+        driver.execute(() -> {
+          List<TrainDispatchSystem> next = register.nextDepartures(20);
+          if (!next.isEmpty()) {
+            TrainDispatchSystem trainDispatch = next.get(random.nextInt(next.size()));
+            register.setDelay(trainDispatch.getTrainNumber(), random.nextInt(16));
+            register.setTrack(trainDispatch.getTrainNumber(), 1 + random.nextInt(10));
+          }
+        });
+        changes += 2;
+        Thread.sleep(TRAFFIC_MILLIS);
+      }
+    } finally {
+      driver.close();
+    }
+    double seconds = (System.nanoTime() - start) / 1e9;
+
+    // Every departure that left before the station time should have expired:
+    long notExpired = register.snapshot().nextDepartures(Integer.MAX_VALUE).size();
+    long missed = register.snapshot().size() - notExpired;
+    System.out.printf("Simulated day in %.1f s at %.0fx: %d ticks, %d expired, %d changes,"
+            + " %d events (%d dropped), %d left at %s, %d missed%n", seconds, speed,
+        driver.getTicks(), driver.getExpiredDepartures(), changes, events.get(),
+        register.getDroppedEventCount(), notExpired, register.getStationTime(), missed);
+    if (driver.getLastFailure() != null || missed > 0) {
+      throw new IllegalStateException("The soak test failed", driver.getLastFailure());
+    }
+  }
+
+  /**
+   * Subscribes to the change events of the register, and counts them.
+   *
+   * @param register The register.
+   * @return The number of events received so far.
+   */
+  private static AtomicLong countEvents(TrainRegister register) {
+    AtomicLong events = new AtomicLong();
+    register.changeEvents().subscribe(new Flow.Subscriber<>() {
+      @Override
+      public void onSubscribe(Flow.Subscription subscription) {
+        subscription.request(Long.MAX_VALUE);
+      }
+
+      @Override
+      public void onNext(RegisterEvent event) {
+        events.incrementAndGet();
+      }
+
+      @Override
+      public void onError(Throwable throwable) {
+      }
+
+      @Override
+      public void onComplete() {
+      }
+    });
+    return events;
+  }
+}
@@ -0,0 +1,82 @@
+package edu.ntnu.stud.benchmark;
+
+import edu.ntnu.stud.persistence.SnapshotFile;
+import edu.ntnu.stud.register.TrainRegister;
+import edu.ntnu.stud.traindispatchsystem.TrainDispatchSystem;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A small benchmark for starting up from a {@code SnapshotFile}.
+ *
+ * <p>The benchmark writes a snapshot of a register with a million departures, and measures
+ * the time it takes to open the file (mapping it, and reading the name table), to read every
+ * departure from the mapped file, and to load all departures into a new register.</p>
+ *
+ * <p>This is not a JUnit test, and is not run by Maven. Run it from the project root with:</p>
+ *
+ * <blockquote><pre>
+ * mvn test-compile
+ * java -Xmx2g -cp target/classes:target/test-classes edu.ntnu.stud.benchmark.SnapshotStartupBenchmark
+ * </pre></blockquote>
+ *
+ * @author Karwan Shekhe
+ * @version 0.0.1 (Version of this class)
+ * @since 0.2.0 (Introduced in Version 0.2.0 of the Train Dispatch System application)
+ */
+public class SnapshotStartupBenchmark {
+
+  private static final int DEPARTURES = 1_000_000;
+  private static final String[] DESTINATIONS = {"Oslo", "Bergen", "Hamar", "Lillehammer"};
+  private static final int ROUNDS = 5;
+
+  /**
+   * Runs the benchmark and prints the times of the last round.
+   *
+   * @param args Command-line arguments (not used).
+   * @throws IOException If the snapshot file can not be written or read.
+   */
+  public static void main(String[] args) throws IOException {
+    Path file = Files.createTempFile("register", ".snapshot");
+    try {
+      TrainRegister register = new TrainRegister();
+      List<TrainDispatchSystem> departures = new ArrayList<>(DEPARTURES);
+      for (int i = 0; i < DEPARTURES; i++) {
+        departures.add(new TrainDispatchSystem("Gjøvik", DESTINATIONS[i % DESTINATIONS.length],
+            LocalTime.of((i / 60) % 24, i % 60), "F1", 1 + i % 10, "S" + i));
+      }
+      register.addTrainDepartures(departures);
+
+      long start = System.nanoTime();
+      SnapshotFile.write(register.snapshot(), 0, file);
+      System.out.printf("Write:  %8.1f ms (%d MB)%n", (System.nanoTime() - start) / 1e6,
+          Files.size(file) / (1024 * 1024));
+
+      for (int round = 0; round < ROUNDS; round++) {
+        start = System.nanoTime();
+        SnapshotFile snapshotFile = SnapshotFile.open(file);
+        long opened = System.nanoTime();
+
+        long delays = 0;
+        for (int i = 0; i < snapshotFile.size(); i++) {
+          delays += snapshotFile.departure(i).delay();
+        }
+        long read = System.nanoTime();
+
+        snapshotFile.loadInto(new TrainRegister());
+        long loaded = System.nanoTime();
+
+        // The total delay is printed so that the reads can not be optimized away:
+        System.out.printf("Round %d: open %6.1f ms | read all %7.1f ms | load %8.1f ms"
+                + " | total delay %d%n", round, (opened - start) / 1e6, (read - opened) / 1e6,
+            (loaded - read) / 1e6, delays);
+      }
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+}
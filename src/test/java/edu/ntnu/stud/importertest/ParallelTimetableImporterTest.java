@@ -0,0 +1,135 @@
+package edu.ntnu.stud.importertest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.ntnu.stud.importer.ImportReport;
+import edu.ntnu.stud.importer.ParallelTimetableImporter;
+import edu.ntnu.stud.importer.TimetableCsvImporter;
+import edu.ntnu.stud.register.TrainRegister;
+import edu.ntnu.stud.traindispatchsystem.TrainDispatchSystem;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ParallelTimetableImporterTest {
+
+  @TempDir
+  Path directory;
+
+
+  /**
+   * Writes a timetable with valid rows, invalid rows and duplicate train numbers
+   * spread over the whole file.
+   *
+   * @param lineBreak The line break to use.
+   * @return The timetable file.
+   */
+  private Path writeTimetable(String lineBreak) throws IOException {
+    StringBuilder rows = new StringBuilder("trainNumber,departureStation,destination,"
+        + "departureTime,line,track,delay").append(lineBreak);
+
+    for (int i = 0; i < 3000; i++) {
+      if (i % 97 == 0) {
+        rows.append("BAD").append(i).append(",Gjøvik,Oslo,99:99,F1,1,0");
+      } else {
+        // Some rows reuse the train number of a row about two chunks earlier:
+        int trainNumber = i % 50 == 10 && i > 401 ? i - 401 : i;
+        rows.append("P").append(trainNumber).append(",Gjøvik,")
+            .append(i % 2 == 0 ? "Oslo" : "Hamar").append(',').append(String.format("%02d:%02d", (i / 60) % 24, i % 60))
+            .append(",F1,").append(1 + i % 10).append(",").append(i % 7);
+      }
+      rows.append(lineBreak);
+    }
+    rows.append("LAST,Gjøvik,Bergen,23:59,F1,1");  // No line break at the end
+
+    Path file = directory.resolve("timetable.csv");
+    Files.writeString(file, rows, StandardCharsets.UTF_8);
+    return file;
+  }
+
+
+  /**
+   * Provides the train numbers and delays of a register, in the order of the register.
+   */
+  private static List<String> contentsOf(TrainRegister register) {
+    List<String> contents = new ArrayList<>();
+    register.getTrainDispatchListIterator().forEachRemaining(train ->
+        contents.add(train.getTrainNumber() + "/" + train.getDestination() + "/"
+            + train.getDelay()));
+    return contents;
+  }
+
+
+  /**
+   * Tests that the parallel import gives exactly the same register and report as the
+   * streaming import, so duplicates are resolved the same way (the first row wins).
+   */
+  @Test
+  void parallelImportMatchesStreamingImportTest() throws IOException {
+    // Arrange
+    Path file = writeTimetable("\n");
+    TrainRegister streamed = new TrainRegister();
+    TrainRegister parallel = new TrainRegister();
+
+    // Act
+    ImportReport streamedReport = new TimetableCsvImporter().importFile(file, streamed);
+    ImportReport parallelReport = new ParallelTimetableImporter(4).importFile(file, parallel);
+
+    // Assert
+    assertEquals(streamedReport.getRowsRead(), parallelReport.getRowsRead());
+    assertEquals(streamedReport.getRowsImported(), parallelReport.getRowsImported());
+    assertEquals(streamedReport.getErrorCount(), parallelReport.getErrorCount());
+    assertEquals(streamedReport.getErrors(), parallelReport.getErrors(),
+        "The errors should have the same line numbers");
+    assertEquals(contentsOf(streamed), contentsOf(parallel));
+    assertTrue(parallel.searchByAttributeAndValue("trainNumber", "LAST").hasNext(),
+        "The last line without a line break should be imported");
+    System.out.println("Streamed: " + streamedReport + "\nParallel: " + parallelReport);
+  }
+
+
+  /**
+   * Tests that the first occurrence of a duplicate train number is kept, also when the
+   * duplicates end up in different chunks, and that Windows line breaks are read.
+   */
+  @Test
+  void firstOccurrenceWinsWithWindowsLineBreaksTest() throws IOException {
+    // Arrange
+    Path file = writeTimetable("\r\n");
+    TrainRegister register = new TrainRegister();
+
+    // Act
+    ImportReport report = new ParallelTimetableImporter(8).importFile(file, register);
+
+    // Assert
+    TrainDispatchSystem first = register.searchByAttributeAndValue("trainNumber", "P59").next();
+    assertEquals("Hamar", first.getDestination(), "The row of line 61 should win over line 462");
+    assertEquals(3, first.getDelay());
+    assertEquals(1, report.getErrors().stream()
+        .filter(error -> error.lineNumber() == 462).count());
+    assertEquals(0, report.getErrors().stream()
+        .filter(error -> error.message().startsWith("Invalid departure time: 99:99\r"))
+        .count(), "The line break should not be part of the last column");
+    System.out.println(report);
+  }
+
+
+  /**
+   * Tests the import of an empty file.
+   */
+  @Test
+  void importEmptyFileTest() throws IOException {
+    Path file = directory.resolve("empty.csv");
+    Files.writeString(file, "");
+
+    ImportReport report = new ParallelTimetableImporter().importFile(file, new TrainRegister());
+
+    assertEquals(0, report.getRowsRead());
+    assertEquals(0, report.getErrorCount());
+  }
+}
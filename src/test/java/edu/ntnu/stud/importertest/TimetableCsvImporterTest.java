@@ -0,0 +1,117 @@
+package edu.ntnu.stud.importertest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.ntnu.stud.importer.ImportReport;
+import edu.ntnu.stud.importer.TimetableCsvImporter;
+import edu.ntnu.stud.register.TrainRegister;
+import edu.ntnu.stud.traindispatchsystem.TrainDispatchSystem;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TimetableCsvImporterTest {
+
+  TrainRegister registerTest;
+  String timetable = """
+      trainNumber,departureStation,destination,departureTime,line,track,delay
+      CSV1,Gjøvik,Oslo,14:30,F1,3,0
+      CSV2,Gjøvik,Bergen,09:15,F2,4
+
+      # A comment line
+      CSV3,Gjøvik,Hamar,25:00,F1,5,0
+      CSV4,Gjøvik,Lillehammer,10:00,F1,11,0
+      CSV1,Gjøvik,Oslo,18:00,F1,6,0
+      CSV5,Gjøvik,Oslo,18:00
+      CSV6,Gjøvik,Oslo,18:45,F3,7,15
+      """;
+
+  @BeforeEach
+  void setUp() {
+    registerTest = new TrainRegister();
+  }
+
+  @AfterEach
+  void tearDown() {
+    registerTest = null;
+  }
+
+
+  /**
+   * Tests the import of a timetable with both valid and invalid rows.
+   * <p>
+   * Verifies that the valid rows are added to the register, and that every invalid row is
+   * reported with its line number, without stopping the import.
+   */
+  @Test
+  void importValidAndInvalidRowsTest() throws IOException {
+    // Arrange
+    TimetableCsvImporter importer = new TimetableCsvImporter(2);
+
+    // Act
+    ImportReport report = importer.importFrom(
+        new BufferedReader(new StringReader(timetable)), registerTest);
+
+    // Assert
+    assertEquals(7, report.getRowsRead(), "Headers, blank lines and comments are not rows");
+    assertEquals(3, report.getRowsImported());
+    assertEquals(4, report.getErrorCount());
+    assertEquals(6, report.getErrors().get(0).lineNumber(), "Invalid time on line 6");
+    assertEquals(7, report.getErrors().get(1).lineNumber(), "Invalid track on line 7");
+    assertEquals(8, report.getErrors().get(2).lineNumber(), "Duplicate train number on line 8");
+    assertEquals(9, report.getErrors().get(3).lineNumber(), "Missing columns on line 9");
+
+    Iterator<TrainDispatchSystem> delayed =
+        registerTest.searchByAttributeAndValue("trainNumber", "CSV6");
+    assertEquals(15, delayed.next().getDelay(), "The delay column should be imported");
+    System.out.println(report);
+    report.getErrors().forEach(System.out::println);
+  }
+
+
+  /**
+   * Tests the import of a timetable file.
+   * <p>
+   * Verifies that the file is read and that the report measures the throughput.
+   */
+  @Test
+  void importFileTest(@TempDir Path directory) throws IOException {
+    // Arrange
+    Path file = directory.resolve("timetable.csv");
+    StringBuilder rows = new StringBuilder();
+    for (int i = 0; i < 500; i++) {
+      rows.append("F").append(i).append(",Gjøvik,Oslo,")
+          .append(String.format("%02d:%02d", (i / 60) % 24, i % 60))
+          .append(",F1,").append(1 + i % 10).append('\n');
+    }
+    Files.writeString(file, rows, StandardCharsets.UTF_8);
+
+    // Act
+    ImportReport report = new TimetableCsvImporter().importFile(file, registerTest);
+
+    // Assert
+    assertEquals(500, report.getRowsImported());
+    assertEquals(0, report.getErrorCount());
+    assertTrue(report.getRowsPerSecond() > 0, "The throughput should be measured");
+    System.out.println(report);
+  }
+
+
+  /**
+   * Tests the negative case of a missing timetable file.
+   * Verifies that an {@code IOException} is thrown.
+   */
+  @Test
+  void importMissingFileNegativeTest(@TempDir Path directory) {
+    assertThrows(IOException.class, () -> new TimetableCsvImporter()
+        .importFile(directory.resolve("missing.csv"), registerTest));
+  }
+}
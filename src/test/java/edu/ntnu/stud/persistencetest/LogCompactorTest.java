@@ -0,0 +1,133 @@
+package edu.ntnu.stud.persistencetest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.ntnu.stud.persistence.LogCompactor;
+import edu.ntnu.stud.persistence.SnapshotFile;
+import edu.ntnu.stud.persistence.WriteAheadLog;
+import edu.ntnu.stud.register.DepartureRecord;
+import edu.ntnu.stud.register.TrainRegister;
+import edu.ntnu.stud.traindispatchsystem.TrainDispatchSystem;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LogCompactorTest {
+
+  /**
+   * Tests compacting the log of a register.
+   * <p>
+   * Verifies that the snapshot file is written, that the log is emptied, and that the register
+   * is recovered from the snapshot and the changes made after the compaction.
+   */
+  @Test
+  void compactTest(@TempDir Path directory) throws IOException {
+    // Arrange
+    Path logFile = directory.resolve("register.wal");
+    Path snapshotPath = directory.resolve("register.snapshot");
+    TrainRegister register = new TrainRegister();
+
+    try (WriteAheadLog log = new WriteAheadLog(logFile, 1, 0);
+        LogCompactor compactor = new LogCompactor(log, snapshotPath, 0, 0)) {
+      log.recover(register);
+      register.initializeDepartureRegister();
+      for (int delay = 0; delay <= 60; delay++) {
+        register.setDelay("101", delay);
+      }
+      long logSizeBefore = Files.size(logFile);
+
+      // Act
+      assertTrue(compactor.compact());
+      long logSizeAfter = Files.size(logFile);
+
+      // Assert
+      assertTrue(logSizeAfter < logSizeBefore, "The compacted records should be dropped");
+      assertEquals(log.getBasePosition(), log.position(), "The log should be empty");
+      assertFalse(compactor.compact(), "Nothing is left to compact");
+      register.setTrack("102", 9);  // Replayed from the log after the snapshot
+      System.out.println("Log size: " + logSizeBefore + " -> " + logSizeAfter + " bytes");
+    }
+
+    TrainRegister recovered = new TrainRegister();
+    try (WriteAheadLog log = new WriteAheadLog(logFile)) {
+      SnapshotFile snapshotFile = SnapshotFile.open(snapshotPath);
+      snapshotFile.loadInto(recovered);
+      log.recover(recovered, snapshotFile.getLogPosition());
+    }
+    assertEquals(departuresOf(register), departuresOf(recovered));
+  }
+
+
+  /**
+   * Tests compacting in the background while the register keeps being changed.
+   * Verifies that no change is lost or applied twice.
+   */
+  @Test
+  void backgroundCompactTest(@TempDir Path directory) throws Exception {
+    // Arrange
+    Path logFile = directory.resolve("register.wal");
+    Path snapshotPath = directory.resolve("register.snapshot");
+    TrainRegister register = new TrainRegister();
+    long compactions;
+
+    try (WriteAheadLog log = new WriteAheadLog(logFile, 16, 0);
+        LogCompactor compactor = new LogCompactor(log, snapshotPath, 1, 0)) {
+      log.recover(register);
+
+      // Act
+      for (int i = 0; i < 3_000; i++) {
+        register.addTrainDeparture(new TrainDispatchSystem("Gjøvik", "Oslo",
+            LocalTime.of((i / 60) % 24, i % 60), "F1", 1 + i % 10, "LC" + i));
+        register.setDelay("LC" + (i / 2), i % 61);
+        if (i % 3 == 0) {
+          register.removeTrainByTrainNumber("LC" + (i / 3));
+        }
+        if (i % 500 == 0) {
+          Thread.sleep(5);
+        }
+      }
+      compactions = compactor.getCompactions();
+      assertNull(compactor.getLastFailure());
+    }
+
+    // Assert
+    TrainRegister recovered = new TrainRegister();
+    try (WriteAheadLog log = new WriteAheadLog(logFile)) {
+      long logPosition = 0;
+      if (Files.exists(snapshotPath)) {
+        SnapshotFile snapshotFile = SnapshotFile.open(snapshotPath);
+        snapshotFile.loadInto(recovered);
+        logPosition = snapshotFile.getLogPosition();
+      }
+      log.recover(recovered, logPosition);
+    }
+    assertEquals(departuresOf(register), departuresOf(recovered));
+    System.out.println("Background compactions: " + compactions);
+  }
+
+
+  /**
+   * Tests the negative case of constructing a compactor without a log.
+   * Verifies that an {@code IllegalArgumentException} is thrown.
+   */
+  @Test
+  void constructorNegativeTest(@TempDir Path directory) {
+    assertThrows(IllegalArgumentException.class,
+        () -> new LogCompactor(null, directory.resolve("register.snapshot"), 0, 0));
+  }
+
+
+  /**
+   * Collects the departures of the current snapshot of a register.
+   */
+  private static List<DepartureRecord> departuresOf(TrainRegister register) {
+    List<DepartureRecord> departures = new ArrayList<>();
+    register.snapshot().forEach(departures::add);
+    return departures;
+  }
+}
@@ -0,0 +1,229 @@
+package edu.ntnu.stud.persistencetest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.ntnu.stud.persistence.SnapshotFile;
+import edu.ntnu.stud.persistence.WriteAheadLog;
+import edu.ntnu.stud.register.DepartureRecord;
+import edu.ntnu.stud.register.TrainRegister;
+import edu.ntnu.stud.traindispatchsystem.TrainDispatchSystem;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SnapshotFileTest {
+
+  TrainRegister registerTest;
+
+  @BeforeEach
+  void setUp() {
+    registerTest = new TrainRegister();
+    registerTest.addTrainDeparture(new TrainDispatchSystem("Gjøvik", "Oslo",
+        LocalTime.of(8, 0), "F1", 1, "SNAP1"));
+    registerTest.addTrainDeparture(new TrainDispatchSystem("Gjøvik", "Bergen",
+        LocalTime.of(9, 0), "F2", 2, "SNAP2"));
+    registerTest.addTrainDeparture(new TrainDispatchSystem("Gjøvik", "Oslo",
+        LocalTime.of(10, 0), "F1", 3, "SNAPÆ"));
+    registerTest.setDelay("SNAP2", 20);
+    registerTest.updateStationTime(LocalTime.of(6, 30));
+  }
+
+
+  /**
+   * Tests writing a snapshot file and loading it into a new register.
+   * <p>
+   * Verifies that the departures, the station time, the register version and the log
+   * position are restored, and that the loaded train numbers are allocated.
+   */
+  @Test
+  void writeAndLoadTest(@TempDir Path directory) throws IOException {
+    // Arrange
+    Path file = directory.resolve("register.snapshot");
+    SnapshotFile.write(registerTest.snapshot(), 1234, file);
+
+    // Act
+    SnapshotFile snapshotFile = SnapshotFile.open(file);
+    TrainRegister loaded = new TrainRegister();
+    int loadedDepartures = snapshotFile.loadInto(loaded);
+
+    // Assert
+    assertEquals(3, loadedDepartures);
+    assertEquals(registerTest.getVersion(), snapshotFile.getRegisterVersion());
+    assertEquals(1234, snapshotFile.getLogPosition());
+    assertEquals(LocalTime.of(6, 30), loaded.getStationTime());
+    assertEquals(departuresOf(registerTest), departuresOf(loaded));
+    assertFalse(loaded.addTrainDeparture(new TrainDispatchSystem("Gjøvik", "Hamar",
+        LocalTime.of(12, 0), "F1", 4, "SNAPÆ")), "The loaded train numbers are allocated");
+    assertFalse(Files.exists(directory.resolve("register.snapshot.tmp")),
+        "The temporary file should have been moved in place");
+  }
+
+
+  /**
+   * Tests reading single departures from the mapped file, without loading it into a register.
+   */
+  @Test
+  void lazyDepartureTest(@TempDir Path directory) throws IOException {
+    // Arrange
+    Path file = directory.resolve("register.snapshot");
+    SnapshotFile.write(registerTest.snapshot(), 0, file);
+
+    // Act
+    SnapshotFile snapshotFile = SnapshotFile.open(file);
+    DepartureRecord delayed = snapshotFile.departure(1);
+
+    // Assert
+    assertEquals(3, snapshotFile.size());
+    assertEquals("SNAP2", delayed.trainNumber(), "Ordered by effective departure time");
+    assertEquals(20, delayed.delay());
+    assertSame(TrainDispatchSystem.getSymbolTable().nameOf(
+        TrainDispatchSystem.getSymbolTable().idOf("Bergen")), delayed.destination(),
+        "The names should be the interned instances");
+    assertThrows(IndexOutOfBoundsException.class, () -> snapshotFile.departure(3));
+  }
+
+
+  /**
+   * Tests recovering from a snapshot file and the rest of the write-ahead log.
+   * Verifies that only the changes made after the snapshot are replayed.
+   */
+  @Test
+  void recoverFromSnapshotAndLogTest(@TempDir Path directory) throws IOException {
+    // Arrange
+    Path logFile = directory.resolve("register.wal");
+    Path snapshotPath = directory.resolve("register.snapshot");
+    TrainRegister register = new TrainRegister();
+    try (WriteAheadLog log = new WriteAheadLog(logFile, 1, 0)) {
+      log.recover(register);
+      register.initializeDepartureRegister();
+      log.sync();
+      SnapshotFile.write(register.snapshot(), log.position(), snapshotPath);
+      register.setDelay("102", 10);
+      register.removeTrainByTrainNumber("103");
+    }
+
+    // Act
+    TrainRegister recovered = new TrainRegister();
+    long replayedRecords;
+    try (WriteAheadLog log = new WriteAheadLog(logFile)) {
+      SnapshotFile snapshotFile = SnapshotFile.open(snapshotPath);
+      snapshotFile.loadInto(recovered);
+      replayedRecords = log.recover(recovered, snapshotFile.getLogPosition());
+    }
+
+    // Assert
+    assertEquals(2, replayedRecords);
+    assertEquals(departuresOf(register), departuresOf(recovered));
+  }
+
+
+  /**
+   * Tests continuing from a snapshot file when the write-ahead log was lost.
+   * Verifies that a new log can be started at the position of the snapshot, and that the
+   * changes appended to it are replayed on top of the snapshot.
+   */
+  @Test
+  void recoverWithLostLogTest(@TempDir Path directory) throws IOException {
+    // Arrange
+    Path logFile = directory.resolve("register.wal");
+    Path snapshotPath = directory.resolve("register.snapshot");
+    SnapshotFile.write(registerTest.snapshot(), 5000, snapshotPath);
+
+    // Act
+    TrainRegister register = new TrainRegister();
+    try (WriteAheadLog log = new WriteAheadLog(logFile, 1, 0)) {
+      SnapshotFile snapshotFile = SnapshotFile.open(snapshotPath);
+      snapshotFile.loadInto(register);
+      assertThrows(IOException.class, () -> log.recover(register, 5000));
+      log.startAt(snapshotFile.getLogPosition());
+      log.recover(register, snapshotFile.getLogPosition());
+      register.setDelay("SNAP1", 5);
+      assertThrows(IllegalStateException.class, () -> log.startAt(0));
+    }
+    TrainRegister recovered = new TrainRegister();
+    try (WriteAheadLog log = new WriteAheadLog(logFile)) {
+      SnapshotFile.open(snapshotPath).loadInto(recovered);
+      assertEquals(5000, log.getBasePosition());
+      assertEquals(1, log.recover(recovered, 5000));
+    }
+
+    // Assert
+    assertEquals(departuresOf(register), departuresOf(recovered));
+    assertEquals(5, recovered.searchByAttributeAndValue("trainNumber", "SNAP1").next()
+        .getDelay());
+  }
+
+
+  /**
+   * Tests the negative case of loading a snapshot file into a register that is not empty.
+   */
+  @Test
+  void loadIntoNonEmptyRegisterNegativeTest(@TempDir Path directory) throws IOException {
+    // Arrange
+    Path file = directory.resolve("register.snapshot");
+    SnapshotFile.write(registerTest.snapshot(), 0, file);
+    SnapshotFile snapshotFile = SnapshotFile.open(file);
+
+    // Act and Assert
+    assertThrows(IOException.class, () -> snapshotFile.loadInto(registerTest));
+    assertEquals(3, registerTest.snapshot().size(), "The register should be unchanged");
+  }
+
+
+  /**
+   * Tests the negative case of a damaged snapshot file.
+   * Verifies that an {@code IOException} is thrown when the checksum does not match.
+   */
+  @Test
+  void openDamagedFileNegativeTest(@TempDir Path directory) throws IOException {
+    Path file = directory.resolve("register.snapshot");
+    SnapshotFile.write(registerTest.snapshot(), 0, file);
+    byte[] bytes = Files.readAllBytes(file);
+    bytes[10] ^= 1;  // In the header
+    Files.write(file, bytes);
+
+    assertThrows(IOException.class, () -> SnapshotFile.open(file));
+    assertThrows(IOException.class, () -> SnapshotFile.open(directory.resolve("missing")));
+  }
+
+
+  /**
+   * Tests the negative case of a snapshot file with a damaged row.
+   * Verifies that the file still opens, since only the header and the name table are read,
+   * and that loading it throws an {@code IOException} without changing the register.
+   */
+  @Test
+  void loadDamagedRowsNegativeTest(@TempDir Path directory) throws IOException {
+    // Arrange
+    Path file = directory.resolve("register.snapshot");
+    SnapshotFile.write(registerTest.snapshot(), 0, file);
+    byte[] bytes = Files.readAllBytes(file);
+    bytes[bytes.length - 5] ^= 1;  // In the last train number, before the row checksum
+    Files.write(file, bytes);
+    TrainRegister restored = new TrainRegister();
+
+    // Act
+    SnapshotFile snapshotFile = SnapshotFile.open(file);
+
+    // Assert
+    assertEquals(3, snapshotFile.size());
+    assertThrows(IOException.class, () -> snapshotFile.loadInto(restored));
+    assertEquals(0, restored.snapshot().size(), "The register should be unchanged");
+  }
+
+
+  /**
+   * Collects the departures of the current snapshot of a register.
+   */
+  private static List<DepartureRecord> departuresOf(TrainRegister register) {
+    List<DepartureRecord> departures = new ArrayList<>();
+    register.snapshot().forEach(departures::add);
+    return departures;
+  }
+}
@@ -0,0 +1,193 @@
+package edu.ntnu.stud.persistencetest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.ntnu.stud.persistence.WriteAheadLog;
+import edu.ntnu.stud.register.DepartureRecord;
+import edu.ntnu.stud.register.TrainRegister;
+import edu.ntnu.stud.traindispatchsystem.TrainDispatchSystem;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class WriteAheadLogTest {
+
+  /**
+   * Tests recovering a register from its write-ahead log.
+   * <p>
+   * Verifies that added and removed departures, delays, track changes, departure time changes
+   * and the station time are all replayed in order into a new register.
+   */
+  @Test
+  void recoverTest(@TempDir Path directory) throws IOException {
+    // Arrange
+    Path file = directory.resolve("register.wal");
+    TrainRegister register = new TrainRegister();
+    try (WriteAheadLog log = new WriteAheadLog(file, 4, 0)) {
+      assertEquals(0, log.recover(register), "A new log has nothing to recover");
+      register.addTrainDeparture(new TrainDispatchSystem("Gjøvik", "Oslo",
+          LocalTime.of(8, 0), "F1", 1, "WAL1"));
+      register.addTrainDepartures(List.of(
+          new TrainDispatchSystem("Gjøvik", "Bergen", LocalTime.of(9, 0), "F2", 2, "WAL2"),
+          new TrainDispatchSystem("Gjøvik", "Hamar", LocalTime.of(10, 0), "F3", 3, "WAL3")));
+      register.setDelay("WAL1", 15);
+      register.setTrack("WAL2", 7);
+      register.setDepartureTime("WAL3", LocalTime.of(11, 30));
+      register.removeTrainByTrainNumber("WAL2");
+      register.updateStationTime(LocalTime.of(7, 45));
+    }
+
+    // Act
+    TrainRegister recovered = new TrainRegister();
+    long replayedRecords;
+    try (WriteAheadLog log = new WriteAheadLog(file)) {
+      replayedRecords = log.recover(recovered);
+    }
+
+    // Assert
+    assertEquals(8, replayedRecords);
+    assertEquals(LocalTime.of(7, 45), recovered.getStationTime());
+    List<DepartureRecord> departures = departuresOf(recovered);
+    assertEquals(departuresOf(register), departures);
+    assertEquals(2, departures.size());
+    assertEquals(15, departures.get(0).delay());
+    assertEquals(11 * 60 + 30, departures.get(1).departureMinute());
+    System.out.println("Replayed records: " + replayedRecords);
+  }
+
+
+  /**
+   * Tests that the changes made after recovery are appended to the same log.
+   */
+  @Test
+  void appendAfterRecoverTest(@TempDir Path directory) throws IOException {
+    // Arrange
+    Path file = directory.resolve("register.wal");
+    try (WriteAheadLog log = new WriteAheadLog(file)) {
+      TrainRegister register = new TrainRegister();
+      log.recover(register);
+      register.initializeDepartureRegister();
+    }
+
+    // Act
+    try (WriteAheadLog log = new WriteAheadLog(file)) {
+      TrainRegister register = new TrainRegister();
+      log.recover(register);
+      register.setDelay("101", 30);
+    }
+    TrainRegister recovered = new TrainRegister();
+    try (WriteAheadLog log = new WriteAheadLog(file)) {
+      log.recover(recovered);
+    }
+
+    // Assert
+    assertEquals(5, recovered.snapshot().size());
+    assertEquals(30, recovered.searchByAttributeAndValue("trainNumber", "101").next().getDelay());
+  }
+
+
+  /**
+   * Tests recovering a log whose last record was only partly written, as after a crash.
+   * Verifies that the complete records are replayed, and that the partial record is cut off
+   * so that later records can be appended.
+   */
+  @Test
+  void recoverTornTailTest(@TempDir Path directory) throws IOException {
+    // Arrange
+    Path file = directory.resolve("register.wal");
+    try (WriteAheadLog log = new WriteAheadLog(file, 1, 0)) {
+      TrainRegister register = new TrainRegister();
+      log.recover(register);
+      register.addTrainDeparture(new TrainDispatchSystem("Gjøvik", "Oslo",
+          LocalTime.of(8, 0), "F1", 1, "TORN1"));
+      register.addTrainDeparture(new TrainDispatchSystem("Gjøvik", "Bergen",
+          LocalTime.of(9, 0), "F1", 2, "TORN2"));
+    }
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+      channel.truncate(channel.size() - 3);
+    }
+
+    // Act
+    TrainRegister recovered = new TrainRegister();
+    try (WriteAheadLog log = new WriteAheadLog(file)) {
+      assertEquals(1, log.recover(recovered));
+      recovered.setDelay("TORN1", 5);
+    }
+    TrainRegister again = new TrainRegister();
+    try (WriteAheadLog log = new WriteAheadLog(file)) {
+      assertEquals(2, log.recover(again));
+    }
+
+    // Assert
+    assertEquals(1, again.snapshot().size());
+    assertEquals(5, departuresOf(again).get(0).delay());
+  }
+
+
+  /**
+   * Tests the negative case of opening a file that is not a write-ahead log.
+   * Verifies that an {@code IOException} is thrown.
+   */
+  @Test
+  void openInvalidFileNegativeTest(@TempDir Path directory) throws IOException {
+    Path file = directory.resolve("timetable.csv");
+    Files.writeString(file, "trainNumber,departureStation,destination\n");
+
+    assertThrows(IOException.class, () -> new WriteAheadLog(file));
+    assertThrows(IllegalArgumentException.class,
+        () -> new WriteAheadLog(directory.resolve("register.wal"), 0, 0));
+  }
+
+
+  /**
+   * Tests appending from several threads while full batches are forced to the disk.
+   * Verifies that every record is written once and replayed, since the batches are forced
+   * outside the lock of the appends.
+   */
+  @Test
+  void concurrentAppendsWithGroupCommitTest(@TempDir Path directory) throws Exception {
+    // Arrange
+    Path file = directory.resolve("register.wal");
+    int threads = 4;
+    int recordsPerThread = 250;
+    List<Thread> appenders = new ArrayList<>();
+
+    // Act
+    try (WriteAheadLog log = new WriteAheadLog(file, 8, 0)) {
+      for (int t = 0; t < threads; t++) {
+        Thread appender = new Thread(() -> {
+          for (int i = 0; i < recordsPerThread; i++) {
+            log.stationTimeSet(LocalTime.of(12, i % 60));
+          }
+        });
+        appenders.add(appender);
+        appender.start();
+      }
+      for (Thread appender : appenders) {
+        appender.join();
+      }
+    }
+
+    // Assert
+    try (WriteAheadLog log = new WriteAheadLog(file)) {
+      assertEquals(threads * recordsPerThread, log.recover(new TrainRegister()));
+    }
+  }
+
+
+  /**
+   * Collects the departures of the current snapshot of a register.
+   */
+  private static List<DepartureRecord> departuresOf(TrainRegister register) {
+    List<DepartureRecord> departures = new ArrayList<>();
+    register.snapshot().forEach(departures::add);
+    return departures;
+  }
+}
@@ -0,0 +1,225 @@
+package edu.ntnu.stud.registertest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.ntnu.stud.register.ConcurrentTrainRegister;
+import edu.ntnu.stud.register.DepartureRecord;
+import edu.ntnu.stud.traindispatchsystem.TrainDispatchSystem;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ConcurrentTrainRegisterTest {
+
+  private static final int THREADS = 8;
+
+  ConcurrentTrainRegister registerTest;
+  ExecutorService executor;
+
+  @BeforeEach
+  void setUp() {
+    registerTest = new ConcurrentTrainRegister();
+    executor = Executors.newFixedThreadPool(THREADS);
+  }
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+    registerTest = null;
+  }
+
+
+  /**
+   * Tests the positive case of adding, searching, delaying and removing a departure.
+   * Verifies that the register behaves like the {@code TrainRegister} for a single thread.
+   */
+  @Test
+  void addSearchAndRemoveDeparturePositiveTest() {
+    // Arrange
+    registerTest.addTrainDeparture(new TrainDispatchSystem("Gjøvik", "Oslo",
+        LocalTime.of(10, 0), "F1", 1, "C1"));
+    registerTest.addTrainDeparture(new TrainDispatchSystem("Gjøvik", "Oslo",
+        LocalTime.of(9, 0), "F1", 2, "C2"));
+
+    // Act
+    registerTest.setDelay("C2", 30);
+
+    // Assert
+    Iterator<DepartureRecord> toOslo = registerTest.searchByAttributeAndValue("destination",
+        "Oslo");
+    assertEquals("C2", toOslo.next().trainNumber());
+    assertEquals("C1", toOslo.next().trainNumber());
+    assertEquals(30, registerTest.getDeparture("C2").delay());
+    assertTrue(registerTest.searchByAttributeAndValue("departureTime", "09:00").hasNext());
+    assertTrue(registerTest.removeTrainByTrainNumber("C1"));
+    assertEquals(1, registerTest.size(), "One departure should be left");
+  }
+
+
+  /**
+   * Tests the negative case of adding the same train number from several threads.
+   * Verifies that exactly one of the threads succeeds for each train number.
+   */
+  @Test
+  void concurrentDuplicateAddsNegativeTest() throws Exception {
+    // Arrange
+    List<Callable<Integer>> tasks = new ArrayList<>();
+    for (int thread = 0; thread < THREADS; thread++) {
+      tasks.add(() -> {
+        int added = 0;
+        for (int i = 0; i < 500; i++) {
+          if (registerTest.addTrainDeparture(new TrainDispatchSystem("Gjøvik", "Oslo",
+              LocalTime.of(i / 60 % 24, i % 60), "F1", 1 + i % 10, "D" + i))) {
+            added++;
+          }
+        }
+        return added;
+      });
+    }
+
+    // Act
+    int totalAdded = 0;
+    for (Future<Integer> result : executor.invokeAll(tasks)) {
+      totalAdded += result.get();
+    }
+
+    // Assert
+    assertEquals(500, totalAdded, "Each train number should be added exactly once");
+    assertEquals(500, registerTest.size());
+  }
+
+
+  /**
+   * Tests that readers can iterate and search while writers change delays and remove
+   * departures, without exceptions, and that the indexes are consistent afterwards.
+   */
+  @Test
+  void concurrentReadersAndWritersTest() throws Exception {
+    // Arrange
+    for (int i = 0; i < 1000; i++) {
+      registerTest.addTrainDeparture(new TrainDispatchSystem("Gjøvik", "Oslo",
+          LocalTime.of(i / 60 % 24, i % 60), "F1", 1 + i % 10, "RW" + i));
+    }
+
+    List<Callable<Integer>> tasks = new ArrayList<>();
+    for (int thread = 0; thread < THREADS / 2; thread++) {
+      final int writer = thread;
+      tasks.add(() -> {
+        for (int i = writer; i < 1000; i += THREADS / 2) {
+          registerTest.setDelay("RW" + i, i % 60);
+          registerTest.setTrack("RW" + i, 1 + (i + 1) % 10);
+        }
+        return 0;
+      });
+      tasks.add(() -> {
+        int seen = 0;
+        for (int round = 0; round < 20; round++) {
+          // A record is never changed, so it is always found in the order of its own delay:
+          int previousMinute = -1;
+          Iterator<DepartureRecord> iterator = registerTest.getTrainDispatchListIterator();
+          while (iterator.hasNext()) {
+            int minute = iterator.next().effectiveDepartureMinute();
+            assertTrue(minute >= previousMinute, "The departures should stay in order");
+            previousMinute = minute;
+            seen++;
+          }
+          registerTest.searchByAttributeAndValue("destination", "Oslo");
+        }
+        return seen;
+      });
+    }
+
+    // Act
+    for (Future<Integer> result : executor.invokeAll(tasks)) {
+      result.get();      // Rethrows any exception from the readers or writers
+    }
+
+    // Assert
+    int count = 0;
+    Iterator<DepartureRecord> iterator = registerTest.getTrainDispatchListIterator();
+    while (iterator.hasNext()) {
+      iterator.next();
+      count++;
+    }
+    assertEquals(1000, count, "Every departure should be in the time index exactly once");
+
+    int toOslo = 0;
+    Iterator<DepartureRecord> results = registerTest.searchByAttributeAndValue("destination",
+        "Oslo");
+    while (results.hasNext()) {
+      results.next();
+      toOslo++;
+    }
+    assertEquals(1000, toOslo, "Every departure should be found exactly once");
+    assertEquals(59, registerTest.getDeparture("RW59").delay());
+    assertEquals(1, registerTest.getDeparture("RW59").track());
+  }
+
+
+  /**
+   * Tests removing departures whose departure time has passed.
+   * Verifies that only the expired departures are removed.
+   */
+  @Test
+  void removeTrainsIfDepartureTimePassedTest() {
+    // Arrange
+    registerTest.addTrainDeparture(new TrainDispatchSystem("Gjøvik", "Oslo",
+        LocalTime.of(8, 0), "F1", 1, "E1"));
+    registerTest.addTrainDeparture(new TrainDispatchSystem("Gjøvik", "Oslo",
+        LocalTime.of(12, 0), "F1", 2, "E2"));
+    registerTest.updateStationTime(LocalTime.of(10, 0));
+
+    // Act
+    List<DepartureRecord> expired = registerTest.removeTrainsIfDepartureTimePassed();
+
+    // Assert
+    assertEquals(1, expired.size());
+    assertEquals("E1", expired.get(0).trainNumber());
+    assertNull(registerTest.getDeparture("E1"));
+    assertFalse(registerTest.searchByAttributeAndValue("trainNumber", "E1").hasNext());
+    assertTrue(registerTest.searchByAttributeAndValue("trainNumber", "E2").hasNext());
+  }
+
+
+  /**
+   * Tests searching by destination and departure time in the indexes of the snapshot.
+   * Verifies that a delayed departure is still found at its scheduled departure time, that a
+   * removed departure is no longer found, and that an earlier snapshot is not changed.
+   */
+  @Test
+  void indexedSearchFollowsChangesTest() {
+    // Arrange
+    registerTest.addTrainDeparture(new TrainDispatchSystem("Gjøvik", "Oslo",
+        LocalTime.of(9, 0), "F1", 1, "I1"));
+    registerTest.addTrainDeparture(new TrainDispatchSystem("Gjøvik", "Bergen",
+        LocalTime.of(9, 0), "F2", 2, "I2"));
+    registerTest.addTrainDeparture(new TrainDispatchSystem("Gjøvik", "Oslo",
+        LocalTime.of(9, 30), "F1", 3, "I3"));
+    var before = registerTest.snapshot();
+
+    // Act
+    registerTest.setDelay("I1", 60);
+    registerTest.removeTrainByTrainNumber("I2");
+
+    // Assert
+    Iterator<DepartureRecord> atNine = registerTest.searchByAttributeAndValue("departureTime",
+        "09:00");
+    assertEquals("I1", atNine.next().trainNumber());
+    assertFalse(atNine.hasNext(), "The removed departure should not be found");
+    assertFalse(registerTest.searchByAttributeAndValue("destination", "Bergen").hasNext());
+    Iterator<DepartureRecord> toOslo = registerTest.searchByAttributeAndValue("destination",
+        "Oslo");
+    assertEquals("I3", toOslo.next().trainNumber());
+    assertEquals("I1", toOslo.next().trainNumber());
+    assertEquals(1, before.departuresTo("Bergen").size(), "A snapshot should never change");
+    assertEquals(2, before.departuresAt(9 * 60).size());
+  }
+}
@@ -0,0 +1,214 @@
+package edu.ntnu.stud.registertest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.ntnu.stud.register.RegisterEvent;
+import edu.ntnu.stud.register.RegisterEventType;
+import edu.ntnu.stud.register.SimulatedClock;
+import edu.ntnu.stud.register.StationClockDriver;
+import edu.ntnu.stud.register.TrainRegister;
+import edu.ntnu.stud.traindispatchsystem.TrainDispatchSystem;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.function.LongSupplier;
+import org.junit.jupiter.api.Test;
+
+class StationClockTest {
+
+  private static final Instant MIDNIGHT = Instant.parse("2024-01-15T00:00:00Z");
+
+
+  /**
+   * Tests that a simulated clock runs the given number of times faster than real time.
+   */
+  @Test
+  void simulatedClockSpeedTest() {
+    // Arrange
+    ManualNanoTime realTime = new ManualNanoTime();
+    SimulatedClock clock = new SimulatedClock(MIDNIGHT.plus(Duration.ofHours(6)),
+        ZoneOffset.UTC, 60, realTime);
+
+    // Act
+    realTime.advance(Duration.ofSeconds(90));
+
+    // Assert
+    assertEquals(LocalTime.of(7, 30), LocalTime.now(clock), "90 real seconds are 90 minutes");
+    assertEquals(clock.instant(), clock.withZone(ZoneId.of("Europe/Oslo")).instant());
+    assertEquals(60, clock.getSpeed());
+    assertThrows(IllegalArgumentException.class, () -> new SimulatedClock(LocalTime.NOON, 0));
+    assertThrows(IllegalArgumentException.class, () -> new SimulatedClock(null, 10));
+    assertThrows(IllegalArgumentException.class,
+        () -> new SimulatedClock(MIDNIGHT, ZoneOffset.UTC, 1, null));
+  }
+
+
+  /**
+   * Tests {@code advanceStationTime} with a simulated clock.
+   * <p>
+   * Verifies that the station time follows the clock in whole minutes, that the departures
+   * that have left are removed, and that both are published as change events.
+   */
+  @Test
+  void advanceStationTimeTest() throws InterruptedException {
+    // Arrange
+    ManualNanoTime realTime = new ManualNanoTime();
+    TrainRegister register = new TrainRegister(new SimulatedClock(
+        MIDNIGHT.plus(Duration.ofHours(7)), ZoneOffset.UTC, 60, realTime));
+    register.addTrainDeparture(new TrainDispatchSystem("Gjøvik", "Oslo",
+        LocalTime.of(7, 30), "F1", 1, "CLOCK1"));
+    register.addTrainDeparture(new TrainDispatchSystem("Gjøvik", "Hamar",
+        LocalTime.of(9, 0), "F2", 2, "CLOCK2"));
+    ConcurrentLinkedQueue<RegisterEventType> events = subscribe(register);
+
+    // Act
+    List<TrainDispatchSystem> beforeFirstMinute = register.advanceStationTime();
+    realTime.advance(Duration.ofSeconds(45).plusMillis(500));  // 07:45:30
+    List<TrainDispatchSystem> expired = register.advanceStationTime();
+
+    // Assert
+    assertTrue(beforeFirstMinute.isEmpty());
+    assertEquals(LocalTime.of(7, 45), register.getStationTime());
+    assertEquals(List.of("CLOCK1"),
+        expired.stream().map(TrainDispatchSystem::getTrainNumber).toList());
+    assertEquals(1, register.snapshot().size());
+    long deadline = System.currentTimeMillis() + 5_000;
+    while (events.size() < 2 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(List.of(RegisterEventType.STATION_TIME_CHANGED, RegisterEventType.EXPIRED),
+        List.copyOf(events));
+  }
+
+
+  /**
+   * Tests that a station time set by the user is kept by {@code advanceStationTime} while the
+   * clock stays within the same minute, and follows the clock again once it moves on.
+   */
+  @Test
+  void manualStationTimeIsKeptWithinClockMinuteTest() {
+    // Arrange
+    ManualNanoTime realTime = new ManualNanoTime();
+    TrainRegister register = new TrainRegister(new SimulatedClock(
+        MIDNIGHT.plus(Duration.ofHours(7)), ZoneOffset.UTC, 1, realTime));
+    register.addTrainDeparture(new TrainDispatchSystem("Gjøvik", "Oslo",
+        LocalTime.of(7, 30), "MANUAL1", 1, "MANUAL1"));
+    register.updateStationTime(LocalTime.of(6, 0));
+
+    // Act
+    realTime.advance(Duration.ofSeconds(30));  // 07:00:30, the same clock minute
+    List<TrainDispatchSystem> withinMinute = register.advanceStationTime();
+    LocalTime keptTime = register.getStationTime();
+    realTime.advance(Duration.ofSeconds(30));  // 07:01:00
+    List<TrainDispatchSystem> nextMinute = register.advanceStationTime();
+
+    // Assert
+    assertTrue(withinMinute.isEmpty());
+    assertEquals(LocalTime.of(6, 0), keptTime, "The manual station time should be kept");
+    assertTrue(nextMinute.isEmpty(), "The departure at 07:30 has not left yet");
+    assertEquals(LocalTime.of(7, 1), register.getStationTime());
+    assertEquals(1, register.snapshot().size());
+  }
+
+
+  /**
+   * Tests the {@code StationClockDriver} with a clock that runs an hour per real second.
+   * Verifies that the departures expire by themselves, while changes run on the driver.
+   */
+  @Test
+  void stationClockDriverTest() throws InterruptedException {
+    // Arrange
+    TrainRegister register = new TrainRegister(new SimulatedClock(LocalTime.of(7, 58), 3600));
+    for (int i = 0; i < 3; i++) {
+      register.addTrainDeparture(new TrainDispatchSystem("Gjøvik", "Oslo",
+          LocalTime.of(8, i * 10), "F1", 1 + i, "DRIVE" + i));
+    }
+    long expired;
+    long ticks;
+
+    // Act
+    StationClockDriver driver = new StationClockDriver(register, 5);
+    try {
+      driver.execute(() -> register.setDelay("DRIVE2", 60));  // Leaves at 09:20
+      long deadline = System.currentTimeMillis() + 5_000;
+      while (driver.getExpiredDepartures() < 2 && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+    } finally {
+      driver.close();
+    }
+    expired = driver.getExpiredDepartures();
+    ticks = driver.getTicks();
+
+    // Assert
+    assertEquals(2, expired, "The two first departures should have expired");
+    assertEquals("DRIVE2", register.snapshot().iterator().next().trainNumber());
+    assertTrue(register.getStationTime().isAfter(LocalTime.of(8, 10)));
+    assertNull(driver.getLastFailure());
+    assertThrows(IllegalStateException.class, () -> driver.execute(() -> { }));
+    System.out.println("Station time " + register.getStationTime() + " after " + ticks
+        + " ticks, " + expired + " expired");
+  }
+
+
+  /**
+   * Tests the negative cases of constructing a register and a driver.
+   * Verifies that an {@code IllegalArgumentException} is thrown.
+   */
+  @Test
+  void constructorNegativeTest() {
+    assertThrows(IllegalArgumentException.class, () -> new TrainRegister(null));
+    assertThrows(IllegalArgumentException.class,
+        () -> new StationClockDriver(new TrainRegister(), 0));
+  }
+
+
+  /**
+   * Subscribes to the change events of a register, and collects their types.
+   */
+  private static ConcurrentLinkedQueue<RegisterEventType> subscribe(TrainRegister register) {
+    ConcurrentLinkedQueue<RegisterEventType> events = new ConcurrentLinkedQueue<>();
+    register.changeEvents().subscribe(new Flow.Subscriber<>() {
+      @Override
+      public void onSubscribe(Flow.Subscription subscription) {
+        subscription.request(Long.MAX_VALUE);
+      }
+
+      @Override
+      public void onNext(RegisterEvent event) {
+        events.add(event.type());
+      }
+
+      @Override
+      public void onError(Throwable throwable) {
+      }
+
+      @Override
+      public void onComplete() {
+      }
+    });
+    return events;
+  }
+
+
+  /**
+   * A source of real time that only moves when the test moves it.
+   */
+  private static final class ManualNanoTime implements LongSupplier {
+    private long now;
+
+    void advance(Duration duration) {
+      now += duration.toNanos();
+    }
+
+    @Override
+    public long getAsLong() {
+      return now;
+    }
+  }
+}
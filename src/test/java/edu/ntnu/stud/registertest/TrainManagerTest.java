@@ -111,4 +111,23 @@ void markTrainNumberAsAllocatedPositiveTest() {
     System.out.println("Train number was not allocated, because it is already been allocated");
 
   }
-}
\ No newline at end of file
+
+
+  /**
+   * Tests releasing an allocated train number.
+   * Verifies that a released train number is available again, and that releasing
+   * a train number that is not allocated reports {@code false}.
+   */
+  @Test
+  void releaseTrainNumberTest() {
+
+    assertTrue(trainManagerTest.releaseTrainNumber("ManagerTest1"),
+        "The allocated train number was not released");
+    assertTrue(trainManagerTest.isTrainNumberAvailable("ManagerTest1"),
+        "The released train number is not available");
+    assertFalse(trainManagerTest.releaseTrainNumber("ManagerTest1"),
+        "The train number was released twice");
+
+    System.out.println("Train number released successfully");
+  }
+}
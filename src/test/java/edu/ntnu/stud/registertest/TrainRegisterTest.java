@@ -2,12 +2,30 @@ package edu.ntnu.stud.registertest;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import edu.ntnu.stud.register.AddResult;
+import edu.ntnu.stud.register.DepartureRecord;
+import edu.ntnu.stud.register.EventOverflowPolicy;
+import edu.ntnu.stud.register.RegisterEvent;
+import edu.ntnu.stud.register.RegisterEventType;
+import edu.ntnu.stud.register.RegisterLog;
+import edu.ntnu.stud.register.RegisterSnapshot;
+import edu.ntnu.stud.register.TrackConflictPolicy;
 import edu.ntnu.stud.register.TrainRegister;
 import edu.ntnu.stud.traindispatchsystem.TrainDispatchSystem;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -207,6 +225,133 @@ class TrainRegisterTest {
   }
 
 
+  /**
+   * Test for the departure time index.
+   * <p>
+   * Tests that the departures are returned in order of their effective departure time
+   * (departure time plus delay), without calling the sort method.
+   * Verifies that a delayed train is moved behind the trains that now leave before it.
+   */
+  @Test
+  void departuresAreOrderedByEffectiveDepartureTimeTest() {
+    // Arrange
+    TrainRegister register = new TrainRegister();
+    register.addTrainDeparture(new TrainDispatchSystem("Gjøvik", "Oslo",
+        LocalTime.of(10, 0), "F1", 1, "ORDER1"));
+    register.addTrainDeparture(new TrainDispatchSystem("Gjøvik", "Bergen",
+        LocalTime.of(10, 20), "F1", 2, "ORDER2"));
+    register.addTrainDeparture(new TrainDispatchSystem("Gjøvik", "Hamar",
+        LocalTime.of(9, 30), "F2", 3, "ORDER3"));
+
+    // Act
+    assertTrue(register.setDelay("ORDER1", 30), "The delay was not set");
+
+    // Assert
+    Iterator<TrainDispatchSystem> iterator = register.getTrainDispatchListIterator();
+    assertEquals("ORDER3", iterator.next().getTrainNumber());
+    assertEquals("ORDER2", iterator.next().getTrainNumber());
+    assertEquals("ORDER1", iterator.next().getTrainNumber());
+    assertFalse(iterator.hasNext(), "There should only be three departures");
+
+    System.out.println("Departures are ordered by effective departure time");
+  }
+
+
+  /**
+   * Test for {@code setDepartureTime}.
+   * <p>
+   * Verifies that changing the departure time moves the departure in the ordering, and
+   * that an unknown train number is reported as not found.
+   */
+  @Test
+  void setDepartureTimeReordersDeparturesTest() {
+    // Arrange
+    TrainRegister register = new TrainRegister();
+    register.addTrainDeparture(new TrainDispatchSystem("Gjøvik", "Oslo",
+        LocalTime.of(10, 0), "F1", 1, "ORDER4"));
+    register.addTrainDeparture(new TrainDispatchSystem("Gjøvik", "Bergen",
+        LocalTime.of(11, 0), "F1", 2, "ORDER5"));
+
+    // Act
+    assertTrue(register.setDepartureTime("ORDER5", LocalTime.of(9, 0)));
+
+    // Assert
+    assertEquals("ORDER5", register.getTrainDispatchListIterator().next().getTrainNumber(),
+        "The departure was not moved to its new departure time");
+    assertFalse(register.setDepartureTime("UNKNOWN", LocalTime.of(9, 0)),
+        "An unknown train number should not be found");
+  }
+
+
+  /**
+   * Test for {@code searchByAttributeAndValue} on destination and departure time.
+   * <p>
+   * Verifies that the destination and departure time searches find the expected departures,
+   * and that the results follow a change of departure time.
+   */
+  @Test
+  void searchByDestinationAndDepartureTimeTest() {
+    // Arrange
+    TrainRegister register = new TrainRegister();
+    register.addTrainDeparture(new TrainDispatchSystem("Gjøvik", "Oslo",
+        LocalTime.of(10, 0), "F1", 1, "SEARCH1"));
+    register.addTrainDeparture(new TrainDispatchSystem("Gjøvik", "Oslo",
+        LocalTime.of(9, 0), "F1", 2, "SEARCH2"));
+    register.addTrainDeparture(new TrainDispatchSystem("Gjøvik", "Hamar",
+        LocalTime.of(10, 0), "F2", 3, "SEARCH3"));
+
+    // Act
+    Iterator<TrainDispatchSystem> toOslo = register.searchByAttributeAndValue("destination", "Oslo");
+    Iterator<TrainDispatchSystem> atTen = register.searchByAttributeAndValue("departureTime", "10:00");
+
+    // Assert
+    assertEquals("SEARCH2", toOslo.next().getTrainNumber(), "Results should be in time order");
+    assertEquals("SEARCH1", toOslo.next().getTrainNumber());
+    assertFalse(toOslo.hasNext(), "Only two departures go to Oslo");
+
+    int departuresAtTen = 0;
+    while (atTen.hasNext()) {
+      assertEquals(LocalTime.of(10, 0), atTen.next().getDepartureTime());
+      departuresAtTen++;
+    }
+    assertEquals(2, departuresAtTen, "Two departures leave at 10:00");
+
+    // The index follows a change of departure time:
+    register.setDepartureTime("SEARCH1", LocalTime.of(11, 0));
+    assertFalse(register.searchByAttributeAndValue("departureTime", "10:00")
+        .next().getTrainNumber().equals("SEARCH1"), "SEARCH1 no longer leaves at 10:00");
+    assertTrue(register.searchByAttributeAndValue("departureTime", "11:00").hasNext());
+    assertFalse(register.searchByAttributeAndValue("departureTime", "invalid").hasNext());
+  }
+
+
+  /**
+   * Test for {@code removeTrainByTrainNumber}.
+   * <p>
+   * Verifies that the departure is removed, that its train number is released so a new
+   * departure can use it, and that removing an unknown train number reports {@code false}.
+   */
+  @Test
+  void removeTrainByTrainNumberReleasesTrainNumberTest() {
+    // Arrange
+    TrainRegister register = new TrainRegister();
+    register.addTrainDeparture(new TrainDispatchSystem("Gjøvik", "Oslo",
+        LocalTime.of(10, 0), "F1", 1, "REMOVE1"));
+
+    // Act
+    boolean removed = register.removeTrainByTrainNumber("REMOVE1");
+
+    // Assert
+    assertTrue(removed, "The departure should be removed");
+    assertFalse(register.searchByAttributeAndValue("trainNumber", "REMOVE1").hasNext());
+    assertFalse(register.getTrainDispatchListIterator().hasNext(), "The register should be empty");
+    assertTrue(register.addTrainDeparture(new TrainDispatchSystem("Gjøvik", "Bergen",
+        LocalTime.of(11, 0), "F1", 2, "REMOVE1")), "The train number should be available again");
+    assertFalse(register.removeTrainByTrainNumber("UNKNOWN"),
+        "An unknown train number should not be removed");
+  }
+
+
   /**
    * Test for {@code removeTrainsIfDepartureTimePassed}.
    * <p>
@@ -256,4 +401,628 @@ class TrainRegisterTest {
     tearDown();
   }
 
-}
\ No newline at end of file
+
+  /**
+   * Test for {@code removeTrainsIfDepartureTimePassed} with delayed trains.
+   * <p>
+   * Verifies that only the departures whose effective departure time (departure time plus
+   * delay) is before the station time are removed and returned, in time order.
+   */
+  @Test
+  void removingExpiredTrainsAccountsForDelayTest() {
+    // Arrange
+    TrainRegister register = new TrainRegister();
+    register.addTrainDeparture(new TrainDispatchSystem("Gjøvik", "Oslo",
+        LocalTime.of(9, 0), "F1", 1, "EXPIRE1"));
+    register.addTrainDeparture(new TrainDispatchSystem("Gjøvik", "Bergen",
+        LocalTime.of(8, 0), "F1", 2, "EXPIRE2"));
+    register.addTrainDeparture(new TrainDispatchSystem("Gjøvik", "Hamar",
+        LocalTime.of(9, 50), "F2", 3, "EXPIRE3"));
+    register.setDelay("EXPIRE3", 20);
+
+    // Act
+    register.updateStationTime(LocalTime.of(10, 0));
+    List<TrainDispatchSystem> expired = register.removeTrainsIfDepartureTimePassed();
+
+    // Assert
+    assertEquals(2, expired.size(), "Two departures should have expired");
+    assertEquals("EXPIRE2", expired.get(0).getTrainNumber());
+    assertEquals("EXPIRE1", expired.get(1).getTrainNumber());
+    assertTrue(register.searchByAttributeAndValue("trainNumber", "EXPIRE3").hasNext(),
+        "The delayed train should still be in the register");
+    assertFalse(register.searchByAttributeAndValue("trainNumber", "EXPIRE1").hasNext(),
+        "The expired train should be removed from the register");
+  }
+
+
+  /**
+   * Test for {@code snapshot}.
+   * <p>
+   * Verifies that a snapshot keeps showing the register as it was when it was taken,
+   * while the register is changed afterwards, and that the version grows with every change.
+   */
+  @Test
+  void snapshotIsNotChangedByLaterChangesTest() {
+    // Arrange
+    TrainRegister register = new TrainRegister();
+    register.addTrainDeparture(new TrainDispatchSystem("Gjøvik", "Oslo",
+        LocalTime.of(9, 0), "F1", 1, "SNAP1"));
+    register.addTrainDeparture(new TrainDispatchSystem("Gjøvik", "Bergen",
+        LocalTime.of(10, 0), "F1", 2, "SNAP2"));
+    RegisterSnapshot snapshot = register.snapshot();
+
+    // Act
+    register.setDelay("SNAP1", 30);
+    register.setTrack("SNAP2", 7);
+    register.removeTrainByTrainNumber("SNAP2");
+    register.addTrainDeparture(new TrainDispatchSystem("Gjøvik", "Hamar",
+        LocalTime.of(8, 0), "F2", 3, "SNAP3"));
+
+    // Assert
+    assertEquals(2, snapshot.size(), "The snapshot should keep its two departures");
+    Iterator<DepartureRecord> records = snapshot.iterator();
+    DepartureRecord first = records.next();
+    assertEquals("SNAP1", first.trainNumber());
+    assertEquals(0, first.delay(), "The later delay should not be visible in the snapshot");
+    assertEquals(2, records.next().track(), "The later track should not be visible");
+    assertFalse(records.hasNext());
+
+    RegisterSnapshot latest = register.snapshot();
+    assertEquals(snapshot.getVersion() + 4, latest.getVersion(),
+        "Every change should increase the version by one");
+    assertEquals(2, latest.size());
+    assertEquals("SNAP3", latest.iterator().next().trainNumber());
+
+    System.out.println("Snapshot version " + snapshot.getVersion() + " unchanged, latest is "
+        + latest.getVersion());
+  }
+
+
+  /**
+   * Test for {@code snapshot} after many random changes.
+   * <p>
+   * Verifies that the snapshot of the register always holds the same departures,
+   * in the same order, as the register itself.
+   */
+  @Test
+  void snapshotMatchesRegisterAfterManyChangesTest() {
+    // Arrange
+    TrainRegister register = new TrainRegister();
+    Random random = new Random(9);
+
+    // Act
+    for (int i = 0; i < 2000; i++) {
+      String trainNumber = "R" + random.nextInt(300);
+      switch (random.nextInt(4)) {
+        case 0 -> register.addTrainDeparture(new TrainDispatchSystem("Gjøvik", "Oslo",
+            LocalTime.of(random.nextInt(24), random.nextInt(60)), "F1", 1, trainNumber));
+        case 1 -> register.removeTrainByTrainNumber(trainNumber);
+        case 2 -> register.setDelay(trainNumber, random.nextInt(61));
+        default -> register.setDepartureTime(trainNumber,
+            LocalTime.of(random.nextInt(24), random.nextInt(60)));
+      }
+    }
+
+    // Assert
+    List<String> expected = new ArrayList<>();
+    register.getTrainDispatchListIterator()
+        .forEachRemaining(train -> expected.add(train.getTrainNumber()));
+    List<String> actual = new ArrayList<>();
+    for (DepartureRecord departure : register.snapshot()) {
+      actual.add(departure.trainNumber());
+    }
+
+    assertEquals(expected, actual, "The snapshot should match the register");
+    assertEquals(expected.size(), register.snapshot().size());
+    System.out.println("Snapshot matches the register with " + actual.size() + " departures");
+  }
+
+
+  /**
+   * Test for {@code RegisterSnapshot.iterator(int)}, used to page through the departure table.
+   * <p>
+   * Verifies that iterating from every index gives the same departures as skipping that many
+   * departures of the full iteration, and that an index past the end gives no departures.
+   */
+  @Test
+  void snapshotIteratorFromIndexTest() {
+    // Arrange
+    TrainRegister register = new TrainRegister();
+    for (int i = 0; i < 200; i++) {
+      register.addTrainDeparture(new TrainDispatchSystem("Gjøvik", "Oslo",
+          LocalTime.of((i * 7) % 24, i % 60), "F1", 1, "P" + i));
+    }
+    RegisterSnapshot snapshot = register.snapshot();
+    List<DepartureRecord> all = new ArrayList<>();
+    snapshot.forEach(all::add);
+
+    // Act and Assert
+    for (int fromIndex = 0; fromIndex <= all.size(); fromIndex++) {
+      List<DepartureRecord> page = new ArrayList<>();
+      snapshot.iterator(fromIndex).forEachRemaining(page::add);
+      assertEquals(all.subList(fromIndex, all.size()), page, "From index " + fromIndex);
+    }
+    assertFalse(snapshot.iterator(all.size() + 10).hasNext());
+    assertEquals(all.get(150).trainNumber(),
+        snapshot.trainDispatchIterator(150).next().getTrainNumber());
+    assertThrows(IllegalArgumentException.class, () -> snapshot.iterator(-1));
+  }
+
+
+  /**
+   * Test for the track conflict detection with {@code TrackConflictPolicy.REJECT}.
+   * <p>
+   * Verifies that a departure on an occupied track within the dwell window is not added,
+   * and that a track change onto an occupied track is rejected.
+   */
+  @Test
+  void trackConflictIsRejectedTest() {
+    // Arrange
+    TrainRegister register = new TrainRegister();
+    register.setTrackConflictPolicy(TrackConflictPolicy.REJECT);
+    register.setDwellMinutes(5);
+    register.addTrainDeparture(new TrainDispatchSystem("Gjøvik", "Oslo",
+        LocalTime.of(12, 0), "F1", 3, "TRACK1"));
+    register.addTrainDeparture(new TrainDispatchSystem("Gjøvik", "Hamar",
+        LocalTime.of(12, 2), "F2", 4, "TRACK2"));
+
+    // Act
+    boolean addedTooClose = register.addTrainDeparture(new TrainDispatchSystem("Gjøvik",
+        "Bergen", LocalTime.of(12, 4), "F1", 3, "TRACK3"));
+    boolean addedAfterDwell = register.addTrainDeparture(new TrainDispatchSystem("Gjøvik",
+        "Bergen", LocalTime.of(12, 5), "F1", 3, "TRACK4"));
+
+    // Assert
+    assertFalse(addedTooClose, "A departure 4 minutes after another on the track is rejected");
+    assertTrue(addedAfterDwell, "A departure 5 minutes after another on the track is added");
+    assertThrows(IllegalStateException.class, () -> register.setTrack("TRACK2", 3),
+        "Moving a departure onto an occupied track should be rejected");
+    assertEquals(4, register.searchByAttributeAndValue("trainNumber", "TRACK2").next()
+        .getTrack(), "A rejected track change should leave the track unchanged");
+    assertTrue(register.setTrack("TRACK1", 3), "A departure never conflicts with itself");
+    System.out.println("Conflicting departures were rejected");
+  }
+
+
+  /**
+   * Test for the track conflict detection with the default {@code TrackConflictPolicy.FLAG}.
+   * <p>
+   * Verifies that a conflicting departure is added, and that the conflict can be looked up,
+   * also after a delay moves a departure out of the dwell window.
+   */
+  @Test
+  void trackConflictIsFlaggedTest() {
+    // Arrange
+    TrainRegister register = new TrainRegister();
+    TrainDispatchSystem first = new TrainDispatchSystem("Gjøvik", "Oslo",
+        LocalTime.of(12, 0), "F1", 3, "FLAG1");
+    TrainDispatchSystem second = new TrainDispatchSystem("Gjøvik", "Hamar",
+        LocalTime.of(12, 3), "F2", 3, "FLAG2");
+
+    // Act
+    register.addTrainDeparture(first);
+    boolean added = register.addTrainDeparture(second);
+    List<TrainDispatchSystem> conflicts = register.findTrackConflicts(second);
+    register.setDelay("FLAG2", 10);
+
+    // Assert
+    assertTrue(added, "A conflicting departure should be added with the FLAG policy");
+    assertEquals(List.of(first), conflicts, "The conflict should be flagged");
+    assertTrue(register.findTrackConflicts(second).isEmpty(),
+        "The delay moves the departure out of the dwell window");
+    System.out.println("Conflicting departures were flagged");
+  }
+
+
+  /**
+   * Test for {@code searchByAttributeAndValue} with the "destinationPrefix" and
+   * "destinationApproximate" attributes.
+   * <p>
+   * Verifies that destinations are found by a prefix or with one typing error, without regard
+   * to case, and that removed destinations are no longer found.
+   */
+  @Test
+  void searchByDestinationPrefixAndApproximateTest() {
+    // Arrange
+    registerTest.addTrainDeparture(new TrainDispatchSystem("Gjøvik", "Lillestrøm",
+        LocalTime.of(7, 0), "R10", 6, "PREFIX1"));
+
+    // Act
+    List<String> byPrefix = new ArrayList<>();
+    registerTest.searchByAttributeAndValue("destinationPrefix", "lille")
+        .forEachRemaining(train -> byPrefix.add(train.getTrainNumber()));
+    List<String> byTypo = new ArrayList<>();
+    registerTest.searchByAttributeAndValue("destinationApproximate", "Bergan")
+        .forEachRemaining(train -> byTypo.add(train.getTrainNumber()));
+    List<String> byPartialWord = new ArrayList<>();
+    registerTest.searchByAttributeAndValue("destinationApproximate", "gardermo")
+        .forEachRemaining(train -> byPartialWord.add(train.getTrainNumber()));
+    registerTest.removeTrainByTrainNumber("PREFIX1");
+
+    // Assert
+    assertEquals(List.of("PREFIX1", "103"), byPrefix,
+        "Both destinations starting with Lille should be found, in departure time order");
+    assertEquals(List.of("102"), byTypo, "A replaced letter should still find Bergen");
+    assertEquals(List.of("105"), byPartialWord, "The start of Gardermoen should find it");
+    assertFalse(registerTest.searchByAttributeAndValue("destinationPrefix", "Lillest")
+        .hasNext(), "A removed destination should no longer be found");
+    System.out.println("Prefix: " + byPrefix + ", approximate: " + byTypo + byPartialWord);
+  }
+
+
+  /**
+   * Test for {@code searchByTimeWindow}.
+   * <p>
+   * Verifies that the departures within the window are found, in time order, both by
+   * scheduled departure time and by effective departure time.
+   */
+  @Test
+  void searchByTimeWindowTest() {
+    // Arrange
+    registerTest.setDelay("102", 45);  // Bergen, scheduled 16:00, leaves 16:45
+
+    // Act
+    List<String> scheduled = new ArrayList<>();
+    registerTest.searchByTimeWindow(LocalTime.of(14, 0), LocalTime.of(16, 30), false)
+        .forEachRemaining(train -> scheduled.add(train.getTrainNumber()));
+    List<String> effective = new ArrayList<>();
+    registerTest.searchByTimeWindow(LocalTime.of(14, 0), LocalTime.of(16, 30), true)
+        .forEachRemaining(train -> effective.add(train.getTrainNumber()));
+
+    // Assert
+    assertEquals(List.of("104", "102"), scheduled, "15:55 and 16:00 are in the window");
+    assertEquals(List.of("104"), effective, "The delayed train leaves after the window");
+    assertFalse(registerTest.searchByTimeWindow(LocalTime.of(16, 1), LocalTime.of(16, 1), false)
+        .hasNext(), "No train is scheduled at 16:01");
+    assertThrows(IllegalArgumentException.class, () -> registerTest.searchByTimeWindow(
+        LocalTime.of(16, 30), LocalTime.of(14, 0), false));
+    System.out.println("Scheduled: " + scheduled + ", effective: " + effective);
+  }
+
+
+  /**
+   * Test for {@code nextDepartures} and its per destination and per track variants.
+   * <p>
+   * Verifies that only the given number of departures after the station time are returned,
+   * in order of effective departure time.
+   */
+  @Test
+  void nextDeparturesTest() {
+    // Arrange
+    registerTest.updateStationTime(LocalTime.of(14, 0));
+    registerTest.addTrainDeparture(new TrainDispatchSystem("Gjøvik", "Oslo",
+        LocalTime.of(17, 0), "F1", 4, "NEXT1"));
+    registerTest.setDelay("104", 30);  // Tromsø, 15:55 becomes 16:25
+
+    // Act
+    List<TrainDispatchSystem> board = registerTest.nextDepartures(3);
+    List<TrainDispatchSystem> toOslo = registerTest.nextDeparturesToDestination(5, "Oslo");
+    List<TrainDispatchSystem> onTrack4 = registerTest.nextDeparturesOnTrack(1, 4);
+
+    // Assert
+    assertEquals(List.of("102", "104", "NEXT1"),
+        board.stream().map(TrainDispatchSystem::getTrainNumber).toList(),
+        "The three next departures after 14:00 should be shown, by effective time");
+    assertEquals(List.of("NEXT1", "101"),
+        toOslo.stream().map(TrainDispatchSystem::getTrainNumber).toList());
+    assertEquals("104", onTrack4.get(0).getTrainNumber());
+    assertEquals(1, onTrack4.size());
+    assertTrue(registerTest.nextDeparturesToDestination(5, "Narvik").isEmpty());
+    assertThrows(IllegalArgumentException.class, () -> registerTest.nextDepartures(-1));
+    System.out.println("Next departures: " + board.size());
+  }
+
+  /**
+   * Test for {@code RegisterSnapshot.nextDepartures}.
+   * <p>
+   * Verifies that a snapshot gives the same next departures as the register, at the station
+   * time of the snapshot.
+   */
+  @Test
+  void snapshotNextDeparturesTest() {
+    // Arrange
+    registerTest.updateStationTime(LocalTime.of(14, 0));
+    registerTest.setDelay("104", 30);
+    RegisterSnapshot snapshot = registerTest.snapshot();
+
+    // Act
+    List<DepartureRecord> board = snapshot.nextDepartures(3);
+    registerTest.updateStationTime(LocalTime.of(23, 0));
+
+    // Assert
+    assertEquals(registerTest.snapshot().size(), snapshot.size());
+    assertEquals(List.of("102", "104", "101"),
+        board.stream().map(DepartureRecord::trainNumber).toList());
+    assertTrue(registerTest.snapshot().nextDepartures(3).isEmpty(),
+        "Nothing leaves after 23:00");
+    assertThrows(IllegalArgumentException.class, () -> snapshot.nextDepartures(-1));
+  }
+
+  /**
+   * Test for adding a batch of departures with {@code addTrainDepartures}.
+   * <p>
+   * Verifies that each departure gets its own result, that duplicates and track conflicts
+   * within the batch are detected, and that one snapshot is published for the batch.
+   */
+  @Test
+  void addTrainDeparturesTest() {
+    // Arrange
+    TrainRegister register = new TrainRegister();
+    register.setTrackConflictPolicy(TrackConflictPolicy.REJECT);
+    register.addTrainDeparture(new TrainDispatchSystem("Gjøvik", "Oslo",
+        LocalTime.of(8, 0), "F1", 1, "BATCH0"));
+    long versionBefore = register.getVersion();
+
+    List<TrainDispatchSystem> batch = Arrays.asList(
+        new TrainDispatchSystem("Gjøvik", "Hamar", LocalTime.of(9, 0), "F1", 2, "BATCH1"),
+        new TrainDispatchSystem("Gjøvik", "Bergen", LocalTime.of(10, 0), "F2", 3, "BATCH0"),
+        new TrainDispatchSystem("Gjøvik", "Bergen", LocalTime.of(11, 0), "F2", 3, "BATCH1"),
+        null,
+        new TrainDispatchSystem("Gjøvik", "Lillehammer", LocalTime.of(9, 2), "F3", 2, "BATCH2"),
+        new TrainDispatchSystem("Gjøvik", "Lillehammer", LocalTime.of(12, 0), "F3", 2, "BATCH3"));
+
+    // Act
+    List<AddResult> results = register.addTrainDepartures(batch);
+
+    // Assert
+    assertEquals(List.of(AddResult.ADDED, AddResult.DUPLICATE_TRAIN_NUMBER,
+        AddResult.DUPLICATE_TRAIN_NUMBER, AddResult.INVALID, AddResult.TRACK_CONFLICT,
+        AddResult.ADDED), results);
+    assertEquals(3, register.snapshot().size());
+    assertEquals(versionBefore + 1, register.getVersion(),
+        "One snapshot should be published for the whole batch");
+    assertEquals("Hamar", register.searchByAttributeAndValue("trainNumber", "BATCH1").next()
+        .getDestination(), "The first departure with a train number should win");
+    assertEquals(List.of(), register.addTrainDepartures(List.of()));
+    assertEquals(versionBefore + 1, register.getVersion(), "An empty batch changes nothing");
+    assertThrows(IllegalArgumentException.class, () -> register.addTrainDepartures(null));
+    System.out.println("Batch results: " + results);
+  }
+
+  /**
+   * Test for merging batches into a register that already holds departures.
+   * <p>
+   * Verifies that a large batch (which rebuilds the indexes from a merge) and a small batch
+   * (which is inserted entry by entry) leave every index and the snapshot in order.
+   */
+  @Test
+  void addTrainDeparturesMergeTest() {
+    // Arrange
+    TrainRegister register = new TrainRegister();
+    for (int i = 0; i < 100; i++) {
+      register.addTrainDeparture(new TrainDispatchSystem("Gjøvik", i % 2 == 0 ? "Oslo" : "Hamar",
+          LocalTime.of(i / 10, i % 10 * 6), "F1", 1 + i % 10, "OLD" + i));
+    }
+    List<TrainDispatchSystem> largeBatch = new ArrayList<>();
+    for (int i = 0; i < 300; i++) {
+      largeBatch.add(new TrainDispatchSystem("Gjøvik", i % 3 == 0 ? "Oslo" : "Bergen",
+          LocalTime.of(i / 20, i % 20 * 3), "F2", 1 + i % 10, "NEW" + i));
+    }
+
+    // Act
+    register.addTrainDepartures(largeBatch);
+    register.addTrainDepartures(List.of(new TrainDispatchSystem("Gjøvik", "Oslo",
+        LocalTime.of(5, 1), "F3", 4, "SMALL")));
+
+    // Assert
+    assertEquals(401, register.snapshot().size());
+    int count = 0;
+    int previousMinute = -1;
+    for (DepartureRecord departure : register.snapshot()) {
+      assertTrue(departure.effectiveDepartureMinute() >= previousMinute);
+      previousMinute = departure.effectiveDepartureMinute();
+      count++;
+    }
+    assertEquals(401, count, "The snapshot should hold every departure once");
+
+    int toOslo = 0;
+    Iterator<TrainDispatchSystem> results = register.searchByAttributeAndValue("destination",
+        "Oslo");
+    previousMinute = -1;
+    while (results.hasNext()) {
+      TrainDispatchSystem trainDispatch = results.next();
+      assertTrue(trainDispatch.getEffectiveDepartureMinute() >= previousMinute);
+      previousMinute = trainDispatch.getEffectiveDepartureMinute();
+      toOslo++;
+    }
+    assertEquals(50 + 100 + 1, toOslo);
+    assertTrue(register.searchByAttributeAndValue("destinationPrefix", "Berg").hasNext());
+    assertEquals(List.of("NEW100", "OLD50"), register.findTrackConflicts(new TrainDispatchSystem(
+        "Gjøvik", "Oslo", LocalTime.of(5, 0), "F1", 1, "PROBE")).stream()
+        .map(TrainDispatchSystem::getTrainNumber).toList(), "The track index should be merged");
+    assertFalse(register.addTrainDeparture(new TrainDispatchSystem("Gjøvik", "Oslo",
+        LocalTime.of(1, 0), "F1", 1, "NEW7")), "Batch train numbers should be allocated");
+  }
+
+  /**
+   * Test for a register log that fails.
+   * <p>
+   * Verifies that a change whose log record can not be written is not made: the register,
+   * its snapshot and its version are unchanged, and the exception is passed on. In a batch,
+   * only the departures logged before the failure are added.
+   */
+  @Test
+  void failingRegisterLogLeavesRegisterUnchangedTest() {
+    // Arrange
+    TrainRegister register = new TrainRegister();
+    register.addTrainDeparture(new TrainDispatchSystem("Gjøvik", "Oslo",
+        LocalTime.of(9, 0), "F1", 1, "LOG1"));
+    int[] allowedRecords = {0};
+    register.setRegisterLog(new RegisterLog() {
+      @Override
+      public void departureAdded(DepartureRecord departure) {
+        fail();
+      }
+
+      @Override
+      public void delaySet(String trainNumber, int delayMinutes) {
+        fail();
+      }
+
+      @Override
+      public void trackSet(String trainNumber, int track) {
+        fail();
+      }
+
+      @Override
+      public void departureRemoved(String trainNumber) {
+        fail();
+      }
+
+      private void fail() {
+        if (allowedRecords[0]-- <= 0) {
+          throw new UncheckedIOException(new IOException("Disk full"));
+        }
+      }
+    });
+    long versionBefore = register.getVersion();
+
+    // Act and Assert
+    assertThrows(UncheckedIOException.class, () -> register.setDelay("LOG1", 15));
+    assertThrows(UncheckedIOException.class, () -> register.setTrack("LOG1", 3));
+    assertThrows(UncheckedIOException.class, () -> register.removeTrainByTrainNumber("LOG1"));
+    assertThrows(UncheckedIOException.class, () -> register.addTrainDeparture(
+        new TrainDispatchSystem("Gjøvik", "Hamar", LocalTime.of(10, 0), "F2", 2, "LOG2")));
+
+    TrainDispatchSystem departure =
+        register.searchByAttributeAndValue("trainNumber", "LOG1").next();
+    assertEquals(0, departure.getDelay());
+    assertEquals(1, departure.getTrack());
+    assertEquals(versionBefore, register.getVersion(), "No change should be published");
+    assertEquals(1, register.snapshot().size());
+    assertTrue(register.searchByAttributeAndValue("destination", "Oslo").hasNext());
+    assertTrue(register.addTrainDepartures(List.of()).isEmpty());
+
+    // Only the first of the batch can be logged:
+    allowedRecords[0] = 1;
+    assertThrows(UncheckedIOException.class, () -> register.addTrainDepartures(List.of(
+        new TrainDispatchSystem("Gjøvik", "Hamar", LocalTime.of(10, 0), "F2", 2, "LOG3"),
+        new TrainDispatchSystem("Gjøvik", "Hamar", LocalTime.of(11, 0), "F2", 2, "LOG4"))));
+    assertEquals(2, register.snapshot().size());
+    assertTrue(register.searchByAttributeAndValue("trainNumber", "LOG3").hasNext());
+    assertFalse(register.searchByAttributeAndValue("trainNumber", "LOG4").hasNext());
+    assertEquals(versionBefore + 1, register.getVersion());
+  }
+
+  /**
+   * Test for the change events of the register.
+   * <p>
+   * Verifies that a subscriber receives one event per changed departure, in order, with the
+   * version of the register after the change.
+   */
+  @Test
+  void changeEventsTest() throws InterruptedException {
+    // Arrange
+    TrainRegister register = new TrainRegister();
+    register.updateStationTime(LocalTime.of(7, 0));
+    BlockingQueue<RegisterEvent> received = new LinkedBlockingQueue<>();
+    CountDownLatch subscribed = new CountDownLatch(1);
+    register.changeEvents().subscribe(new Flow.Subscriber<>() {
+      @Override
+      public void onSubscribe(Flow.Subscription subscription) {
+        subscription.request(Long.MAX_VALUE);
+        subscribed.countDown();
+      }
+
+      @Override
+      public void onNext(RegisterEvent event) {
+        received.add(event);
+      }
+
+      @Override
+      public void onError(Throwable throwable) {
+      }
+
+      @Override
+      public void onComplete() {
+      }
+    });
+    assertTrue(subscribed.await(5, TimeUnit.SECONDS));
+    long versionBefore = register.getVersion();
+
+    // Act
+    register.addTrainDepartures(List.of(
+        new TrainDispatchSystem("Gjøvik", "Oslo", LocalTime.of(7, 30), "F1", 1, "EV1"),
+        new TrainDispatchSystem("Gjøvik", "Hamar", LocalTime.of(8, 0), "F2", 2, "EV2")));
+    register.setDelay("EV2", 10);
+    register.setTrack("EV1", 4);
+    register.updateStationTime(LocalTime.of(7, 45));
+    register.removeTrainsIfDepartureTimePassed();
+
+    // Assert
+    List<RegisterEventType> types = new ArrayList<>();
+    List<Long> versions = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      RegisterEvent event = received.poll(5, TimeUnit.SECONDS);
+      assertNotNull(event, "Event " + i + " should have been received");
+      types.add(event.type());
+      versions.add(event.version() - versionBefore);
+    }
+    assertEquals(List.of(RegisterEventType.ADDED, RegisterEventType.ADDED,
+        RegisterEventType.DELAYED, RegisterEventType.TRACK_CHANGED,
+        RegisterEventType.STATION_TIME_CHANGED, RegisterEventType.EXPIRED), types);
+    assertEquals(List.of(1L, 1L, 2L, 3L, 4L, 5L), versions,
+        "The events of one change should share its version");
+    assertEquals(5, register.getVersion() - versionBefore);
+    assertNull(received.poll(100, TimeUnit.MILLISECONDS), "No other events");
+    assertEquals(EventOverflowPolicy.BLOCK, register.getEventOverflowPolicy());
+    assertEquals(0, register.getDroppedEventCount());
+    System.out.println("Change events: " + types);
+  }
+
+  /**
+   * Test for the change events of a change of many departures.
+   * <p>
+   * Verifies that a batch of more departures than the event buffer holds is published as a
+   * single {@code BULK_CHANGED} event, and that the next change gives single events again.
+   */
+  @Test
+  void bulkChangeEventTest() throws InterruptedException {
+    // Arrange
+    TrainRegister register = new TrainRegister();
+    BlockingQueue<RegisterEvent> received = new LinkedBlockingQueue<>();
+    CountDownLatch subscribed = new CountDownLatch(1);
+    register.changeEvents().subscribe(new Flow.Subscriber<>() {
+      @Override
+      public void onSubscribe(Flow.Subscription subscription) {
+        subscription.request(Long.MAX_VALUE);
+        subscribed.countDown();
+      }
+
+      @Override
+      public void onNext(RegisterEvent event) {
+        received.add(event);
+      }
+
+      @Override
+      public void onError(Throwable throwable) {
+      }
+
+      @Override
+      public void onComplete() {
+      }
+    });
+    assertTrue(subscribed.await(5, TimeUnit.SECONDS));
+    List<TrainDispatchSystem> batch = new ArrayList<>();
+    for (int i = 0; i <= TrainRegister.EVENT_BUFFER_SIZE; i++) {
+      batch.add(new TrainDispatchSystem("Gjøvik", "Oslo",
+          LocalTime.of(i / 60 % 24, i % 60), "F1", 1 + i % 10, "BULK" + i));
+    }
+
+    // Act
+    register.addTrainDepartures(batch);
+    register.setDelay("BULK0", 5);
+
+    // Assert
+    RegisterEvent bulk = received.poll(5, TimeUnit.SECONDS);
+    assertNotNull(bulk);
+    assertEquals(RegisterEventType.BULK_CHANGED, bulk.type());
+    assertNull(bulk.departure());
+    RegisterEvent delayed = received.poll(5, TimeUnit.SECONDS);
+    assertNotNull(delayed);
+    assertEquals(RegisterEventType.DELAYED, delayed.type());
+    assertEquals(bulk.version() + 1, delayed.version());
+    assertNull(received.poll(100, TimeUnit.MILLISECONDS), "No other events");
+  }
+
+}
@@ -1,6 +1,8 @@
 package edu.ntnu.stud.traindispatchsystemtest;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import edu.ntnu.stud.traindispatchsystem.TrainDispatchSystem;
@@ -178,4 +180,73 @@ class TrainDispatchSystemTest {
 
     }
 
-}
\ No newline at end of file
+    /**
+     * Tests that the departure station, destination and line are interned.
+     * Verifies that departures with the same names share the same ids and string instances,
+     * and that different names get different ids.
+     */
+    @Test
+    void namesAreInternedTest() {
+        // Arrange
+        TrainDispatchSystem train1 = new TrainDispatchSystem("Gjøvik", "Lillehammer",
+            LocalTime.of(9, 0), "R10", 2, "INTERN1");
+        TrainDispatchSystem train2 = new TrainDispatchSystem("Gjøvik",
+            new String("Lillehammer"), LocalTime.of(10, 0), "R10", 3, "INTERN2");
+
+        // Assert
+        assertEquals(train1.getDestinationId(), train2.getDestinationId(),
+            "The same destination should have the same id");
+        assertSame(train1.getDestination(), train2.getDestination(),
+            "The destination name should only be stored once");
+        assertEquals(train1.getLineId(), train2.getLineId());
+        assertNotEquals(train1.getDestinationId(), trainDispatchSystemTest.getDestinationId(),
+            "Different destinations should have different ids");
+        assertEquals("Lillehammer", TrainDispatchSystem.getSymbolTable()
+            .nameOf(train1.getDestinationId()));
+    }
+
+    /**
+     * Tests the packed minute-of-day representation of the departure time.
+     * Verifies that the departure time, departure minute and effective departure minute agree.
+     */
+    @Test
+    void packedDepartureMinutePositiveTest() {
+        // Arrange
+        setUp();
+
+        // Act
+        trainDispatchSystemTest.setDelay(20);
+
+        // Assert
+        assertEquals(8 * 60 + 55, trainDispatchSystemTest.getDepartureMinute());
+        assertEquals(8 * 60 + 55 + 20, trainDispatchSystemTest.getEffectiveDepartureMinute());
+
+        trainDispatchSystemTest.setDepartureMinute(23 * 60 + 59);
+        assertEquals(LocalTime.of(23, 59), trainDispatchSystemTest.getDepartureTime());
+
+        tearDown();
+    }
+
+    /**
+     * Tests the negative cases of setting the departure time.
+     * Verifies that a null departure time and a minute outside the day are rejected.
+     */
+    @Test
+    void settingInvalidDepartureTimeNegativeTest() {
+        // Arrange
+        setUp();
+
+        assertThrows(IllegalArgumentException.class,
+            () -> trainDispatchSystemTest.setDepartureTime(null),
+            "A null departure time should not be set");
+        assertThrows(IllegalArgumentException.class,
+            () -> trainDispatchSystemTest.setDepartureMinute(24 * 60),
+            "A departure minute after the end of the day should not be set");
+        assertThrows(IllegalArgumentException.class,
+            () -> trainDispatchSystemTest.setDepartureMinute(-1),
+            "A negative departure minute should not be set");
+
+        tearDown();
+    }
+
+}
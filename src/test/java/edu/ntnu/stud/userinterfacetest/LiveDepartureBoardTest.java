@@ -0,0 +1,150 @@
+package edu.ntnu.stud.userinterfacetest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.ntnu.stud.register.TrainRegister;
+import edu.ntnu.stud.traindispatchsystem.TrainDispatchSystem;
+import edu.ntnu.stud.userinterface.InformationDisplay;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class LiveDepartureBoardTest {
+
+  private static final String ERASE_LINE = "\u001B[2K";
+
+  TrainRegister registerTest;
+  ByteArrayOutputStream outputTest;
+  InformationDisplay displayTest;
+
+  @BeforeEach
+  void setUp() {
+    registerTest = new TrainRegister();
+    registerTest.updateStationTime(LocalTime.of(6, 0));
+    for (int i = 0; i < 6; i++) {
+      registerTest.addTrainDeparture(new TrainDispatchSystem("Gjøvik", "Oslo",
+          LocalTime.of(8 + i, 0), "F1", 1 + i, "LIVE" + i));
+    }
+    outputTest = new ByteArrayOutputStream();
+    displayTest = new InformationDisplay(registerTest,
+        new PrintStream(outputTest, true, StandardCharsets.UTF_8));
+  }
+
+  @AfterEach
+  void tearDown() {
+    displayTest.stopLiveDepartureBoard();
+  }
+
+
+  /**
+   * Tests the live departure board.
+   * <p>
+   * Verifies that the first frame draws the whole board, and that delaying one departure
+   * redraws only the line of that departure, addressed from the line below the board.
+   */
+  @Test
+  void changeRedrawsOnlyChangedLineTest() throws InterruptedException {
+    // Arrange
+    displayTest.startLiveDepartureBoard(4);
+    String firstFrame = output();
+
+    // Act
+    registerTest.setDelay("LIVE1", 15);
+    String redraw = awaitOutputAfter(firstFrame.length(), "15 min delay");
+
+    // Assert
+    assertTrue(firstFrame.contains("LIVE3") && !firstFrame.contains("LIVE4"),
+        "The board shows the next four departures");
+    assertEquals(1, count(redraw, ERASE_LINE), "Only the delayed departure is redrawn");
+    assertTrue(redraw.contains("\u001B[4A"),
+        "The second departure is four lines above the line below the ten lines of the board");
+    assertTrue(redraw.contains("LIVE1") && !redraw.contains("LIVE0"));
+    System.out.println("Redrawn with " + redraw.length() + " characters, the first frame had "
+        + firstFrame.length());
+  }
+
+
+  /**
+   * Tests that the live departure board is no longer updated once it is stopped.
+   */
+  @Test
+  void stopLiveDepartureBoardTest() throws InterruptedException {
+    // Arrange
+    displayTest.startLiveDepartureBoard(4);
+    registerTest.setTrack("LIVE0", 9);
+    awaitOutputAfter(0, "\u001B[5A");
+
+    // Act
+    displayTest.stopLiveDepartureBoard();
+    int stoppedLength = output().length();
+    registerTest.setTrack("LIVE0", 8);
+    Thread.sleep(200);
+
+    // Assert
+    assertEquals(stoppedLength, output().length(), "A stopped board should not be redrawn");
+    assertThrows(IllegalArgumentException.class, () -> displayTest.startLiveDepartureBoard(-1));
+  }
+
+
+  /**
+   * Tests reading input below the live departure board.
+   * <p>
+   * Verifies that every prompt replaces the previous prompt and input, and that a redraw
+   * after the user pressed enter is addressed from the line the cursor moved to.
+   */
+  @Test
+  void readInputKeepsBoardInPlaceTest() throws InterruptedException {
+    // Arrange
+    displayTest.startLiveDepartureBoard(4);
+    List<String> typed = new ArrayList<>(List.of("x", "q"));
+
+    // Act
+    String first = displayTest.readLiveDepartureBoardInput("Leave: ", () -> typed.remove(0));
+    int afterFirstInput = output().length();
+    registerTest.setDelay("LIVE0", 5);
+    String redraw = awaitOutputAfter(afterFirstInput, "5 min delay");
+    int beforeSecondPrompt = output().length();
+    String second = displayTest.readLiveDepartureBoardInput("Leave: ", () -> typed.remove(0));
+
+    // Assert
+    assertEquals("x", first);
+    assertEquals("q", second);
+    assertTrue(redraw.contains("\u001B[6A"), "The cursor is one line below the prompt line");
+    assertEquals("\u001B[1A\r\u001B[JLeave: ", output().substring(beforeSecondPrompt),
+        "The second prompt replaces the first prompt and its input");
+  }
+
+
+  private String output() {
+    return outputTest.toString(StandardCharsets.UTF_8);
+  }
+
+
+  /**
+   * Waits until the output after the given length contains the text, and provides the output
+   * after the given length.
+   */
+  private String awaitOutputAfter(int length, String text) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5_000;
+    while (!output().substring(length).contains(text)) {
+      assertTrue(System.currentTimeMillis() < deadline, "The board was not redrawn in time");
+      Thread.sleep(10);
+    }
+    return output().substring(length);
+  }
+
+
+  private static int count(String text, String part) {
+    int count = 0;
+    for (int index = text.indexOf(part); index >= 0; index = text.indexOf(part, index + 1)) {
+      count++;
+    }
+    return count;
+  }
+}
@@ -0,0 +1,179 @@
+package edu.ntnu.stud.userinterfacetest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.ntnu.stud.register.DepartureRecord;
+import edu.ntnu.stud.register.TrainRegister;
+import edu.ntnu.stud.traindispatchsystem.TrainDispatchSystem;
+import edu.ntnu.stud.userinterface.InformationDisplay;
+import edu.ntnu.stud.userinterface.RenderedRowCache;
+import edu.ntnu.stud.userinterface.TableRowRenderer;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RenderedRowCacheTest {
+
+  TrainRegister registerTest;
+  TableRowRenderer rendererTest;
+  RenderedRowCache rowCacheTest;
+
+  @BeforeEach
+  void setUp() {
+    registerTest = new TrainRegister();
+    for (int i = 0; i < 20; i++) {
+      registerTest.addTrainDeparture(new TrainDispatchSystem("Gjøvik", "Oslo",
+          LocalTime.of(8 + i / 2, (i % 2) * 30), "F1", 1 + i % 10, "CACHE" + i));
+    }
+    rendererTest = new TableRowRenderer(25);
+    rowCacheTest = new RenderedRowCache(rendererTest);
+  }
+
+
+  /**
+   * Tests refreshing the table after changing one departure.
+   * <p>
+   * Verifies that only the changed departure is rendered again, and that every row is the
+   * row of the departure as it is now, including the delay.
+   */
+  @Test
+  void rowIsRenderedAgainOnlyWhenChangedTest() {
+    // Arrange
+    refresh();
+    long missesAfterFirstRefresh = rowCacheTest.getMisses();
+
+    // Act
+    registerTest.setDelay("CACHE3", 15);
+    String table = refresh();
+
+    // Assert
+    assertEquals(20, missesAfterFirstRefresh);
+    assertEquals(21, rowCacheTest.getMisses(), "Only the delayed departure is rendered again");
+    assertEquals(19, rowCacheTest.getHits());
+    StringBuilder expected = new StringBuilder();
+    for (DepartureRecord departure : registerTest.snapshot()) {
+      expected.append(rendererTest.renderRow(departure));
+    }
+    assertEquals(expected.toString(), table);
+    assertTrue(table.contains("15 min delay"));
+    System.out.print(table);
+  }
+
+
+  /**
+   * Tests that changing the track or the departure time of a departure renders its row again.
+   */
+  @Test
+  void trackAndDepartureTimeChangesInvalidateRowTest() {
+    // Arrange
+    refresh();
+
+    // Act
+    registerTest.setTrack("CACHE0", 10);
+    registerTest.setDepartureTime("CACHE1", LocalTime.of(23, 59));
+    refresh();
+
+    // Assert
+    assertEquals(22, rowCacheTest.getMisses());
+    assertEquals(18, rowCacheTest.getHits());
+  }
+
+
+  /**
+   * Tests that the rows of removed departures are evicted.
+   */
+  @Test
+  void evictUnusedTest() {
+    // Arrange
+    refresh();
+
+    // Act
+    registerTest.removeTrainByTrainNumber("CACHE5");
+    registerTest.removeTrainByTrainNumber("CACHE6");
+    refresh();
+
+    // Assert
+    assertEquals(18, rowCacheTest.size());
+  }
+
+
+  /**
+   * Tests that the cache holds at most its capacity of rows.
+   * <p>
+   * Verifies that showing more departures than the capacity keeps only the most recently
+   * shown rows, and that those are still taken from the cache.
+   */
+  @Test
+  void capacityBoundsCacheTest() {
+    // Arrange
+    RenderedRowCache boundedCache = new RenderedRowCache(rendererTest, 5);
+    List<DepartureRecord> departures = new ArrayList<>();
+    registerTest.snapshot().forEach(departures::add);
+
+    // Act
+    departures.forEach(boundedCache::row);
+    for (DepartureRecord departure : departures.subList(15, 20)) {
+      boundedCache.row(departure);
+    }
+
+    // Assert
+    assertEquals(5, boundedCache.size());
+    assertEquals(5, boundedCache.getCapacity());
+    assertEquals(20, boundedCache.getMisses());
+    assertEquals(5, boundedCache.getHits(), "The last rows shown should be cached");
+    assertEquals(RenderedRowCache.DEFAULT_CAPACITY, rowCacheTest.getCapacity());
+  }
+
+
+  /**
+   * Tests showing the full table of a register larger than the capacity of the cache.
+   * <p>
+   * Verifies that the display grows the cache to the table, so the second time the table is
+   * shown every row is taken from the cache.
+   */
+  @Test
+  void fullTableLargerThanCapacityTest() {
+    // Arrange
+    RenderedRowCache boundedCache = new RenderedRowCache(rendererTest, 5);
+    InformationDisplay display = new InformationDisplay(registerTest,
+        new PrintStream(OutputStream.nullOutputStream()), boundedCache);
+    display.displayTrainDispatchListTable(registerTest.snapshot());
+
+    // Act
+    display.displayTrainDispatchListTable(registerTest.snapshot());
+
+    // Assert
+    assertEquals(20, boundedCache.getMisses());
+    assertEquals(20, boundedCache.getHits(), "Every row should be taken from the cache");
+    assertEquals(20, boundedCache.getCapacity());
+  }
+
+
+  /**
+   * Tests the negative case of constructing a cache without a renderer.
+   * Verifies that an {@code IllegalArgumentException} is thrown.
+   */
+  @Test
+  void constructorNegativeTest() {
+    assertThrows(IllegalArgumentException.class, () -> new RenderedRowCache(null));
+    assertThrows(IllegalArgumentException.class,
+        () -> new RenderedRowCache(rendererTest, 0));
+  }
+
+
+  /**
+   * Renders the table of the current snapshot from the cache, like the display does.
+   */
+  private String refresh() {
+    StringBuilder table = new StringBuilder();
+    for (DepartureRecord departure : registerTest.snapshot()) {
+      table.append(rowCacheTest.row(departure));
+    }
+    rowCacheTest.evictUnused();
+    return table.toString();
+  }
+}
@@ -0,0 +1,66 @@
+package edu.ntnu.stud.userinterfacetest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.ntnu.stud.traindispatchsystem.TrainDispatchSystem;
+import edu.ntnu.stud.userinterface.TableRowRenderer;
+import java.time.LocalTime;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class TableRowRendererTest {
+
+  /**
+   * Tests that the renderer gives exactly the rows of the formatted table, for every delay and
+   * track, and for names longer than their columns.
+   */
+  @Test
+  void appendRowMatchesFormattedRowTest() {
+    // Arrange
+    TableRowRenderer renderer = new TableRowRenderer(25);
+    TrainDispatchSystem trainDispatch = new TrainDispatchSystem("Gjøvik", "Lillehammerstasjon",
+        LocalTime.of(7, 5), "F1", 1, "RENDER1");
+    StringBuilder rendered = new StringBuilder();
+    StringBuilder formatted = new StringBuilder();
+
+    // Act
+    for (int delay = 0; delay <= 60; delay++) {
+      trainDispatch.setDelay(delay);
+      trainDispatch.setTrack(1 + delay % 10);
+      trainDispatch.setDepartureMinute(delay * 23);
+      renderer.appendRow(trainDispatch, rendered);
+      formatted.append(formatRow(trainDispatch));
+    }
+
+    // Assert
+    assertEquals(formatted.toString(), rendered.toString());
+    System.out.print(rendered.substring(0, rendered.indexOf(System.lineSeparator(), 200)));
+  }
+
+
+  /**
+   * Tests the negative case of a departure time column without width.
+   * Verifies that an {@code IllegalArgumentException} is thrown.
+   */
+  @Test
+  void constructorNegativeTest() {
+    assertThrows(IllegalArgumentException.class, () -> new TableRowRenderer(0));
+  }
+
+
+  /**
+   * Formats a row the way the table was formatted before the renderer.
+   */
+  private static String formatRow(TrainDispatchSystem trainDispatch) {
+    String departureTime = trainDispatch.getDepartureTime().toString();
+    if (trainDispatch.getDelay() > 0) {
+      departureTime = String.format("\u001B[33m%s (%d min delay)%s\u001B[0m",
+          departureTime.chars().mapToObj(c -> (char) c + "̶")
+              .collect(Collectors.joining()),
+          trainDispatch.getDelay(), trainDispatch.getDelay() < 10 ? "      " : "     ");
+    }
+    return String.format("| %-17s | %-11s | %-25s | %-5d | %-4s | %-12s |%n",
+        trainDispatch.getDepartureStation(), trainDispatch.getDestination(), departureTime,
+        trainDispatch.getTrack(), trainDispatch.getLine(), trainDispatch.getTrainNumber());
+  }
+}